@@ -0,0 +1,50 @@
+#!/bin/bash
+#
+# Measures the time from the JVM start till the releaser's menu is shown.
+# Build the project with the `cds` profile first:
+#
+#   ./mvnw clean install -Pcds -DskipTests
+#
+# Usage: ./scripts/startup-benchmark.sh [number of runs per variant]
+
+set -o errexit
+set -o pipefail
+
+ROOT="$( cd "$( dirname "${BASH_SOURCE[0]}" )/.." && pwd )"
+TARGET="${ROOT}/spring-cloud-release-tools-spring/target"
+FAST_START="${TARGET}/fast-start"
+RUNS="${1:-5}"
+FAT_JAR="$( ls "${TARGET}"/spring-cloud-release-tools-spring-*.jar | head -n 1 )"
+MAIN_CLASS="org.springframework.cloud.release.internal.ReleaserApplication"
+MENU_ONLY="--releaser.fast-start.menu-only=true"
+LAZY_INIT="--releaser.fast-start.lazy-init=true"
+
+if [[ ! -f "${FAST_START}/releaser.jsa" ]]; then
+	echo "There's no class data sharing archive under [${FAST_START}]. Build the project with -Pcds first"
+	exit 1
+fi
+
+function time_to_menu() {
+	"$@" < /dev/null 2>&1 | sed -n 's/.*Menu shown \[\([0-9]*\)\] ms.*/\1/p'
+}
+
+function benchmark() {
+	local name="$1"
+	shift
+	local total=0
+	local result
+	for i in $( seq 1 "${RUNS}" ); do
+		result="$( time_to_menu "$@" )"
+		if [[ -z "${result}" ]]; then
+			echo "[${name}] didn't show the menu"
+			return 1
+		fi
+		total=$(( total + result ))
+	done
+	echo "[${name}] average time to menu: $(( total / RUNS )) ms (${RUNS} runs)"
+}
+
+benchmark "fat jar" java -jar "${FAT_JAR}" "${MENU_ONLY}"
+benchmark "fat jar, lazy init" java -jar "${FAT_JAR}" "${MENU_ONLY}" "${LAZY_INIT}"
+benchmark "classpath, lazy init, CDS" java -XX:SharedArchiveFile="${FAST_START}/releaser.jsa" \
+	-cp "${FAST_START}/releaser.jar:${FAST_START}/lib/*" "${MAIN_CLASS}" "${MENU_ONLY}" "${LAZY_INIT}"
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of the tasks executed during a release. Used to print a summary and
+ * to compute the exit code of the process.
+ *
+ * @author Marcin Grzejszczak
+ */
+public class ReleaseReport {
+
+	public enum Status {
+		SUCCEEDED, FAILED, SKIPPED
+	}
+
+	private final List<TaskResult> results = Collections.synchronizedList(new ArrayList<>());
+	private final List<String> notes = Collections.synchronizedList(new ArrayList<>());
+
+	public void succeeded(String task, long durationMillis) {
+		this.results.add(new TaskResult(task, Status.SUCCEEDED, durationMillis, null));
+	}
+
+	public void failed(String task, long durationMillis, Throwable throwable) {
+		this.results.add(new TaskResult(task, Status.FAILED, durationMillis, String.valueOf(throwable.getMessage())));
+	}
+
+	public void skipped(String task, String reason) {
+		this.results.add(new TaskResult(task, Status.SKIPPED, 0, reason));
+	}
+
+	/**
+	 * Adds a remark printed below the tasks in the summary, e.g. why a part of
+	 * a task got skipped
+	 */
+	public void note(String note) {
+		this.notes.add(note);
+	}
+
+	public List<String> notes() {
+		synchronized (this.notes) {
+			return new ArrayList<>(this.notes);
+		}
+	}
+
+	public List<TaskResult> results() {
+		synchronized (this.results) {
+			return new ArrayList<>(this.results);
+		}
+	}
+
+	public boolean hasFailures() {
+		return results().stream().anyMatch(result -> result.status == Status.FAILED);
+	}
+
+	/**
+	 * @return {@code 0} if no task has failed, {@code 1} otherwise
+	 */
+	public int exitCode() {
+		return hasFailures() ? 1 : 0;
+	}
+
+	public String summary() {
+		StringBuilder summary = new StringBuilder("\n\n\n=== RELEASE SUMMARY ===\n\n");
+		List<TaskResult> results = results();
+		if (results.isEmpty()) {
+			summary.append("No tasks were executed\n");
+		}
+		for (TaskResult result : results) {
+			summary.append(String.format("%-10s %s", result.status, result.task));
+			if (result.status != Status.SKIPPED) {
+				summary.append(" (").append(result.durationMillis).append(" ms)");
+			}
+			if (result.message != null) {
+				summary.append(" - ").append(result.message);
+			}
+			summary.append("\n");
+		}
+		List<String> notes = notes();
+		if (!notes.isEmpty()) {
+			summary.append("\nNotes:\n\n");
+			notes.forEach(note -> summary.append("- ").append(note).append("\n"));
+		}
+		return summary.toString();
+	}
+
+	public static class TaskResult {
+		public final String task;
+		public final Status status;
+		public final long durationMillis;
+		public final String message;
+
+		TaskResult(String task, Status status, long durationMillis, String message) {
+			this.task = task;
+			this.status = status;
+			this.durationMillis = durationMillis;
+			this.message = message;
+		}
+
+		@Override public String toString() {
+			return this.status + " " + this.task;
+		}
+	}
+}
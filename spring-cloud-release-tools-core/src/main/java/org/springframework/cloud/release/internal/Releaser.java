@@ -2,6 +2,9 @@ package org.springframework.cloud.release.internal;
 
 import java.io.File;
 import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,7 +13,11 @@ import org.springframework.cloud.release.internal.git.ProjectGitUpdater;
 import org.springframework.cloud.release.internal.pom.ProjectPomUpdater;
 import org.springframework.cloud.release.internal.pom.ProjectVersion;
 import org.springframework.cloud.release.internal.pom.Projects;
+import org.springframework.cloud.release.internal.pom.VersionsConsistency;
+import org.springframework.cloud.release.internal.pom.VersionsDiff;
 import org.springframework.cloud.release.internal.project.ProjectBuilder;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.Tracer;
 
 /**
  * @author Marcin Grzejszczak
@@ -22,6 +29,7 @@ public class Releaser {
 	private final ProjectBuilder projectBuilder;
 	private final ProjectGitUpdater projectGitUpdater;
 	private final TemplateGenerator templateGenerator;
+	private ReleaseReport report = new ReleaseReport();
 
 	public Releaser(ProjectPomUpdater projectPomUpdater, ProjectBuilder projectBuilder,
 			ProjectGitUpdater projectGitUpdater, TemplateGenerator templateGenerator) {
@@ -31,63 +39,138 @@ public class Releaser {
 		this.templateGenerator = templateGenerator;
 	}
 
+	public ReleaseReport report() {
+		return this.report;
+	}
+
+	/**
+	 * Starts a new report, e.g. for each command sent to a long running releaser
+	 */
+	public ReleaseReport newReport() {
+		this.report = new ReleaseReport();
+		return this.report;
+	}
+
+	public String headCommit(File project) {
+		return this.projectGitUpdater.headCommit(project);
+	}
+
 	public Projects retrieveVersionsFromSCRelease() {
-		return this.projectPomUpdater.retrieveVersionsFromSCRelease();
+		try (Span span = Tracer.span("releaser.retrieve-versions")) {
+			return this.projectPomUpdater.retrieveVersionsFromSCRelease();
+		}
+	}
+
+	public VersionsDiff diffVersionsFromScRelease(String from, String to) {
+		try (Span span = Tracer.span("releaser.versions-diff")) {
+			VersionsDiff diff = this.projectPomUpdater.diffVersionsFromSCRelease(from, to);
+			log.info("\n\nVersions diff between [{}] and [{}]\n\n{}", from, to, diff.table());
+			return diff;
+		}
+	}
+
+	/**
+	 * @param directory - folder with the projects of the release train checked out side by side
+	 */
+	public VersionsConsistency checkVersionsConsistency(File directory, Projects projects) {
+		try (Span span = Tracer.span("releaser.versions-consistency")) {
+			File[] children = directory.listFiles(file -> new File(file, "pom.xml").isFile());
+			if (children == null) {
+				throw new IllegalStateException("The directory [" + directory + "] doesn't exist");
+			}
+			Arrays.sort(children);
+			List<File> projectRoots = Arrays.asList(children);
+			VersionsConsistency consistency = this.projectPomUpdater.checkVersionsConsistency(projectRoots, projects);
+			log.info("\n\nVersions consistency of the projects in [{}]\n\n{}", directory, consistency.table());
+			return consistency;
+		}
 	}
 
 	public void updateProjectFromScRelease(File project, Projects versions) {
-		this.projectPomUpdater.updateProjectFromSCRelease(project, versions);
-		ProjectVersion changedVersion = new ProjectVersion(project);
-		log.info("\n\nProject was successfully updated to [{}]", changedVersion);
+		try (Span span = Tracer.span("releaser.update-poms").tag("project", project.getName())) {
+			this.projectPomUpdater.updateProjectFromSCRelease(project, versions);
+			this.projectBuilder.prefetchDependencies();
+			ProjectVersion changedVersion = new ProjectVersion(project);
+			log.info("\n\nProject was successfully updated to [{}]", changedVersion);
+		}
 	}
 
 	public void buildProject() {
-		this.projectBuilder.build();
-		log.info("\nProject was successfully built");
+		try (Span span = Tracer.span("releaser.build")) {
+			this.projectBuilder.build(this.report);
+			log.info("\nProject was successfully built");
+		}
 	}
 
 	public void commitAndPushTags(File project, ProjectVersion changedVersion) {
-		this.projectGitUpdater.commitAndTagIfApplicable(project, changedVersion);
-		log.info("\nCommit was made and tag was pushed successfully");
+		try (Span span = Tracer.span("releaser.commit-and-push-tags").tag("version", changedVersion.version)) {
+			// the poms are taken from the working tree so that no state is kept between the steps
+			Set<File> changedPoms = this.projectGitUpdater.modifiedPoms(project);
+			this.projectGitUpdater.commitAndTagIfApplicable(project, changedVersion, changedPoms);
+			log.info("\nCommit was made and tag was pushed successfully");
+		}
 	}
 
 	public void deploy() {
-		this.projectBuilder.deploy();
-		log.info("\nThe artifact was deployed successfully");
+		try (Span span = Tracer.span("releaser.deploy")) {
+			this.projectBuilder.deploy();
+			log.info("\nThe artifact was deployed successfully");
+		}
+		try (Span span = Tracer.span("releaser.verify-deployment")) {
+			this.projectBuilder.verifyDeployment();
+		}
 	}
 
 	public void publishDocs(ProjectVersion changedVersion) {
-		this.projectBuilder.publishDocs(changedVersion.version);
-		log.info("\nThe docs were published successfully");
+		try (Span span = Tracer.span("releaser.publish-docs").tag("version", changedVersion.version)) {
+			this.projectBuilder.publishDocs(changedVersion.version);
+			log.info("\nThe docs were published successfully");
+		}
 	}
 
 	public void rollbackReleaseVersion(File project, ProjectVersion originalVersion, ProjectVersion scReleaseVersion) {
-		if (scReleaseVersion.isSnapshot()) {
-			log.info("\nWon't rollback a snapshot version");
-			return;
-		}
-		this.projectGitUpdater.revertChangesIfApplicable(project, scReleaseVersion);
-		if ((scReleaseVersion.isRelease() || scReleaseVersion.isServiceRelease()) && originalVersion.isSnapshot()) {
-			this.projectBuilder.bumpVersions(originalVersion.bumpedVersion());
-			this.projectGitUpdater.commitAfterBumpingVersions(project, originalVersion);
-			log.info("\nSuccessfully reverted the commit and bumped snapshot versions");
-		} else {
-			log.info("\nSuccessfully reverted the commit and came back to snapshot versions");
+		try (Span span = Tracer.span("releaser.rollback").tag("version", scReleaseVersion.version)) {
+			if (scReleaseVersion.isSnapshot()) {
+				log.info("\nWon't rollback a snapshot version");
+				return;
+			}
+			this.projectGitUpdater.revertChangesIfApplicable(project, scReleaseVersion);
+			if ((scReleaseVersion.isRelease() || scReleaseVersion.isServiceRelease()) && originalVersion.isSnapshot()) {
+				Set<File> bumpedPoms = this.projectBuilder.bumpVersions(originalVersion.bumpedVersion());
+				this.projectGitUpdater.commitAfterBumpingVersions(project, originalVersion, bumpedPoms);
+				log.info("\nSuccessfully reverted the commit and bumped snapshot versions");
+			} else {
+				log.info("\nSuccessfully reverted the commit and came back to snapshot versions");
+			}
 		}
 	}
 
 	public void pushCurrentBranch(File project) {
-		this.projectGitUpdater.pushCurrentBranch(project);
-		log.info("\nSuccessfully pushed current branch");
+		try (Span span = Tracer.span("releaser.push")) {
+			this.projectGitUpdater.pushCurrentBranch(project);
+			log.info("\nSuccessfully pushed current branch");
+		}
 	}
 
 	public void closeMilestone(ProjectVersion releaseVersion) {
-		if (releaseVersion.isSnapshot()) {
-			log.info("\nWon't close a milestone for a SNAPSHOT version");
-			return;
+		try (Span span = Tracer.span("releaser.close-milestone").tag("version", releaseVersion.version)) {
+			if (releaseVersion.isSnapshot()) {
+				log.info("\nWon't close a milestone for a SNAPSHOT version");
+				return;
+			}
+			this.projectGitUpdater.closeMilestone(releaseVersion);
+			log.info("\nSuccessfully closed milestone");
+		}
+	}
+
+	/**
+	 * Closes the milestones of all the released projects of the train at once
+	 */
+	public void closeMilestones(Projects projects) {
+		try (Span span = Tracer.span("releaser.close-milestones")) {
+			this.projectGitUpdater.closeMilestones(projects);
+			log.info("\nSuccessfully closed milestones");
 		}
-		this.projectGitUpdater.closeMilestone(releaseVersion);
-		log.info("\nSuccessfully closed milestone");
 	}
 
 	public void createEmail(ProjectVersion releaseVersion) {
@@ -107,4 +190,15 @@ public class Releaser {
 		File blog = this.templateGenerator.blog(projects);
 		log.info("\nSuccessfully created blog template at location [{}]", blog);
 	}
+
+	public void createTemplates(ProjectVersion releaseVersion, Projects projects) {
+		try (Span span = Tracer.span("releaser.create-templates").tag("version", releaseVersion.version)) {
+			if (releaseVersion.isSnapshot()) {
+				log.info("\nWon't create templates for a SNAPSHOT version");
+				return;
+			}
+			List<File> templates = this.templateGenerator.all(projects);
+			log.info("\nSuccessfully created templates at locations {}", templates);
+		}
+	}
 }
@@ -15,6 +15,7 @@
  */
 package org.springframework.cloud.release.internal;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,6 +43,24 @@ public class ReleaserProperties {
 
 	private Maven maven = new Maven();
 
+	private FastStart fastStart = new FastStart();
+
+	private Batch batch = new Batch();
+
+	private Journal journal = new Journal();
+
+	private Tracing tracing = new Tracing();
+
+	private Jfr jfr = new Jfr();
+
+	private Diff diff = new Diff();
+
+	private Manifest manifest = new Manifest();
+
+	private Consistency consistency = new Consistency();
+
+	private Daemon daemon = new Daemon();
+
 	private Map<String, String> fixedVersions = new HashMap<>();
 
 	public static class Git {
@@ -61,6 +80,46 @@ public class ReleaserProperties {
 		 */
 		private String oauthToken;
 
+		/**
+		 * URL of the GitHub API
+		 */
+		private String githubApiUrl = "https://api.github.com";
+
+		/**
+		 * Max number of requests per second sent to the GitHub API. The rate gets lowered
+		 * automatically when GitHub signals that a rate limit is close or was hit
+		 */
+		private int githubRequestsPerSecond = 10;
+
+		/**
+		 * Number of threads used for GitHub operations performed for many projects at once
+		 */
+		private int githubThreads = 4;
+
+		/**
+		 * If {@code true} the application only closes the milestones of all released
+		 * projects of the release train at GitHub and quits
+		 */
+		private boolean closeTrainMilestones = false;
+
+		/**
+		 * If {@code true} the docs will be published to {@code gh-pages} via JGit instead of
+		 * running the {@code publishDocsCommands}. Only the changed files get written to
+		 * the new commit
+		 */
+		private boolean publishDocsInProcess = false;
+
+		/**
+		 * URL to Spring Cloud Static Git repository to which the docs of non-snapshot versions
+		 * get published
+		 */
+		private String springCloudStaticRepoUrl = "git@github.com:spring-cloud/spring-cloud-static.git";
+
+		/**
+		 * Where the {@code gh-pages} branches should be cached between docs publications
+		 */
+		private String docsCacheDir = System.getProperty("java.io.tmpdir") + "/releaser-docs";
+
 		public String getSpringCloudReleaseGitUrl() {
 			return this.springCloudReleaseGitUrl;
 		}
@@ -84,6 +143,62 @@ public class ReleaserProperties {
 		public void setOauthToken(String oauthToken) {
 			this.oauthToken = oauthToken;
 		}
+
+		public String getGithubApiUrl() {
+			return this.githubApiUrl;
+		}
+
+		public void setGithubApiUrl(String githubApiUrl) {
+			this.githubApiUrl = githubApiUrl;
+		}
+
+		public int getGithubRequestsPerSecond() {
+			return this.githubRequestsPerSecond;
+		}
+
+		public void setGithubRequestsPerSecond(int githubRequestsPerSecond) {
+			this.githubRequestsPerSecond = githubRequestsPerSecond;
+		}
+
+		public int getGithubThreads() {
+			return this.githubThreads;
+		}
+
+		public void setGithubThreads(int githubThreads) {
+			this.githubThreads = githubThreads;
+		}
+
+		public boolean isCloseTrainMilestones() {
+			return this.closeTrainMilestones;
+		}
+
+		public void setCloseTrainMilestones(boolean closeTrainMilestones) {
+			this.closeTrainMilestones = closeTrainMilestones;
+		}
+
+		public boolean isPublishDocsInProcess() {
+			return this.publishDocsInProcess;
+		}
+
+		public void setPublishDocsInProcess(boolean publishDocsInProcess) {
+			this.publishDocsInProcess = publishDocsInProcess;
+		}
+
+		public String getSpringCloudStaticRepoUrl() {
+			return this.springCloudStaticRepoUrl;
+		}
+
+		public void setSpringCloudStaticRepoUrl(String springCloudStaticRepoUrl) {
+			this.springCloudStaticRepoUrl = springCloudStaticRepoUrl;
+		}
+
+		public String getDocsCacheDir() {
+			return this.docsCacheDir;
+		}
+
+		public void setDocsCacheDir(String docsCacheDir) {
+			this.docsCacheDir = docsCacheDir;
+		}
 	}
 
 	public static class Pom {
@@ -103,6 +218,30 @@ public class ReleaserProperties {
 				"^.*samples/standalone.*$"
 		});
 
+		/**
+		 * Where the versions of the release train come from. Either {@code git} - the
+		 * branch of Spring Cloud Release gets cloned and its poms parsed, or {@code maven} -
+		 * the released {@code spring-cloud-dependencies} BOM and {@code spring-cloud-starter-parent}
+		 * get resolved from {@link #bomRepositories}. With {@code maven} the {@link #branch}
+		 * has to be the version of the train (e.g. {@code Dalston.SR1})
+		 */
+		private String versionSource = "git";
+
+		/**
+		 * Maven repositories from which the BOM of the release train gets resolved. Both
+		 * {@code file:} and HTTP(S) URLs are supported
+		 */
+		private String[] bomRepositories = {
+				"https://repo.maven.apache.org/maven2",
+				"https://repo.spring.io/milestone"
+		};
+
+		/**
+		 * Where the resolved BOMs should be cached between runs. Released BOMs never
+		 * change so they're resolved only once
+		 */
+		private String bomCacheDir = System.getProperty("java.io.tmpdir") + "/releaser-boms";
+
 		public String getBranch() {
 			return this.branch;
 		}
@@ -118,6 +257,30 @@ public class ReleaserProperties {
 		public void setIgnoredPomRegex(List<String> ignoredPomRegex) {
 			this.ignoredPomRegex = ignoredPomRegex;
 		}
+
+		public String getVersionSource() {
+			return this.versionSource;
+		}
+
+		public void setVersionSource(String versionSource) {
+			this.versionSource = versionSource;
+		}
+
+		public String[] getBomRepositories() {
+			return this.bomRepositories;
+		}
+
+		public void setBomRepositories(String[] bomRepositories) {
+			this.bomRepositories = bomRepositories;
+		}
+
+		public String getBomCacheDir() {
+			return this.bomCacheDir;
+		}
+
+		public void setBomCacheDir(String bomCacheDir) {
+			this.bomCacheDir = bomCacheDir;
+		}
 	}
 
 	public static class Maven {
@@ -148,6 +311,109 @@ public class ReleaserProperties {
 		 */
 		private long waitTimeInMinutes = 20;
 
+		/**
+		 * Max time in seconds for which the process may not produce any output. If the
+		 * process is idle for longer and doesn't use CPU either, a thread dump is taken
+		 * and the process gets killed. {@code 0} switches the check off
+		 */
+		private long idleTimeInSeconds = 0;
+
+		/**
+		 * If {@code true} will run the Maven commands through a Maven Daemon. That way a single
+		 * warm Maven process (with resolved plugins and cached reactor model) is reused for
+		 * the build, deploy and publish docs steps
+		 */
+		private boolean useDaemon = false;
+
+		/**
+		 * Executable of the Maven Daemon. Replaces {@code ./mvnw} and {@code mvn} in the
+		 * commands when {@code useDaemon} is switched on
+		 */
+		private String daemonCommand = "mvnd";
+
+		/**
+		 * If {@code true} will not run the {@code deployCommand} for non-snapshot versions.
+		 * Instead the artifacts and poms produced by the build will get uploaded straight
+		 * to the {@code deployRepositoryUrl}
+		 */
+		private boolean deployFromBuildOutputs = false;
+
+		/**
+		 * URL of the Maven repository to which the build outputs should be uploaded.
+		 * Can be a {@code file:} URL
+		 */
+		private String deployRepositoryUrl;
+
+		/**
+		 * Username used to authenticate against the deploy repository
+		 */
+		private String deployRepositoryUsername;
+
+		/**
+		 * Password used to authenticate against the deploy repository
+		 */
+		private String deployRepositoryPassword;
+
+		/**
+		 * Number of parallel uploads when deploying the build outputs
+		 */
+		private int deployThreads = 8;
+
+		/**
+		 * If {@code true} will check after the deployment that the pom, the main artifact
+		 * and the {@code verifyClassifiers} jars of each module are present in the repository
+		 * and that their published checksums are correct
+		 */
+		private boolean verifyDeployment = true;
+
+		/**
+		 * URL of the Maven repository in which the deployed artifacts should be verified.
+		 * Defaults to {@code deployRepositoryUrl}
+		 */
+		private String verifyRepositoryUrl;
+
+		/**
+		 * Classifiers of the jars that each non-pom module is expected to publish
+		 */
+		private String[] verifyClassifiers = { "sources" };
+
+		/**
+		 * Number of parallel requests when verifying the deployed artifacts
+		 */
+		private int verifyThreads = 16;
+
+		/**
+		 * Path to the local Maven repository
+		 */
+		private String localRepository = System.getProperty("user.home") + "/.m2/repository";
+
+		/**
+		 * If {@code true} the {@code docs} profile is removed from the build command and
+		 * the generated HTML isn't verified when neither the sources of the {@code docs}
+		 * module nor the properties it can interpolate have changed since the previous
+		 * release tag
+		 */
+		private boolean skipUnchangedDocs = false;
+
+		/**
+		 * If {@code true} the modules of the reactor that don't depend on each other
+		 * (e.g. samples and starters) are built in parallel Maven processes, each one
+		 * in a hard linked copy of the project under {@code target/shards}
+		 */
+		private boolean shardedBuild = false;
+
+		/**
+		 * Max number of parallel processes of a sharded build
+		 */
+		private int maxShards = 4;
+
+		/**
+		 * If {@code true}, once the poms are updated, the dependencies and plugins of the
+		 * project get resolved by Maven in the background, so that the build starts with
+		 * a warm local repository
+		 */
+		private boolean prefetchDependencies = false;
+
 		public String getBuildCommand() {
 			return this.buildCommand;
 		}
@@ -164,6 +430,14 @@ public class ReleaserProperties {
 			this.waitTimeInMinutes = waitTimeInMinutes;
 		}
 
+		public long getIdleTimeInSeconds() {
+			return this.idleTimeInSeconds;
+		}
+
+		public void setIdleTimeInSeconds(long idleTimeInSeconds) {
+			this.idleTimeInSeconds = idleTimeInSeconds;
+		}
+
 		public String getDeployCommand() {
 			return deployCommand;
 		}
@@ -179,6 +453,446 @@ public class ReleaserProperties {
 		public void setPublishDocsCommands(String[] publishDocsCommands) {
 			this.publishDocsCommands = publishDocsCommands;
 		}
+
+		public boolean isUseDaemon() {
+			return this.useDaemon;
+		}
+
+		public void setUseDaemon(boolean useDaemon) {
+			this.useDaemon = useDaemon;
+		}
+
+		public String getDaemonCommand() {
+			return this.daemonCommand;
+		}
+
+		public void setDaemonCommand(String daemonCommand) {
+			this.daemonCommand = daemonCommand;
+		}
+
+		public boolean isDeployFromBuildOutputs() {
+			return this.deployFromBuildOutputs;
+		}
+
+		public void setDeployFromBuildOutputs(boolean deployFromBuildOutputs) {
+			this.deployFromBuildOutputs = deployFromBuildOutputs;
+		}
+
+		public String getDeployRepositoryUrl() {
+			return this.deployRepositoryUrl;
+		}
+
+		public void setDeployRepositoryUrl(String deployRepositoryUrl) {
+			this.deployRepositoryUrl = deployRepositoryUrl;
+		}
+
+		public String getDeployRepositoryUsername() {
+			return this.deployRepositoryUsername;
+		}
+
+		public void setDeployRepositoryUsername(String deployRepositoryUsername) {
+			this.deployRepositoryUsername = deployRepositoryUsername;
+		}
+
+		public String getDeployRepositoryPassword() {
+			return this.deployRepositoryPassword;
+		}
+
+		public void setDeployRepositoryPassword(String deployRepositoryPassword) {
+			this.deployRepositoryPassword = deployRepositoryPassword;
+		}
+
+		public int getDeployThreads() {
+			return this.deployThreads;
+		}
+
+		public void setDeployThreads(int deployThreads) {
+			this.deployThreads = deployThreads;
+		}
+
+		public boolean isVerifyDeployment() {
+			return this.verifyDeployment;
+		}
+
+		public void setVerifyDeployment(boolean verifyDeployment) {
+			this.verifyDeployment = verifyDeployment;
+		}
+
+		public String getVerifyRepositoryUrl() {
+			return this.verifyRepositoryUrl;
+		}
+
+		public void setVerifyRepositoryUrl(String verifyRepositoryUrl) {
+			this.verifyRepositoryUrl = verifyRepositoryUrl;
+		}
+
+		public String[] getVerifyClassifiers() {
+			return this.verifyClassifiers;
+		}
+
+		public void setVerifyClassifiers(String[] verifyClassifiers) {
+			this.verifyClassifiers = verifyClassifiers;
+		}
+
+		public int getVerifyThreads() {
+			return this.verifyThreads;
+		}
+
+		public void setVerifyThreads(int verifyThreads) {
+			this.verifyThreads = verifyThreads;
+		}
+
+		public String getLocalRepository() {
+			return this.localRepository;
+		}
+
+		public void setLocalRepository(String localRepository) {
+			this.localRepository = localRepository;
+		}
+
+		public boolean isSkipUnchangedDocs() {
+			return this.skipUnchangedDocs;
+		}
+
+		public void setSkipUnchangedDocs(boolean skipUnchangedDocs) {
+			this.skipUnchangedDocs = skipUnchangedDocs;
+		}
+
+		public boolean isShardedBuild() {
+			return this.shardedBuild;
+		}
+
+		public void setShardedBuild(boolean shardedBuild) {
+			this.shardedBuild = shardedBuild;
+		}
+
+		public int getMaxShards() {
+			return this.maxShards;
+		}
+
+		public void setMaxShards(int maxShards) {
+			this.maxShards = maxShards;
+		}
+
+		public boolean isPrefetchDependencies() {
+			return this.prefetchDependencies;
+		}
+
+		public void setPrefetchDependencies(boolean prefetchDependencies) {
+			this.prefetchDependencies = prefetchDependencies;
+		}
+	}
+
+	public static class FastStart {
+
+		/**
+		 * If {@code true} all beans get initialized only when they're needed for the first time
+		 */
+		private boolean lazyInit = false;
+
+		/**
+		 * If {@code true} the application only prints the menu and exits. Versions aren't
+		 * retrieved and no task is executed. Used to measure the startup time and to
+		 * record the class data sharing archive.
+		 */
+		private boolean menuOnly = false;
+
+		public boolean isLazyInit() {
+			return this.lazyInit;
+		}
+
+		public void setLazyInit(boolean lazyInit) {
+			this.lazyInit = lazyInit;
+		}
+
+		public boolean isMenuOnly() {
+			return this.menuOnly;
+		}
+
+		public void setMenuOnly(boolean menuOnly) {
+			this.menuOnly = menuOnly;
+		}
+	}
+
+	public static class Batch {
+
+		/**
+		 * Tasks to execute without asking for any input. Tasks can be referenced
+		 * by the number from the menu or by the header (e.g. {@code BUILD PROJECT}).
+		 * If present the application runs in a non-interactive mode.
+		 */
+		private List<String> tasks = new ArrayList<>();
+
+		/**
+		 * Tasks that shouldn't be executed even though they were picked, referenced
+		 * like in {@link #tasks}
+		 */
+		private List<String> skip = new ArrayList<>();
+
+		public boolean isEnabled() {
+			return !this.tasks.isEmpty();
+		}
+
+		public List<String> getTasks() {
+			return this.tasks;
+		}
+
+		public void setTasks(List<String> tasks) {
+			this.tasks = tasks;
+		}
+
+		public List<String> getSkip() {
+			return this.skip;
+		}
+
+		public void setSkip(List<String> skip) {
+			this.skip = skip;
+		}
+	}
+
+	public static class Journal {
+
+		/**
+		 * If {@code true} then the tasks completed during a full or batch release get
+		 * recorded in {@code .releaser/releaser-journal.json}. A subsequent run resumes
+		 * from the first task that hasn't been completed, as long as the project is
+		 * still at the recorded commit and version.
+		 */
+		private boolean enabled = true;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+	}
+
+	public static class Tracing {
+
+		/**
+		 * If {@code true} then the durations of releaser, pom, git and process operations
+		 * get recorded as nested spans and exported at the end of the release
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * File to which the spans get exported in the Chrome trace format. A relative
+		 * path is resolved against the working directory
+		 */
+		private String file = "target/releaser-trace.json";
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getFile() {
+			return this.file;
+		}
+
+		public void setFile(String file) {
+			this.file = file;
+		}
+	}
+
+	public static class Jfr {
+
+		/**
+		 * If {@code true} then every task gets recorded by the Java Flight Recorder.
+		 * Requires a JVM that ships the {@code jdk.jfr} API
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Flight Recorder settings - either {@code default}, {@code profile} or
+		 * a path to a {@code .jfc} file
+		 */
+		private String settings = "profile";
+
+		/**
+		 * Directory to which the recordings get dumped. A relative path is resolved
+		 * against the working directory. The default one is kept outside of {@code target}
+		 * so that {@code clean} doesn't remove the recordings of the previous tasks
+		 */
+		private String directory = ".releaser/jfr";
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getSettings() {
+			return this.settings;
+		}
+
+		public void setSettings(String settings) {
+			this.settings = settings;
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+	}
+
+	public static class Diff {
+
+		/**
+		 * Branch or tag of Spring Cloud Release to compare the versions from
+		 * (e.g. {@code Dalston.SR1})
+		 */
+		private String from;
+
+		/**
+		 * Branch or tag of Spring Cloud Release to compare the versions to
+		 * (e.g. {@code Dalston.SR2}). If both refs are present the application only
+		 * prints the versions diff and quits
+		 */
+		private String to;
+
+		public boolean isEnabled() {
+			return StringUtils.hasText(this.from) && StringUtils.hasText(this.to);
+		}
+
+		public String getFrom() {
+			return this.from;
+		}
+
+		public void setFrom(String from) {
+			this.from = from;
+		}
+
+		public String getTo() {
+			return this.to;
+		}
+
+		public void setTo(String to) {
+			this.to = to;
+		}
+	}
+
+	public static class Manifest {
+
+		/**
+		 * If {@code true} then the versions retrieved from Spring Cloud Release get
+		 * stored in a release manifest. Subsequent runs for the same branch read the
+		 * versions from the manifest as long as the branch still points to the
+		 * recorded revision
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * If {@code true} then the versions get retrieved again and the release
+		 * manifest gets overwritten
+		 */
+		private boolean refresh = false;
+
+		/**
+		 * Directory in which the release manifests get stored, one per branch
+		 */
+		private String directory = System.getProperty("user.home") + "/.releaser/manifests";
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public boolean isRefresh() {
+			return this.refresh;
+		}
+
+		public void setRefresh(boolean refresh) {
+			this.refresh = refresh;
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+	}
+
+	public static class Consistency {
+
+		/**
+		 * Folder with the projects of the release train checked out side by side. If
+		 * present the application only checks whether the versions in all poms of those
+		 * projects agree with Spring Cloud Release and quits
+		 */
+		private String directory;
+
+		public boolean isEnabled() {
+			return StringUtils.hasText(this.directory);
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+	}
+
+	public static class Daemon {
+
+		/**
+		 * If {@code true} the application doesn't quit after start but keeps the versions
+		 * from Spring Cloud Release, the parsed pom and the Git state of the project warm
+		 * and runs the tasks sent to it over a local HTTP API
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Port on the loopback interface on which the daemon accepts commands
+		 */
+		private int port = 8765;
+
+		/**
+		 * Directory in which the daemon stores the token the client has to send with
+		 * every command. The file is readable only by the owner
+		 */
+		private String tokenDirectory = System.getProperty("user.home") + "/.releaser";
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getPort() {
+			return this.port;
+		}
+
+		public void setPort(int port) {
+			this.port = port;
+		}
+
+		public String getTokenDirectory() {
+			return this.tokenDirectory;
+		}
+
+		public void setTokenDirectory(String tokenDirectory) {
+			this.tokenDirectory = tokenDirectory;
+		}
 	}
 
 	public String getWorkingDir() {
@@ -214,6 +928,78 @@ public class ReleaserProperties {
 		this.maven = maven;
 	}
 
+	public FastStart getFastStart() {
+		return this.fastStart;
+	}
+
+	public void setFastStart(FastStart fastStart) {
+		this.fastStart = fastStart;
+	}
+
+	public Batch getBatch() {
+		return this.batch;
+	}
+
+	public void setBatch(Batch batch) {
+		this.batch = batch;
+	}
+
+	public Journal getJournal() {
+		return this.journal;
+	}
+
+	public void setJournal(Journal journal) {
+		this.journal = journal;
+	}
+
+	public Tracing getTracing() {
+		return this.tracing;
+	}
+
+	public void setTracing(Tracing tracing) {
+		this.tracing = tracing;
+	}
+
+	public Jfr getJfr() {
+		return this.jfr;
+	}
+
+	public void setJfr(Jfr jfr) {
+		this.jfr = jfr;
+	}
+
+	public Diff getDiff() {
+		return this.diff;
+	}
+
+	public void setDiff(Diff diff) {
+		this.diff = diff;
+	}
+
+	public Manifest getManifest() {
+		return this.manifest;
+	}
+
+	public void setManifest(Manifest manifest) {
+		this.manifest = manifest;
+	}
+
+	public Consistency getConsistency() {
+		return this.consistency;
+	}
+
+	public void setConsistency(Consistency consistency) {
+		this.consistency = consistency;
+	}
+
+	public Daemon getDaemon() {
+		return this.daemon;
+	}
+
+	public void setDaemon(Daemon daemon) {
+		this.daemon = daemon;
+	}
+
 	public Map<String, String> getFixedVersions() {
 		return this.fixedVersions;
 	}
@@ -0,0 +1,306 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.git;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.util.StringUtils;
+
+/**
+ * Publishes the generated docs to a {@code gh-pages} branch without checking it out.
+ * Non-snapshot docs go to {@code <repo name>/<version>/} of Spring Cloud Static,
+ * snapshot docs go to the {@code gh-pages} branch of the project itself.
+ *
+ * The branch is fetched into a cached bare repository. The tree of the new commit
+ * is built in memory from the tree of the current one, and only the files whose
+ * content hash differs get written. The result is pushed once.
+ *
+ * @author Marcin Grzejszczak
+ */
+public class DocsPublisher {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String GH_PAGES = "gh-pages";
+	private static final String GH_PAGES_REF = Constants.R_HEADS + GH_PAGES;
+	private static final String GENERATED_DOCS = "docs/target/generated-docs";
+	private static final String MASTER = "master";
+
+	private final ReleaserProperties properties;
+
+	public DocsPublisher(ReleaserProperties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * @param project - root folder of the project whose docs got built
+	 * @param version - version of the project
+	 * @return {@code true} if a new commit was pushed
+	 */
+	public boolean publish(File project, ProjectVersion version) {
+		File docs = new File(project, GENERATED_DOCS);
+		if (!docs.isDirectory()) {
+			log.warn("There are no generated docs under [{}]. Will not publish anything", docs);
+			return false;
+		}
+		try (Git projectGit = Git.open(project)) {
+			Repository projectRepo = projectGit.getRepository();
+			String repoName = repoName(projectRepo, project);
+			String url;
+			String prefix;
+			if (version.isSnapshot()) {
+				url = projectRepo.getConfig().getString("remote", "origin", "url");
+				String branch = projectRepo.getBranch();
+				prefix = MASTER.equals(branch) ? "" : branch + "/";
+			} else {
+				url = this.properties.getGit().getSpringCloudStaticRepoUrl();
+				prefix = repoName + "/" + version.version + "/";
+			}
+			if (!StringUtils.hasText(url)) {
+				throw new IllegalStateException("Can't resolve the URL of the repository to publish the docs to");
+			}
+			log.info("Will publish the docs from [{}] to [{}] under [{}]", docs, url, prefix.isEmpty() ? "/" : prefix);
+			return publish(url, docsToPublish(docs, prefix, mainDoc(project, repoName)), prefix,
+					"Sync docs from " + projectRepo.getBranch() + " to " + GH_PAGES);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private boolean publish(String url, Map<String, Path> files, String prefix, String message) {
+		try (Git git = ghPages(url)) {
+			Repository repository = git.getRepository();
+			ObjectId head = fetch(git, url);
+			ObjectId commit = commit(repository, head, files, prefix, message);
+			if (commit == null) {
+				log.info("The docs haven't changed. Will not push anything");
+				return false;
+			}
+			push(git, url);
+			log.info("Pushed the docs to [{}]", url);
+			return true;
+		}
+		catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private ObjectId commit(Repository repository, ObjectId head, Map<String, Path> files, String prefix,
+			String message) throws IOException {
+		try (ObjectInserter inserter = repository.newObjectInserter();
+				ObjectReader reader = repository.newObjectReader();
+				RevWalk walk = new RevWalk(reader)) {
+			DirCache index = DirCache.newInCore();
+			ObjectId headTree = null;
+			if (head != null) {
+				headTree = walk.parseCommit(head).getTree();
+				DirCacheBuilder builder = index.builder();
+				builder.addTree(new byte[0], DirCacheEntry.STAGE_0, reader, headTree);
+				builder.finish();
+			}
+			DirCacheEditor editor = index.editor();
+			int changed = 0;
+			for (Map.Entry<String, Path> file : files.entrySet()) {
+				String path = file.getKey();
+				byte[] content = Files.readAllBytes(file.getValue());
+				ObjectId blob = inserter.idFor(Constants.OBJ_BLOB, content);
+				DirCacheEntry entry = index.getEntry(path);
+				if (entry != null && blob.equals(entry.getObjectId())) {
+					continue;
+				}
+				inserter.insert(Constants.OBJ_BLOB, content);
+				editor.add(new DirCacheEditor.PathEdit(path) {
+					@Override public void apply(DirCacheEntry ent) {
+						ent.setFileMode(FileMode.REGULAR_FILE);
+						ent.setObjectId(blob);
+					}
+				});
+				changed++;
+			}
+			int removed = removeStaleFiles(index, editor, files.keySet(), prefix);
+			editor.finish();
+			log.info("[{}] files have changed and [{}] were removed", changed, removed);
+			ObjectId tree = index.writeTree(inserter);
+			if (tree.equals(headTree)) {
+				return null;
+			}
+			CommitBuilder commit = new CommitBuilder();
+			PersonIdent person = new PersonIdent(repository);
+			commit.setAuthor(person);
+			commit.setCommitter(person);
+			commit.setMessage(message);
+			commit.setTreeId(tree);
+			if (head != null) {
+				commit.setParentId(head);
+			}
+			ObjectId commitId = inserter.insert(commit);
+			inserter.flush();
+			RefUpdate update = repository.updateRef(GH_PAGES_REF);
+			update.setNewObjectId(commitId);
+			// the cache is ours, whatever is there can be overridden
+			update.setForceUpdate(true);
+			update.setRefLogMessage("commit: " + message, false);
+			RefUpdate.Result result = update.update();
+			if (result != RefUpdate.Result.NEW && result != RefUpdate.Result.FAST_FORWARD
+					&& result != RefUpdate.Result.FORCED) {
+				throw new IllegalStateException("Failed to update the [" + GH_PAGES + "] branch. Result was [" + result + "]");
+			}
+			return commitId;
+		}
+	}
+
+	/**
+	 * The docs of a given version should exactly match what was generated. We're not
+	 * removing anything when publishing to the root of the branch since other branches
+	 * are published to its subfolders.
+	 */
+	private int removeStaleFiles(DirCache index, DirCacheEditor editor, Collection<String> files, String prefix) {
+		if (prefix.isEmpty()) {
+			return 0;
+		}
+		int removed = 0;
+		for (DirCacheEntry entry : index.getEntriesWithin(prefix.substring(0, prefix.length() - 1))) {
+			if (!files.contains(entry.getPathString())) {
+				editor.add(new DirCacheEditor.DeletePath(entry));
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	private Git ghPages(String url) throws Exception {
+		File cache = new File(this.properties.getGit().getDocsCacheDir(),
+				url.replaceAll("[^A-Za-z0-9._-]", "_"));
+		if (new File(cache, "objects").isDirectory()) {
+			log.debug("Reusing the cached repository [{}]", cache);
+			return Git.open(cache);
+		}
+		log.debug("Initializing the cache repository [{}]", cache);
+		return Git.init().setBare(true).setDirectory(cache).call();
+	}
+
+	/**
+	 * @return the tip of the remote {@code gh-pages} branch or {@code null} if there's no such branch
+	 */
+	private ObjectId fetch(Git git, String url) throws Exception {
+		Collection<Ref> refs = Git.lsRemoteRepository().setRemote(url).setHeads(true).call();
+		if (refs.stream().noneMatch(ref -> GH_PAGES_REF.equals(ref.getName()))) {
+			log.info("There's no [{}] branch in [{}]. Will create one", GH_PAGES, url);
+			return null;
+		}
+		git.fetch().setRemote(url)
+				.setRefSpecs(new RefSpec("+" + GH_PAGES_REF + ":" + GH_PAGES_REF))
+				.call();
+		return git.getRepository().resolve(GH_PAGES_REF);
+	}
+
+	private void push(Git git, String url) throws Exception {
+		Iterable<PushResult> results = git.push().setRemote(url)
+				.setRefSpecs(new RefSpec(GH_PAGES_REF + ":" + GH_PAGES_REF))
+				.call();
+		for (PushResult result : results) {
+			for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+				if (update.getStatus() != RemoteRefUpdate.Status.OK
+						&& update.getStatus() != RemoteRefUpdate.Status.UP_TO_DATE) {
+					throw new IllegalStateException("Failed to push the docs to [" + url + "]. Status was ["
+							+ update.getStatus() + "] " + update.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return mapping of a path in the {@code gh-pages} branch to the generated file.
+	 * The main doc gets published as {@code index.html}
+	 */
+	Map<String, Path> docsToPublish(File docs, String prefix, String mainDoc) throws IOException {
+		Path root = docs.toPath();
+		try (Stream<Path> paths = Files.walk(root)) {
+			return paths.filter(Files::isRegularFile)
+					.collect(Collectors.toMap(path -> {
+						String relative = root.relativize(path).toString().replace(File.separatorChar, '/');
+						if (relative.equals(mainDoc + ".html")) {
+							relative = "index.html";
+						}
+						return prefix + relative;
+					}, path -> path, (first, second) -> first, LinkedHashMap::new));
+		}
+	}
+
+	private String repoName(Repository repository, File project) {
+		String url = repository.getConfig().getString("remote", "origin", "url");
+		if (!StringUtils.hasText(url)) {
+			return project.getAbsoluteFile().getName();
+		}
+		String name = url.substring(url.replace(':', '/').lastIndexOf('/') + 1);
+		return name.endsWith(".git") ? name.substring(0, name.length() - ".git".length()) : name;
+	}
+
+	/**
+	 * Name of the main adoc file is taken from the {@code docs.main} property
+	 * of the docs module. Defaults to the name of the repository.
+	 */
+	private String mainDoc(File project, String repoName) {
+		File pom = new File(project, "docs/pom.xml");
+		if (!pom.exists()) {
+			return repoName;
+		}
+		try (Reader reader = new FileReader(pom)) {
+			Model model = new MavenXpp3Reader().read(reader);
+			return model.getProperties().getProperty("docs.main", repoName);
+		}
+		catch (Exception e) {
+			log.warn("Failed to read the docs pom [{}]", pom, e);
+			return repoName;
+		}
+	}
+}
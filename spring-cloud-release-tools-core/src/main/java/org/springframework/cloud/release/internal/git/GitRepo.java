@@ -20,8 +20,19 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.eclipse.jgit.api.AddCommand;
 import org.eclipse.jgit.api.CheckoutCommand;
 import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.CreateBranchCommand;
@@ -29,12 +40,26 @@ import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.errors.EmtpyCommitException;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
 import org.eclipse.jgit.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.Tracer;
 import org.springframework.util.ResourceUtils;
 
 /**
@@ -46,6 +71,7 @@ import org.springframework.util.ResourceUtils;
 class GitRepo {
 
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String POM_XML = "pom.xml";
 
 	private final GitRepo.JGitFactory gitFactory;
 
@@ -67,7 +93,7 @@ class GitRepo {
 	 * @return file where the project was cloned
 	 */
 	File cloneProject(URI projectUri) {
-		try {
+		try (Span span = Tracer.span("git.clone").tag("uri", projectUri)) {
 			log.info("Cloning repo from [{}] to [{}]", projectUri, this.basedir);
 			Git git = cloneToBasedir(projectUri, this.basedir);
 			if (git != null) {
@@ -88,7 +114,7 @@ class GitRepo {
 	 * @param branch - branch to check out
 	 */
 	void checkout(File project, String branch) {
-		try {
+		try (Span span = Tracer.span("git.checkout").tag("branch", branch)) {
 			log.info("Checking out branch [{}] for repo [{}] to [{}]", this.basedir, branch);
 			checkoutBranch(project, branch);
 			log.info("Successfully checked out the branch [{}]", branch);
@@ -104,7 +130,8 @@ class GitRepo {
 	 * @param message - commit message
 	 */
 	void commit(File project, String message) {
-		try(Git git = this.gitFactory.open(file(project))) {
+		try(Span span = Tracer.span("git.commit").tag("project", project.getName()).tag("message", message);
+				Git git = this.gitFactory.open(file(project))) {
 			git.add().addFilepattern(".").call();
 			git.commit().setAllowEmpty(false).setMessage(message).call();
 		} catch (EmtpyCommitException e) {
@@ -114,13 +141,44 @@ class GitRepo {
 		}
 	}
 
+	/**
+	 * Performs a commit of the given files only. Contrary to {@link #commit(File, String)}
+	 * the rest of the working tree doesn't get scanned.
+	 * @param project - a Git project
+	 * @param message - commit message
+	 * @param files - files to stage before committing
+	 */
+	void commit(File project, String message, Collection<File> files) {
+		try(Span span = Tracer.span("git.commit").tag("project", project.getName()).tag("message", message)
+				.tag("files", files.size());
+				Git git = this.gitFactory.open(file(project))) {
+			Path workTree = git.getRepository().getWorkTree().toPath().toRealPath();
+			AddCommand add = git.add();
+			for (File changedFile : files) {
+				String pattern = workTree.relativize(changedFile.toPath().toRealPath())
+						.toString().replace(File.separatorChar, '/');
+				log.debug("Staging [{}]", pattern);
+				add.addFilepattern(pattern);
+			}
+			if (!files.isEmpty()) {
+				add.call();
+			}
+			git.commit().setAllowEmpty(false).setMessage(message).call();
+		} catch (EmtpyCommitException e) {
+			log.info("There were no changes detected. Will not commit an empty commit");
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	/**
 	 * Creates a tag with a given name
 	 * @param project
 	 * @param tagName
 	 */
 	void tag(File project, String tagName) {
-		try(Git git = this.gitFactory.open(file(project))) {
+		try(Span span = Tracer.span("git.tag").tag("project", project.getName()).tag("tag", tagName);
+				Git git = this.gitFactory.open(file(project))) {
 			git.tag().setName(tagName).call();
 		} catch (Exception e) {
 			throw new IllegalStateException(e);
@@ -133,7 +191,8 @@ class GitRepo {
 	 * @param branch - remote branch to which the code should be pushed
 	 */
 	void pushBranch(File project, String branch) {
-		try(Git git = this.gitFactory.open(file(project))) {
+		try(Span span = Tracer.span("git.push").tag("project", project.getName()).tag("branch", branch);
+				Git git = this.gitFactory.open(file(project))) {
 			String localBranch = git.getRepository().getFullBranch();
 			RefSpec refSpec = new RefSpec(localBranch + ":" + branch);
 			git.push().setPushTags().setRefSpecs(refSpec).call();
@@ -147,7 +206,8 @@ class GitRepo {
 	 * @param project - Git project
 	 */
 	void pushCurrentBranch(File project) {
-		try(Git git = this.gitFactory.open(file(project))) {
+		try(Span span = Tracer.span("git.push").tag("project", project.getName());
+				Git git = this.gitFactory.open(file(project))) {
 			git.push().call();
 		} catch (Exception e) {
 			throw new IllegalStateException(e);
@@ -160,7 +220,8 @@ class GitRepo {
 	 * @param tagName - remote tag to which the code should be pushed
 	 */
 	void pushTag(File project, String tagName) {
-		try(Git git = this.gitFactory.open(file(project))) {
+		try(Span span = Tracer.span("git.push-tag").tag("project", project.getName()).tag("tag", tagName);
+				Git git = this.gitFactory.open(file(project))) {
 			String localBranch = git.getRepository().getFullBranch();
 			RefSpec refSpec = new RefSpec(localBranch + ":" + "refs/tags/" + tagName);
 			git.push().setPushTags().setRefSpecs(refSpec).call();
@@ -169,8 +230,188 @@ class GitRepo {
 		}
 	}
 
-	void revert(File project, String message) {
+	/**
+	 * @param project - Git project
+	 * @return SHA of the {@code HEAD} commit or {@code null} if there are no commits
+	 */
+	String headCommit(File project) {
+		try(Git git = this.gitFactory.open(file(project))) {
+			ObjectId head = git.getRepository().resolve(Constants.HEAD);
+			return head != null ? head.getName() : null;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param project - Git project
+	 * @return name of the newest {@code v*} tag reachable from {@code HEAD} or
+	 * {@code null} if there's none
+	 */
+	String previousReleaseTag(File project) {
+		try(Git git = this.gitFactory.open(file(project));
+				RevWalk walk = new RevWalk(git.getRepository())) {
+			Map<ObjectId, String> taggedCommits = new HashMap<>();
+			for (Ref tag : git.tagList().call()) {
+				String name = Repository.shortenRefName(tag.getName());
+				if (name.startsWith("v")) {
+					taggedCommits.put(walk.parseCommit(tag.getObjectId()).getId(), name);
+				}
+			}
+			ObjectId head = git.getRepository().resolve(Constants.HEAD);
+			if (head == null || taggedCommits.isEmpty()) {
+				return null;
+			}
+			walk.markStart(walk.parseCommit(head));
+			for (RevCommit commit : walk) {
+				String tag = taggedCommits.get(commit.getId());
+				if (tag != null) {
+					return tag;
+				}
+			}
+			return null;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Works like {@code git status -- '*pom.xml'}. Only the poms get compared with
+	 * the index, so that the rest of the working tree doesn't get hashed.
+	 * @param project - Git project
+	 * @return tracked poms that were modified in the working tree
+	 */
+	Set<File> modifiedPoms(File project) {
 		try(Git git = this.gitFactory.open(file(project))) {
+			Repository repository = git.getRepository();
+			IndexDiff diff = new IndexDiff(repository, Constants.HEAD, new FileTreeIterator(repository));
+			diff.setFilter(PathSuffixFilter.create(POM_XML));
+			diff.diff();
+			Set<String> paths = new LinkedHashSet<>(diff.getModified());
+			paths.addAll(diff.getChanged());
+			Set<File> poms = new LinkedHashSet<>();
+			for (String path : paths) {
+				File pom = new File(repository.getWorkTree(), path);
+				if (POM_XML.equals(pom.getName())) {
+					poms.add(pom);
+				}
+			}
+			return poms;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param project - Git project
+	 * @param ref - tag, branch or commit to compare against
+	 * @param path - directory within the project, e.g. {@code docs}
+	 * @return paths of the files under the given directory that differ between
+	 * the given ref and the working tree, including uncommitted changes
+	 */
+	List<String> changedFiles(File project, String ref, String path) {
+		try(Git git = this.gitFactory.open(file(project));
+				ObjectReader reader = git.getRepository().newObjectReader()) {
+			Repository repository = git.getRepository();
+			CanonicalTreeParser oldTree = new CanonicalTreeParser();
+			oldTree.reset(reader, repository.resolve(ref + "^{tree}"));
+			List<String> changedFiles = new ArrayList<>();
+			for (DiffEntry entry : git.diff().setOldTree(oldTree)
+					.setNewTree(new FileTreeIterator(repository))
+					.setPathFilter(PathFilter.create(path)).call()) {
+				changedFiles.add(entry.getChangeType() == DiffEntry.ChangeType.DELETE ?
+						entry.getOldPath() : entry.getNewPath());
+			}
+			return changedFiles;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param project - Git project
+	 * @param ref - tag, branch or commit
+	 * @param path - path of the file relative to the root of the project
+	 * @return contents of the file at the given ref or {@code null} if the file
+	 * didn't exist
+	 */
+	String fileAtRef(File project, String ref, String path) {
+		return filesAtRef(project, ref, Collections.singletonList(path)).get(path);
+	}
+
+	/**
+	 * Reads the blobs straight from the object database with a single reader, so
+	 * neither a checkout nor a working tree is required. Works with bare mirrors too.
+	 *
+	 * @param project - Git project
+	 * @param ref - tag, branch (local or {@code origin/}) or commit
+	 * @param paths - paths of the files relative to the root of the project
+	 * @return contents of the files at the given ref by path. A file that didn't
+	 * exist is mapped to {@code null}
+	 */
+	Map<String, String> filesAtRef(File project, String ref, List<String> paths) {
+		try(Span span = Tracer.span("git.files-at-ref").tag("project", project.getName()).tag("ref", ref);
+				Git git = this.gitFactory.open(file(project));
+				ObjectReader reader = git.getRepository().newObjectReader();
+				RevWalk walk = new RevWalk(reader)) {
+			RevCommit commit = walk.parseCommit(resolve(git.getRepository(), ref));
+			Map<String, String> files = new LinkedHashMap<>();
+			for (String path : paths) {
+				try (TreeWalk treeWalk = TreeWalk.forPath(reader, path, commit.getTree())) {
+					files.put(path, treeWalk == null ? null : new String(
+							reader.open(treeWalk.getObjectId(0)).getBytes(), StandardCharsets.UTF_8));
+				}
+			}
+			return files;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Asks the remote repository where the branch or tag points to, without cloning
+	 * or fetching anything
+	 *
+	 * @param projectUri - URI of the remote repository
+	 * @param ref - branch or tag
+	 * @return SHA of the commit the ref points to. If the ref already is a SHA it's
+	 * returned as it is
+	 */
+	String remoteRevision(URI projectUri, String ref) {
+		try (Span span = Tracer.span("git.ls-remote").tag("uri", projectUri).tag("ref", ref)) {
+			Collection<Ref> refs = Git.lsRemoteRepository().setRemote(projectUri.toString() + ".git")
+					.setHeads(true).setTags(true).call();
+			for (Ref remoteRef : refs) {
+				if (remoteRef.getName().equals(Constants.R_HEADS + ref)
+						|| remoteRef.getName().equals(Constants.R_TAGS + ref)) {
+					ObjectId id = remoteRef.getPeeledObjectId() != null ?
+							remoteRef.getPeeledObjectId() : remoteRef.getObjectId();
+					return id.getName();
+				}
+			}
+		}
+		catch (GitAPIException e) {
+			throw new IllegalStateException("Failed to list the refs of [" + projectUri + "]", e);
+		}
+		if (ObjectId.isId(ref)) {
+			return ref;
+		}
+		throw new IllegalStateException("Ref [" + ref + "] is not present in [" + projectUri + "]");
+	}
+
+	private ObjectId resolve(Repository repository, String ref) throws IOException {
+		for (String candidate : new String[] { ref, "origin/" + ref }) {
+			ObjectId id = repository.resolve(candidate);
+			if (id != null) {
+				return id;
+			}
+		}
+		throw new IllegalStateException("Ref [" + ref + "] is not present in [" + repository.getDirectory() + "]");
+	}
+
+	void revert(File project, String message) {
+		try(Span span = Tracer.span("git.revert").tag("project", project.getName());
+				Git git = this.gitFactory.open(file(project))) {
 			RevCommit commit = git.log().setMaxCount(1).call().iterator().next();
 			log.debug("The commit to be reverted is [{}]", commit);
 			git.revert().include(commit).call();
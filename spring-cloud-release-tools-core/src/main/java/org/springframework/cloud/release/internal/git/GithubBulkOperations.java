@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.git;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+
+/**
+ * Runs a GitHub operation (e.g. closing a milestone) for many projects at once.
+ * The operations should share a single {@link GithubClient} so that all of them
+ * are throttled by the same rate limiter.
+ *
+ * @author Marcin Grzejszczak
+ */
+class GithubBulkOperations {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final int threads;
+
+	GithubBulkOperations(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Runs the operation for each project. A failure for one project doesn't stop
+	 * the others. Once all are done an exception listing all failures gets thrown.
+	 *
+	 * @param projects - projects to run the operation for
+	 * @param description - what the operation does, used for logging
+	 * @param operation - operation to run
+	 */
+	void forEach(Collection<ProjectVersion> projects, String description, Consumer<ProjectVersion> operation) {
+		if (projects.isEmpty()) {
+			log.info("There are no projects to {}", description);
+			return;
+		}
+		log.info("Will {} for [{}] projects using [{}] threads", description, projects.size(), this.threads);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.threads, projects.size()));
+		try {
+			Map<ProjectVersion, Future<?>> results = new LinkedHashMap<>();
+			for (ProjectVersion project : projects) {
+				results.put(project, executor.submit(() -> operation.accept(project)));
+			}
+			Map<String, Throwable> failures = new LinkedHashMap<>();
+			for (Map.Entry<ProjectVersion, Future<?>> result : results.entrySet()) {
+				String projectName = result.getKey().projectName;
+				try {
+					result.getValue().get();
+				}
+				catch (ExecutionException e) {
+					log.error("Failed to {} for project [{}]", description, projectName, e.getCause());
+					failures.put(projectName, e.getCause());
+				}
+			}
+			if (!failures.isEmpty()) {
+				IllegalStateException exception = new IllegalStateException("Failed to " + description
+						+ " for projects " + failures.keySet());
+				failures.values().forEach(exception::addSuppressed);
+				throw exception;
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+}
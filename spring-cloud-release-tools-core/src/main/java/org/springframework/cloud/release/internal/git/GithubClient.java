@@ -0,0 +1,361 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.util.StringUtils;
+
+/**
+ * Minimal client of the GitHub REST API. List responses are cached together with
+ * their {@code ETag} so that subsequent calls are conditional requests. GitHub
+ * answers those with {@code 304 Not Modified} which doesn't count against the
+ * rate limit. All requests go through a {@link GithubRateLimiter}, so a single
+ * instance can be safely shared by many threads. Failed requests are retried
+ * (rate limits, server errors and connection failures).
+ *
+ * @author Marcin Grzejszczak
+ */
+class GithubClient {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>;\\s*rel=\"next\"");
+	private static final Pattern LAST_LINK = Pattern.compile("<[^>]*[?&]page=(\\d+)[^>]*>;\\s*rel=\"last\"");
+	private static final int PAGE_SIZE = 100;
+	private static final int MAX_ATTEMPTS = 5;
+	private static final long RETRY_BACK_OFF_IN_MILLIS = 1000;
+
+	private final String apiUrl;
+	private final String oauthToken;
+	private final GithubRateLimiter rateLimiter;
+	private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+	long retryBackOffInMillis = RETRY_BACK_OFF_IN_MILLIS;
+
+	GithubClient(ReleaserProperties properties) {
+		this(properties, new GithubRateLimiter(properties.getGit().getGithubRequestsPerSecond(),
+				properties.getGit().getGithubRequestsPerSecond()));
+	}
+
+	GithubClient(ReleaserProperties properties, GithubRateLimiter rateLimiter) {
+		String url = properties.getGit().getGithubApiUrl();
+		this.apiUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+		this.oauthToken = properties.getGit().getOauthToken();
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Retrieves all open milestones of a repository. The titles are read straight
+	 * from the list payload so there's one request per page of milestones.
+	 */
+	List<GithubMilestone> openMilestones(String org, String repo) throws IOException {
+		return milestones(org, repo, "open");
+	}
+
+	/**
+	 * @param state - {@code open}, {@code closed} or {@code all}
+	 */
+	List<GithubMilestone> milestones(String org, String repo, String state) throws IOException {
+		List<GithubMilestone> milestones = new ArrayList<>();
+		String url = this.apiUrl + "/repos/" + org + "/" + repo + "/milestones?state=" + state + "&per_page=" + PAGE_SIZE;
+		while (url != null) {
+			CachedResponse response = get(url);
+			for (JsonValue value : readArray(response.body)) {
+				JsonObject milestone = (JsonObject) value;
+				milestones.add(new GithubMilestone(milestone.getInt("number"),
+						milestone.getString("title", "")));
+			}
+			url = response.nextPage;
+		}
+		return milestones;
+	}
+
+	/**
+	 * Retrieves closed issues and pull requests of a milestone. The first page tells
+	 * us how many pages there are, the remaining ones are fetched in parallel by the
+	 * given executor.
+	 */
+	List<ReleaseNote> closedIssues(String org, String repo, int milestone, ExecutorService executor)
+			throws IOException {
+		String url = this.apiUrl + "/repos/" + org + "/" + repo + "/issues?milestone=" + milestone
+				+ "&state=closed&per_page=" + PAGE_SIZE;
+		CachedResponse firstPage = get(url);
+		List<Future<CachedResponse>> otherPages = new ArrayList<>();
+		for (int page = 2; page <= firstPage.lastPage; page++) {
+			String pageUrl = url + "&page=" + page;
+			otherPages.add(executor.submit(() -> get(pageUrl)));
+		}
+		List<ReleaseNote> notes = new ArrayList<>(releaseNotes(firstPage));
+		try {
+			for (Future<CachedResponse> page : otherPages) {
+				notes.addAll(releaseNotes(page.get()));
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while fetching issues of [" + repo + "]", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		finally {
+			otherPages.forEach(page -> page.cancel(true));
+		}
+		return notes;
+	}
+
+	private List<ReleaseNote> releaseNotes(CachedResponse response) {
+		List<ReleaseNote> notes = new ArrayList<>();
+		for (JsonValue value : readArray(response.body)) {
+			JsonObject issue = (JsonObject) value;
+			notes.add(new ReleaseNote(issue.getInt("number"), issue.getString("title", ""),
+					issue.getString("html_url", ""), issue.containsKey("pull_request")));
+		}
+		return notes;
+	}
+
+	void closeMilestone(String org, String repo, int number) throws IOException {
+		String url = this.apiUrl + "/repos/" + org + "/" + repo + "/milestones/" + number;
+		patch(url, Json.createObjectBuilder().add("state", "closed").build().toString());
+	}
+
+	private CachedResponse get(String url) throws IOException {
+		CachedResponse cached = this.cache.get(url);
+		HttpURLConnection connection = send("GET", url, cached != null ? cached.etag : null, null);
+		int status = connection.getResponseCode();
+		if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+			log.debug("Resource [{}] hasn't changed, will use the cached response", url);
+			return cached;
+		}
+		String body = body(connection, status, "GET", url);
+		String link = connection.getHeaderField("Link");
+		CachedResponse response = new CachedResponse(connection.getHeaderField("ETag"), body,
+				nextPage(link), lastPage(link));
+		if (StringUtils.hasText(response.etag)) {
+			this.cache.put(url, response);
+		}
+		return response;
+	}
+
+	private void patch(String url, String json) throws IOException {
+		HttpURLConnection connection = send("PATCH", url, null, json.getBytes(StandardCharsets.UTF_8));
+		body(connection, connection.getResponseCode(), "PATCH", url);
+	}
+
+	/**
+	 * Sends the request once the rate limiter allows it. Requests rejected due to
+	 * a rate limit are retried after the time GitHub asked us to wait. Server errors
+	 * ({@code 5xx}) and connection failures are retried with a growing back off.
+	 */
+	private HttpURLConnection send(String method, String url, String etag, byte[] body) throws IOException {
+		for (int attempt = 1; ; attempt++) {
+			acquire();
+			HttpURLConnection connection;
+			int status;
+			try {
+				connection = connection(method, url);
+				if (etag != null) {
+					connection.setRequestProperty("If-None-Match", etag);
+				}
+				if (body != null) {
+					connection.setRequestProperty("Content-Type", "application/json");
+					connection.setDoOutput(true);
+					connection.setFixedLengthStreamingMode(body.length);
+					try (OutputStream out = connection.getOutputStream()) {
+						out.write(body);
+					}
+				}
+				status = connection.getResponseCode();
+			}
+			catch (IOException e) {
+				if (attempt == MAX_ATTEMPTS) {
+					throw e;
+				}
+				log.warn("Request [{} {}] failed with [{}]. Will retry it", method, url, e.getMessage());
+				backOff(attempt);
+				continue;
+			}
+			Long retryAfter = longHeader(connection, "Retry-After");
+			Long remaining = longHeader(connection, "X-RateLimit-Remaining");
+			this.rateLimiter.onResponse(remaining, longHeader(connection, "X-RateLimit-Reset"), retryAfter);
+			boolean rateLimited = (status == HttpURLConnection.HTTP_FORBIDDEN || status == 429)
+					&& (retryAfter != null || Long.valueOf(0).equals(remaining));
+			boolean serverError = status >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+			if ((!rateLimited && !serverError) || attempt == MAX_ATTEMPTS) {
+				return connection;
+			}
+			connection.disconnect();
+			if (rateLimited) {
+				log.warn("Request [{} {}] got rate limited. Will retry it", method, url);
+				continue;
+			}
+			log.warn("Request [{} {}] failed with status [{}]. Will retry it", method, url, status);
+			backOff(attempt);
+		}
+	}
+
+	private void backOff(int attempt) throws IOException {
+		try {
+			Thread.sleep(this.retryBackOffInMillis * attempt);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting to retry a GitHub request", e);
+		}
+	}
+
+	private void acquire() throws IOException {
+		try {
+			this.rateLimiter.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the GitHub rate limit", e);
+		}
+	}
+
+	/**
+	 * {@link HttpURLConnection} doesn't support {@code PATCH}. GitHub accepts {@code POST}
+	 * for all the endpoints that expect {@code PATCH}.
+	 */
+	private HttpURLConnection connection(String method, String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		connection.setRequestProperty("Accept", "application/vnd.github.v3+json");
+		if (StringUtils.hasText(this.oauthToken)) {
+			connection.setRequestProperty("Authorization", "token " + this.oauthToken);
+		}
+		if ("PATCH".equals(method)) {
+			connection.setRequestMethod("POST");
+			connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+		}
+		else {
+			connection.setRequestMethod(method);
+		}
+		return connection;
+	}
+
+	private Long longHeader(HttpURLConnection connection, String name) {
+		String value = connection.getHeaderField(name);
+		if (!StringUtils.hasText(value)) {
+			return null;
+		}
+		try {
+			return Long.valueOf(value.trim());
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private String body(HttpURLConnection connection, int status, String method, String url) throws IOException {
+		boolean success = status >= 200 && status < 300;
+		InputStream stream = success ? connection.getInputStream() : connection.getErrorStream();
+		String body = "";
+		if (stream != null) {
+			try (InputStream input = stream) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = input.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+				}
+				body = new String(out.toByteArray(), StandardCharsets.UTF_8);
+			}
+		}
+		if (!success) {
+			throw new IOException("GitHub responded with status [" + status + "] to [" + method + " "
+					+ url + "]. The response was [" + body + "]");
+		}
+		return body;
+	}
+
+	private JsonArray readArray(String body) {
+		try (JsonReader reader = Json.createReader(new StringReader(body))) {
+			return reader.readArray();
+		}
+	}
+
+	private String nextPage(String link) {
+		if (link == null) {
+			return null;
+		}
+		Matcher matcher = NEXT_LINK.matcher(link);
+		return matcher.find() ? matcher.group(1) : null;
+	}
+
+	private int lastPage(String link) {
+		if (link == null) {
+			return 1;
+		}
+		Matcher matcher = LAST_LINK.matcher(link);
+		return matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+	}
+
+	private static class CachedResponse {
+		final String etag;
+		final String body;
+		final String nextPage;
+		final int lastPage;
+
+		CachedResponse(String etag, String body, String nextPage, int lastPage) {
+			this.etag = etag;
+			this.body = body;
+			this.nextPage = nextPage;
+			this.lastPage = lastPage;
+		}
+	}
+}
+
+class GithubMilestone {
+	final int number;
+	final String title;
+
+	GithubMilestone(int number, String title) {
+		this.number = number;
+		this.title = title;
+	}
+
+	@Override public String toString() {
+		return "#" + this.number + " [" + this.title + "]";
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.git;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token bucket shared by all threads that talk to GitHub. On top of the configured
+ * rate it follows what GitHub tells us:
+ *
+ * <ul>
+ *     <li>primary rate limit - when {@code X-RateLimit-Remaining} drops to zero no
+ *     request is sent until {@code X-RateLimit-Reset}, when it gets low the remaining
+ *     requests are spread until the reset</li>
+ *     <li>secondary rate limit - on {@code Retry-After} no request is sent for the
+ *     given time and the rate gets halved. It slowly recovers with every successful
+ *     response</li>
+ * </ul>
+ *
+ * @author Marcin Grzejszczak
+ */
+class GithubRateLimiter {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final double MIN_RATE = 0.1;
+	private static final double RECOVERY_FACTOR = 1.1;
+	private static final int LOW_REMAINING_THRESHOLD = 100;
+
+	private final double maxRate;
+	private final double burst;
+	private double rate;
+	private double tokens;
+	private long lastRefillNanos;
+	private long blockedUntilNanos;
+
+	GithubRateLimiter(double requestsPerSecond, int burst) {
+		this.maxRate = Math.max(MIN_RATE, requestsPerSecond);
+		this.burst = Math.max(1, burst);
+		this.rate = this.maxRate;
+		this.tokens = this.burst;
+		this.lastRefillNanos = System.nanoTime();
+		this.blockedUntilNanos = this.lastRefillNanos;
+	}
+
+	/**
+	 * Blocks until a request may be sent
+	 */
+	void acquire() throws InterruptedException {
+		long waitNanos = reserve();
+		if (waitNanos > 0) {
+			log.debug("Waiting [{}] ms before sending a request to GitHub", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/**
+	 * Takes a token. If there are none, the token is borrowed from the future
+	 * and the returned time is how long the caller has to wait for it.
+	 */
+	private synchronized long reserve() {
+		long now = System.nanoTime();
+		refill(now);
+		this.tokens -= 1;
+		long tokenWait = this.tokens >= 0 ? 0 : (long) (-this.tokens / this.rate * TimeUnit.SECONDS.toNanos(1));
+		return Math.max(tokenWait, this.blockedUntilNanos - now);
+	}
+
+	private void refill(long now) {
+		double elapsedSeconds = (now - this.lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+		this.tokens = Math.min(this.burst, this.tokens + elapsedSeconds * this.rate);
+		this.lastRefillNanos = now;
+	}
+
+	/**
+	 * @param remaining - value of {@code X-RateLimit-Remaining} or {@code null}
+	 * @param resetEpochSeconds - value of {@code X-RateLimit-Reset} or {@code null}
+	 * @param retryAfterSeconds - value of {@code Retry-After} or {@code null}
+	 */
+	synchronized void onResponse(Long remaining, Long resetEpochSeconds, Long retryAfterSeconds) {
+		long now = System.nanoTime();
+		refill(now);
+		if (retryAfterSeconds != null) {
+			this.rate = Math.max(MIN_RATE, this.rate / 2);
+			block(now, TimeUnit.SECONDS.toNanos(retryAfterSeconds));
+			log.warn("Hit the GitHub secondary rate limit. Will wait [{}] seconds and lower the rate to [{}] requests per second",
+					retryAfterSeconds, this.rate);
+			return;
+		}
+		if (remaining != null && resetEpochSeconds != null) {
+			long untilResetNanos = TimeUnit.MILLISECONDS.toNanos(
+					TimeUnit.SECONDS.toMillis(resetEpochSeconds) - System.currentTimeMillis());
+			if (remaining <= 0) {
+				block(now, untilResetNanos);
+				log.warn("GitHub rate limit got exhausted. Will wait [{}] seconds for it to get reset",
+						TimeUnit.NANOSECONDS.toSeconds(untilResetNanos));
+				return;
+			}
+			if (remaining < LOW_REMAINING_THRESHOLD && untilResetNanos > 0) {
+				double spreadRate = remaining / (untilResetNanos / (double) TimeUnit.SECONDS.toNanos(1));
+				this.rate = Math.max(MIN_RATE, Math.min(this.rate, spreadRate));
+				log.debug("Only [{}] requests remained till the rate limit reset. Lowering the rate to [{}]",
+						remaining, this.rate);
+				return;
+			}
+		}
+		this.rate = Math.min(this.maxRate, this.rate * RECOVERY_FACTOR);
+	}
+
+	private void block(long now, long nanos) {
+		this.blockedUntilNanos = Math.max(this.blockedUntilNanos, now + Math.max(0, nanos));
+	}
+
+	synchronized double rate() {
+		return this.rate;
+	}
+}
@@ -2,21 +2,16 @@ package org.springframework.cloud.release.internal.git;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.release.internal.ReleaserProperties;
 import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
 import org.springframework.util.Assert;
 
-import com.jcabi.github.Coordinates;
-import com.jcabi.github.Github;
-import com.jcabi.github.Milestone;
-import com.jcabi.github.RtGithub;
-import com.jcabi.http.wire.RetryWire;
-
 /**
  * @author Marcin Grzejszczak
  */
@@ -24,69 +19,82 @@ class MilestoneCloser {
 
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-	private final Github github;
+	private static final String SPRING_CLOUD_PREFIX = "spring-cloud-";
+	private static final String PARENT_SUFFIX = "-parent";
+
+	private final GithubClient github;
 	private final ReleaserProperties properties;
+	private final GithubBulkOperations bulkOperations;
 
 	MilestoneCloser(ReleaserProperties properties) {
-		this.github = new RtGithub(new RtGithub(
-				properties.getGit().getOauthToken()).entry().through(RetryWire.class));
-		this.properties = properties;
+		this(new GithubClient(properties), properties);
 	}
 
-	MilestoneCloser(Github github, ReleaserProperties properties) {
+	MilestoneCloser(GithubClient github, ReleaserProperties properties) {
 		this.github = github;
 		this.properties = properties;
+		this.bulkOperations = new GithubBulkOperations(properties.getGit().getGithubThreads());
+	}
+
+	/**
+	 * Closes milestones of all non-snapshot Spring Cloud projects concurrently
+	 */
+	void closeMilestones(Projects projects) {
+		Assert.hasText(this.properties.getGit().getOauthToken(),
+				"You have to pass Github OAuth token for milestone closing to be operational");
+		this.bulkOperations.forEach(releasedProjects(projects), "close milestones", this::closeMilestone);
+	}
+
+	/**
+	 * @return non-snapshot Spring Cloud projects that have milestones on GitHub, sorted by name
+	 */
+	static List<ProjectVersion> releasedProjects(Projects projects) {
+		return projects.stream()
+				.filter(project -> project.projectName.startsWith(SPRING_CLOUD_PREFIX)
+						&& !project.projectName.endsWith(PARENT_SUFFIX) && !project.isSnapshot())
+				.sorted((first, second) -> first.projectName.compareTo(second.projectName))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * A milestone can be named either after the full version (e.g. {@code 1.0.0.RELEASE})
+	 * or the numeric part of it (e.g. {@code 1.0.0})
+	 */
+	static boolean matches(GithubMilestone milestone, String version) {
+		return version.equals(milestone.title) || numericVersion(version).equals(milestone.title);
 	}
 
 	void closeMilestone(ProjectVersion version) {
 		Assert.hasText(this.properties.getGit().getOauthToken(),
 				"You have to pass Github OAuth token for milestone closing to be operational");
-		Iterable<Milestone> milestones = milestones(version);
-		log.info("Successfully received list of milestones");
-		String tagVersion = version.version;
-		log.info("Will try to match against tag version [{}]", tagVersion);
-		boolean matchingMilestone = false;
-		for (Milestone milestone : milestones) {
-			Milestone.Smart smartMilestone = new Milestone.Smart(milestone);
-			try {
-				String title = milestoneTitle(smartMilestone);
-				if (tagVersion.equals(title) || numericVersion(tagVersion).equals(title)) {
+		try {
+			List<GithubMilestone> milestones = this.github.openMilestones(org(), version.projectName);
+			log.info("Successfully received list of milestones");
+			String tagVersion = version.version;
+			log.info("Will try to match against tag version [{}]", tagVersion);
+			boolean matchingMilestone = false;
+			for (GithubMilestone milestone : milestones) {
+				if (matches(milestone, tagVersion)) {
 					log.info("Found a matching milestone - closing it");
-					smartMilestone.close();
+					this.github.closeMilestone(org(), version.projectName, milestone.number);
 					matchingMilestone = true;
 					log.info("Closed the [{}] milestone", tagVersion);
 				}
 			}
-			catch (IOException e) {
-				throw new IllegalStateException(e);
+			if (!matchingMilestone) {
+				log.warn("No matching milestone was found");
 			}
 		}
-		if (!matchingMilestone) {
-			log.warn("No matching milestone was found");
+		catch (IOException e) {
+			throw new IllegalStateException(e);
 		}
 	}
 
-	private String numericVersion(String version) {
+	private static String numericVersion(String version) {
 		return version.substring(0, version.lastIndexOf("."));
 	}
 
-	String milestoneTitle(Milestone.Smart milestone) throws IOException {
-		return milestone.title();
-	}
-
-	private Iterable<Milestone> milestones(ProjectVersion version) {
-		return this.github.repos()
-				.get(new Coordinates.Simple(org(), version.projectName))
-				.milestones().iterate(openMilestones());
-	}
-
 	String org() {
 		return "spring-cloud";
 	}
-
-	private Map<String, String> openMilestones() {
-		Map<String, String> params = new HashMap<>();
-		params.put("state", "open");
-		return params;
-	}
 }
@@ -4,11 +4,15 @@ import java.io.File;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.release.internal.ReleaserProperties;
 import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
 
 /**
  * Contains business logic around Git operations
@@ -25,21 +29,28 @@ public class ProjectGitUpdater {
 	private static final String POST_RELEASE_BUMP_MSG = "Bumping versions to %s after release";
 
 	private final ReleaserProperties properties;
-	private final MilestoneCloser milestoneCloser;
+	private MilestoneCloser milestoneCloser;
 
 	public ProjectGitUpdater(ReleaserProperties properties) {
 		this.properties = properties;
-		this.milestoneCloser = new MilestoneCloser(properties);
 	}
 
 	public void commitAndTagIfApplicable(File project, ProjectVersion version) {
+		commitAndTagIfApplicable(project, version, null);
+	}
+
+	/**
+	 * @param changedFiles - files to commit. If {@code null} then all changes
+	 * in the working tree will get committed
+	 */
+	public void commitAndTagIfApplicable(File project, ProjectVersion version, Set<File> changedFiles) {
 		GitRepo gitRepo = gitRepo(project);
 		if (version.isSnapshot()) {
 			log.info("Snapshot version [{}] found. Will only commit the changed poms", version);
-			gitRepo.commit(project, MSG);
+			commit(gitRepo, project, MSG, changedFiles);
 		} else {
 			log.info("NON-snapshot version [{}] found. Will commit the changed poms, tag the version and push the tag", version);
-			gitRepo.commit(project, String.format(PRE_RELEASE_MSG, version.version));
+			commit(gitRepo, project, String.format(PRE_RELEASE_MSG, version.version), changedFiles);
 			String tagName = "v" + version.version;
 			gitRepo.tag(project, tagName);
 			gitRepo.pushTag(project, tagName);
@@ -47,15 +58,39 @@ public class ProjectGitUpdater {
 	}
 
 	public void commitAfterBumpingVersions(File project, ProjectVersion version) {
+		commitAfterBumpingVersions(project, version, null);
+	}
+
+	/**
+	 * @param changedFiles - files to commit. If {@code null} then all changes
+	 * in the working tree will get committed
+	 */
+	public void commitAfterBumpingVersions(File project, ProjectVersion version, Set<File> changedFiles) {
 		GitRepo gitRepo = gitRepo(project);
 		if (version.isSnapshot()) {
 			log.info("Snapshot version [{}] found. Will only commit the changed poms", version);
-			gitRepo.commit(project, String.format(POST_RELEASE_BUMP_MSG, version.bumpedVersion()));
+			commit(gitRepo, project, String.format(POST_RELEASE_BUMP_MSG, version.bumpedVersion()), changedFiles);
 		} else {
 			log.info("Non snapshot version [{}] found. Won't do anything", version);
 		}
 	}
 
+	/**
+	 * @return tracked poms of the project that have uncommitted changes
+	 */
+	public Set<File> modifiedPoms(File project) {
+		return gitRepo(project).modifiedPoms(project);
+	}
+
+	private void commit(GitRepo gitRepo, File project, String message, Set<File> changedFiles) {
+		if (changedFiles == null) {
+			gitRepo.commit(project, message);
+			return;
+		}
+		log.info("Will commit [{}] changed files", changedFiles.size());
+		gitRepo.commit(project, message, changedFiles);
+	}
+
 	public File cloneScReleaseProject() {
 		try {
 			File destinationDir = properties.getGit().getCloneDestinationDir() != null ?
@@ -68,6 +103,33 @@ public class ProjectGitUpdater {
 		}
 	}
 
+	/**
+	 * @return the clone of Spring Cloud Release under {@code cloneDestinationDir} if
+	 * one is already there (a bare mirror works too), otherwise a fresh clone
+	 */
+	public File scReleaseRepository() {
+		String cloneDestinationDir = this.properties.getGit().getCloneDestinationDir();
+		if (cloneDestinationDir != null && isGitRepository(new File(cloneDestinationDir))) {
+			log.info("Will reuse the Spring Cloud Release repository at [{}]", cloneDestinationDir);
+			return new File(cloneDestinationDir);
+		}
+		return cloneScReleaseProject();
+	}
+
+	/**
+	 * @return SHA of the commit the branch or tag of Spring Cloud Release points to,
+	 * retrieved without cloning the project
+	 */
+	public String scReleaseRevision(String ref) {
+		return gitRepo(new File(this.properties.getWorkingDir())).remoteRevision(
+				URI.create(this.properties.getGit().getSpringCloudReleaseGitUrl()), ref);
+	}
+
+	private boolean isGitRepository(File dir) {
+		return new File(dir, ".git").exists() || (new File(dir, "HEAD").isFile()
+				&& new File(dir, "objects").isDirectory());
+	}
+
 	public void checkout(File project, String branch) {
 		gitRepo(project).checkout(project, branch);
 
@@ -86,11 +148,61 @@ public class ProjectGitUpdater {
 		gitRepo(project).pushCurrentBranch(project);
 	}
 
+	/**
+	 * @return SHA of the current commit of the project
+	 */
+	public String headCommit(File project) {
+		return gitRepo(project).headCommit(project);
+	}
+
+	/**
+	 * @return the newest release tag reachable from {@code HEAD} or {@code null}
+	 */
+	public String previousReleaseTag(File project) {
+		return gitRepo(project).previousReleaseTag(project);
+	}
+
+	/**
+	 * @return files under the given directory changed since the given ref
+	 */
+	public List<String> changedFiles(File project, String ref, String path) {
+		return gitRepo(project).changedFiles(project, ref, path);
+	}
+
+	/**
+	 * @return contents of the file at the given ref or {@code null} if it didn't exist
+	 */
+	public String fileAtRef(File project, String ref, String path) {
+		return gitRepo(project).fileAtRef(project, ref, path);
+	}
+
+	/**
+	 * @return contents of the files at the given ref by path, {@code null} for the
+	 * ones that didn't exist
+	 */
+	public Map<String, String> filesAtRef(File project, String ref, List<String> paths) {
+		return gitRepo(project).filesAtRef(project, ref, paths);
+	}
+
 	public void closeMilestone(ProjectVersion releaseVersion) {
-		this.milestoneCloser.closeMilestone(releaseVersion);
+		milestoneCloser().closeMilestone(releaseVersion);
+	}
+
+	public void closeMilestones(Projects projects) {
+		milestoneCloser().closeMilestones(projects);
 	}
 
 	GitRepo gitRepo(File workingDir) {
 		return new GitRepo(workingDir);
 	}
+
+	/**
+	 * The GitHub client is created only when a task needs it
+	 */
+	private synchronized MilestoneCloser milestoneCloser() {
+		if (this.milestoneCloser == null) {
+			this.milestoneCloser = new MilestoneCloser(this.properties);
+		}
+		return this.milestoneCloser;
+	}
 }
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.git;
+
+/**
+ * Closed issue or pull request of a milestone. Getters are there for the templates.
+ *
+ * @author Marcin Grzejszczak
+ */
+public class ReleaseNote {
+
+	private final int number;
+	private final String title;
+	private final String url;
+	private final boolean pullRequest;
+
+	public ReleaseNote(int number, String title, String url, boolean pullRequest) {
+		this.number = number;
+		this.title = title;
+		this.url = url;
+		this.pullRequest = pullRequest;
+	}
+
+	public int getNumber() {
+		return this.number;
+	}
+
+	public String getTitle() {
+		return this.title;
+	}
+
+	public String getUrl() {
+		return this.url;
+	}
+
+	public boolean isPullRequest() {
+		return this.pullRequest;
+	}
+
+	@Override public String toString() {
+		return "#" + this.number + " [" + this.title + "]";
+	}
+}
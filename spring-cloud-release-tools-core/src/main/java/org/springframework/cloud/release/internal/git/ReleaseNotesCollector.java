@@ -0,0 +1,124 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.git;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
+import org.springframework.util.StringUtils;
+
+/**
+ * Collects closed issues and pull requests of the milestones of all projects of
+ * a release train. Projects are processed concurrently and so are the pages of
+ * issues of a single milestone. All requests share one {@link GithubClient}, thus
+ * one rate limiter and one response cache.
+ *
+ * @author Marcin Grzejszczak
+ */
+public class ReleaseNotesCollector {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final GithubClient github;
+	private final ReleaserProperties properties;
+
+	public ReleaseNotesCollector(ReleaserProperties properties) {
+		this(new GithubClient(properties), properties);
+	}
+
+	ReleaseNotesCollector(GithubClient github, ReleaserProperties properties) {
+		this.github = github;
+		this.properties = properties;
+	}
+
+	/**
+	 * Failing to collect the notes of a project doesn't fail the whole process. The
+	 * project will just have no notes.
+	 *
+	 * @return release notes sorted by issue number per project name
+	 */
+	public Map<String, List<ReleaseNote>> releaseNotes(Projects projects) {
+		if (!StringUtils.hasText(this.properties.getGit().getOauthToken())) {
+			log.info("No Github OAuth token was passed. Will not collect the release notes");
+			return Collections.emptyMap();
+		}
+		List<ProjectVersion> releasedProjects = MilestoneCloser.releasedProjects(projects);
+		if (releasedProjects.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		int threads = Math.max(1, this.properties.getGit().getGithubThreads());
+		log.info("Will collect release notes for [{}] projects using [{}] threads", releasedProjects.size(), threads);
+		// pages are fetched by a separate pool so that project tasks never wait for their own pool
+		ExecutorService projectExecutor = Executors.newFixedThreadPool(Math.min(threads, releasedProjects.size()));
+		ExecutorService pageExecutor = Executors.newFixedThreadPool(threads);
+		try {
+			Map<String, Future<List<ReleaseNote>>> futures = new LinkedHashMap<>();
+			for (ProjectVersion project : releasedProjects) {
+				futures.put(project.projectName, projectExecutor.submit(() -> releaseNotes(project, pageExecutor)));
+			}
+			Map<String, List<ReleaseNote>> notes = new LinkedHashMap<>();
+			for (Map.Entry<String, Future<List<ReleaseNote>>> future : futures.entrySet()) {
+				try {
+					notes.put(future.getKey(), future.getValue().get());
+				}
+				catch (ExecutionException e) {
+					log.warn("Failed to collect the release notes of project [{}]", future.getKey(), e.getCause());
+					notes.put(future.getKey(), Collections.emptyList());
+				}
+			}
+			return notes;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		finally {
+			projectExecutor.shutdownNow();
+			pageExecutor.shutdownNow();
+		}
+	}
+
+	private List<ReleaseNote> releaseNotes(ProjectVersion project, ExecutorService pageExecutor) throws IOException {
+		List<ReleaseNote> notes = new ArrayList<>();
+		for (GithubMilestone milestone : this.github.milestones(org(), project.projectName, "all")) {
+			if (MilestoneCloser.matches(milestone, project.version)) {
+				notes.addAll(this.github.closedIssues(org(), project.projectName, milestone.number, pageExecutor));
+			}
+		}
+		notes.sort(Comparator.comparingInt(ReleaseNote::getNumber));
+		log.info("Collected [{}] release notes for project [{}]", notes.size(), project.projectName);
+		return notes;
+	}
+
+	String org() {
+		return "spring-cloud";
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.launcher;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.util.StringUtils;
+
+/**
+ * Binds {@link ReleaserProperties} without a Spring context. Sources in the order of
+ * precedence are: command line arguments ({@code --releaser.pom.branch=vDalston.RELEASE}),
+ * system properties, environment variables ({@code RELEASER_POM_BRANCH}) and a properties
+ * file. Like in Spring Boot names are relaxed, so {@code releaser.pom.branch},
+ * {@code releaser.pom.BRANCH} and {@code RELEASER_POM_BRANCH} point to the same property.
+ *
+ * @author Marcin Grzejszczak
+ */
+class PropertiesBinder {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String PREFIX = "releaser";
+
+	private final Map<String, String> environment;
+	private final Properties systemProperties;
+
+	PropertiesBinder(Map<String, String> environment, Properties systemProperties) {
+		this.environment = environment;
+		this.systemProperties = systemProperties;
+	}
+
+	/**
+	 * @param options - options passed from the command line, without the leading {@code --}
+	 * @param propertiesFile - file with properties or {@code null} if there's none
+	 */
+	ReleaserProperties bind(Map<String, String> options, File propertiesFile) {
+		ReleaserProperties properties = new ReleaserProperties();
+		Map<String, Target> targets = new LinkedHashMap<>();
+		collectTargets(properties, PREFIX, targets);
+		bind(targets, fromFile(propertiesFile), "file [" + propertiesFile + "]");
+		bind(targets, withPrefix(this.environment, PREFIX.toUpperCase() + "_"), "environment variables");
+		bind(targets, withPrefix(this.systemProperties, PREFIX + "."), "system properties");
+		bind(targets, withPrefix(options, PREFIX + "."), "command line arguments");
+		return properties;
+	}
+
+	private void bind(Map<String, Target> targets, Map<?, ?> source, String sourceName) {
+		for (Map.Entry<?, ?> entry : source.entrySet()) {
+			String key = String.valueOf(entry.getKey());
+			String value = String.valueOf(entry.getValue());
+			if (!bind(targets, key, value)) {
+				log.warn("Unknown property [{}] found in {}", key, sourceName);
+			}
+		}
+	}
+
+	private boolean bind(Map<String, Target> targets, String key, String value) {
+		int bracket = key.indexOf('[');
+		if (bracket > 0 && key.endsWith("]")) {
+			Target target = targets.get(normalized(key.substring(0, bracket)));
+			if (target == null || !target.isMap()) {
+				return false;
+			}
+			target.put(key.substring(bracket + 1, key.length() - 1), value);
+			return true;
+		}
+		Target target = targets.get(normalized(key));
+		if (target != null && !target.isMap()) {
+			target.set(value);
+			return true;
+		}
+		// e.g. releaser.fixed-versions.spring-cloud-cli=1.0.0.RELEASE
+		String[] segments = key.split("\\.");
+		for (int i = segments.length - 1; i > 0; i--) {
+			Target map = targets.get(normalized(String.join(".", Arrays.copyOfRange(segments, 0, i))));
+			if (map != null && map.isMap()) {
+				map.put(String.join(".", Arrays.copyOfRange(segments, i, segments.length)), value);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void collectTargets(Object bean, String path, Map<String, Target> targets) {
+		for (PropertyDescriptor descriptor : descriptors(bean.getClass())) {
+			if (descriptor.getReadMethod() == null || descriptor.getWriteMethod() == null) {
+				continue;
+			}
+			String propertyPath = path + "." + descriptor.getName();
+			Class<?> type = descriptor.getPropertyType();
+			if (type.getDeclaringClass() == ReleaserProperties.class) {
+				collectTargets(invoke(descriptor.getReadMethod(), bean), propertyPath, targets);
+			}
+			else {
+				targets.put(normalized(propertyPath), new Target(bean, descriptor));
+			}
+		}
+	}
+
+	private List<PropertyDescriptor> descriptors(Class<?> type) {
+		try {
+			return Arrays.asList(Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors());
+		}
+		catch (IntrospectionException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Map<String, String> fromFile(File file) {
+		Map<String, String> values = new LinkedHashMap<>();
+		if (file == null) {
+			return values;
+		}
+		Properties properties = new Properties();
+		try (InputStream stream = Files.newInputStream(file.toPath())) {
+			properties.load(stream);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to read the properties file [" + file + "]", e);
+		}
+		properties.stringPropertyNames().forEach(name -> values.put(name, properties.getProperty(name)));
+		return values;
+	}
+
+	private Map<String, String> withPrefix(Map<?, ?> source, String prefix) {
+		Map<String, String> values = new LinkedHashMap<>();
+		source.forEach((key, value) -> {
+			String name = String.valueOf(key);
+			if (name.startsWith(prefix)) {
+				values.put(name, String.valueOf(value));
+			}
+		});
+		return values;
+	}
+
+	/**
+	 * {@code releaser.git.oauth-token}, {@code releaser.git.oauthToken} and
+	 * {@code RELEASER_GIT_OAUTH_TOKEN} all become {@code RELEASERGITOAUTHTOKEN}
+	 */
+	static String normalized(String name) {
+		return name.replaceAll("[^A-Za-z0-9]", "").toUpperCase();
+	}
+
+	private static Object invoke(Method method, Object bean, Object... args) {
+		try {
+			return method.invoke(bean, args);
+		}
+		catch (IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class Target {
+		final Object bean;
+		final PropertyDescriptor descriptor;
+
+		Target(Object bean, PropertyDescriptor descriptor) {
+			this.bean = bean;
+			this.descriptor = descriptor;
+		}
+
+		boolean isMap() {
+			return Map.class.isAssignableFrom(this.descriptor.getPropertyType());
+		}
+
+		@SuppressWarnings("unchecked")
+		void put(String key, String value) {
+			((Map<String, String>) invoke(this.descriptor.getReadMethod(), this.bean)).put(key, value);
+		}
+
+		void set(String value) {
+			invoke(this.descriptor.getWriteMethod(), this.bean, converted(value));
+		}
+
+		private Object converted(String value) {
+			Class<?> type = this.descriptor.getPropertyType();
+			if (type == String.class) {
+				return value;
+			}
+			if (type == boolean.class || type == Boolean.class) {
+				return Boolean.valueOf(value.trim());
+			}
+			if (type == int.class || type == Integer.class) {
+				return Integer.valueOf(value.trim());
+			}
+			if (type == long.class || type == Long.class) {
+				return Long.valueOf(value.trim());
+			}
+			if (type == String[].class) {
+				return StringUtils.commaDelimitedListToStringArray(value);
+			}
+			if (List.class.isAssignableFrom(type)) {
+				return new ArrayList<>(Arrays.asList(StringUtils.commaDelimitedListToStringArray(value)));
+			}
+			throw new IllegalStateException("Properties of type [" + type + "] are not supported");
+		}
+	}
+}
@@ -0,0 +1,281 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.launcher;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaseReport;
+import org.springframework.cloud.release.internal.Releaser;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.git.ProjectGitUpdater;
+import org.springframework.cloud.release.internal.pom.ProjectPomUpdater;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
+import org.springframework.cloud.release.internal.project.ProjectBuilder;
+import org.springframework.cloud.release.internal.template.TemplateGenerator;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.Tracer;
+
+/**
+ * Runs the release steps without starting a Spring context. Meant for scripted,
+ * non-interactive invocations e.g. on CI.
+ *
+ * <pre>
+ * java -jar spring-cloud-release-tools-core-launcher.jar update-poms build --releaser.pom.branch=vDalston.RELEASE
+ * </pre>
+ *
+ * Steps are executed in the order in which they were passed. Options are bound as
+ * described in {@link PropertiesBinder}. The properties file is taken from the
+ * {@code --config} option, defaulting to {@code releaser.properties} or
+ * {@code config/releaser.properties} in the current directory.
+ *
+ * @author Marcin Grzejszczak
+ */
+public class ReleaserLauncher {
+
+	static {
+		// has to be set before the first logger gets created
+		if (System.getProperty("logback.configurationFile") == null) {
+			System.setProperty("logback.configurationFile", "launcher-logback.xml");
+		}
+	}
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String CONFIG_OPTION = "config";
+	private static final String RELEASE_COMMAND = "release";
+
+	static final int SUCCESS = 0;
+	static final int FAILURE = 1;
+	static final int WRONG_USAGE = 2;
+
+	private final Map<String, Step> steps = steps();
+	private final Map<String, Step> trainSteps = trainSteps();
+
+	public static void main(String[] args) {
+		System.exit(new ReleaserLauncher().run(args));
+	}
+
+	int run(String... args) {
+		Map<String, String> options = new LinkedHashMap<>();
+		List<String> commands = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--")) {
+				int equals = arg.indexOf('=');
+				if (equals > 0) {
+					options.put(arg.substring(2, equals), arg.substring(equals + 1));
+				} else {
+					options.put(arg.substring(2), "true");
+				}
+			} else {
+				commands.add(arg);
+			}
+		}
+		List<Step> stepsToRun = stepsToRun(commands);
+		if (stepsToRun == null) {
+			log.error(usage());
+			return WRONG_USAGE;
+		}
+		Context context;
+		try {
+			ReleaserProperties properties = new PropertiesBinder(System.getenv(), System.getProperties())
+					.bind(options, propertiesFile(options.get(CONFIG_OPTION)));
+			context = new Context(releaser(properties), properties);
+		}
+		catch (Exception e) {
+			log.error("Failed to set up the release", e);
+			return FAILURE;
+		}
+		Tracer.enable(context.properties.getTracing().isEnabled());
+		ReleaseReport report = context.releaser.report();
+		boolean failed = false;
+		for (Step step : stepsToRun) {
+			if (failed) {
+				report.skipped(step.name, "a previous step has failed");
+				continue;
+			}
+			log.info("\n\n\n=== {} ===\n\n{}\n\n", step.name.toUpperCase(), step.description);
+			long start = System.currentTimeMillis();
+			try (Span span = Tracer.span("launcher." + step.name)) {
+				step.action.accept(context);
+				report.succeeded(step.name, System.currentTimeMillis() - start);
+			}
+			catch (Exception e) {
+				log.error("Step [{}] has failed", step.name, e);
+				report.failed(step.name, System.currentTimeMillis() - start, e);
+				failed = true;
+			}
+		}
+		log.info(report.summary());
+		exportTrace(context.properties);
+		return report.hasFailures() ? FAILURE : SUCCESS;
+	}
+
+	private void exportTrace(ReleaserProperties properties) {
+		if (!Tracer.isEnabled()) {
+			return;
+		}
+		File file = new File(properties.getTracing().getFile());
+		Tracer.export(file.isAbsolute() ? file : new File(properties.getWorkingDir(), file.getPath()));
+	}
+
+	/**
+	 * @return steps to run or {@code null} if the commands are wrong
+	 */
+	private List<Step> stepsToRun(List<String> commands) {
+		if (commands.isEmpty()) {
+			return null;
+		}
+		List<Step> stepsToRun = new ArrayList<>();
+		for (String command : commands) {
+			if (RELEASE_COMMAND.equals(command)) {
+				stepsToRun.addAll(this.steps.values());
+			} else if (this.steps.containsKey(command)) {
+				stepsToRun.add(this.steps.get(command));
+			} else if (this.trainSteps.containsKey(command)) {
+				stepsToRun.add(this.trainSteps.get(command));
+			} else {
+				log.error("Unknown command [{}]", command);
+				return null;
+			}
+		}
+		return stepsToRun;
+	}
+
+	String usage() {
+		StringBuilder usage = new StringBuilder("\n\nUsage: java -jar <launcher jar> <command>... [--<option>=<value>]...\n\n")
+				.append("Commands:\n\n")
+				.append(String.format("  %-20s%s%n", RELEASE_COMMAND, "Perform a full release of this project"));
+		this.steps.values().forEach(step ->
+				usage.append(String.format("  %-20s%s%n", step.name, step.description)));
+		usage.append("\nRelease train commands (not a part of the full release):\n\n");
+		this.trainSteps.values().forEach(step ->
+				usage.append(String.format("  %-20s%s%n", step.name, step.description)));
+		usage.append("\nOptions are the same as for the Spring Boot application, e.g. --releaser.pom.branch=vDalston.RELEASE.\n")
+				.append("Use --config=<path> to point to a properties file.\n");
+		return usage.toString();
+	}
+
+	private File propertiesFile(String path) {
+		if (path != null) {
+			File file = new File(path);
+			if (!file.isFile()) {
+				throw new IllegalStateException("The properties file [" + file + "] doesn't exist");
+			}
+			return file;
+		}
+		for (String candidate : new String[] { "releaser.properties", "config/releaser.properties" }) {
+			File file = new File(candidate);
+			if (file.isFile()) {
+				return file;
+			}
+		}
+		return null;
+	}
+
+	Releaser releaser(ReleaserProperties properties) {
+		ProjectPomUpdater pomUpdater = new ProjectPomUpdater(properties);
+		return new Releaser(pomUpdater, new ProjectBuilder(properties, pomUpdater),
+				new ProjectGitUpdater(properties), new TemplateGenerator(properties));
+	}
+
+	private static Map<String, Step> steps() {
+		Map<String, Step> steps = new LinkedHashMap<>();
+		add(steps, "update-poms", "Update poms with versions from Spring Cloud Release",
+				context -> context.releaser.updateProjectFromScRelease(context.project, context.projects()));
+		add(steps, "build", "Build the project",
+				context -> context.releaser.buildProject());
+		add(steps, "commit", "Commit, tag and push the tag",
+				context -> context.releaser.commitAndPushTags(context.project, context.versionFromScRelease()));
+		add(steps, "deploy", "Deploy the artifacts to Artifactory",
+				context -> context.releaser.deploy());
+		add(steps, "publish-docs", "Publish the docs",
+				context -> context.releaser.publishDocs(context.versionFromScRelease()));
+		add(steps, "rollback", "Go back to snapshots and bump originalVersion by patch",
+				context -> context.releaser.rollbackReleaseVersion(context.project, context.originalVersion,
+						context.versionFromScRelease()));
+		add(steps, "push", "Push the commits",
+				context -> context.releaser.pushCurrentBranch(context.project));
+		add(steps, "close-milestone", "Close the milestone at Github",
+				context -> context.releaser.closeMilestone(context.versionFromScRelease()));
+		add(steps, "templates", "Create email / blog / tweet templates",
+				context -> context.releaser.createTemplates(context.versionFromScRelease(), context.projects()));
+		return steps;
+	}
+
+	/**
+	 * Steps that operate on all projects of the release train at once
+	 */
+	private static Map<String, Step> trainSteps() {
+		Map<String, Step> steps = new LinkedHashMap<>();
+		add(steps, "close-milestones", "Close the milestones of all released projects of the train at Github",
+				context -> context.releaser.closeMilestones(context.projects()));
+		return steps;
+	}
+
+	private static void add(Map<String, Step> steps, String name, String description, Consumer<Context> action) {
+		steps.put(name, new Step(name, description, action));
+	}
+
+	private static class Step {
+		final String name;
+		final String description;
+		final Consumer<Context> action;
+
+		Step(String name, String description, Consumer<Context> action) {
+			this.name = name;
+			this.description = description;
+			this.action = action;
+		}
+	}
+
+	/**
+	 * Versions from Spring Cloud Release are retrieved only if a step needs them,
+	 * building or pushing doesn't require cloning anything
+	 */
+	private static class Context {
+		final Releaser releaser;
+		final ReleaserProperties properties;
+		final File project;
+		final ProjectVersion originalVersion;
+		private Projects projects;
+
+		Context(Releaser releaser, ReleaserProperties properties) {
+			this.releaser = releaser;
+			this.properties = properties;
+			this.project = new File(properties.getWorkingDir());
+			this.originalVersion = new ProjectVersion(this.project);
+		}
+
+		Projects projects() {
+			if (this.projects == null) {
+				this.projects = this.releaser.retrieveVersionsFromSCRelease();
+			}
+			return this.projects;
+		}
+
+		ProjectVersion versionFromScRelease() {
+			return projects().forFile(this.project);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.io.File;
+
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.git.ProjectGitUpdater;
+
+/**
+ * Clones Spring Cloud Release, checks out the branch of the release train and
+ * parses its poms
+ *
+ * @author Marcin Grzejszczak
+ */
+class GitVersionSource implements VersionSource {
+
+	private final ProjectGitUpdater gitRepo;
+	private final ReleaserProperties properties;
+	private volatile String checkedOutRevision;
+
+	GitVersionSource(ProjectGitUpdater gitRepo, ReleaserProperties properties) {
+		this.gitRepo = gitRepo;
+		this.properties = properties;
+	}
+
+	@Override public Versions versions() {
+		File clonedScRelease = this.gitRepo.cloneScReleaseProject();
+		this.gitRepo.checkout(clonedScRelease, this.properties.getPom().getBranch());
+		this.checkedOutRevision = this.gitRepo.headCommit(clonedScRelease);
+		return new SCReleasePomParser(clonedScRelease).allVersions();
+	}
+
+	@Override public String revision() {
+		return this.gitRepo.scReleaseRevision(this.properties.getPom().getBranch());
+	}
+
+	/**
+	 * The {@code HEAD} commit of the clone, which is what the versions were read from
+	 */
+	@Override public String retrievedRevision() {
+		return this.checkedOutRevision;
+	}
+
+	@Override public String toString() {
+		return "git [" + this.properties.getGit().getSpringCloudReleaseGitUrl() + "]";
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.project.MavenRepository;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Resolves the released {@code spring-cloud-dependencies} BOM and
+ * {@code spring-cloud-starter-parent} of the release train from Maven repositories.
+ * The poms get stored in an on-disk cache. Since a released pom never changes,
+ * once it's cached no repository gets contacted anymore. Snapshots always get
+ * resolved again. A remote repository stores a snapshot under a timestamped file
+ * name, so the name of the latest snapshot pom is read from the
+ * {@code maven-metadata.xml} of the version. A repository without the metadata
+ * (e.g. a local one) is asked for the {@code -SNAPSHOT.pom} file.
+ *
+ * @author Marcin Grzejszczak
+ */
+class MavenBomVersionSource implements VersionSource {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String GROUP_PATH = "org/springframework/cloud";
+	private static final String STARTER_ARTIFACT_ID = "spring-cloud-starter-parent";
+	private static final String DEPENDENCIES_ARTIFACT_ID = "spring-cloud-dependencies";
+	private static final String MAVEN_METADATA = "maven-metadata.xml";
+
+	private final ReleaserProperties properties;
+	private final List<MavenRepository> repositories;
+	private final Path cacheDir;
+
+	MavenBomVersionSource(ReleaserProperties properties) {
+		this.properties = properties;
+		this.repositories = Arrays.stream(properties.getPom().getBomRepositories())
+				.map(url -> new MavenRepository(url, null, null))
+				.collect(Collectors.toList());
+		this.cacheDir = Paths.get(properties.getPom().getBomCacheDir());
+	}
+
+	@Override public Versions versions() {
+		String train = trainVersion(this.properties.getPom().getBranch());
+		Map<String, String> poms = new HashMap<>();
+		poms.put(SCReleasePomParser.STARTER_POM, pom(STARTER_ARTIFACT_ID, train));
+		poms.put(SCReleasePomParser.DEPENDENCIES_POM, pom(DEPENDENCIES_ARTIFACT_ID, train));
+		return SCReleasePomParser.fromContents(poms).allVersions();
+	}
+
+	/**
+	 * A released BOM never changes, so its version is the revision
+	 */
+	@Override public String revision() {
+		String train = trainVersion(this.properties.getPom().getBranch());
+		return train.endsWith("SNAPSHOT") ? null : train;
+	}
+
+	@Override public String retrievedRevision() {
+		return revision();
+	}
+
+	/**
+	 * Tags of Spring Cloud Release are prefixed with {@code v} (e.g. {@code vCamden.SR3})
+	 */
+	private String trainVersion(String branch) {
+		if (branch.length() > 1 && branch.charAt(0) == 'v' && Character.isUpperCase(branch.charAt(1))) {
+			return branch.substring(1);
+		}
+		return branch;
+	}
+
+	private String pom(String artifactId, String version) {
+		String directory = GROUP_PATH + "/" + artifactId + "/" + version;
+		String path = directory + "/" + artifactId + "-" + version + ".pom";
+		Path cached = this.cacheDir.resolve(path);
+		boolean snapshot = version.endsWith("SNAPSHOT");
+		try {
+			if (Files.isRegularFile(cached) && !snapshot) {
+				log.debug("Will use the cached pom [{}]", cached);
+				return read(cached);
+			}
+			for (MavenRepository repository : this.repositories) {
+				String resolvedPath = snapshot ?
+						directory + "/" + artifactId + "-" + snapshotVersion(repository, directory, version) + ".pom" :
+						path;
+				if (repository.download(resolvedPath, cached)) {
+					log.info("Resolved [{}] from [{}]", resolvedPath, repository);
+					return read(cached);
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to resolve [" + path + "]", e);
+		}
+		throw new IllegalStateException("The pom [" + path + "] is not present in any of the repositories "
+				+ this.repositories + ". Is [" + version + "] a released version of the release train?");
+	}
+
+	/**
+	 * @return version of the latest snapshot pom in the repository (e.g.
+	 * {@code Dalston.BUILD-20170301.120000-3}) or the given version if the repository
+	 * has no metadata of the snapshot
+	 */
+	private String snapshotVersion(MavenRepository repository, String directory, String version) throws IOException {
+		String metadata = repository.text(directory + "/" + MAVEN_METADATA);
+		if (metadata == null) {
+			return version;
+		}
+		String resolved = snapshotVersion(metadata, version);
+		log.debug("The latest snapshot of [{}] in [{}] is [{}]", version, repository, resolved);
+		return resolved;
+	}
+
+	static String snapshotVersion(String metadata, String version) {
+		try {
+			Document document = MavenRepository.parseMetadata(metadata);
+			NodeList snapshotVersions = document.getElementsByTagName("snapshotVersion");
+			for (int i = 0; i < snapshotVersions.getLength(); i++) {
+				Element snapshotVersion = (Element) snapshotVersions.item(i);
+				if ("pom".equals(text(snapshotVersion, "extension")) && text(snapshotVersion, "classifier") == null
+						&& text(snapshotVersion, "value") != null) {
+					return text(snapshotVersion, "value");
+				}
+			}
+			NodeList snapshots = document.getElementsByTagName("snapshot");
+			if (snapshots.getLength() > 0) {
+				Element snapshot = (Element) snapshots.item(0);
+				String timestamp = text(snapshot, "timestamp");
+				String buildNumber = text(snapshot, "buildNumber");
+				if (timestamp != null && buildNumber != null) {
+					return version.substring(0, version.length() - "SNAPSHOT".length()) + timestamp + "-" + buildNumber;
+				}
+			}
+			return version;
+		}
+		catch (ParserConfigurationException | SAXException | IOException e) {
+			throw new IllegalStateException("Failed to parse the maven metadata of [" + version + "]", e);
+		}
+	}
+
+	private static String text(Element element, String tag) {
+		NodeList nodes = element.getElementsByTagName(tag);
+		return nodes.getLength() > 0 ? nodes.item(0).getTextContent().trim() : null;
+	}
+
+	private String read(Path pom) throws IOException {
+		return new String(Files.readAllBytes(pom), StandardCharsets.UTF_8);
+	}
+
+	@Override public String toString() {
+		return "maven " + this.repositories;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.model.Model;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+/**
+ * In-memory index of the version references of all poms of many projects (e.g. all
+ * projects of a release train). For each pom the declared coordinates, the parent and
+ * the {@code *.version} properties get indexed. The poms are read only once, so the
+ * index can be checked against any number of versions without touching the disk.
+ *
+ * @author Marcin Grzejszczak
+ */
+class PomIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String POM_XML = "pom.xml";
+	private static final String VERSION_SUFFIX = ".version";
+
+	private final PomReader pomReader = new PomReader();
+	private final List<String> ignoredPomRegex;
+	final List<PomReference> references = new ArrayList<>();
+	int poms;
+
+	PomIndex(List<String> ignoredPomRegex) {
+		this.ignoredPomRegex = ignoredPomRegex;
+	}
+
+	/**
+	 * Indexes all poms under the root folder of the project. The {@code target} and
+	 * hidden folders are not visited
+	 */
+	PomIndex index(File projectRoot) {
+		try {
+			Files.walkFileTree(projectRoot.toPath(), new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					String name = dir.getFileName().toString();
+					boolean skipped = !dir.equals(projectRoot.toPath())
+							&& ("target".equals(name) || name.startsWith("."));
+					return skipped ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+					File file = path.toFile();
+					if (POM_XML.equals(file.getName()) && !pathIgnored(file)) {
+						index(projectRoot.getName(), file);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return this;
+	}
+
+	private void index(String project, File pom) {
+		Model model = this.pomReader.readPom(pom);
+		this.poms++;
+		if (StringUtils.hasText(model.getVersion())) {
+			this.references.add(new PomReference(project, pom, PomReference.Kind.VERSION,
+					model.getArtifactId(), model.getVersion()));
+		}
+		if (model.getParent() != null && StringUtils.hasText(model.getParent().getVersion())) {
+			this.references.add(new PomReference(project, pom, PomReference.Kind.PARENT,
+					model.getParent().getArtifactId(), model.getParent().getVersion()));
+		}
+		for (Map.Entry<Object, Object> property : model.getProperties().entrySet()) {
+			String key = String.valueOf(property.getKey());
+			if (key.endsWith(VERSION_SUFFIX)) {
+				this.references.add(new PomReference(project, pom, PomReference.Kind.PROPERTY,
+						key.substring(0, key.length() - VERSION_SUFFIX.length()),
+						String.valueOf(property.getValue()).trim()));
+			}
+		}
+		log.debug("Indexed [{}]", pom);
+	}
+
+	private boolean pathIgnored(File file) {
+		String path = file.getPath();
+		return this.ignoredPomRegex.stream().anyMatch(path::matches);
+	}
+}
+
+/**
+ * A place in a pom that refers to a version of a project
+ */
+class PomReference {
+
+	enum Kind {
+		VERSION, PARENT, PROPERTY
+	}
+
+	final String project;
+	final File pom;
+	final Kind kind;
+	final String name;
+	final String version;
+
+	PomReference(String project, File pom, Kind kind, String name, String version) {
+		this.project = project;
+		this.pom = pom;
+		this.kind = kind;
+		this.name = name;
+		this.version = version;
+	}
+
+	/**
+	 * @return the referencing element, e.g. {@code <spring-cloud-commons.version>}
+	 */
+	String element() {
+		switch (this.kind) {
+			case PARENT:
+				return "parent " + this.name;
+			case PROPERTY:
+				return "<" + this.name + ".version>";
+			default:
+				return "version of " + this.name;
+		}
+	}
+
+	@Override public String toString() {
+		return this.element() + " in [" + this.pom + "]";
+	}
+}
@@ -19,6 +19,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
@@ -38,10 +39,30 @@ class PomReader {
 			pom = new File(file,"pom.xml");
 		}
 		try(Reader reader = new FileReader(pom)) {
-			MavenXpp3Reader xpp3Reader = new MavenXpp3Reader();
-			return xpp3Reader.read(reader);
+			return readPom(reader);
 		}
-		catch (XmlPullParserException | IOException e) {
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to read file", e);
+		}
+	}
+
+	/**
+	 * Returns a POM parsed from its contents (e.g. a blob read from Git)
+	 */
+	Model readPom(String contents) {
+		try(Reader reader = new StringReader(contents)) {
+			return readPom(reader);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to read file", e);
+		}
+	}
+
+	private Model readPom(Reader reader) throws IOException {
+		try {
+			return new MavenXpp3Reader().read(reader);
+		}
+		catch (XmlPullParserException e) {
 			throw new IllegalStateException("Failed to read file", e);
 		}
 	}
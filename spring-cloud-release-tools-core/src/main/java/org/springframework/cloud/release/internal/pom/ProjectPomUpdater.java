@@ -23,7 +23,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Scanner;
 import java.util.Set;
 
@@ -31,6 +34,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.release.internal.ReleaserProperties;
 import org.springframework.cloud.release.internal.git.ProjectGitUpdater;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.Tracer;
 
 /**
  * @author Marcin Grzejszczak
@@ -41,11 +46,30 @@ public class ProjectPomUpdater {
 
 	private final ReleaserProperties properties;
 	private final ProjectGitUpdater gitRepo;
+	private final VersionSource versionSource;
 	private final PomUpdater pomUpdater = new PomUpdater();
 
 	public ProjectPomUpdater(ReleaserProperties properties) {
 		this.properties = properties;
 		this.gitRepo = new ProjectGitUpdater(properties);
+		this.versionSource = versionSource(properties, this.gitRepo);
+	}
+
+	ProjectPomUpdater(ReleaserProperties properties, VersionSource versionSource) {
+		this.properties = properties;
+		this.gitRepo = new ProjectGitUpdater(properties);
+		this.versionSource = versionSource;
+	}
+
+	private static VersionSource versionSource(ReleaserProperties properties, ProjectGitUpdater gitRepo) {
+		String versionSource = properties.getPom().getVersionSource();
+		if ("git".equalsIgnoreCase(versionSource)) {
+			return new GitVersionSource(gitRepo, properties);
+		} else if ("maven".equalsIgnoreCase(versionSource)) {
+			return new MavenBomVersionSource(properties);
+		}
+		throw new IllegalStateException("Unknown version source [" + versionSource + "]. "
+				+ "Pick either [git] or [maven]");
 	}
 
 	/**
@@ -53,43 +77,131 @@ public class ProjectPomUpdater {
 	 * for a given release version.
 	 */
 	public Projects retrieveVersionsFromSCRelease() {
-		File clonedScRelease = this.gitRepo.cloneScReleaseProject();
-		this.gitRepo.checkout(clonedScRelease, this.properties.getPom().getBranch());
-		SCReleasePomParser sCReleasePomParser = new SCReleasePomParser(clonedScRelease);
-		Versions versions = sCReleasePomParser.allVersions();
-		log.info("Retrieved the following versions\n{}", versions);
+		Versions versions = versionsFromManifestOrSource();
+		log.info("Retrieved the following versions from {}\n{}", this.versionSource, versions);
 		log.info("Will update the following versions manually [{}]", this.properties.getFixedVersions());
 		this.properties.getFixedVersions().forEach(versions::setVersion);
 		return versions.toProjectVersions();
 	}
 
+	/**
+	 * The versions get read from the release manifest if it was stored for the revision
+	 * the branch currently points to. Otherwise they're retrieved from the source and
+	 * the manifest gets stored with the revision the versions were actually read from,
+	 * since the branch might have moved after it was checked. The fixed versions aren't
+	 * part of the manifest.
+	 */
+	private Versions versionsFromManifestOrSource() {
+		ReleaserProperties.Manifest properties = this.properties.getManifest();
+		if (!properties.isEnabled()) {
+			return this.versionSource.versions();
+		}
+		String branch = this.properties.getPom().getBranch();
+		String revision = this.versionSource.revision();
+		if (revision == null) {
+			log.info("The versions of [{}] from {} can change at any time. Won't use the release manifest",
+					branch, this.versionSource);
+			return this.versionSource.versions();
+		}
+		ReleaseManifest manifest = new ReleaseManifest(new File(properties.getDirectory()),
+				this.versionSource.toString(), branch);
+		if (properties.isRefresh()) {
+			log.info("Will refresh the release manifest [{}]", manifest.file());
+		} else {
+			Versions versions = manifest.load(revision);
+			if (versions != null) {
+				return versions;
+			}
+		}
+		Versions versions = this.versionSource.versions();
+		String retrievedRevision = this.versionSource.retrievedRevision();
+		if (retrievedRevision != null) {
+			manifest.store(retrievedRevision, versions);
+		}
+		return versions;
+	}
+
+	/**
+	 * Compares the versions of two branches or tags of Spring Cloud Release. The poms
+	 * are read from the Git object database so none of the refs gets checked out.
+	 *
+	 * @param from - branch or tag to compare from (e.g. {@code Dalston.SR1})
+	 * @param to - branch or tag to compare to (e.g. {@code Dalston.SR2})
+	 */
+	public VersionsDiff diffVersionsFromSCRelease(String from, String to) {
+		try (Span span = Tracer.span("pom.versions-diff").tag("from", from).tag("to", to)) {
+			long start = System.currentTimeMillis();
+			File scRelease = this.gitRepo.scReleaseRepository();
+			VersionsDiff diff = new VersionsDiff(from, versionsAtRef(scRelease, from),
+					to, versionsAtRef(scRelease, to));
+			log.info("Compared the versions of [{}] and [{}] in [{}] ms", from, to,
+					System.currentTimeMillis() - start);
+			return diff;
+		}
+	}
+
+	/**
+	 * Indexes all poms of the given projects and checks whether their versions, parents
+	 * and {@code *.version} properties agree with the versions of the release train.
+	 *
+	 * @param projectRoots - root folders of the projects of the release train
+	 * @param projects - versions taken out from Spring Cloud Release
+	 */
+	public VersionsConsistency checkVersionsConsistency(List<File> projectRoots, Projects projects) {
+		try (Span span = Tracer.span("pom.versions-consistency").tag("projects", projectRoots.size())) {
+			long start = System.currentTimeMillis();
+			PomIndex index = new PomIndex(this.properties.getPom().getIgnoredPomRegex());
+			projectRoots.forEach(index::index);
+			VersionsConsistency consistency = new VersionsConsistency(index, projects);
+			span.tag("poms", index.poms).tag("inconsistencies", consistency.inconsistencies.size());
+			log.info("Checked [{}] version references in [{}] poms of [{}] projects in [{}] ms",
+					index.references.size(), index.poms, projectRoots.size(), System.currentTimeMillis() - start);
+			return consistency;
+		}
+	}
+
+	private Versions versionsAtRef(File scRelease, String ref) {
+		return SCReleasePomParser.fromContents(this.gitRepo.filesAtRef(scRelease, ref,
+				Arrays.asList(SCReleasePomParser.STARTER_POM, SCReleasePomParser.DEPENDENCIES_POM)))
+				.allVersions();
+	}
+
 	/**
 	 * For the given root folder (typically the working directory) performs the whole
 	 * flow of updating {@code pom.xml} with values from Spring Cloud Release project.
 	 *
 	 * @param projectRoot - root folder with project to update
 	 * @param projects - versions of projects used to update poms
+	 * @return poms that got modified
 	 */
-	public void updateProjectFromSCRelease(File projectRoot, Projects projects) {
+	public Set<File> updateProjectFromSCRelease(File projectRoot, Projects projects) {
 		Versions versions = new Versions(projects);
 		if (!this.pomUpdater.shouldProjectBeUpdated(projectRoot, versions)) {
 			log.info("Skipping project updating");
-			return;
+			return new LinkedHashSet<>();
 		}
-		updatePoms(projectRoot, versions);
+		return updatePoms(projectRoot, versions);
 	}
 
-	private void updatePoms(File projectRoot, Versions versions) {
-		File rootPom = new File(projectRoot, "pom.xml");
-		ModelWrapper rootPomModel = this.pomUpdater.readModel(rootPom);
-		processAllPoms(projectRoot, new PomWalker(rootPomModel, versions, this.pomUpdater,
-				this.properties));
+	private Set<File> updatePoms(File projectRoot, Versions versions) {
+		try (Span span = Tracer.span("pom.update-poms").tag("project", projectRoot.getName())) {
+			File rootPom = new File(projectRoot, "pom.xml");
+			ModelWrapper rootPomModel = this.pomUpdater.readModel(rootPom);
+			PomWalker pomWalker = new PomWalker(rootPomModel, versions, this.pomUpdater,
+					this.properties);
+			processAllPoms(projectRoot, pomWalker);
+			span.tag("poms", pomWalker.visitedPoms).tag("changedPoms", pomWalker.changedPoms.size());
+			return pomWalker.changedPoms;
+		}
 	}
 
-	public void updatePomsForRootVersion(File directory, String version) {
+	/**
+	 * @return poms that got modified
+	 */
+	public Set<File> updatePomsForRootVersion(File directory, String version) {
 		File pom = new File(directory, "pom.xml");
 		Versions versions = versions(version, pom);
-		updatePoms(directory, versions);
+		return updatePoms(directory, versions);
 	}
 
 	private Versions versions(String version, File pom) {
@@ -117,6 +229,8 @@ public class ProjectPomUpdater {
 		private final PomUpdater pomUpdater;
 		private final ReleaserProperties properties;
 		private final boolean snapshotVersion;
+		private final Set<File> changedPoms = new LinkedHashSet<>();
+		private int visitedPoms;
 
 		private PomWalker(ModelWrapper rootPom, Versions versions, PomUpdater pomUpdater,
 				ReleaserProperties properties) {
@@ -135,20 +249,34 @@ public class ProjectPomUpdater {
 					log.debug("Ignoring file [{}] since it's on a list of patterns to ignore", file);
 					return FileVisitResult.CONTINUE;
 				}
-				ModelWrapper model = this.pomUpdater.updateModel(this.rootPom, file, this.versions);
-				this.pomUpdater.overwritePomIfDirty(model, this.versions, file);
+				this.visitedPoms++;
+				ModelWrapper model;
+				try (Span span = Tracer.span("pom.read").tag("file", file.getPath()).tag("bytes", attr.size())) {
+					model = this.pomUpdater.updateModel(this.rootPom, file, this.versions);
+				}
+				try (Span span = Tracer.span("pom.rewrite").tag("file", file.getPath())) {
+					this.pomUpdater.overwritePomIfDirty(model, this.versions, file);
+					span.tag("changes", model.sourceChanges.size()).tag("dirty", model.isDirty());
+				}
+				if (model.isDirty()) {
+					this.changedPoms.add(file);
+				}
 				if (!this.snapshotVersion) {
 					log.debug("Update is a non-snapshot one. Checking if no snapshot versions remained in the pom");
-					Scanner scanner = new Scanner(asString(path));
-					int lineNumber = 0;
-					while (scanner.hasNextLine()) {
-						String line = scanner.nextLine();
-						lineNumber++;
-						boolean containsSnapshot = line.contains("BUILD-SNAPSHOT");
-						if (containsSnapshot) {
-							throw new IllegalStateException("The file [" + path + "] contains a BUILD-SNAPSHOT "
-									+ "version for a non snapshot release in line number [" + lineNumber + "]\n\n" + line);
+					try (Span span = Tracer.span("pom.scan").tag("file", file.getPath())) {
+						Scanner scanner = new Scanner(asString(path));
+						int lineNumber = 0;
+						while (scanner.hasNextLine()) {
+							String line = scanner.nextLine();
+							lineNumber++;
+							boolean containsSnapshot = line.contains("BUILD-SNAPSHOT");
+							if (containsSnapshot) {
+								span.tag("snapshotLine", lineNumber);
+								throw new IllegalStateException("The file [" + path + "] contains a BUILD-SNAPSHOT "
+										+ "version for a non snapshot release in line number [" + lineNumber + "]\n\n" + line);
+							}
 						}
+						span.tag("lines", lineNumber);
 					}
 					log.info("No snapshot versions remained in the pom");
 				}
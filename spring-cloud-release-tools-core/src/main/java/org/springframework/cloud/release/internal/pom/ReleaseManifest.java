@@ -0,0 +1,239 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+import javax.json.stream.JsonGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of the versions retrieved for a branch of Spring Cloud Release, stored
+ * as JSON together with the source, the revision the versions were retrieved from
+ * and a checksum of the contents. Lets subsequent runs, also in other JVMs, skip
+ * the retrieval as long as the branch still points to the same revision.
+ *
+ * @author Marcin Grzejszczak
+ */
+class ReleaseManifest {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	static final int FORMAT_VERSION = 1;
+
+	private final File file;
+	private final String source;
+	private final String branch;
+
+	/**
+	 * @param directory - where the manifests get stored
+	 * @param source - description of the source of the versions
+	 * @param branch - branch of Spring Cloud Release
+	 */
+	ReleaseManifest(File directory, String source, String branch) {
+		this.file = new File(directory, fileName(branch));
+		this.source = source;
+		this.branch = branch;
+	}
+
+	/**
+	 * The branch name made safe for the file system, followed by a hash of the raw
+	 * name, since e.g. {@code Camden/x} and {@code Camden_x} sanitize to the same name
+	 */
+	static String fileName(String branch) {
+		return branch.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + sha256(branch).substring(0, 8) + ".json";
+	}
+
+	File file() {
+		return this.file;
+	}
+
+	/**
+	 * @param revision - revision the branch currently points to
+	 * @return stored versions or {@code null} if there's no manifest or it can't be
+	 * used (it's corrupted, of another format or stale)
+	 */
+	Versions load(String revision) {
+		if (!this.file.exists()) {
+			log.info("There's no release manifest [{}] yet", this.file);
+			return null;
+		}
+		long start = System.currentTimeMillis();
+		JsonObject manifest;
+		try {
+			manifest = read();
+		}
+		catch (IOException | JsonException | ClassCastException e) {
+			log.warn("Failed to read the release manifest [{}]. Will retrieve the versions again", this.file, e);
+			return null;
+		}
+		String mismatch = mismatch(manifest, revision);
+		if (mismatch != null) {
+			log.warn("The release manifest [{}] can't be used since {}. Will retrieve the versions again",
+					this.file, mismatch);
+			return null;
+		}
+		Set<Project> projects = manifest.getJsonArray("projects").stream()
+				.map(value -> (JsonObject) value)
+				.map(project -> new Project(project.getString("name"), project.getString("version")))
+				.collect(Collectors.toSet());
+		log.info("Read the versions of [{}] at [{}] from the release manifest [{}] in [{}] ms", this.branch,
+				revision, this.file, System.currentTimeMillis() - start);
+		return new Versions(manifest.getString("bootVersion"), manifest.getString("buildVersion"), projects);
+	}
+
+	private String mismatch(JsonObject manifest, String revision) {
+		if (manifest.getInt("formatVersion", -1) != FORMAT_VERSION) {
+			return "its format version is [" + manifest.get("formatVersion") + "] whereas ["
+					+ FORMAT_VERSION + "] is supported";
+		}
+		String checksum = checksum(manifest.getString("source", ""), manifest.getString("branch", ""),
+				manifest.getString("revision", ""), manifest.getString("bootVersion", ""),
+				manifest.getString("buildVersion", ""), projects(manifest));
+		if (!checksum.equals(manifest.getString("checksum", ""))) {
+			return "its checksum doesn't match its contents";
+		}
+		if (!this.source.equals(manifest.getString("source"))) {
+			return "it was stored for the source [" + manifest.getString("source") + "]";
+		}
+		if (!this.branch.equals(manifest.getString("branch"))) {
+			return "it was stored for the branch [" + manifest.getString("branch") + "]";
+		}
+		if (!revision.equals(manifest.getString("revision"))) {
+			return "it's stale. The branch [" + this.branch + "] points to [" + revision + "] whereas ["
+					+ manifest.getString("revision") + "] was recorded";
+		}
+		return null;
+	}
+
+	private List<String> projects(JsonObject manifest) {
+		return manifest.getJsonArray("projects").stream()
+				.map(value -> (JsonObject) value)
+				.map(project -> project.getString("name") + "=" + project.getString("version"))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Stores the versions, replacing the previous manifest
+	 *
+	 * @param revision - revision the versions were retrieved from
+	 * @param versions - retrieved versions
+	 */
+	void store(String revision, Versions versions) {
+		List<Project> projects = versions.projects.stream()
+				.sorted(Comparator.comparing((Project project) -> project.name)
+						.thenComparing(project -> project.version))
+				.collect(Collectors.toList());
+		JsonArrayBuilder array = Json.createArrayBuilder();
+		projects.forEach(project -> array.add(Json.createObjectBuilder()
+				.add("name", project.name)
+				.add("version", project.version)));
+		JsonObject manifest = Json.createObjectBuilder()
+				.add("formatVersion", FORMAT_VERSION)
+				.add("source", this.source)
+				.add("branch", this.branch)
+				.add("revision", revision)
+				.add("createdAt", System.currentTimeMillis())
+				.add("bootVersion", versions.bootVersion)
+				.add("buildVersion", versions.scBuildVersion)
+				.add("projects", array)
+				.add("checksum", checksum(this.source, this.branch, revision, versions.bootVersion,
+						versions.scBuildVersion, projects.stream()
+						.map(project -> project.name + "=" + project.version)
+						.collect(Collectors.toList())))
+				.build();
+		try {
+			write(manifest);
+			log.info("Stored the versions of [{}] at [{}] in the release manifest [{}]", this.branch,
+					revision, this.file);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to store the release manifest [" + this.file + "]", e);
+		}
+	}
+
+	private JsonObject read() throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(this.file.toPath(), StandardCharsets.UTF_8);
+				JsonReader json = Json.createReader(reader)) {
+			return json.readObject();
+		}
+	}
+
+	private void write(JsonObject manifest) throws IOException {
+		Path target = this.file.toPath();
+		Files.createDirectories(target.getParent());
+		Path tmp = Files.createTempFile(target.getParent(), this.file.getName(), ".tmp");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+					JsonWriter json = Json.createWriterFactory(
+							Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true)).createWriter(writer)) {
+				json.writeObject(manifest);
+			}
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * SHA-256 of the contents in the order in which they're stored
+	 */
+	private static String checksum(String source, String branch, String revision, String bootVersion,
+			String buildVersion, List<String> projects) {
+		StringBuilder contents = new StringBuilder().append(FORMAT_VERSION).append('\n')
+				.append(source).append('\n').append(branch).append('\n').append(revision).append('\n')
+				.append(bootVersion).append('\n').append(buildVersion).append('\n');
+		projects.forEach(project -> contents.append(project).append('\n'));
+		return sha256(contents.toString());
+	}
+
+	private static String sha256(String text) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest.digest(text.getBytes(StandardCharsets.UTF_8))) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -39,25 +39,54 @@ class SCReleasePomParser {
 
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-	private static final String STARTER_POM = "spring-cloud-starter-parent/pom.xml";
-	private static final String DEPENDENCIES_POM = "spring-cloud-dependencies/pom.xml";
+	static final String STARTER_POM = "spring-cloud-starter-parent/pom.xml";
+	static final String DEPENDENCIES_POM = "spring-cloud-dependencies/pom.xml";
 	private static final Pattern SC_VERSION_PATTERN = Pattern.compile("^(spring-cloud-.*)\\.version$");
 
-	private final File springCloudReleaseDir;
+	private final Function<String, Model> pomLoader;
 	private final String bootPom;
 	private final String dependenciesPom;
-	private final PomReader pomReader = new PomReader();
 
 	SCReleasePomParser(File springCloudReleaseDir) {
 		this(springCloudReleaseDir, STARTER_POM, DEPENDENCIES_POM);
 	}
 
 	SCReleasePomParser(File springCloudReleaseDir, String bootPom, String dependenciesPom) {
-		this.springCloudReleaseDir = springCloudReleaseDir;
+		this(fromDirectory(springCloudReleaseDir), bootPom, dependenciesPom);
+	}
+
+	private SCReleasePomParser(Function<String, Model> pomLoader, String bootPom, String dependenciesPom) {
+		this.pomLoader = pomLoader;
 		this.bootPom = bootPom;
 		this.dependenciesPom = dependenciesPom;
 	}
 
+	/**
+	 * @param poms - contents of the poms by their path relative to the root of
+	 * Spring Cloud Release, e.g. read from a Git ref without checking it out
+	 */
+	static SCReleasePomParser fromContents(Map<String, String> poms) {
+		PomReader pomReader = new PomReader();
+		return new SCReleasePomParser(pom -> {
+			String contents = poms.get(pom);
+			if (contents == null) {
+				throw new IllegalStateException("Pom is not present");
+			}
+			return pomReader.readPom(contents);
+		}, STARTER_POM, DEPENDENCIES_POM);
+	}
+
+	private static Function<String, Model> fromDirectory(File springCloudReleaseDir) {
+		PomReader pomReader = new PomReader();
+		return pom -> {
+			File pomFile = new File(springCloudReleaseDir, pom);
+			if (!pomFile.exists()) {
+				throw new IllegalStateException("Pom is not present");
+			}
+			return pomReader.readPom(pomFile);
+		};
+	}
+
 	Versions allVersions() {
 		Versions boot = bootVersion();
 		Versions cloud = springCloudVersions();
@@ -87,11 +116,7 @@ class SCReleasePomParser {
 		if (pom == null) {
 			throw new IllegalStateException("Pom is not present");
 		}
-		File pomFile = new File(this.springCloudReleaseDir, pom);
-		if (!pomFile.exists()) {
-			throw new IllegalStateException("Pom is not present");
-		}
-		return this.pomReader.readPom(pomFile);
+		return this.pomLoader.apply(pom);
 	}
 
 	Versions springCloudVersions() {
@@ -0,0 +1,45 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+/**
+ * Source of the versions of all projects of a release train
+ *
+ * @author Marcin Grzejszczak
+ */
+interface VersionSource {
+
+	/**
+	 * @return versions of the release train picked via {@code releaser.pom.branch}
+	 */
+	Versions versions();
+
+	/**
+	 * Checked without retrieving the versions, e.g. the commit the branch points to
+	 *
+	 * @return revision the versions would be retrieved from right now or {@code null}
+	 * if the versions can change without the revision changing (e.g. snapshots)
+	 */
+	String revision();
+
+	/**
+	 * @return revision the versions returned by the last call to {@link #versions()}
+	 * were actually read from (e.g. the commit that got checked out) or {@code null}
+	 * if the versions can change without the revision changing. Differs from
+	 * {@link #revision()} if the branch has moved in the meantime.
+	 */
+	String retrievedRevision();
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Version references of the poms of a release train that disagree with the versions
+ * taken out from Spring Cloud Release
+ *
+ * @author Marcin Grzejszczak
+ */
+public class VersionsConsistency {
+
+	final int poms;
+	final int references;
+	final List<Inconsistency> inconsistencies = new ArrayList<>();
+
+	/**
+	 * Goes once through all indexed references. Each one is looked up in a map of
+	 * the expected versions, so the check is linear in the number of references.
+	 * Placeholders (e.g. {@code ${project.version}}) and references to projects
+	 * that aren't part of the release train are not checked.
+	 */
+	VersionsConsistency(PomIndex index, Projects projects) {
+		this.poms = index.poms;
+		this.references = index.references.size();
+		Map<String, String> expected = new HashMap<>();
+		projects.forEach(project -> expected.put(project.projectName, project.version));
+		for (PomReference reference : index.references) {
+			String version = expectedVersion(expected, reference.name);
+			if (version == null || version.isEmpty() || reference.version.contains("${")) {
+				continue;
+			}
+			if (!version.equals(reference.version)) {
+				this.inconsistencies.add(new Inconsistency(reference, version));
+			}
+		}
+	}
+
+	private String expectedVersion(Map<String, String> expected, String name) {
+		String version = expected.get(name);
+		if (version == null && name.endsWith("-parent")) {
+			return expected.get(name.substring(0, name.length() - "-parent".length()));
+		}
+		return version;
+	}
+
+	public boolean isConsistent() {
+		return this.inconsistencies.isEmpty();
+	}
+
+	/**
+	 * @return table with a row per reference that disagrees with the release train
+	 */
+	public String table() {
+		StringBuilder table = new StringBuilder();
+		if (!isConsistent()) {
+			int projectWidth = "PROJECT".length();
+			int elementWidth = "REFERENCE".length();
+			int foundWidth = "FOUND".length();
+			for (Inconsistency inconsistency : this.inconsistencies) {
+				projectWidth = Math.max(projectWidth, inconsistency.reference.project.length());
+				elementWidth = Math.max(elementWidth, inconsistency.reference.element().length());
+				foundWidth = Math.max(foundWidth, inconsistency.reference.version.length());
+			}
+			String format = "%-" + projectWidth + "s   %-" + elementWidth + "s   %-" + foundWidth + "s   %-"
+					+ "EXPECTED".length() + "s   %s\n";
+			table.append(String.format(format, "PROJECT", "REFERENCE", "FOUND", "EXPECTED", "POM"));
+			for (Inconsistency inconsistency : this.inconsistencies) {
+				PomReference reference = inconsistency.reference;
+				table.append(String.format(format, reference.project, reference.element(),
+						reference.version, inconsistency.expectedVersion, reference.pom));
+			}
+			table.append("\n");
+		}
+		table.append(this.inconsistencies.size()).append(" of ").append(this.references)
+				.append(" version references in ").append(this.poms)
+				.append(" poms disagree with the release train\n");
+		return table.toString();
+	}
+
+	@Override public String toString() {
+		return table();
+	}
+}
+
+class Inconsistency {
+	final PomReference reference;
+	final String expectedVersion;
+
+	Inconsistency(PomReference reference, String expectedVersion) {
+		this.reference = reference;
+		this.expectedVersion = expectedVersion;
+	}
+
+	@Override public String toString() {
+		return this.reference + " is [" + this.reference.version + "] instead of [" + this.expectedVersion + "]";
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Per project difference between the versions of two Spring Cloud Release refs
+ *
+ * @author Marcin Grzejszczak
+ */
+public class VersionsDiff {
+
+	final String from;
+	final String to;
+	final List<VersionChange> changes = new ArrayList<>();
+
+	VersionsDiff(String from, Versions fromVersions, String to, Versions toVersions) {
+		this.from = from;
+		this.to = to;
+		Map<String, String> before = byName(fromVersions);
+		Map<String, String> after = byName(toVersions);
+		Set<String> names = new TreeSet<>(before.keySet());
+		names.addAll(after.keySet());
+		for (String name : names) {
+			this.changes.add(new VersionChange(name, before.get(name), after.get(name)));
+		}
+	}
+
+	private Map<String, String> byName(Versions versions) {
+		Map<String, String> byName = new TreeMap<>();
+		versions.projects.forEach(project -> byName.put(project.name, project.version));
+		return byName;
+	}
+
+	public boolean hasChanges() {
+		return this.changes.stream().anyMatch(VersionChange::isChanged);
+	}
+
+	/**
+	 * @return table with a row per project. Rows of changed projects are marked with
+	 * {@code +} (added), {@code -} (removed) or {@code ~} (version changed)
+	 */
+	public String table() {
+		int nameWidth = "PROJECT".length();
+		int fromWidth = this.from.length();
+		for (VersionChange change : this.changes) {
+			nameWidth = Math.max(nameWidth, change.name.length());
+			fromWidth = Math.max(fromWidth, String.valueOf(change.fromVersion).length());
+		}
+		String format = "%s %-" + nameWidth + "s   %-" + fromWidth + "s   %s\n";
+		StringBuilder table = new StringBuilder();
+		table.append(String.format(format, " ", "PROJECT", this.from, this.to));
+		for (VersionChange change : this.changes) {
+			table.append(String.format(format, change.marker(), change.name,
+					change.fromVersion == null ? "" : change.fromVersion,
+					change.toVersion == null ? "" : change.toVersion));
+		}
+		long changed = this.changes.stream().filter(VersionChange::isChanged).count();
+		table.append("\n").append(changed).append(" of ").append(this.changes.size())
+				.append(" projects changed between [").append(this.from).append("] and [")
+				.append(this.to).append("]\n");
+		return table.toString();
+	}
+
+	@Override public String toString() {
+		return table();
+	}
+}
+
+class VersionChange {
+	final String name;
+	final String fromVersion;
+	final String toVersion;
+
+	VersionChange(String name, String fromVersion, String toVersion) {
+		this.name = name;
+		this.fromVersion = fromVersion;
+		this.toVersion = toVersion;
+	}
+
+	boolean isChanged() {
+		return !Objects.equals(this.fromVersion, this.toVersion);
+	}
+
+	String marker() {
+		if (this.fromVersion == null) {
+			return "+";
+		} else if (this.toVersion == null) {
+			return "-";
+		}
+		return isChanged() ? "~" : " ";
+	}
+
+	@Override public String toString() {
+		return this.marker() + " " + this.name + " [" + this.fromVersion + "] -> [" + this.toVersion + "]";
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Deploys the artifacts that were already produced by the build (either installed
+ * in the local Maven repository or present under the modules' {@code target} folders)
+ * without running the Maven lifecycle once again. Updates the {@code maven-metadata.xml}
+ * of each deployed artifact once all of its files got uploaded.
+ *
+ * @author Marcin Grzejszczak
+ */
+class ArtifactDeployer {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final DateTimeFormatter LAST_UPDATED = DateTimeFormatter.ofPattern("yyyyMMddHHmmss")
+			.withZone(ZoneOffset.UTC);
+	private static final List<String> IGNORED_EXTENSIONS = Arrays.asList(".md5", ".sha1",
+			".lastUpdated", ".repositories");
+
+	private final ReleaserProperties properties;
+	private final ReactorModules reactorModules;
+
+	ArtifactDeployer(ReleaserProperties properties) {
+		this.properties = properties;
+		this.reactorModules = new ReactorModules(properties);
+	}
+
+	/**
+	 * Deploys the build outputs unless the project can't be deployed that way
+	 *
+	 * @return {@code false} if the project wasn't deployed and the Maven lifecycle
+	 * should be used instead
+	 */
+	boolean deployIfPossible(File projectRoot) {
+		List<ReactorModule> modules = this.reactorModules.modules(projectRoot);
+		if (!canDeploy(modules)) {
+			return false;
+		}
+		log.info("Will deploy the already built artifacts without running the Maven lifecycle");
+		deploy(modules);
+		return true;
+	}
+
+	/**
+	 * @return {@code false} if the modules can't be deployed from the build outputs
+	 * (e.g. snapshots require timestamped metadata that only Maven can produce)
+	 */
+	boolean canDeploy(List<ReactorModule> modules) {
+		if (modules.stream().anyMatch(ReactorModule::isSnapshot)) {
+			log.info("Snapshots can't be deployed from the build outputs. Will run the deploy command instead");
+			return false;
+		}
+		return !modules.isEmpty();
+	}
+
+	void deploy(File projectRoot) {
+		deploy(this.reactorModules.modules(projectRoot));
+	}
+
+	private void deploy(List<ReactorModule> modules) {
+		ReleaserProperties.Maven maven = this.properties.getMaven();
+		Assert.hasText(maven.getDeployRepositoryUrl(),
+				"You have to pass the URL of the repository to deploy the build outputs to");
+		MavenRepository repository = new MavenRepository(maven.getDeployRepositoryUrl(),
+				maven.getDeployRepositoryUsername(), maven.getDeployRepositoryPassword());
+		List<ReactorModule> deployed = modules.stream().filter(this::notSkipped).collect(Collectors.toList());
+		Map<String, File> files = filesToDeploy(deployed);
+		log.info("Will deploy [{}] files to [{}] using [{}] threads", files.size(),
+				maven.getDeployRepositoryUrl(), maven.getDeployThreads());
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, maven.getDeployThreads()));
+		try {
+			List<Future<?>> uploads = new ArrayList<>();
+			files.forEach((path, file) -> uploads.add(executor.submit(() -> {
+				log.debug("Uploading [{}] to [{}]", file, path);
+				repository.uploadWithChecksums(path, file);
+				return null;
+			})));
+			awaitAll(uploads);
+			// metadata goes last so that it never points to a version that isn't fully uploaded
+			List<Future<?>> metadata = new ArrayList<>();
+			deployed.forEach(module -> metadata.add(executor.submit(() -> {
+				updateMetadata(repository, module);
+				return null;
+			})));
+			awaitAll(metadata);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to deploy the build outputs", e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void awaitAll(List<Future<?>> futures) throws InterruptedException, ExecutionException {
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+
+	private boolean notSkipped(ReactorModule module) {
+		if (module.deploySkipped()) {
+			log.info("Deployment of [{}] is skipped", module);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Only the files produced by this build are deployed - the names come from the
+	 * module's {@code target} folder, the contents from the local Maven repository
+	 * if the file got installed after it was built. Anything else lying in the local
+	 * repository (e.g. leftovers of a previous build of the same version) is ignored.
+	 *
+	 * @return map of a path in the repository layout to the file that should be uploaded there
+	 */
+	Map<String, File> filesToDeploy(List<ReactorModule> modules) {
+		Map<String, File> files = new LinkedHashMap<>();
+		for (ReactorModule module : modules) {
+			File installed = new File(this.properties.getMaven().getLocalRepository(),
+					module.repositoryPath());
+			List<File> outputs = targetFiles(module);
+			if (outputs.isEmpty() && !module.isPom()) {
+				throw new IllegalStateException("No build outputs were found for module [" + module + "]. "
+						+ "Have you built the project?");
+			}
+			String pomName = module.baseName() + ".pom";
+			files.put(module.repositoryPath() + "/" + pomName,
+					installedOrBuilt(new File(installed, pomName), new File(module.directory, "pom.xml")));
+			outputs.forEach(file -> files.put(module.repositoryPath() + "/" + file.getName(),
+					installedOrBuilt(new File(installed, file.getName()), file)));
+		}
+		return files;
+	}
+
+	private File installedOrBuilt(File installed, File built) {
+		return installed.isFile() && installed.lastModified() >= built.lastModified() ? installed : built;
+	}
+
+	/**
+	 * Adds the deployed version to the {@code maven-metadata.xml} of the artifact
+	 */
+	private void updateMetadata(MavenRepository repository, ReactorModule module) throws IOException {
+		Set<String> versions = new LinkedHashSet<>(versions(repository.text(module.metadataPath())));
+		versions.add(module.version);
+		log.debug("Updating the metadata of [{}] with versions {}", module, versions);
+		repository.uploadWithChecksums(module.metadataPath(),
+				metadata(module, versions).getBytes(StandardCharsets.UTF_8));
+	}
+
+	static List<String> versions(String metadata) {
+		List<String> versions = new ArrayList<>();
+		if (!StringUtils.hasText(metadata)) {
+			return versions;
+		}
+		try {
+			Document document = MavenRepository.parseMetadata(metadata);
+			NodeList nodes = document.getElementsByTagName("versions");
+			for (int i = 0; i < nodes.getLength(); i++) {
+				NodeList children = ((Element) nodes.item(i)).getElementsByTagName("version");
+				for (int j = 0; j < children.getLength(); j++) {
+					versions.add(children.item(j).getTextContent().trim());
+				}
+			}
+			return versions;
+		}
+		catch (ParserConfigurationException | SAXException | IOException e) {
+			throw new IllegalStateException("Failed to parse the maven metadata", e);
+		}
+	}
+
+	static String metadata(ReactorModule module, Collection<String> versions) {
+		StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+				.append("<metadata>\n")
+				.append("  <groupId>").append(module.groupId).append("</groupId>\n")
+				.append("  <artifactId>").append(module.artifactId).append("</artifactId>\n")
+				.append("  <versioning>\n")
+				.append("    <latest>").append(module.version).append("</latest>\n")
+				.append("    <release>").append(module.version).append("</release>\n")
+				.append("    <versions>\n");
+		versions.forEach(version -> xml.append("      <version>").append(version).append("</version>\n"));
+		return xml.append("    </versions>\n")
+				.append("    <lastUpdated>").append(LAST_UPDATED.format(Instant.now())).append("</lastUpdated>\n")
+				.append("  </versioning>\n")
+				.append("</metadata>\n").toString();
+	}
+
+	private List<File> targetFiles(ReactorModule module) {
+		if (module.isPom()) {
+			return new ArrayList<>();
+		}
+		return filesMatching(module, new File(module.directory, "target"));
+	}
+
+	private List<File> filesMatching(ReactorModule module, File directory) {
+		File[] files = directory.listFiles((dir, name) -> name.startsWith(module.baseName())
+				&& IGNORED_EXTENSIONS.stream().noneMatch(name::endsWith));
+		List<File> result = new ArrayList<>();
+		if (files == null) {
+			return result;
+		}
+		for (File file : files) {
+			if (file.isFile() && hasArtifactExtension(file)) {
+				result.add(file);
+			}
+		}
+		return result;
+	}
+
+	private boolean hasArtifactExtension(File file) {
+		String name = file.getName();
+		return name.endsWith(".jar") || name.endsWith(".war") || name.endsWith(".pom")
+				|| name.endsWith(".zip") || name.endsWith(".asc");
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.util.StringUtils;
+
+/**
+ * Checks that all the files that a deployment should have produced are present in the
+ * target repository and that their published {@code sha1} checksums match the contents.
+ * The expected files are derived from the reactor poms, so each module that isn't skipped
+ * from deployment is expected to have its pom, its main artifact and the configured
+ * classifier jars (e.g. {@code sources}) published.
+ *
+ * @author Marcin Grzejszczak
+ */
+class ArtifactVerifier {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final ReleaserProperties properties;
+	private final ReactorModules reactorModules;
+
+	ArtifactVerifier(ReleaserProperties properties) {
+		this.properties = properties;
+		this.reactorModules = new ReactorModules(properties);
+	}
+
+	/**
+	 * @return {@code false} if there's nothing to verify (e.g. no repository was set
+	 * or snapshots got deployed, whose file names are timestamped by Maven)
+	 */
+	boolean canVerify(File projectRoot) {
+		if (!StringUtils.hasText(repositoryUrl())) {
+			log.info("No repository to verify the deployment against was set");
+			return false;
+		}
+		List<ReactorModule> modules = this.reactorModules.modules(projectRoot);
+		if (modules.stream().anyMatch(ReactorModule::isSnapshot)) {
+			log.info("Snapshot deployments can't be verified since their file names are timestamped");
+			return false;
+		}
+		return !modules.isEmpty();
+	}
+
+	/**
+	 * Verifies all expected files in parallel. A problem with one file doesn't stop the
+	 * others from being checked. Once all are done an exception listing all problems
+	 * gets thrown.
+	 */
+	void verify(File projectRoot) {
+		ReleaserProperties.Maven maven = this.properties.getMaven();
+		String url = repositoryUrl();
+		MavenRepository repository = new MavenRepository(url, maven.getDeployRepositoryUsername(),
+				maven.getDeployRepositoryPassword());
+		Map<String, File> files = expectedFiles(projectRoot);
+		int threads = Math.max(1, Math.min(maven.getVerifyThreads(), files.size()));
+		log.info("Will verify [{}] deployed files in [{}] using [{}] threads", files.size(), url, threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			Map<String, Future<String>> results = new LinkedHashMap<>();
+			files.forEach((path, local) -> results.put(path, executor.submit(() -> verify(repository, path, local))));
+			List<String> problems = new ArrayList<>();
+			for (Map.Entry<String, Future<String>> result : results.entrySet()) {
+				try {
+					String problem = result.getValue().get();
+					if (problem != null) {
+						problems.add(problem);
+					}
+				}
+				catch (ExecutionException e) {
+					log.error("Failed to verify [{}]", result.getKey(), e.getCause());
+					problems.add("[" + result.getKey() + "] couldn't be verified: " + e.getCause());
+				}
+			}
+			if (!problems.isEmpty()) {
+				throw new IllegalStateException("The deployment to [" + url + "] is incomplete. "
+						+ problems.size() + " of " + files.size() + " files failed the verification:\n"
+						+ String.join("\n", problems));
+			}
+			log.info("All [{}] deployed files are present in [{}] with matching checksums", files.size(), url);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return description of the problem or {@code null} if the file was deployed correctly
+	 */
+	private String verify(MavenRepository repository, String path, File local) throws IOException {
+		long length = repository.contentLength(path);
+		if (length < 0) {
+			return "[" + path + "] is missing";
+		}
+		String published = repository.text(path + ".sha1");
+		if (published == null) {
+			return "[" + path + "] has no sha1 checksum";
+		}
+		published = firstToken(published);
+		if (local != null) {
+			if (length > 0 && length != local.length()) {
+				return "[" + path + "] has [" + length + "] bytes but [" + local + "] has [" + local.length() + "]";
+			}
+			String expected = MavenRepository.checksum(local, "SHA-1");
+			if (!expected.equals(published)) {
+				return "[" + path + "] has sha1 [" + published + "] but [" + local + "] has [" + expected + "]";
+			}
+			return null;
+		}
+		String actual = repository.checksum(path, "SHA-1");
+		if (!published.equals(actual)) {
+			return "[" + path + "] has sha1 [" + actual + "] but the published checksum is [" + published + "]";
+		}
+		return null;
+	}
+
+	/**
+	 * @return map of a path in the repository layout to the built file that should have been
+	 * deployed there or {@code null} if that file is no longer available locally
+	 */
+	Map<String, File> expectedFiles(File projectRoot) {
+		Map<String, File> files = new LinkedHashMap<>();
+		for (ReactorModule module : this.reactorModules.modules(projectRoot)) {
+			if (module.deploySkipped()) {
+				log.debug("Deployment of [{}] is skipped, won't verify it", module);
+				continue;
+			}
+			String pom = module.baseName() + ".pom";
+			files.put(module.repositoryPath() + "/" + pom, localFile(module, pom, new File(module.directory, "pom.xml")));
+			if (module.isPom()) {
+				continue;
+			}
+			String artifact = module.baseName() + "." + extension(module);
+			files.put(module.repositoryPath() + "/" + artifact, localFile(module, artifact,
+					new File(module.directory, "target/" + artifact)));
+			for (String classifier : this.properties.getMaven().getVerifyClassifiers()) {
+				String jar = module.baseName() + "-" + classifier + ".jar";
+				files.put(module.repositoryPath() + "/" + jar, localFile(module, jar,
+						new File(module.directory, "target/" + jar)));
+			}
+		}
+		return files;
+	}
+
+	private File localFile(ReactorModule module, String name, File buildOutput) {
+		File installed = new File(this.properties.getMaven().getLocalRepository(),
+				module.repositoryPath() + "/" + name);
+		if (installed.isFile()) {
+			return installed;
+		}
+		return buildOutput.isFile() ? buildOutput : null;
+	}
+
+	private String extension(ReactorModule module) {
+		return "war".equals(module.packaging) ? "war" : "jar";
+	}
+
+	private String repositoryUrl() {
+		ReleaserProperties.Maven maven = this.properties.getMaven();
+		return StringUtils.hasText(maven.getVerifyRepositoryUrl()) ?
+				maven.getVerifyRepositoryUrl() : maven.getDeployRepositoryUrl();
+	}
+
+	/**
+	 * Some repositories publish checksums in the {@code sha1sum} format ({@code <sha1> <file name>})
+	 */
+	private String firstToken(String checksum) {
+		return checksum.trim().split("\\s+")[0].toLowerCase(Locale.ROOT);
+	}
+}
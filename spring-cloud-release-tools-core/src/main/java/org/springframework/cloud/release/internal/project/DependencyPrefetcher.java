@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.Tracer;
+
+/**
+ * Warms up the local Maven repository while the release is still busy with other
+ * steps, so that the build doesn't have to wait for the downloads.
+ *
+ * The dependencies and plugins of the (already updated) reactor get resolved by
+ * {@code dependency:go-offline} run with the options of the build command (e.g. the
+ * profiles and the settings). That way Maven itself picks what to download, together
+ * with the mirrors, proxies and credentials the build would use. The output of Maven
+ * goes to {@value #LOG_FILE}. Maven will resolve whatever was missed during the build,
+ * so the prefetch never fails the release.
+ *
+ * @author Marcin Grzejszczak
+ */
+class DependencyPrefetcher {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	static final String LOG_FILE = "target/releaser-prefetch.log";
+
+	private final ReleaserProperties properties;
+	private final ProcessExecutor executor;
+
+	DependencyPrefetcher(ReleaserProperties properties, ProcessExecutor executor) {
+		this.properties = properties;
+		this.executor = executor;
+	}
+
+	/**
+	 * Starts resolving the dependencies of the project in the background. Cancelling
+	 * the returned future kills the Maven process.
+	 *
+	 * @param project - root of the reactor
+	 * @param commands - build command whose options should be used to resolve the dependencies
+	 */
+	CompletableFuture<PrefetchResult> prefetch(File project, String[] commands) {
+		CompletableFuture<PrefetchResult> result = new CompletableFuture<>();
+		String[] resolveCommand = ShardedBuild.resolveCommand(commands);
+		File output = new File(project, LOG_FILE);
+		Thread thread = new Thread(() -> {
+			try (Span span = Tracer.span("project.prefetch").tag("project", project.getName())) {
+				long start = System.nanoTime();
+				output.getParentFile().mkdirs();
+				this.executor.runCommand(resolveCommand, project, output,
+						this.properties.getMaven().getWaitTimeInMinutes());
+				PrefetchResult prefetched = new PrefetchResult(
+						TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), output);
+				span.tag("seconds", prefetched.seconds);
+				result.complete(prefetched);
+			}
+			catch (Throwable e) {
+				if (!result.isCancelled()) {
+					log.warn("Failed to prefetch the dependencies of [{}]. Check [{}] for the output of Maven",
+							project.getName(), output, e);
+				}
+				result.completeExceptionally(e);
+			}
+		}, "dependency-prefetch");
+		thread.setDaemon(true);
+		result.whenComplete((prefetched, throwable) -> {
+			if (result.isCancelled()) {
+				thread.interrupt();
+			}
+		});
+		thread.start();
+		return result;
+	}
+}
+
+/**
+ * Summary of a dependency prefetch
+ */
+class PrefetchResult {
+
+	final long seconds;
+	final File output;
+
+	PrefetchResult(long seconds, File output) {
+		this.seconds = seconds;
+		this.output = output;
+	}
+
+	@Override public String toString() {
+		return "Maven has resolved them in [" + this.seconds + "] seconds. Its output is in [" + this.output + "]";
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.git.ProjectGitUpdater;
+
+/**
+ * Checks whether the {@code docs} module has to be built. Compared to the previous
+ * release tag the docs are considered unchanged when:
+ *
+ * <ul>
+ *     <li>no file of the {@code docs} module has changed apart from its pom</li>
+ *     <li>the pom of the {@code docs} module differs only by the version of the
+ *     project and of its parent</li>
+ *     <li>the properties of the root pom, which the docs can interpolate, are the same</li>
+ * </ul>
+ *
+ * Uncommitted changes (e.g. poms updated before the build) are taken into account.
+ *
+ * @author Marcin Grzejszczak
+ */
+class DocsChangeDetector {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String DOCS_MODULE = "docs";
+	private static final String POM = "pom.xml";
+	private static final String DOCS_POM = DOCS_MODULE + "/" + POM;
+	private static final String VERSION_PLACEHOLDER = "${version}";
+
+	private final ProjectGitUpdater gitUpdater;
+
+	DocsChangeDetector(ProjectGitUpdater gitUpdater) {
+		this.gitUpdater = gitUpdater;
+	}
+
+	/**
+	 * @param project - root of the project
+	 * @return why the docs don't have to be built or {@code null} if they have to
+	 */
+	String unchangedDocsReason(File project) {
+		if (!new File(project, DOCS_MODULE).isDirectory()) {
+			return null;
+		}
+		String tag = this.gitUpdater.previousReleaseTag(project);
+		if (tag == null) {
+			log.info("There's no previous release tag. The docs will be built");
+			return null;
+		}
+		List<String> changedFiles = this.gitUpdater.changedFiles(project, tag, DOCS_MODULE).stream()
+				.filter(path -> !path.equals(DOCS_POM) && !path.contains("/target/"))
+				.collect(Collectors.toList());
+		if (!changedFiles.isEmpty()) {
+			log.info("The docs have changed since [{}]. Changed files {}", tag, changedFiles);
+			return null;
+		}
+		String previousDocsPom = this.gitUpdater.fileAtRef(project, tag, DOCS_POM);
+		String docsPom = read(new File(project, DOCS_POM));
+		if (previousDocsPom == null || docsPom == null
+				|| !withoutVersions(previousDocsPom).equals(withoutVersions(docsPom))) {
+			log.info("The pom of the docs module has changed since [{}]", tag);
+			return null;
+		}
+		String previousRootPom = this.gitUpdater.fileAtRef(project, tag, POM);
+		String rootPom = read(new File(project, POM));
+		if (previousRootPom == null || rootPom == null
+				|| !properties(previousRootPom).equals(properties(rootPom))) {
+			log.info("The properties of the root pom have changed since [{}]", tag);
+			return null;
+		}
+		return "neither the docs nor the properties they can interpolate have changed since [" + tag + "]";
+	}
+
+	/**
+	 * The pom gets a new version with every release. Replacing the versions with a
+	 * placeholder leaves only the changes that matter.
+	 */
+	private String withoutVersions(String pom) {
+		Model model = model(pom);
+		String result = pom;
+		String parentVersion = model.getParent() != null ? model.getParent().getVersion() : null;
+		for (String version : new String[] { model.getVersion(), parentVersion }) {
+			if (version != null) {
+				result = result.replace(version, VERSION_PLACEHOLDER);
+			}
+		}
+		return result;
+	}
+
+	private Properties properties(String pom) {
+		return model(pom).getProperties();
+	}
+
+	private Model model(String pom) {
+		try {
+			return new MavenXpp3Reader().read(new StringReader(pom));
+		}
+		catch (IOException | XmlPullParserException e) {
+			throw new IllegalStateException("Failed to parse the pom", e);
+		}
+	}
+
+	private String read(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,335 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Minimal client of a Maven repository layout. Supports {@code file:} URLs
+ * (e.g. a local stand-in repository) and HTTP(S) repositories.
+ *
+ * @author Marcin Grzejszczak
+ */
+public class MavenRepository {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final String url;
+	private final String username;
+	private final String password;
+
+	public MavenRepository(String url, String username, String password) {
+		this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+		this.username = username;
+		this.password = password;
+	}
+
+	/**
+	 * Uploads the file together with its {@code md5} and {@code sha1} checksums
+	 *
+	 * @param path - path of the file in the repository layout
+	 * @param file - file to upload
+	 */
+	void uploadWithChecksums(String path, File file) throws IOException {
+		upload(path, file);
+		upload(path + ".md5", checksum(file, "MD5").getBytes(StandardCharsets.UTF_8));
+		upload(path + ".sha1", checksum(file, "SHA-1").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Uploads the generated content together with its {@code md5} and {@code sha1} checksums
+	 *
+	 * @param path - path of the file in the repository layout
+	 * @param bytes - content to upload
+	 */
+	void uploadWithChecksums(String path, byte[] bytes) throws IOException {
+		upload(path, bytes);
+		upload(path + ".md5", checksum(new ByteArrayInputStream(bytes), "MD5").getBytes(StandardCharsets.UTF_8));
+		upload(path + ".sha1", checksum(new ByteArrayInputStream(bytes), "SHA-1").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void upload(String path, File file) throws IOException {
+		if (isFileRepository()) {
+			Path target = localPath(path);
+			Files.createDirectories(target.getParent());
+			Files.copy(file.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
+		try (InputStream stream = Files.newInputStream(file.toPath())) {
+			put(path, stream, file.length());
+		}
+	}
+
+	private void upload(String path, byte[] bytes) throws IOException {
+		if (isFileRepository()) {
+			Path target = localPath(path);
+			Files.createDirectories(target.getParent());
+			Files.write(target, bytes);
+			return;
+		}
+		try (InputStream stream = new ByteArrayInputStream(bytes)) {
+			put(path, stream, bytes.length);
+		}
+	}
+
+	private void put(String path, InputStream stream, long length) throws IOException {
+		HttpURLConnection connection = connection(path);
+		connection.setRequestMethod("PUT");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(length);
+		try (OutputStream out = connection.getOutputStream()) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+		}
+		int status = connection.getResponseCode();
+		if (status < 200 || status >= 300) {
+			throw new IllegalStateException("Failed to upload [" + path + "]. The repository "
+					+ "responded with status [" + status + "]");
+		}
+		drain(connection);
+	}
+
+	/**
+	 * Downloads the file to a temporary file next to the target. If the repository
+	 * publishes a {@code sha1} checksum of the file, the temporary file gets verified
+	 * against it. Only a verified file gets moved in place, so that no one ever sees
+	 * a partially written or a corrupted file
+	 *
+	 * @param path - path of the file in the repository layout
+	 * @param target - where the file should be stored
+	 * @return {@code false} if the repository doesn't contain the file or the checksum
+	 * of the downloaded file doesn't match
+	 */
+	public boolean download(String path, Path target) throws IOException {
+		Files.createDirectories(target.getParent());
+		Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+		try {
+			try (InputStream stream = open(path)) {
+				if (stream == null) {
+					return false;
+				}
+				Files.copy(stream, temporary, StandardCopyOption.REPLACE_EXISTING);
+			}
+			if (!checksumMatches(path, temporary)) {
+				return false;
+			}
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		}
+		finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private boolean checksumMatches(String path, Path downloaded) throws IOException {
+		String expected = text(path + ".sha1");
+		if (expected == null || expected.trim().isEmpty()) {
+			return true;
+		}
+		String actual = checksum(downloaded.toFile(), "SHA-1");
+		if (!actual.equalsIgnoreCase(expected.trim().split("\\s+")[0])) {
+			log.warn("The checksum of [{}] from [{}] doesn't match. Will not keep it", path, this);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return contents of the file or {@code null} if the repository doesn't contain it
+	 */
+	public String text(String path) throws IOException {
+		try (InputStream stream = open(path)) {
+			if (stream == null) {
+				return null;
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Checks whether the file is present without downloading it
+	 *
+	 * @return size of the file as reported by the repository, {@code -1} if the repository
+	 * doesn't contain the file and {@code 0} if it didn't report the size
+	 */
+	long contentLength(String path) throws IOException {
+		if (isFileRepository()) {
+			Path file = localPath(path);
+			return Files.isRegularFile(file) ? Files.size(file) : -1;
+		}
+		HttpURLConnection connection = connection(path);
+		connection.setRequestMethod("HEAD");
+		int status = connection.getResponseCode();
+		if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+			connection.disconnect();
+			return -1;
+		}
+		if (status < 200 || status >= 300) {
+			throw new IOException("Failed to check [" + path + "]. The repository "
+					+ "responded with status [" + status + "]");
+		}
+		long length = Math.max(0, connection.getContentLengthLong());
+		drain(connection);
+		return length;
+	}
+
+	/**
+	 * Streams the file through a digest without storing it
+	 *
+	 * @return checksum of the file or {@code null} if the repository doesn't contain it
+	 */
+	String checksum(String path, String algorithm) throws IOException {
+		try (InputStream stream = open(path)) {
+			return stream != null ? checksum(stream, algorithm) : null;
+		}
+	}
+
+	private InputStream open(String path) throws IOException {
+		if (isFileRepository()) {
+			Path file = localPath(path);
+			return Files.isRegularFile(file) ? Files.newInputStream(file) : null;
+		}
+		HttpURLConnection connection = connection(path);
+		int status = connection.getResponseCode();
+		if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+			connection.disconnect();
+			return null;
+		}
+		if (status < 200 || status >= 300) {
+			throw new IOException("Failed to download [" + path + "]. The repository "
+					+ "responded with status [" + status + "]");
+		}
+		return connection.getInputStream();
+	}
+
+	@Override public String toString() {
+		return this.url;
+	}
+
+	HttpURLConnection connection(String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(this.url + "/" + path).openConnection();
+		if (StringUtils.hasText(this.username)) {
+			String credentials = this.username + ":" + this.password;
+			connection.setRequestProperty("Authorization", "Basic " + Base64.getEncoder()
+					.encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+		}
+		return connection;
+	}
+
+	/**
+	 * Reads the response fully so that the underlying connection can be reused
+	 */
+	void drain(HttpURLConnection connection) throws IOException {
+		try (InputStream stream = connection.getInputStream()) {
+			byte[] buffer = new byte[8192];
+			while (stream.read(buffer) != -1) {
+				// draining
+			}
+		}
+	}
+
+	/**
+	 * Parses a {@code maven-metadata.xml} read from a repository. The metadata comes from
+	 * a remote server, so neither doctypes nor external entities are allowed in it
+	 */
+	public static Document parseMetadata(String metadata)
+			throws ParserConfigurationException, SAXException, IOException {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+		factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+		factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+		factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+		factory.setXIncludeAware(false);
+		factory.setExpandEntityReferences(false);
+		DocumentBuilder builder = factory.newDocumentBuilder();
+		// the parse exception is enough, there's no need to print the error to stderr too
+		builder.setErrorHandler(new DefaultHandler());
+		return builder.parse(new InputSource(new StringReader(metadata)));
+	}
+
+	boolean isFileRepository() {
+		return this.url.startsWith("file:");
+	}
+
+	Path localPath(String path) {
+		return Paths.get(URI.create(this.url + "/" + path));
+	}
+
+	static String checksum(File file, String algorithm) throws IOException {
+		try (InputStream stream = Files.newInputStream(file.toPath())) {
+			return checksum(stream, algorithm);
+		}
+	}
+
+	static String checksum(InputStream stream, String algorithm) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance(algorithm);
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+			StringBuilder hex = new StringBuilder();
+			for (byte b : digest.digest()) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,405 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Supervises a running process. Apart from the absolute waiting time, it tracks
+ * whether the process keeps producing output. If it doesn't for longer than the
+ * idle time, and it's not using any CPU either, the process is considered stalled.
+ * In that case a thread dump of the process gets logged and the process is killed.
+ * The CPU time is summed over the whole process tree (e.g. the JVM forked by the
+ * Maven wrapper). If it can't be read (e.g. there's no {@code /proc} file system)
+ * the process is never considered stalled, since we can't tell whether it's working.
+ *
+ * @author Marcin Grzejszczak
+ */
+class ProcessWatchdog {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final long MAX_POLL_INTERVAL_IN_MILLIS = 1000;
+	private static final long THREAD_DUMP_TIMEOUT_IN_SECONDS = 30;
+
+	private final long idleTimeInMillis;
+	private final PrintStream out;
+	private final AtomicLong pumpedBytes = new AtomicLong();
+	private File outputFile;
+	private Thread pump;
+
+	ProcessWatchdog(long idleTimeInSeconds) {
+		this(idleTimeInSeconds, System.out);
+	}
+
+	ProcessWatchdog(long idleTimeInSeconds, PrintStream out) {
+		this.idleTimeInMillis = TimeUnit.SECONDS.toMillis(idleTimeInSeconds);
+		this.out = out;
+	}
+
+	/**
+	 * We can't observe the output of a process that inherits our IO. In that case
+	 * the output gets piped and copied to our output instead.
+	 */
+	ProcessBuilder watch(ProcessBuilder builder) {
+		if (builder.redirectOutput().type() == ProcessBuilder.Redirect.Type.INHERIT) {
+			return builder.redirectOutput(ProcessBuilder.Redirect.PIPE)
+					.redirectErrorStream(true);
+		}
+		this.outputFile = builder.redirectOutput().file();
+		return builder;
+	}
+
+	/**
+	 * @return {@code true} if the process has finished in the given time. If it hasn't,
+	 * the process tree gets killed so that nothing keeps writing to our output
+	 * @throws IllegalStateException when the process got stalled and was killed
+	 */
+	boolean waitFor(Process process, long timeout, TimeUnit unit) throws InterruptedException {
+		startPumping(process);
+		long now = System.currentTimeMillis();
+		long deadline = now + unit.toMillis(timeout);
+		long pollInterval = Math.max(100, Math.min(MAX_POLL_INTERVAL_IN_MILLIS, this.idleTimeInMillis / 4));
+		long lastProgress = progress();
+		long lastProgressTime = now;
+		long lastCpuTime = cpuTime(process);
+		if (lastCpuTime < 0) {
+			log.warn("Can't read the CPU time of the process. A process that doesn't produce any output "
+					+ "won't be considered stalled");
+		}
+		while (true) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				if (process.waitFor(0, TimeUnit.MILLISECONDS)) {
+					stopPumping(process);
+					return true;
+				}
+				kill(process);
+				stopPumping(process);
+				return false;
+			}
+			if (process.waitFor(Math.min(remaining, pollInterval), TimeUnit.MILLISECONDS)) {
+				stopPumping(process);
+				return true;
+			}
+			now = System.currentTimeMillis();
+			long currentProgress = progress();
+			if (currentProgress != lastProgress) {
+				lastProgress = currentProgress;
+				lastProgressTime = now;
+				continue;
+			}
+			if (now - lastProgressTime < this.idleTimeInMillis) {
+				continue;
+			}
+			long currentCpuTime = cpuTime(process);
+			if (currentCpuTime < 0 || lastCpuTime < 0) {
+				log.debug("The process hasn't produced any output for [{}] seconds but its CPU time is unknown. "
+						+ "Will continue waiting", TimeUnit.MILLISECONDS.toSeconds(now - lastProgressTime));
+				lastCpuTime = currentCpuTime;
+				lastProgressTime = now;
+				continue;
+			}
+			if (currentCpuTime != lastCpuTime) {
+				log.warn("The process hasn't produced any output for [{}] seconds but it's still using CPU. "
+						+ "Will continue waiting", TimeUnit.MILLISECONDS.toSeconds(now - lastProgressTime));
+				lastCpuTime = currentCpuTime;
+				lastProgressTime = now;
+				continue;
+			}
+			long idleSeconds = TimeUnit.MILLISECONDS.toSeconds(this.idleTimeInMillis);
+			log.error("The process hasn't produced any output and hasn't used any CPU for [{}] seconds. "
+					+ "Will take a thread dump and kill it", idleSeconds);
+			logThreadDump(process);
+			kill(process);
+			stopPumping(process);
+			throw new IllegalStateException("The process hasn't produced any output for ["
+					+ idleSeconds + "] seconds and seems to be stalled");
+		}
+	}
+
+	private void startPumping(Process process) {
+		InputStream stream = this.outputFile == null ? process.getInputStream() : null;
+		if (stream == null) {
+			return;
+		}
+		this.pump = new Thread(() -> {
+			byte[] buffer = new byte[8192];
+			int read;
+			try {
+				while ((read = stream.read(buffer)) != -1) {
+					this.out.write(buffer, 0, read);
+					this.out.flush();
+					this.pumpedBytes.addAndGet(read);
+				}
+			}
+			catch (IOException e) {
+				log.debug("The output of the process is no longer available", e);
+			}
+		}, "process-output-pump");
+		this.pump.setDaemon(true);
+		this.pump.start();
+	}
+
+	private void stopPumping(Process process) throws InterruptedException {
+		if (this.pump == null) {
+			return;
+		}
+		this.pump.join(MAX_POLL_INTERVAL_IN_MILLIS);
+		if (this.pump.isAlive()) {
+			// some process that survived still holds the pipe open
+			try {
+				process.getInputStream().close();
+			}
+			catch (IOException e) {
+				log.debug("Failed to close the output of the process", e);
+			}
+			this.pump.interrupt();
+		}
+	}
+
+	/**
+	 * Kills the descendants first, otherwise they'd get orphaned and could
+	 * keep running (and writing to our output) after the process is gone
+	 */
+	private void kill(Process process) {
+		long pid = pid(process);
+		List<Long> descendants = pid < 0 ? new ArrayList<>() : descendants(pid);
+		if (!descendants.isEmpty()) {
+			List<String> command = new ArrayList<>(Arrays.asList("kill", "-9"));
+			descendants.forEach(descendant -> command.add(String.valueOf(descendant)));
+			try {
+				new ProcessBuilder(command).redirectErrorStream(true).start()
+						.waitFor(THREAD_DUMP_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+			}
+			catch (IOException e) {
+				log.warn("Failed to kill the descendants {} of process [{}]", descendants, pid, e);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		process.destroyForcibly();
+	}
+
+	private long progress() {
+		if (this.outputFile != null) {
+			return this.outputFile.length();
+		}
+		return this.pumpedBytes.get();
+	}
+
+	/**
+	 * @return user and system CPU time of the process and all of its descendants
+	 * in clock ticks as reported by {@code /proc} or {@code -1} when it can't be read
+	 */
+	long cpuTime(Process process) {
+		long pid = pid(process);
+		if (pid < 0) {
+			return -1;
+		}
+		long cpuTime = cpuTime(pid);
+		if (cpuTime < 0) {
+			return -1;
+		}
+		for (long descendant : descendants(pid)) {
+			// a descendant that has just finished is not an error
+			cpuTime += Math.max(0, cpuTime(descendant));
+		}
+		return cpuTime;
+	}
+
+	private long cpuTime(long pid) {
+		try {
+			String stat = new String(Files.readAllBytes(Paths.get("/proc", String.valueOf(pid), "stat")),
+					StandardCharsets.UTF_8);
+			// the process name might contain spaces, the fields follow the closing bracket
+			String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+			long cpuTime = 0;
+			// utime, stime, cutime, cstime
+			for (int i = 11; i <= 14; i++) {
+				cpuTime += Long.parseLong(fields[i]);
+			}
+			return cpuTime;
+		}
+		catch (IOException | RuntimeException e) {
+			log.debug("Failed to read the CPU time of process [{}]", pid, e);
+			return -1;
+		}
+	}
+
+	/**
+	 * @return PIDs of all descendants of the process as listed in
+	 * {@code /proc/<pid>/task/<tid>/children}. Kernels built without that file
+	 * get the parent PIDs from {@code /proc/<pid>/stat} instead. Empty if
+	 * neither can be read
+	 */
+	List<Long> descendants(long pid) {
+		Map<Long, List<Long>> children = childrenFiles(pid) ? null : childrenFromStat();
+		List<Long> descendants = new ArrayList<>();
+		Deque<Long> toVisit = new ArrayDeque<>();
+		toVisit.add(pid);
+		while (!toVisit.isEmpty()) {
+			long current = toVisit.poll();
+			List<Long> direct = children != null ?
+					children.getOrDefault(current, new ArrayList<>()) : childrenOf(current);
+			for (long child : direct) {
+				if (!descendants.contains(child)) {
+					descendants.add(child);
+					toVisit.add(child);
+				}
+			}
+		}
+		return descendants;
+	}
+
+	private boolean childrenFiles(long pid) {
+		return Paths.get("/proc", String.valueOf(pid), "task", String.valueOf(pid), "children").toFile().exists();
+	}
+
+	private List<Long> childrenOf(long pid) {
+		List<Long> children = new ArrayList<>();
+		File[] tasks = Paths.get("/proc", String.valueOf(pid), "task").toFile().listFiles();
+		if (tasks == null) {
+			return children;
+		}
+		for (File task : tasks) {
+			try {
+				String content = new String(Files.readAllBytes(new File(task, "children").toPath()),
+						StandardCharsets.UTF_8).trim();
+				for (String child : content.split("\\s+")) {
+					if (!child.isEmpty()) {
+						children.add(Long.parseLong(child));
+					}
+				}
+			}
+			catch (IOException | RuntimeException e) {
+				log.trace("Failed to read the children of task [{}]", task, e);
+			}
+		}
+		return children;
+	}
+
+	private Map<Long, List<Long>> childrenFromStat() {
+		Map<Long, List<Long>> children = new HashMap<>();
+		File[] processes = new File("/proc").listFiles((dir, name) -> name.matches("[0-9]+"));
+		if (processes == null) {
+			return children;
+		}
+		for (File process : processes) {
+			try {
+				String stat = new String(Files.readAllBytes(new File(process, "stat").toPath()),
+						StandardCharsets.UTF_8);
+				// state, ppid
+				long parent = Long.parseLong(stat.substring(stat.lastIndexOf(')') + 2).split(" ")[1]);
+				children.computeIfAbsent(parent, key -> new ArrayList<>()).add(Long.parseLong(process.getName()));
+			}
+			catch (IOException | RuntimeException e) {
+				log.trace("Failed to read the parent of process [{}]", process, e);
+			}
+		}
+		return children;
+	}
+
+	private void logThreadDump(Process process) {
+		long pid = pid(process);
+		if (pid < 0) {
+			log.warn("Can't take a thread dump since the PID of the process is unknown");
+			return;
+		}
+		try {
+			Process jstack = new ProcessBuilder(jstackExecutable(), String.valueOf(pid))
+					.redirectErrorStream(true).start();
+			ByteArrayOutputStream dump = new ByteArrayOutputStream();
+			try (InputStream stream = jstack.getInputStream()) {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = stream.read(buffer)) != -1) {
+					dump.write(buffer, 0, read);
+				}
+			}
+			if (!jstack.waitFor(THREAD_DUMP_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+				jstack.destroyForcibly();
+			}
+			log.error("Thread dump of the stalled process [{}]\n{}", pid,
+					new String(dump.toByteArray(), StandardCharsets.UTF_8));
+		}
+		catch (IOException e) {
+			log.warn("Failed to take a thread dump of process [{}]", pid, e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private String jstackExecutable() {
+		File javaHome = new File(System.getProperty("java.home"));
+		for (File dir : new File[] { javaHome, javaHome.getParentFile() }) {
+			if (dir == null) {
+				continue;
+			}
+			File jstack = new File(dir, "bin/jstack");
+			if (jstack.canExecute()) {
+				return jstack.getPath();
+			}
+		}
+		return "jstack";
+	}
+
+	/**
+	 * {@code Process#pid()} is available as of Java 9. On Java 8 we have to read
+	 * the field of the Unix process implementation.
+	 */
+	long pid(Process process) {
+		try {
+			Method pid = Process.class.getMethod("pid");
+			return ((Number) pid.invoke(process)).longValue();
+		}
+		catch (Exception e) {
+			log.trace("There's no Process#pid() method", e);
+		}
+		try {
+			Field pid = process.getClass().getDeclaredField("pid");
+			pid.setAccessible(true);
+			return ((Number) pid.get(process)).longValue();
+		}
+		catch (Exception e) {
+			log.debug("Failed to retrieve the PID of the process", e);
+			return -1;
+		}
+	}
+}
@@ -8,12 +8,26 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaseReport;
 import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.git.DocsPublisher;
+import org.springframework.cloud.release.internal.git.ProjectGitUpdater;
 import org.springframework.cloud.release.internal.pom.ProjectPomUpdater;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.Tracer;
 
 /**
  * @author Marcin Grzejszczak
@@ -22,34 +36,152 @@ public class ProjectBuilder {
 
 	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 	private static final String VERSION_MUSTACHE = "{{version}}";
+	private static final List<String> MAVEN_EXECUTABLES = Arrays.asList("./mvnw", "mvnw", "mvn");
+	private static final String PROFILES_PREFIX = "-P";
+	private static final String DOCS_PROFILE = "docs";
 
 	private final ReleaserProperties properties;
 	private final ProcessExecutor executor;
 	private final ProjectPomUpdater pomUpdater;
+	private final ArtifactDeployer artifactDeployer;
+	private final ArtifactVerifier artifactVerifier;
+	private final DocsPublisher docsPublisher;
+	private final DocsChangeDetector docsChangeDetector;
+	private final ShardedBuild shardedBuild;
+	private final DependencyPrefetcher dependencyPrefetcher;
+	private CompletableFuture<PrefetchResult> prefetch;
 
 	public ProjectBuilder(ReleaserProperties properties, ProjectPomUpdater pomUpdater) {
 		this.properties = properties;
 		this.executor = new ProcessExecutor(properties);
 		this.pomUpdater = pomUpdater;
+		this.artifactDeployer = new ArtifactDeployer(properties);
+		this.artifactVerifier = new ArtifactVerifier(properties);
+		this.docsPublisher = new DocsPublisher(properties);
+		this.docsChangeDetector = new DocsChangeDetector(new ProjectGitUpdater(properties));
+		this.shardedBuild = new ShardedBuild(properties, this.executor);
+		this.dependencyPrefetcher = new DependencyPrefetcher(properties, this.executor);
 	}
 
 	ProjectBuilder(ReleaserProperties properties, ProcessExecutor executor) {
+		this(properties, executor, new DocsChangeDetector(new ProjectGitUpdater(properties)));
+	}
+
+	ProjectBuilder(ReleaserProperties properties, ProcessExecutor executor, DocsChangeDetector docsChangeDetector) {
 		this.properties = properties;
 		this.executor = executor;
 		this.pomUpdater = new ProjectPomUpdater(properties);
+		this.artifactDeployer = new ArtifactDeployer(properties);
+		this.artifactVerifier = new ArtifactVerifier(properties);
+		this.docsPublisher = new DocsPublisher(properties);
+		this.docsChangeDetector = docsChangeDetector;
+		this.shardedBuild = new ShardedBuild(properties, executor);
+		this.dependencyPrefetcher = new DependencyPrefetcher(properties, executor);
+	}
+
+	/**
+	 * Starts resolving the dependencies of the project in the background via Maven.
+	 * The build will wait for the resolution to finish
+	 */
+	public void prefetchDependencies() {
+		if (!this.properties.getMaven().isPrefetchDependencies()) {
+			return;
+		}
+		if (this.prefetch != null) {
+			this.prefetch.cancel(true);
+		}
+		String[] commands = this.properties.getMaven().getBuildCommand().split(" ");
+		this.prefetch = this.dependencyPrefetcher.prefetch(new File(this.properties.getWorkingDir()),
+				daemonAwareCommands(commands));
 	}
 
 	public void build() {
+		build(new ReleaseReport());
+	}
+
+	/**
+	 * Builds the project. If the docs don't have to be built the reason is noted
+	 * in the report. With the sharded build switched on, the independent parts of
+	 * the reactor are built in parallel
+	 */
+	public void build(ReleaseReport report) {
 		try {
+			awaitPrefetch(report);
 			String[] commands = this.properties.getMaven().getBuildCommand().split(" ");
-			runCommand(commands);
-			assertNoHtmlFilesInDocsContainUnresolvedTags();
-			log.info("No HTML files from docs contain unresolved tags");
+			String unchangedDocsReason = unchangedDocsReason(commands);
+			if (unchangedDocsReason != null) {
+				log.info("Will not build the docs since {}", unchangedDocsReason);
+				report.note("The docs profile and the HTML verification were skipped since " + unchangedDocsReason);
+				commands = withoutDocsProfile(commands);
+			}
+			if (!this.properties.getMaven().isShardedBuild()
+					|| !this.shardedBuild.build(daemonAwareCommands(commands), report)) {
+				runCommand(commands);
+			}
+			if (unchangedDocsReason == null) {
+				assertNoHtmlFilesInDocsContainUnresolvedTags();
+				log.info("No HTML files from docs contain unresolved tags");
+			}
 		} catch (Exception e) {
 			throw new IllegalStateException(e);
 		}
 	}
 
+	/**
+	 * Maven would be resolving the very same files, so there's no point in starting
+	 * the build before the prefetch is done. A failed prefetch doesn't fail the build.
+	 */
+	private void awaitPrefetch(ReleaseReport report) throws InterruptedException {
+		if (this.prefetch == null) {
+			return;
+		}
+		CompletableFuture<PrefetchResult> prefetch = this.prefetch;
+		this.prefetch = null;
+		if (!prefetch.isDone()) {
+			log.info("Waiting for the prefetch of dependencies to finish");
+		}
+		try {
+			PrefetchResult result = prefetch.get(this.properties.getMaven().getWaitTimeInMinutes(), TimeUnit.MINUTES);
+			report.note("The dependencies were prefetched in the background. " + result);
+		}
+		catch (ExecutionException e) {
+			log.warn("The prefetch of dependencies has failed. Maven will download them during the build",
+					e.getCause());
+		}
+		catch (TimeoutException e) {
+			log.warn("The prefetch of dependencies hasn't finished in time. Maven will download the rest");
+			prefetch.cancel(true);
+		}
+	}
+
+	private String unchangedDocsReason(String[] commands) {
+		if (!this.properties.getMaven().isSkipUnchangedDocs()
+				|| Arrays.equals(commands, withoutDocsProfile(commands))) {
+			return null;
+		}
+		return this.docsChangeDetector.unchangedDocsReason(new File(this.properties.getWorkingDir()));
+	}
+
+	/**
+	 * Removes {@code docs} from the profiles, e.g. {@code -Pdocs,fast} becomes {@code -Pfast}
+	 */
+	static String[] withoutDocsProfile(String[] commands) {
+		List<String> result = new ArrayList<>();
+		for (String command : commands) {
+			if (!command.startsWith(PROFILES_PREFIX)) {
+				result.add(command);
+				continue;
+			}
+			List<String> profiles = Arrays.stream(command.substring(PROFILES_PREFIX.length()).split(","))
+					.filter(profile -> !DOCS_PROFILE.equals(profile))
+					.collect(Collectors.toList());
+			if (!profiles.isEmpty()) {
+				result.add(PROFILES_PREFIX + String.join(",", profiles));
+			}
+		}
+		return result.toArray(new String[0]);
+	}
+
 	private void assertNoHtmlFilesInDocsContainUnresolvedTags() {
 		String workingDir = this.properties.getWorkingDir();
 		try {
@@ -66,6 +198,12 @@ public class ProjectBuilder {
 
 	public void deploy() {
 		try {
+			File project = new File(this.properties.getWorkingDir());
+			if (this.properties.getMaven().isDeployFromBuildOutputs()
+					&& this.artifactDeployer.deployIfPossible(project)) {
+				log.info("The project has successfully been deployed");
+				return;
+			}
 			String[] commands = this.properties.getMaven().getDeployCommand().split(" ");
 			runCommand(commands);
 			log.info("The project has successfully been deployed");
@@ -74,13 +212,50 @@ public class ProjectBuilder {
 		}
 	}
 
+	/**
+	 * Checks that all deployed files are present in the target repository with
+	 * matching checksums. Does nothing if there's nothing to verify.
+	 */
+	public void verifyDeployment() {
+		if (!this.properties.getMaven().isVerifyDeployment()) {
+			log.info("Verification of the deployment is switched off");
+			return;
+		}
+		File project = new File(this.properties.getWorkingDir());
+		if (this.artifactVerifier.canVerify(project)) {
+			this.artifactVerifier.verify(project);
+		}
+	}
+
 	private void runCommand(String[] commands) {
 		long waitTimeInMinutes = this.properties.getMaven().getWaitTimeInMinutes();
-		this.executor.runCommand(commands, waitTimeInMinutes);
+		this.executor.runCommand(daemonAwareCommands(commands), waitTimeInMinutes);
+	}
+
+	/**
+	 * Forking {@code ./mvnw} means paying for JVM startup, plugin resolution and
+	 * reactor model building for every single command. With the daemon switched on
+	 * we're delegating to an already warm Maven process instead.
+	 */
+	private String[] daemonAwareCommands(String[] commands) {
+		if (!this.properties.getMaven().isUseDaemon() || commands.length == 0
+				|| !MAVEN_EXECUTABLES.contains(commands[0])) {
+			return commands;
+		}
+		String[] daemonCommands = commands.clone();
+		daemonCommands[0] = this.properties.getMaven().getDaemonCommand();
+		log.debug("Will run {} via the Maven Daemon", (Object) commands);
+		return daemonCommands;
 	}
 
 	public void publishDocs(String version) {
 		try {
+			if (this.properties.getGit().isPublishDocsInProcess()) {
+				File project = new File(this.properties.getWorkingDir());
+				this.docsPublisher.publish(project, new ProjectVersion(project.getName(), version));
+				log.info("The docs got published successfully");
+				return;
+			}
 			for (String command : this.properties.getMaven().getPublishDocsCommands()) {
 				command = command.replace(VERSION_MUSTACHE, version);
 				String[] commands = command.split(" ");
@@ -92,10 +267,13 @@ public class ProjectBuilder {
 		}
 	}
 
-	public void bumpVersions(String version) {
+	/**
+	 * @return poms that got modified
+	 */
+	public Set<File> bumpVersions(String version) {
 		String workingDir = this.properties.getWorkingDir();
 		File dir = new File(workingDir);
-		this.pomUpdater.updatePomsForRootVersion(dir, version);
+		return this.pomUpdater.updatePomsForRootVersion(dir, version);
 	}
 }
 
@@ -109,22 +287,51 @@ class ProcessExecutor {
 	}
 
 	void runCommand(String[] commands, long waitTimeInMinutes) {
-		try {
-			String workingDir = this.properties.getWorkingDir();
+		runCommand(commands, new File(this.properties.getWorkingDir()), null, waitTimeInMinutes);
+	}
+
+	/**
+	 * @param workingDir - directory in which the command should be run
+	 * @param output - file to which the output should be written, if {@code null} the
+	 * process inherits our IO
+	 */
+	void runCommand(String[] commands, File workingDir, File output, long waitTimeInMinutes) {
+		try (Span span = Tracer.span("process.run").tag("command", String.join(" ", commands))) {
 			log.info("Will run the build via {} and wait for result for [{}] minutes", commands, waitTimeInMinutes);
-			ProcessBuilder builder = builder(commands, workingDir);
+			ProcessBuilder builder = builder(commands, workingDir.getPath());
+			if (output != null) {
+				builder.redirectErrorStream(true).redirectOutput(output);
+			}
+			long idleTimeInSeconds = this.properties.getMaven().getIdleTimeInSeconds();
+			ProcessWatchdog watchdog = idleTimeInSeconds > 0 ? new ProcessWatchdog(idleTimeInSeconds) : null;
+			if (watchdog != null) {
+				builder = watchdog.watch(builder);
+			}
 			Process process = startProcess(builder);
-			boolean finished = process.waitFor(waitTimeInMinutes, TimeUnit.MINUTES);
+			boolean finished;
+			try {
+				finished = watchdog != null ?
+						watchdog.waitFor(process, waitTimeInMinutes, TimeUnit.MINUTES) :
+						process.waitFor(waitTimeInMinutes, TimeUnit.MINUTES);
+			}
+			catch (InterruptedException e) {
+				log.warn("Interrupted while waiting for the process to finish. Will kill it");
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
 			if (!finished) {
 				log.error("The build hasn't managed to finish in [{}] minutes", waitTimeInMinutes);
+				span.tag("timedOut", true);
 				process.destroyForcibly();
 				throw new IllegalStateException("Process waiting time of [" + waitTimeInMinutes + "] minutes exceeded");
 			}
+			span.tag("exitCode", process.exitValue());
 			if (process.exitValue() != 0) {
 				throw new IllegalStateException("The process has exited with exit code [" + process.exitValue() + "]");
 			}
 		}
-		catch (InterruptedException | IOException e) {
+		catch (IOException e) {
 			throw new IllegalStateException(e);
 		}
 	}
@@ -0,0 +1,211 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.util.StringUtils;
+
+/**
+ * Walks the reactor of a project by following the {@code <modules>} section
+ * of the poms and resolves the coordinates of each module.
+ *
+ * @author Marcin Grzejszczak
+ */
+class ReactorModules {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String POM_XML = "pom.xml";
+
+	private final ReleaserProperties properties;
+
+	ReactorModules(ReleaserProperties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * @param projectRoot - root folder of the project
+	 * @return all modules of the reactor, including the root one
+	 */
+	List<ReactorModule> modules(File projectRoot) {
+		List<ReactorModule> modules = new ArrayList<>();
+		collect(projectRoot, null, modules);
+		return modules;
+	}
+
+	private void collect(File directory, ReactorModule parent, List<ReactorModule> modules) {
+		File pom = new File(directory, POM_XML);
+		if (!pom.exists()) {
+			log.debug("There's no pom under [{}], skipping the module", directory);
+			return;
+		}
+		if (pathIgnored(pom)) {
+			log.debug("Ignoring module [{}] since it's on a list of patterns to ignore", directory);
+			return;
+		}
+		ReactorModule module = new ReactorModule(directory, readPom(pom), parent);
+		modules.add(module);
+		for (String child : module.model.getModules()) {
+			collect(new File(directory, child), module, modules);
+		}
+	}
+
+	private boolean pathIgnored(File file) {
+		String path = file.getPath();
+		return this.properties.getPom().getIgnoredPomRegex().stream().anyMatch(path::matches);
+	}
+
+	private Model readPom(File pom) {
+		try(Reader reader = new FileReader(pom)) {
+			return new MavenXpp3Reader().read(reader);
+		}
+		catch (XmlPullParserException | IOException e) {
+			throw new IllegalStateException("Failed to read file", e);
+		}
+	}
+}
+
+/**
+ * A single module of the reactor with its resolved coordinates
+ */
+class ReactorModule {
+
+	private static final String DEPLOY_SKIP_PROPERTY = "maven.deploy.skip";
+	private static final String DEPLOY_PLUGIN = "maven-deploy-plugin";
+
+	final File directory;
+	final Model model;
+	final String groupId;
+	final String artifactId;
+	final String version;
+	final String packaging;
+	/**
+	 * The reactor module this module inherits from or {@code null} if the parent
+	 * of the module is not a part of the reactor
+	 */
+	final ReactorModule parent;
+
+	ReactorModule(File directory, Model model, ReactorModule reactorParent) {
+		this.directory = directory;
+		this.model = model;
+		this.parent = reactorParent != null && model.getParent() != null
+				&& reactorParent.model.getArtifactId().equals(model.getParent().getArtifactId()) ?
+				reactorParent : null;
+		this.groupId = resolve(model.getGroupId(), model.getParent() != null ?
+				model.getParent().getGroupId() : null, reactorParent != null ? reactorParent.groupId : null);
+		this.artifactId = model.getArtifactId();
+		this.version = resolve(model.getVersion(), model.getParent() != null ?
+				model.getParent().getVersion() : null, reactorParent != null ? reactorParent.version : null);
+		this.packaging = StringUtils.hasText(model.getPackaging()) ? model.getPackaging() : "jar";
+	}
+
+	private String resolve(String value, String parentValue, String reactorValue) {
+		if (StringUtils.hasText(value)) {
+			return value;
+		}
+		return StringUtils.hasText(parentValue) ? parentValue : reactorValue;
+	}
+
+	boolean isPom() {
+		return "pom".equals(this.packaging);
+	}
+
+	boolean isSnapshot() {
+		return this.version != null && this.version.endsWith("SNAPSHOT");
+	}
+
+	/**
+	 * Resolves the {@code maven.deploy.skip} property and the {@code skip} configuration
+	 * of the {@code maven-deploy-plugin} the way Maven would - the closest declaration
+	 * in the chain of reactor parents wins
+	 */
+	boolean deploySkipped() {
+		String pluginSkip = inherited(ReactorModule::deployPluginSkip);
+		if (pluginSkip != null && !pluginSkip.startsWith("${")) {
+			return Boolean.parseBoolean(pluginSkip);
+		}
+		String property = pluginSkip != null ?
+				pluginSkip.substring(2, pluginSkip.length() - 1) : DEPLOY_SKIP_PROPERTY;
+		return Boolean.parseBoolean(inherited(module -> module.model.getProperties().getProperty(property)));
+	}
+
+	private String inherited(Function<ReactorModule, String> value) {
+		for (ReactorModule module = this; module != null; module = module.parent) {
+			String resolved = value.apply(module);
+			if (resolved != null) {
+				return resolved;
+			}
+		}
+		return null;
+	}
+
+	private String deployPluginSkip() {
+		if (this.model.getBuild() == null) {
+			return null;
+		}
+		for (Plugin plugin : this.model.getBuild().getPlugins()) {
+			if (DEPLOY_PLUGIN.equals(plugin.getArtifactId()) && plugin.getConfiguration() instanceof Xpp3Dom) {
+				Xpp3Dom skip = ((Xpp3Dom) plugin.getConfiguration()).getChild("skip");
+				return skip != null && skip.getValue() != null ? skip.getValue().trim() : null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return path of the module's version folder in the Maven repository layout
+	 */
+	String repositoryPath() {
+		return this.groupId.replace('.', '/') + "/" + this.artifactId + "/" + this.version;
+	}
+
+	/**
+	 * @return path of the module's metadata in the Maven repository layout
+	 */
+	String metadataPath() {
+		return this.groupId.replace('.', '/') + "/" + this.artifactId + "/maven-metadata.xml";
+	}
+
+	/**
+	 * @return the {@code artifactId-version} prefix shared by all files of this module
+	 */
+	String baseName() {
+		return this.artifactId + "-" + this.version;
+	}
+
+	String coordinates() {
+		return this.groupId + ":" + this.artifactId + ":" + this.version;
+	}
+
+	@Override public String toString() {
+		return coordinates();
+	}
+}
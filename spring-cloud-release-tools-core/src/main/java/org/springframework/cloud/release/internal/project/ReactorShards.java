@@ -0,0 +1,267 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.maven.model.BuildBase;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Profile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits the reactor into groups of modules that don't depend on each other, so that
+ * they can be built by separate Maven processes.
+ *
+ * Pom modules that reference only other pom modules (the root, parents, BOMs) form the
+ * base of the build. They have to be installed before the shards get built. Every other
+ * module ends up in a group together with all the reactor modules it references via a
+ * parent, a dependency, a plugin or a plugin dependency. Groups are computed with a
+ * union-find and then packed into at most the requested number of shards.
+ *
+ * Entries of {@code <dependencyManagement>} only manage versions, so they aren't
+ * references - a BOM of the project lists all of its modules without depending on any
+ * of them. The only managed entries that count are the imported BOMs. Those and the
+ * parents are pom modules of the base, so they only decide in which order the base
+ * gets built.
+ *
+ * @author Marcin Grzejszczak
+ */
+class ReactorShards {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String IMPORT_SCOPE = "import";
+
+	private final ReactorModules reactorModules;
+
+	ReactorShards(ReactorModules reactorModules) {
+		this.reactorModules = reactorModules;
+	}
+
+	/**
+	 * @param projectRoot - root folder of the project
+	 * @param maxShards - max number of shards to split the reactor into
+	 */
+	ShardPlan plan(File projectRoot, int maxShards) {
+		List<ReactorModule> modules = this.reactorModules.modules(projectRoot);
+		Map<ReactorModule, Set<ReactorModule>> references = references(modules);
+		Set<ReactorModule> base = base(modules, references);
+		UnionFind groups = new UnionFind(modules.size());
+		for (int i = 0; i < modules.size(); i++) {
+			ReactorModule module = modules.get(i);
+			if (base.contains(module)) {
+				continue;
+			}
+			for (ReactorModule reference : references.get(module)) {
+				if (!base.contains(reference)) {
+					groups.union(i, modules.indexOf(reference));
+				}
+			}
+		}
+		Map<Integer, List<ReactorModule>> components = new LinkedHashMap<>();
+		for (int i = 0; i < modules.size(); i++) {
+			if (!base.contains(modules.get(i))) {
+				components.computeIfAbsent(groups.find(i), key -> new ArrayList<>()).add(modules.get(i));
+			}
+		}
+		log.info("The reactor of [{}] consists of [{}] base modules and [{}] independent groups of modules",
+				projectRoot.getName(), base.size(), components.size());
+		List<ReactorModule> baseModules = modules.stream().filter(base::contains).collect(Collectors.toList());
+		return new ShardPlan(baseModules, pack(new ArrayList<>(components.values()), maxShards, modules));
+	}
+
+	/**
+	 * Largest groups go first, each one to the shard that has the fewest modules so far
+	 */
+	private List<List<ReactorModule>> pack(List<List<ReactorModule>> components, int maxShards,
+			List<ReactorModule> reactorOrder) {
+		components.sort(Comparator.comparingInt((List<ReactorModule> component) -> component.size()).reversed());
+		int shardCount = Math.max(1, Math.min(maxShards, components.size()));
+		List<List<ReactorModule>> shards = new ArrayList<>();
+		for (int i = 0; i < shardCount; i++) {
+			shards.add(new ArrayList<>());
+		}
+		for (List<ReactorModule> component : components) {
+			shards.stream().min(Comparator.comparingInt(List::size)).get().addAll(component);
+		}
+		shards.forEach(shard -> shard.sort(Comparator.comparingInt(reactorOrder::indexOf)));
+		return shards.stream().filter(shard -> !shard.isEmpty()).collect(Collectors.toList());
+	}
+
+	/**
+	 * Pom modules, unless they reference (e.g. aggregate) a module that is not a part
+	 * of the base itself
+	 */
+	private Set<ReactorModule> base(List<ReactorModule> modules, Map<ReactorModule, Set<ReactorModule>> references) {
+		Set<ReactorModule> base = modules.stream().filter(ReactorModule::isPom)
+				.collect(Collectors.toCollection(HashSet::new));
+		boolean changed = true;
+		while (changed) {
+			changed = base.removeIf(module -> !base.containsAll(references.get(module)));
+		}
+		return base;
+	}
+
+	private Map<ReactorModule, Set<ReactorModule>> references(List<ReactorModule> modules) {
+		Map<String, List<ReactorModule>> byArtifactId = new HashMap<>();
+		modules.forEach(module -> byArtifactId.computeIfAbsent(module.artifactId, key -> new ArrayList<>()).add(module));
+		Map<ReactorModule, Set<ReactorModule>> references = new HashMap<>();
+		for (ReactorModule module : modules) {
+			Set<ReactorModule> referenced = new HashSet<>();
+			Model model = module.model;
+			if (model.getParent() != null) {
+				referenced.addAll(matching(byArtifactId, model.getParent().getGroupId(),
+						model.getParent().getArtifactId()));
+			}
+			collect(model.getDependencies(), byArtifactId, referenced);
+			if (model.getDependencyManagement() != null) {
+				collectImports(model.getDependencyManagement().getDependencies(), byArtifactId, referenced);
+			}
+			collect(model.getBuild(), byArtifactId, referenced);
+			for (Profile profile : model.getProfiles()) {
+				collect(profile.getDependencies(), byArtifactId, referenced);
+				if (profile.getDependencyManagement() != null) {
+					collectImports(profile.getDependencyManagement().getDependencies(), byArtifactId, referenced);
+				}
+				collect(profile.getBuild(), byArtifactId, referenced);
+			}
+			referenced.remove(module);
+			references.put(module, referenced);
+		}
+		return references;
+	}
+
+	private void collect(BuildBase build, Map<String, List<ReactorModule>> byArtifactId,
+			Set<ReactorModule> referenced) {
+		if (build == null) {
+			return;
+		}
+		List<Plugin> plugins = new ArrayList<>(build.getPlugins());
+		if (build.getPluginManagement() != null) {
+			plugins.addAll(build.getPluginManagement().getPlugins());
+		}
+		for (Plugin plugin : plugins) {
+			referenced.addAll(matching(byArtifactId, plugin.getGroupId(), plugin.getArtifactId()));
+			collect(plugin.getDependencies(), byArtifactId, referenced);
+		}
+	}
+
+	private void collect(List<Dependency> dependencies, Map<String, List<ReactorModule>> byArtifactId,
+			Set<ReactorModule> referenced) {
+		for (Dependency dependency : dependencies) {
+			referenced.addAll(matching(byArtifactId, dependency.getGroupId(), dependency.getArtifactId()));
+		}
+	}
+
+	/**
+	 * Only the BOMs imported by the managed dependencies, the rest just pins versions
+	 */
+	private void collectImports(List<Dependency> managedDependencies, Map<String, List<ReactorModule>> byArtifactId,
+			Set<ReactorModule> referenced) {
+		for (Dependency dependency : managedDependencies) {
+			if (IMPORT_SCOPE.equals(dependency.getScope())) {
+				matching(byArtifactId, dependency.getGroupId(), dependency.getArtifactId()).stream()
+						.filter(ReactorModule::isPom).forEach(referenced::add);
+			}
+		}
+	}
+
+	/**
+	 * A group id that is missing or interpolated can't be compared, in that case
+	 * we rather join too many modules than too few
+	 */
+	private List<ReactorModule> matching(Map<String, List<ReactorModule>> byArtifactId, String groupId,
+			String artifactId) {
+		List<ReactorModule> candidates = byArtifactId.getOrDefault(artifactId, new ArrayList<>());
+		if (groupId == null || groupId.contains("${")) {
+			return candidates;
+		}
+		return candidates.stream().filter(module -> groupId.equals(module.groupId)).collect(Collectors.toList());
+	}
+
+	private static class UnionFind {
+		private final int[] parents;
+		private final int[] sizes;
+
+		UnionFind(int size) {
+			this.parents = new int[size];
+			this.sizes = new int[size];
+			for (int i = 0; i < size; i++) {
+				this.parents[i] = i;
+				this.sizes[i] = 1;
+			}
+		}
+
+		int find(int element) {
+			int root = element;
+			while (this.parents[root] != root) {
+				root = this.parents[root];
+			}
+			while (this.parents[element] != root) {
+				int next = this.parents[element];
+				this.parents[element] = root;
+				element = next;
+			}
+			return root;
+		}
+
+		void union(int first, int second) {
+			int firstRoot = find(first);
+			int secondRoot = find(second);
+			if (firstRoot == secondRoot) {
+				return;
+			}
+			if (this.sizes[firstRoot] < this.sizes[secondRoot]) {
+				int swap = firstRoot;
+				firstRoot = secondRoot;
+				secondRoot = swap;
+			}
+			this.parents[secondRoot] = firstRoot;
+			this.sizes[firstRoot] += this.sizes[secondRoot];
+		}
+	}
+}
+
+/**
+ * Base modules that have to be built first and the shards that can be built in parallel afterwards
+ */
+class ShardPlan {
+
+	final List<ReactorModule> base;
+	final List<List<ReactorModule>> shards;
+
+	ShardPlan(List<ReactorModule> base, List<List<ReactorModule>> shards) {
+		this.base = base;
+		this.shards = shards;
+	}
+
+	boolean isSharded() {
+		return this.shards.size() > 1;
+	}
+}
@@ -0,0 +1,348 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaseReport;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.Tracer;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Builds the independent parts of the reactor in parallel Maven processes.
+ *
+ * First the base modules (see {@link ReactorShards}) get built in the project itself, so
+ * that the shards can resolve their parents from the local repository. Then the
+ * dependencies and plugins of the whole reactor get resolved with
+ * {@code dependency:go-offline}. Then each shard gets its own copy of the project under
+ * {@code target/shards} and is built offline with {@code -pl} limited to its modules.
+ * Since the shards are offline, none of them downloads anything to the shared local
+ * repository and each of them installs only its own artifacts, so the parallel
+ * processes never write the same files. Once all shards are done their {@code target}
+ * folders are moved back to the project, so the build outputs and test reports end up
+ * where a regular build would have put them.
+ *
+ * {@code dependency:go-offline} doesn't resolve everything, e.g. the artifacts that
+ * plugins resolve only when they're executed (like the Surefire providers). If a shard
+ * fails since an artifact couldn't be resolved offline, the sharded build is given up
+ * and the project gets built the regular way.
+ *
+ * Only the poms get copied to the shards. All other files are hard links to the files
+ * of the project, so a plugin that rewrites a source file in place (instead of writing
+ * a new file to {@code target}) modifies the file of the project itself.
+ *
+ * @author Marcin Grzejszczak
+ */
+class ShardedBuild {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	static final String SHARDS_DIR = "target/shards";
+	private static final String TARGET = "target";
+	private static final String POM_XML = "pom.xml";
+	private static final String GIT = ".git";
+	private static final String PROJECTS_FLAG = "-pl";
+	private static final String OFFLINE_FLAG = "-o";
+	private static final String GO_OFFLINE = "dependency:go-offline";
+	private static final String EXCLUDE_REACTOR = "-DexcludeReactor=true";
+	private static final int LOG_TAIL_LINES = 50;
+	/**
+	 * Options of the build command that take the value as the next argument
+	 */
+	private static final Set<String> OPTIONS_WITH_VALUES = new HashSet<>(Arrays.asList(
+			"-s", "--settings", "-gs", "--global-settings", "-t", "--toolchains", "-gt", "--global-toolchains",
+			"-P", "--activate-profiles", "-D", "--define", "-f", "--file", "-T", "--threads", "-l", "--log-file",
+			"-b", "--builder", "-pl", "--projects", "-rf", "--resume-from"));
+	/**
+	 * What Maven prints when an artifact is missing in the local repository in offline mode
+	 */
+	private static final Pattern UNRESOLVED_ARTIFACT = Pattern.compile(
+			"in offline mode|Could not resolve dependencies|could not be resolved|Failed to read artifact descriptor");
+
+	private final ReleaserProperties properties;
+	private final ProcessExecutor executor;
+	private final ReactorShards reactorShards;
+
+	ShardedBuild(ReleaserProperties properties, ProcessExecutor executor) {
+		this.properties = properties;
+		this.executor = executor;
+		this.reactorShards = new ReactorShards(new ReactorModules(properties));
+	}
+
+	/**
+	 * @param commands - the build command
+	 * @return {@code false} if the reactor can't be split or a shard has missed an
+	 * artifact offline, in which case the project has to be built the regular way
+	 */
+	boolean build(String[] commands, ReleaseReport report) {
+		File project = new File(this.properties.getWorkingDir());
+		ShardPlan plan = this.reactorShards.plan(project, this.properties.getMaven().getMaxShards());
+		if (!plan.isSharded()) {
+			log.info("The reactor of [{}] can't be split into independent shards. Will build it the regular way",
+					project.getName());
+			return false;
+		}
+		try (Span span = Tracer.span("project.sharded-build").tag("shards", plan.shards.size())
+				.tag("baseModules", plan.base.size())) {
+			long waitTimeInMinutes = this.properties.getMaven().getWaitTimeInMinutes();
+			if (!plan.base.isEmpty()) {
+				log.info("Will build the base modules {} first", plan.base);
+				this.executor.runCommand(withProjects(commands, plan.base), waitTimeInMinutes);
+			}
+			log.info("Will resolve the dependencies of the whole reactor so that the shards can be built offline");
+			this.executor.runCommand(resolveCommand(commands), waitTimeInMinutes);
+			File shardsDir = new File(project, SHARDS_DIR);
+			FileSystemUtils.deleteRecursively(shardsDir);
+			List<File> copies = new ArrayList<>();
+			for (int i = 0; i < plan.shards.size(); i++) {
+				File copy = new File(shardsDir, "shard-" + (i + 1));
+				linkedCopy(project.toPath(), copy.toPath());
+				copies.add(copy);
+			}
+			Map<Integer, Throwable> failures = runShards(commands, plan, copies, shardsDir);
+			List<Integer> unresolved = failures.keySet().stream()
+					.filter(shard -> missedAnArtifact(shardLog(shardsDir, shard - 1)))
+					.collect(Collectors.toList());
+			if (!unresolved.isEmpty()) {
+				log.warn("Shards {} couldn't resolve all artifacts offline. Will build the project the regular way",
+						unresolved);
+				span.tag("fallback", true);
+				report.note("The sharded build was given up since shards " + unresolved + " couldn't resolve "
+						+ "all artifacts offline. The project was built the regular way. The logs of the shards "
+						+ "are available under [" + shardsDir + "]");
+				copies.forEach(FileSystemUtils::deleteRecursively);
+				return false;
+			}
+			for (int i = 0; i < plan.shards.size(); i++) {
+				mergeOutputs(project, copies.get(i), plan.shards.get(i));
+			}
+			if (!failures.isEmpty()) {
+				span.tag("failedShards", failures.size());
+				throw failure(plan, failures, shardsDir);
+			}
+			copies.forEach(FileSystemUtils::deleteRecursively);
+			report.note("The build got split into [" + plan.shards.size() + "] shards that were built in "
+					+ "parallel. Their logs are available under [" + shardsDir + "]");
+			return true;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Map<Integer, Throwable> runShards(String[] commands, ShardPlan plan, List<File> copies, File shardsDir) {
+		long waitTimeInMinutes = this.properties.getMaven().getWaitTimeInMinutes();
+		ExecutorService executor = Executors.newFixedThreadPool(plan.shards.size());
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < plan.shards.size(); i++) {
+				List<ReactorModule> shard = plan.shards.get(i);
+				File copy = copies.get(i);
+				File output = shardLog(shardsDir, i);
+				log.info("Shard [{}] will build {}. Its output goes to [{}]", i + 1, shard, output);
+				results.add(executor.submit(() -> this.executor.runCommand(offline(withProjects(commands, shard)),
+						copy, output, waitTimeInMinutes)));
+			}
+			Map<Integer, Throwable> failures = new LinkedHashMap<>();
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					results.get(i).get();
+					log.info("Shard [{}] has been built successfully", i + 1);
+				}
+				catch (ExecutionException e) {
+					log.error("Shard [{}] has failed. The last lines of its output were:\n{}", i + 1,
+							tail(shardLog(shardsDir, i)));
+					failures.put(i + 1, e.getCause());
+				}
+			}
+			return failures;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private IllegalStateException failure(ShardPlan plan, Map<Integer, Throwable> failures, File shardsDir) {
+		String failedShards = failures.keySet().stream()
+				.map(shard -> "shard [" + shard + "] with modules " + plan.shards.get(shard - 1))
+				.collect(Collectors.joining(", "));
+		IllegalStateException exception = new IllegalStateException("The build has failed for " + failedShards
+				+ ". Check the logs under [" + shardsDir + "]");
+		failures.values().forEach(exception::addSuppressed);
+		return exception;
+	}
+
+	private boolean missedAnArtifact(File shardLog) {
+		try {
+			return Files.readAllLines(shardLog.toPath(), StandardCharsets.UTF_8).stream()
+					.anyMatch(line -> UNRESOLVED_ARTIFACT.matcher(line).find());
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	private File shardLog(File shardsDir, int index) {
+		return new File(shardsDir, "shard-" + (index + 1) + ".log");
+	}
+
+	private String tail(File file) {
+		try {
+			List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+			return String.join("\n", lines.subList(Math.max(0, lines.size() - LOG_TAIL_LINES), lines.size()));
+		}
+		catch (IOException e) {
+			return "";
+		}
+	}
+
+	static String[] withProjects(String[] commands, List<ReactorModule> modules) {
+		List<String> result = new ArrayList<>(Arrays.asList(commands));
+		result.add(PROJECTS_FLAG);
+		result.add(modules.stream().map(module -> module.groupId + ":" + module.artifactId)
+				.collect(Collectors.joining(",")));
+		return result.toArray(new String[0]);
+	}
+
+	/**
+	 * The Maven executable and the options of the build command (e.g. the profiles
+	 * and the settings, together with their values) followed by {@code dependency:go-offline}
+	 * instead of the goals and phases. The modules of the reactor are excluded since they
+	 * get built rather than resolved.
+	 */
+	static String[] resolveCommand(String[] commands) {
+		List<String> result = new ArrayList<>();
+		result.add(commands[0]);
+		for (int i = 1; i < commands.length; i++) {
+			String command = commands[i];
+			if (!command.startsWith("-")) {
+				continue;
+			}
+			result.add(command);
+			if (OPTIONS_WITH_VALUES.contains(command) && i + 1 < commands.length) {
+				result.add(commands[++i]);
+			}
+		}
+		result.add(GO_OFFLINE);
+		result.add(EXCLUDE_REACTOR);
+		return result.toArray(new String[0]);
+	}
+
+	static String[] offline(String[] commands) {
+		List<String> result = new ArrayList<>(Arrays.asList(commands));
+		result.add(OFFLINE_FLAG);
+		return result.toArray(new String[0]);
+	}
+
+	/**
+	 * Copies the project without the build outputs. Files are hard linked unless the
+	 * file system doesn't support it. Poms are always copied since some plugins rewrite
+	 * them in place. Instead of the {@code .git} folder the copy gets a {@code .git}
+	 * file pointing to the original repository, just like a git worktree.
+	 */
+	static void linkedCopy(Path source, Path target) throws IOException {
+		Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+			@Override public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+					throws IOException {
+				if (!dir.equals(source) && (GIT.equals(dir.getFileName().toString()) || isBuildOutput(dir))) {
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				Files.createDirectories(target.resolve(source.relativize(dir)));
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Path copy = target.resolve(source.relativize(file));
+				if (attrs.isSymbolicLink()) {
+					Files.createSymbolicLink(copy, Files.readSymbolicLink(file));
+				}
+				else if (POM_XML.equals(file.getFileName().toString())) {
+					Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+				}
+				else if (!GIT.equals(file.getFileName().toString())) {
+					link(file, copy);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		Path git = source.resolve(GIT);
+		if (Files.isDirectory(git)) {
+			Files.write(target.resolve(GIT), ("gitdir: " + git.toAbsolutePath() + "\n")
+					.getBytes(StandardCharsets.UTF_8));
+		}
+		else if (Files.isRegularFile(git)) {
+			Files.copy(git, target.resolve(GIT));
+		}
+	}
+
+	private static boolean isBuildOutput(Path dir) {
+		return TARGET.equals(dir.getFileName().toString()) && Files.exists(dir.resolveSibling(POM_XML));
+	}
+
+	private static void link(Path file, Path copy) throws IOException {
+		try {
+			Files.createLink(copy, file);
+		}
+		catch (UnsupportedOperationException | IOException e) {
+			log.debug("Failed to hard link [{}], will copy it instead", file, e);
+			Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+		}
+	}
+
+	private void mergeOutputs(File project, File copy, List<ReactorModule> shard) throws IOException {
+		Path projectPath = project.toPath().toAbsolutePath().normalize();
+		for (ReactorModule module : shard) {
+			Path relative = projectPath.relativize(module.directory.toPath().toAbsolutePath().normalize());
+			Path built = copy.toPath().resolve(relative).resolve(TARGET);
+			if (!Files.isDirectory(built)) {
+				continue;
+			}
+			Path target = projectPath.resolve(relative).resolve(TARGET);
+			FileSystemUtils.deleteRecursively(target.toFile());
+			Files.move(built, target);
+			log.debug("Moved the build outputs of [{}] to [{}]", module, target);
+		}
+	}
+}
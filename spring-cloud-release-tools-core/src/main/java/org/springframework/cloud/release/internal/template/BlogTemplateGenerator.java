@@ -2,14 +2,18 @@ package org.springframework.cloud.release.internal.template;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import org.springframework.cloud.release.internal.git.ReleaseNote;
 import org.springframework.cloud.release.internal.pom.Projects;
 import org.springframework.util.StringUtils;
 
@@ -29,13 +33,20 @@ class BlogTemplateGenerator {
 	private final String releaseVersion;
 	private final File blogOutput;
 	private final Projects projects;
+	private final Map<String, List<ReleaseNote>> releaseNotes;
 
 	BlogTemplateGenerator(Template template, String releaseVersion, File blogOutput,
 			Projects projects) {
+		this(template, releaseVersion, blogOutput, projects, Collections.emptyMap());
+	}
+
+	BlogTemplateGenerator(Template template, String releaseVersion, File blogOutput,
+			Projects projects, Map<String, List<ReleaseNote>> releaseNotes) {
 		this.template = template;
 		this.releaseVersion = releaseVersion;
 		this.blogOutput = blogOutput;
 		this.projects = projects;
+		this.releaseNotes = releaseNotes;
 	}
 
 	File blog() {
@@ -59,8 +70,9 @@ class BlogTemplateGenerator {
 					.put("projects", fromProjects())
 					.put("nonRelease", nonRelease)
 					.build();
-			String blog = this.template.apply(map);
-			Files.write(this.blogOutput.toPath(), blog.getBytes());
+			try (Writer writer = Files.newBufferedWriter(this.blogOutput.toPath())) {
+				this.template.apply(map, writer);
+			}
 			return this.blogOutput;
 		}
 		catch (IOException e) {
@@ -74,7 +86,8 @@ class BlogTemplateGenerator {
 			String version = projectVersion.version;
 			String convertedName = Arrays.stream(name.split("-")).map(
 					StringUtils::capitalize).collect(Collectors.joining(" "));
-			return new Tuple(convertedName, version);
+			return new Tuple(convertedName, version,
+					this.releaseNotes.getOrDefault(name, Collections.emptyList()));
 		}).collect(Collectors.toSet());
 	}
 
@@ -114,10 +127,16 @@ class BlogTemplateGenerator {
 class Tuple {
 	private final String name;
 	private final String version;
+	private final List<ReleaseNote> notes;
 
 	Tuple(String name, String version) {
+		this(name, version, Collections.emptyList());
+	}
+
+	Tuple(String name, String version, List<ReleaseNote> notes) {
 		this.name = name;
 		this.version = version;
+		this.notes = notes;
 	}
 
 	public String getName() {
@@ -128,6 +147,10 @@ class Tuple {
 		return version;
 	}
 
+	public List<ReleaseNote> getNotes() {
+		return notes;
+	}
+
 	@Override public boolean equals(Object o) {
 		if (this == o)
 			return true;
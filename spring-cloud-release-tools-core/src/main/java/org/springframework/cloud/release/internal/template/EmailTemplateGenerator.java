@@ -2,6 +2,7 @@ package org.springframework.cloud.release.internal.template;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 
 import com.github.jknack.handlebars.Template;
@@ -23,8 +24,9 @@ class EmailTemplateGenerator {
 
 	File email() {
 		try {
-			String email = this.template.apply(this.releaseVersion);
-			Files.write(this.emailOutput.toPath(), email.getBytes());
+			try (Writer writer = Files.newBufferedWriter(this.emailOutput.toPath())) {
+				this.template.apply(this.releaseVersion, writer);
+			}
 			return this.emailOutput;
 		}
 		catch (IOException e) {
@@ -2,12 +2,27 @@ package org.springframework.cloud.release.internal.template;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.git.ReleaseNotesCollector;
 import org.springframework.cloud.release.internal.pom.Projects;
 
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.cache.ConcurrentMapTemplateCache;
 import com.github.jknack.handlebars.helper.StringHelpers;
 import com.github.jknack.handlebars.io.ClassPathTemplateLoader;
 
@@ -16,14 +31,27 @@ import com.github.jknack.handlebars.io.ClassPathTemplateLoader;
  */
 public class TemplateGenerator {
 
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
 	private static final String EMAIL_TEMPLATE = "email";
 	private static final String BLOG_TEMPLATE = "blog";
+	private static final String TWEET_TEMPLATE = "tweet";
+	// compiled templates are immutable and thread safe, there's no need to compile them more than once
+	private static final Map<String, Template> TEMPLATES = new ConcurrentHashMap<>();
+
 	private final File emailOutput = new File("target/email.txt");
 	private final File blogOutput = new File("target/blog.md");
+	private final File tweetOutput = new File("target/tweet.txt");
 	private final ReleaserProperties props;
+	private ReleaseNotesCollector releaseNotesCollector;
 
 	public TemplateGenerator(ReleaserProperties props) {
+		this(props, null);
+	}
+
+	TemplateGenerator(ReleaserProperties props, ReleaseNotesCollector releaseNotesCollector) {
 		this.props = props;
+		this.releaseNotesCollector = releaseNotesCollector;
 	}
 
 	public File email() {
@@ -33,6 +61,13 @@ public class TemplateGenerator {
 		return new EmailTemplateGenerator(template, releaseVersion, emailOutput).email();
 	}
 
+	public File tweet() {
+		File tweetOutput = file(this.tweetOutput);
+		String releaseVersion = parsedVersion();
+		Template template = template(TWEET_TEMPLATE);
+		return new TweetTemplateGenerator(template, releaseVersion, tweetOutput).tweet();
+	}
+
 	private File file(File file) {
 		try {
 			if (file.exists()) {
@@ -51,7 +86,40 @@ public class TemplateGenerator {
 		File blogOutput = file(this.blogOutput);
 		String releaseVersion = parsedVersion();
 		Template template = template(BLOG_TEMPLATE);
-		return new BlogTemplateGenerator(template, releaseVersion, blogOutput, projects).blog();
+		return new BlogTemplateGenerator(template, releaseVersion, blogOutput, projects,
+				releaseNotesCollector().releaseNotes(projects)).blog();
+	}
+
+	/**
+	 * Generates the email, the blog and the tweet at the same time. Most of the time
+	 * is spent on collecting the release notes for the blog, the other templates
+	 * don't have to wait for it.
+	 *
+	 * @return generated files
+	 */
+	public List<File> all(Projects projects) {
+		List<Supplier<File>> generators = new ArrayList<>();
+		generators.add(this::email);
+		generators.add(() -> blog(projects));
+		generators.add(this::tweet);
+		ExecutorService executor = Executors.newFixedThreadPool(generators.size());
+		try {
+			List<CompletableFuture<File>> files = generators.stream()
+					.map(generator -> CompletableFuture.supplyAsync(generator, executor))
+					.collect(Collectors.toList());
+			CompletableFuture.allOf(files.toArray(new CompletableFuture[0])).join();
+			return files.stream().map(CompletableFuture::join).collect(Collectors.toList());
+		}
+		catch (CompletionException e) {
+			log.error("Failed to generate the templates", e.getCause());
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
 	}
 
 	private String parsedVersion() {
@@ -63,13 +131,35 @@ public class TemplateGenerator {
 	}
 
 	private Template template(String template) {
-		try {
-			Handlebars handlebars = new Handlebars(new ClassPathTemplateLoader("/templates"));
+		return TEMPLATES.computeIfAbsent(template, name -> {
+			try {
+				return Engine.HANDLEBARS.compile(name);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	private synchronized ReleaseNotesCollector releaseNotesCollector() {
+		if (this.releaseNotesCollector == null) {
+			this.releaseNotesCollector = new ReleaseNotesCollector(this.props);
+		}
+		return this.releaseNotesCollector;
+	}
+
+	/**
+	 * Holds the engine so that Handlebars gets loaded only when the first template
+	 * is generated and not when the application starts
+	 */
+	private static class Engine {
+		static final Handlebars HANDLEBARS = handlebars();
+
+		private static Handlebars handlebars() {
+			Handlebars handlebars = new Handlebars(new ClassPathTemplateLoader("/templates"))
+					.with(new ConcurrentMapTemplateCache());
 			handlebars.registerHelper("replace", StringHelpers.replace);
 			handlebars.registerHelper("capitalizeFirst", StringHelpers.capitalizeFirst);
-			return handlebars.compile(template);
-		} catch (IOException e) {
-			throw new IllegalStateException(e);
+			return handlebars;
 		}
 	}
 }
@@ -0,0 +1,36 @@
+package org.springframework.cloud.release.internal.template;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+
+import com.github.jknack.handlebars.Template;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+class TweetTemplateGenerator {
+
+	private final Template template;
+	private final String releaseVersion;
+	private final File tweetOutput;
+
+	TweetTemplateGenerator(Template template, String releaseVersion, File tweetOutput) {
+		this.template = template;
+		this.releaseVersion = releaseVersion;
+		this.tweetOutput = tweetOutput;
+	}
+
+	File tweet() {
+		try {
+			try (Writer writer = Files.newBufferedWriter(this.tweetOutput.toPath())) {
+				this.template.apply(this.releaseVersion, writer);
+			}
+			return this.tweetOutput;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.tracing;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@code jdk.jfr} API accessed via reflection. The releaser has to run on Java 8
+ * which either has no Flight Recorder API at all or has it only as of 8u262, so
+ * the API can't be referenced directly. The custom events are defined at runtime
+ * with the {@code EventFactory} instead of subclassing {@code jdk.jfr.Event}.
+ *
+ * @author Marcin Grzejszczak
+ */
+final class FlightRecorderApi {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final FlightRecorderApi INSTANCE = load();
+
+	private final Method isAvailable;
+	private final Method createConfiguration;
+	private final Method getConfiguration;
+	private final Constructor<?> newRecording;
+	private final Method setName;
+	private final Method setToDisk;
+	private final Method start;
+	private final Method stop;
+	private final Method dump;
+	private final Method close;
+	private final Constructor<?> newAnnotation;
+	private final Constructor<?> newField;
+	private final Method createEventFactory;
+	private final Method newEvent;
+	private final Method begin;
+	private final Method end;
+	private final Method shouldCommit;
+	private final Method set;
+	private final Method commit;
+	private final Class<?> name;
+	private final Class<?> label;
+	private final Class<?> category;
+	private final Class<?> description;
+	private final Class<?> stackTrace;
+
+	private FlightRecorderApi() throws ReflectiveOperationException {
+		Class<?> flightRecorder = type("FlightRecorder");
+		Class<?> configuration = type("Configuration");
+		Class<?> recording = type("Recording");
+		Class<?> annotationElement = type("AnnotationElement");
+		Class<?> valueDescriptor = type("ValueDescriptor");
+		Class<?> eventFactory = type("EventFactory");
+		Class<?> event = type("Event");
+		this.isAvailable = flightRecorder.getMethod("isAvailable");
+		this.createConfiguration = configuration.getMethod("create", Path.class);
+		this.getConfiguration = configuration.getMethod("getConfiguration", String.class);
+		this.newRecording = recording.getConstructor(configuration);
+		this.setName = recording.getMethod("setName", String.class);
+		this.setToDisk = recording.getMethod("setToDisk", boolean.class);
+		this.start = recording.getMethod("start");
+		this.stop = recording.getMethod("stop");
+		this.dump = recording.getMethod("dump", Path.class);
+		this.close = recording.getMethod("close");
+		this.newAnnotation = annotationElement.getConstructor(Class.class, Object.class);
+		this.newField = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+		this.createEventFactory = eventFactory.getMethod("create", List.class, List.class);
+		this.newEvent = eventFactory.getMethod("newEvent");
+		this.begin = event.getMethod("begin");
+		this.end = event.getMethod("end");
+		this.shouldCommit = event.getMethod("shouldCommit");
+		this.set = event.getMethod("set", int.class, Object.class);
+		this.commit = event.getMethod("commit");
+		this.name = type("Name");
+		this.label = type("Label");
+		this.category = type("Category");
+		this.description = type("Description");
+		this.stackTrace = type("StackTrace");
+	}
+
+	private static Class<?> type(String name) throws ClassNotFoundException {
+		return Class.forName("jdk.jfr." + name);
+	}
+
+	private static FlightRecorderApi load() {
+		try {
+			return new FlightRecorderApi();
+		}
+		catch (ReflectiveOperationException | LinkageError e) {
+			log.debug("The jdk.jfr API is not present in this JVM", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @return the API or {@code null} if the JVM has no Flight Recorder or can't record
+	 */
+	static FlightRecorderApi get() {
+		if (INSTANCE == null) {
+			return null;
+		}
+		try {
+			return Boolean.TRUE.equals(INSTANCE.isAvailable.invoke(null)) ? INSTANCE : null;
+		}
+		catch (ReflectiveOperationException e) {
+			log.debug("Failed to check whether the Flight Recorder is available", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @param settings - either a name of the JDK's settings or a path to a {@code .jfc} file
+	 * @return started {@code jdk.jfr.Recording}
+	 */
+	Object startRecording(String recordingName, String settings) {
+		Object configuration = settings.endsWith(".jfc") ?
+				invoke(this.createConfiguration, null, Paths.get(settings)) :
+				invoke(this.getConfiguration, null, settings);
+		Object recording = instantiate(this.newRecording, configuration);
+		invoke(this.setName, recording, recordingName);
+		invoke(this.setToDisk, recording, true);
+		invoke(this.start, recording);
+		return recording;
+	}
+
+	void stop(Object recording) {
+		invoke(this.stop, recording);
+	}
+
+	void dump(Object recording, Path destination) {
+		invoke(this.dump, recording, destination);
+	}
+
+	void close(Object recording) {
+		invoke(this.close, recording);
+	}
+
+	/**
+	 * Defines a custom event type. Every event of the type has a field per
+	 * {@link #field(Class, String, String) field}, set by index in the order of the list.
+	 *
+	 * @return {@code jdk.jfr.EventFactory} of the event type
+	 */
+	Object eventType(String eventName, String eventLabel, String eventDescription, Object... fields) {
+		List<Object> annotations = Arrays.asList(
+				annotation(this.name, eventName),
+				annotation(this.label, eventLabel),
+				annotation(this.category, new String[] { "Spring Cloud Release" }),
+				annotation(this.stackTrace, false),
+				annotation(this.description, eventDescription));
+		return invoke(this.createEventFactory, null, annotations, Arrays.asList(fields));
+	}
+
+	/**
+	 * @return {@code jdk.jfr.ValueDescriptor} of a labelled field
+	 */
+	Object field(Class<?> type, String fieldName, String fieldLabel) {
+		return instantiate(this.newField, type, fieldName,
+				Collections.singletonList(annotation(this.label, fieldLabel)));
+	}
+
+	Object newEvent(Object eventType) {
+		return invoke(this.newEvent, eventType);
+	}
+
+	void begin(Object event) {
+		invoke(this.begin, event);
+	}
+
+	void end(Object event) {
+		invoke(this.end, event);
+	}
+
+	boolean shouldCommit(Object event) {
+		return (Boolean) invoke(this.shouldCommit, event);
+	}
+
+	void set(Object event, int index, Object value) {
+		invoke(this.set, event, index, value);
+	}
+
+	void commit(Object event) {
+		invoke(this.commit, event);
+	}
+
+	private Object annotation(Class<?> type, Object value) {
+		return instantiate(this.newAnnotation, type, value);
+	}
+
+	private static Object instantiate(Constructor<?> constructor, Object... args) {
+		try {
+			return constructor.newInstance(args);
+		}
+		catch (InvocationTargetException e) {
+			throw new IllegalStateException("Failed to create [" + constructor.getDeclaringClass().getName() + "]",
+					e.getTargetException());
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Failed to create [" + constructor.getDeclaringClass().getName() + "]", e);
+		}
+	}
+
+	private static Object invoke(Method method, Object target, Object... args) {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException e) {
+			throw new IllegalStateException("Failed to call [" + method + "]", e.getTargetException());
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Failed to call [" + method + "]", e);
+		}
+	}
+}
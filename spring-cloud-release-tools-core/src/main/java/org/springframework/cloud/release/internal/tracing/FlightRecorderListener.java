@@ -0,0 +1,138 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the spans of pom rewrites, Git operations and child processes into
+ * custom Java Flight Recorder events, so that they show up in the recordings
+ * next to the JVM's own events. The listener is registered only while a
+ * recording is running, so that spans don't create any events otherwise.
+ *
+ * @author Marcin Grzejszczak
+ */
+final class FlightRecorderListener implements SpanListener {
+
+	private static FlightRecorderListener instance;
+	private static int recordings;
+
+	private final FlightRecorderApi jfr;
+	private final Object pomRewrite;
+	private final Object gitOperation;
+	private final Object childProcess;
+	private final Map<Span, Object> events = new ConcurrentHashMap<>();
+
+	private FlightRecorderListener(FlightRecorderApi jfr) {
+		this.jfr = jfr;
+		this.pomRewrite = jfr.eventType("org.springframework.cloud.release.PomRewrite", "Pom Rewrite",
+				"Rewrite of a pom with the versions from Spring Cloud Release",
+				jfr.field(String.class, "file", "File"),
+				jfr.field(int.class, "changes", "Changes"),
+				jfr.field(boolean.class, "dirty", "Dirty"));
+		this.gitOperation = jfr.eventType("org.springframework.cloud.release.GitOperation", "Git Operation",
+				"Clone, checkout, commit, tag, push or revert of a Git repository",
+				jfr.field(String.class, "operation", "Operation"),
+				jfr.field(String.class, "project", "Project"),
+				jfr.field(String.class, "ref", "Branch or Tag"));
+		this.childProcess = jfr.eventType("org.springframework.cloud.release.ChildProcess", "Child Process",
+				"Lifetime of a process forked by the releaser, e.g. a Maven build",
+				jfr.field(String.class, "command", "Command"),
+				jfr.field(int.class, "exitCode", "Exit Code"),
+				jfr.field(boolean.class, "timedOut", "Timed Out"));
+	}
+
+	/**
+	 * Starts emitting the events for a started recording
+	 */
+	static synchronized void register(FlightRecorderApi jfr) {
+		if (instance == null) {
+			instance = new FlightRecorderListener(jfr);
+		}
+		if (recordings++ == 0) {
+			Tracer.addListener(instance);
+		}
+	}
+
+	/**
+	 * Stops emitting the events once the last running recording has ended
+	 */
+	static synchronized void unregister() {
+		if (recordings > 0 && --recordings == 0) {
+			Tracer.removeListener(instance);
+			instance.events.clear();
+		}
+	}
+
+	@Override
+	public void started(Span span) {
+		Object event = event(span.getName());
+		if (event != null) {
+			this.jfr.begin(event);
+			this.events.put(span, event);
+		}
+	}
+
+	@Override
+	public void finished(Span span) {
+		Object event = this.events.remove(span);
+		if (event == null) {
+			return;
+		}
+		this.jfr.end(event);
+		if (!this.jfr.shouldCommit(event)) {
+			return;
+		}
+		Map<String, Object> attributes = span.getAttributes();
+		if ("pom.rewrite".equals(span.getName())) {
+			this.jfr.set(event, 0, string(attributes, "file"));
+			this.jfr.set(event, 1, number(attributes, "changes"));
+			this.jfr.set(event, 2, Boolean.TRUE.equals(attributes.get("dirty")));
+		} else if (span.getName().startsWith("git.")) {
+			this.jfr.set(event, 0, span.getName().substring("git.".length()));
+			this.jfr.set(event, 1, string(attributes, "project"));
+			this.jfr.set(event, 2, attributes.containsKey("tag") ?
+					string(attributes, "tag") : string(attributes, "branch"));
+		} else {
+			this.jfr.set(event, 0, string(attributes, "command"));
+			this.jfr.set(event, 1, attributes.containsKey("exitCode") ? number(attributes, "exitCode") : -1);
+			this.jfr.set(event, 2, Boolean.TRUE.equals(attributes.get("timedOut")));
+		}
+		this.jfr.commit(event);
+	}
+
+	private Object event(String spanName) {
+		if ("pom.rewrite".equals(spanName)) {
+			return this.jfr.newEvent(this.pomRewrite);
+		} else if (spanName.startsWith("git.")) {
+			return this.jfr.newEvent(this.gitOperation);
+		} else if ("process.run".equals(spanName)) {
+			return this.jfr.newEvent(this.childProcess);
+		}
+		return null;
+	}
+
+	private String string(Map<String, Object> attributes, String key) {
+		Object value = attributes.get(key);
+		return value != null ? value.toString() : null;
+	}
+
+	private int number(Map<String, Object> attributes, String key) {
+		Object value = attributes.get(key);
+		return value instanceof Number ? ((Number) value).intValue() : 0;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed operation. Spans started on the same thread while this one is open
+ * become its children. Has to be closed on the thread that has started it,
+ * best via try-with-resources.
+ *
+ * @author Marcin Grzejszczak
+ */
+public final class Span implements AutoCloseable {
+
+	/**
+	 * Returned when tracing is switched off. Ignores all attributes.
+	 */
+	static final Span NOOP = new Span("noop", null, 0L);
+
+	final String name;
+	final Span parent;
+	final long startNanos;
+	final long threadId;
+	final String threadName;
+	private final Map<String, Object> attributes = new LinkedHashMap<>();
+	private volatile long durationNanos = -1;
+
+	Span(String name, Span parent, long startNanos) {
+		this.name = name;
+		this.parent = parent;
+		this.startNanos = startNanos;
+		this.threadId = Thread.currentThread().getId();
+		this.threadName = Thread.currentThread().getName();
+	}
+
+	/**
+	 * Adds an attribute (e.g. a file, number of bytes or an exit code) to the span.
+	 * {@code null} values are ignored.
+	 */
+	public Span tag(String key, Object value) {
+		if (this != NOOP && value != null) {
+			synchronized (this.attributes) {
+				this.attributes.put(key, value);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Marks the span as failed
+	 */
+	public Span error(Throwable throwable) {
+		return tag("error", throwable.toString());
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return category of the span - the part of the name before the first dot
+	 */
+	public String getCategory() {
+		int dot = this.name.indexOf('.');
+		return dot > 0 ? this.name.substring(0, dot) : this.name;
+	}
+
+	public Span getParent() {
+		return this.parent;
+	}
+
+	public Map<String, Object> getAttributes() {
+		synchronized (this.attributes) {
+			return Collections.unmodifiableMap(new LinkedHashMap<>(this.attributes));
+		}
+	}
+
+	/**
+	 * @return duration in nanoseconds or {@code -1} if the span hasn't been closed yet
+	 */
+	public long getDurationNanos() {
+		return this.durationNanos;
+	}
+
+	void finish(long endNanos) {
+		this.durationNanos = endNanos - this.startNanos;
+	}
+
+	@Override
+	public void close() {
+		if (this != NOOP) {
+			Tracer.finish(this);
+		}
+	}
+
+	@Override public String toString() {
+		return this.name + getAttributes();
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.tracing;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Java Flight Recorder recording of a single release task. Closing it dumps the
+ * recording to a {@code .jfr} file named after the task. On a JVM without the
+ * {@code jdk.jfr} API (e.g. Java 8 older than 8u262) no recording gets started
+ * and the task runs unrecorded.
+ *
+ * @author Marcin Grzejszczak
+ */
+public final class TaskRecording implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private final FlightRecorderApi jfr;
+	private final Object recording;
+	private final Path destination;
+
+	private TaskRecording(FlightRecorderApi jfr, Object recording, Path destination) {
+		this.jfr = jfr;
+		this.recording = recording;
+		this.destination = destination;
+	}
+
+	/**
+	 * @param task - name of the task, used in the file name
+	 * @param directory - directory to which the recording gets dumped
+	 * @param settings - either a name of the JDK's settings ({@code default} or
+	 * {@code profile}) or a path to a {@code .jfc} file
+	 * @return started recording or {@code null} if the JVM can't record
+	 */
+	public static TaskRecording start(String task, File directory, String settings) {
+		FlightRecorderApi jfr = FlightRecorderApi.get();
+		if (jfr == null) {
+			log.warn("Java Flight Recorder isn't available in this JVM. Task [{}] won't be recorded", task);
+			return null;
+		}
+		FlightRecorderListener.register(jfr);
+		try {
+			Object recording = jfr.startRecording("releaser-" + task, settings);
+			String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.ENGLISH).format(new Date());
+			Path destination = directory.toPath().resolve(fileName(task) + "-" + timestamp + ".jfr");
+			return new TaskRecording(jfr, recording, destination);
+		}
+		catch (IllegalStateException e) {
+			FlightRecorderListener.unregister();
+			throw new IllegalStateException("Failed to start a flight recording for task [" + task + "]", e);
+		}
+	}
+
+	static String fileName(String task) {
+		return task.toLowerCase(Locale.ENGLISH).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+	}
+
+	Path destination() {
+		return this.destination;
+	}
+
+	@Override
+	public void close() {
+		FlightRecorderListener.unregister();
+		try {
+			this.jfr.stop(this.recording);
+			Files.createDirectories(this.destination.getParent());
+			this.jfr.dump(this.recording, this.destination);
+			log.info("Stored the flight recording of the task in [{}]", this.destination);
+		}
+		catch (IOException | IllegalStateException e) {
+			log.warn("Failed to store the flight recording in [{}]", this.destination, e);
+		}
+		finally {
+			this.jfr.close(this.recording);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.tracing;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects {@link Span spans} of the release. Each thread keeps a stack of the open
+ * spans so that a span started within another one becomes its child without passing
+ * anything around. When tracing is switched off and there are no {@link SpanListener listeners}
+ * {@link #span(String)} returns a no-op span, so instrumented code costs next to nothing.
+ *
+ * The collected spans can be exported to the Chrome trace format and opened in
+ * {@code chrome://tracing}, Perfetto or Speedscope.
+ *
+ * @author Marcin Grzejszczak
+ */
+public final class Tracer {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	private static final long EPOCH_NANOS = System.nanoTime();
+	private static final ThreadLocal<Deque<Span>> OPEN_SPANS = ThreadLocal.withInitial(ArrayDeque::new);
+	private static final Queue<Span> FINISHED_SPANS = new ConcurrentLinkedQueue<>();
+	private static final List<SpanListener> LISTENERS = new CopyOnWriteArrayList<>();
+	private static volatile boolean enabled;
+
+	private Tracer() {
+	}
+
+	public static void enable(boolean enabled) {
+		Tracer.enabled = enabled;
+	}
+
+	/**
+	 * @return {@code true} if the finished spans are collected for the export
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Registers a listener notified about every span even if the spans aren't
+	 * collected for the export. Registering the same listener again has no effect.
+	 */
+	public static void addListener(SpanListener listener) {
+		if (!LISTENERS.contains(listener)) {
+			LISTENERS.add(listener);
+		}
+	}
+
+	public static void removeListener(SpanListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	/**
+	 * Starts a span. The name should be prefixed with the layer the span comes
+	 * from, e.g. {@code git.commit} or {@code pom.rewrite}.
+	 */
+	public static Span span(String name) {
+		if (!enabled && LISTENERS.isEmpty()) {
+			return Span.NOOP;
+		}
+		Deque<Span> open = OPEN_SPANS.get();
+		Span span = new Span(name, open.peek(), System.nanoTime());
+		open.push(span);
+		LISTENERS.forEach(listener -> listener.started(span));
+		return span;
+	}
+
+	static void finish(Span span) {
+		span.finish(System.nanoTime());
+		Deque<Span> open = OPEN_SPANS.get();
+		if (open.peek() == span) {
+			open.pop();
+		} else {
+			open.remove(span);
+		}
+		LISTENERS.forEach(listener -> listener.finished(span));
+		if (enabled) {
+			FINISHED_SPANS.add(span);
+		}
+	}
+
+	/**
+	 * @return spans closed so far in order of closing
+	 */
+	public static List<Span> finishedSpans() {
+		return new ArrayList<>(FINISHED_SPANS);
+	}
+
+	/**
+	 * Removes the finished spans
+	 */
+	public static void reset() {
+		FINISHED_SPANS.clear();
+	}
+
+	/**
+	 * Writes the finished spans as complete events of the Chrome trace format.
+	 * Every thread gets its own track.
+	 *
+	 * @param file - file to write the trace to
+	 * @return the written file
+	 */
+	public static File export(File file) {
+		List<Span> spans = finishedSpans();
+		JsonArrayBuilder events = Json.createArrayBuilder();
+		Map<Long, String> threads = new LinkedHashMap<>();
+		for (Span span : spans) {
+			threads.putIfAbsent(span.threadId, span.threadName);
+			JsonObjectBuilder args = Json.createObjectBuilder();
+			span.getAttributes().forEach((key, value) -> addValue(args, key, value));
+			events.add(Json.createObjectBuilder()
+					.add("name", span.name)
+					.add("cat", span.getCategory())
+					.add("ph", "X")
+					.add("ts", micros(span.startNanos - EPOCH_NANOS))
+					.add("dur", micros(span.getDurationNanos()))
+					.add("pid", 1)
+					.add("tid", span.threadId)
+					.add("args", args));
+		}
+		threads.forEach((id, name) -> events.add(Json.createObjectBuilder()
+				.add("name", "thread_name")
+				.add("ph", "M")
+				.add("pid", 1)
+				.add("tid", id)
+				.add("args", Json.createObjectBuilder().add("name", name))));
+		try {
+			File parent = file.getAbsoluteFile().getParentFile();
+			if (parent != null) {
+				Files.createDirectories(parent.toPath());
+			}
+			try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+					JsonWriter json = Json.createWriter(writer)) {
+				json.writeObject(Json.createObjectBuilder()
+						.add("traceEvents", events)
+						.add("displayTimeUnit", "ms")
+						.build());
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to export the trace to [" + file + "]", e);
+		}
+		log.info("Stored [{}] spans in [{}]. Open the file in chrome://tracing or https://ui.perfetto.dev",
+				spans.size(), file);
+		return file;
+	}
+
+	private static void addValue(JsonObjectBuilder builder, String key, Object value) {
+		if (value instanceof Integer || value instanceof Long) {
+			builder.add(key, ((Number) value).longValue());
+		} else if (value instanceof Number) {
+			builder.add(key, ((Number) value).doubleValue());
+		} else if (value instanceof Boolean) {
+			builder.add(key, (Boolean) value);
+		} else {
+			builder.add(key, String.valueOf(value));
+		}
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -92,6 +92,7 @@ public class PomUpdateAcceptanceTests {
 	private ReleaserProperties releaserProperties() throws URISyntaxException {
 		ReleaserProperties releaserProperties = new ReleaserProperties();
 		releaserProperties.getGit().setSpringCloudReleaseGitUrl(file("/projects/spring-cloud-release/").toURI().getPath());
+		releaserProperties.getManifest().setDirectory(new File(this.temporaryFolder, "manifests").getPath());
 		return releaserProperties;
 	}
 
@@ -0,0 +1,53 @@
+package org.springframework.cloud.release.internal;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ReleaseReportTests {
+
+	ReleaseReport report = new ReleaseReport();
+
+	@Test
+	public void should_return_zero_exit_code_when_no_task_has_failed() {
+		this.report.succeeded("BUILD PROJECT", 100);
+		this.report.skipped("ARTIFACT DEPLOYMENT", "skipped by configuration");
+
+		then(this.report.hasFailures()).isFalse();
+		then(this.report.exitCode()).isEqualTo(0);
+	}
+
+	@Test
+	public void should_return_non_zero_exit_code_when_a_task_has_failed() {
+		this.report.succeeded("BUILD PROJECT", 100);
+		this.report.failed("ARTIFACT DEPLOYMENT", 200, new IllegalStateException("boom"));
+
+		then(this.report.hasFailures()).isTrue();
+		then(this.report.exitCode()).isEqualTo(1);
+	}
+
+	@Test
+	public void should_list_all_tasks_in_the_summary() {
+		this.report.succeeded("BUILD PROJECT", 100);
+		this.report.failed("ARTIFACT DEPLOYMENT", 200, new IllegalStateException("boom"));
+		this.report.skipped("CREATING TEMPLATES", "a previous task has failed");
+
+		then(this.report.summary())
+				.contains("SUCCEEDED  BUILD PROJECT (100 ms)")
+				.contains("FAILED     ARTIFACT DEPLOYMENT (200 ms) - boom")
+				.contains("SKIPPED    CREATING TEMPLATES - a previous task has failed");
+	}
+
+	@Test
+	public void should_list_notes_below_the_tasks() {
+		this.report.succeeded("BUILD PROJECT", 100);
+		this.report.note("The docs weren't built since nothing has changed");
+
+		then(this.report.summary())
+				.contains("Notes:")
+				.contains("- The docs weren't built since nothing has changed");
+	}
+}
@@ -3,6 +3,7 @@ package org.springframework.cloud.release.internal;
 import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -14,6 +15,7 @@ import org.springframework.cloud.release.internal.template.TemplateGenerator;
 import org.springframework.cloud.release.internal.git.ProjectGitUpdater;
 import org.springframework.cloud.release.internal.pom.ProjectPomUpdater;
 import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
 import org.springframework.cloud.release.internal.project.ProjectBuilder;
 
 import static org.mockito.BDDMockito.then;
@@ -67,6 +69,15 @@ public class ReleaserTests {
 		then(this.projectBuilder).should().bumpVersions(anyString());
 	}
 
+	@Test
+	public void should_close_milestones_of_all_projects() throws Exception {
+		Projects projects = new Projects(Collections.singleton(new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE")));
+
+		this.releaser.closeMilestones(projects);
+
+		then(this.projectGitUpdater).should().closeMilestones(projects);
+	}
+
 	@Test
 	public void should_not_generate_email_for_snapshot_version() throws Exception {
 		this.releaser.createEmail(new ProjectVersion("original", "1.0.0.BUILD-SNAPSHOT"));
@@ -81,6 +92,22 @@ public class ReleaserTests {
 		then(this.templateGenerator).should().email();
 	}
 
+	@Test
+	public void should_not_generate_templates_for_snapshot_version() throws Exception {
+		this.releaser.createTemplates(new ProjectVersion("original", "1.0.0.BUILD-SNAPSHOT"), null);
+
+		then(this.templateGenerator).should(never()).all(any(Projects.class));
+	}
+
+	@Test
+	public void should_generate_all_templates_for_release_version() throws Exception {
+		Projects projects = new Projects(Collections.singleton(new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE")));
+
+		this.releaser.createTemplates(new ProjectVersion("original", "1.0.0.RELEASE"), projects);
+
+		then(this.templateGenerator).should().all(projects);
+	}
+
 	@Test
 	public void should_not_close_milestone_for_snapshots() throws Exception {
 		this.releaser.closeMilestone(new ProjectVersion("original", "1.0.0.BUILD-SNAPSHOT"));
@@ -0,0 +1,131 @@
+package org.springframework.cloud.release.internal.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class DocsPublisherTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File staticRepo;
+	File project;
+	DocsPublisher publisher;
+
+	@Before
+	public void setup() throws Exception {
+		this.staticRepo = this.tmp.newFolder("spring-cloud-static.git");
+		Git.init().setBare(true).setDirectory(this.staticRepo).call().close();
+		this.project = this.tmp.newFolder("spring-cloud-foo");
+		try (Git git = Git.init().setDirectory(this.project).call()) {
+			StoredConfig config = git.getRepository().getConfig();
+			config.setString("remote", "origin", "url", "git@github.com:spring-cloud/spring-cloud-foo.git");
+			config.save();
+		}
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getGit().setSpringCloudStaticRepoUrl(this.staticRepo.getPath());
+		properties.getGit().setDocsCacheDir(this.tmp.newFolder("cache").getPath());
+		this.publisher = new DocsPublisher(properties);
+	}
+
+	@Test
+	public void should_publish_release_docs_under_repo_name_and_version_with_main_doc_as_index() throws Exception {
+		generatedDoc("spring-cloud-foo.html", "main");
+		generatedDoc("css/style.css", "css");
+
+		boolean published = this.publisher.publish(this.project, version("1.0.0.RELEASE"));
+
+		then(published).isTrue();
+		then(ghPagesFiles()).containsExactly("spring-cloud-foo/1.0.0.RELEASE/css/style.css",
+				"spring-cloud-foo/1.0.0.RELEASE/index.html");
+	}
+
+	@Test
+	public void should_not_push_a_new_commit_when_docs_have_not_changed() throws Exception {
+		generatedDoc("spring-cloud-foo.html", "main");
+		this.publisher.publish(this.project, version("1.0.0.RELEASE"));
+
+		boolean published = this.publisher.publish(this.project, version("1.0.0.RELEASE"));
+
+		then(published).isFalse();
+		then(ghPagesCommits()).hasSize(1);
+	}
+
+	@Test
+	public void should_only_update_changed_files_and_keep_docs_of_other_versions() throws Exception {
+		generatedDoc("spring-cloud-foo.html", "main");
+		generatedDoc("css/style.css", "css");
+		this.publisher.publish(this.project, version("1.0.0.RELEASE"));
+		generatedDoc("css/style.css", "changed css");
+		Files.delete(new File(this.project, "docs/target/generated-docs/spring-cloud-foo.html").toPath());
+
+		this.publisher.publish(this.project, version("1.0.0.RELEASE"));
+		this.publisher.publish(this.project, version("1.0.1.RELEASE"));
+
+		then(ghPagesCommits()).hasSize(3);
+		then(ghPagesFiles()).containsExactly("spring-cloud-foo/1.0.0.RELEASE/css/style.css",
+				"spring-cloud-foo/1.0.1.RELEASE/css/style.css");
+	}
+
+	@Test
+	public void should_not_publish_anything_when_there_are_no_generated_docs() throws Exception {
+		boolean published = this.publisher.publish(this.project, version("1.0.0.RELEASE"));
+
+		then(published).isFalse();
+		try (Git git = Git.open(this.staticRepo)) {
+			then(git.getRepository().resolve("gh-pages")).isNull();
+		}
+	}
+
+	private ProjectVersion version(String version) {
+		return new ProjectVersion("spring-cloud-foo", version);
+	}
+
+	private void generatedDoc(String path, String content) throws IOException {
+		File file = new File(this.project, "docs/target/generated-docs/" + path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes());
+	}
+
+	private List<RevCommit> ghPagesCommits() throws Exception {
+		try (Git git = Git.open(this.staticRepo)) {
+			List<RevCommit> commits = new ArrayList<>();
+			git.log().add(git.getRepository().resolve("gh-pages")).call().forEach(commits::add);
+			return commits;
+		}
+	}
+
+	private List<String> ghPagesFiles() throws Exception {
+		try (Git git = Git.open(this.staticRepo)) {
+			Repository repository = git.getRepository();
+			List<String> files = new ArrayList<>();
+			try (RevWalk revWalk = new RevWalk(repository); TreeWalk walk = new TreeWalk(repository)) {
+				walk.addTree(revWalk.parseCommit(repository.resolve("gh-pages")).getTree());
+				walk.setRecursive(true);
+				while (walk.next()) {
+					files.add(walk.getPathString());
+				}
+			}
+			return files;
+		}
+	}
+}
@@ -6,7 +6,10 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
@@ -124,6 +127,34 @@ public class GitRepoTests {
 		}
 	}
 
+	@Test
+	public void should_commit_only_the_passed_files() throws Exception {
+		File project = this.gitRepo.cloneProject(this.springCloudReleaseProject.toURI());
+		File changed = new File(project, "changed.txt");
+		Files.write(changed.toPath(), "changed".getBytes());
+		Files.write(new File(project, "untracked.txt").toPath(), "untracked".getBytes());
+
+		this.gitRepo.commit(project, "some message", Collections.singleton(changed));
+
+		try(Git git = openGitProject(project)) {
+			RevCommit revCommit = git.log().call().iterator().next();
+			then(revCommit.getShortMessage()).isEqualTo("some message");
+			then(git.status().call().getUntracked()).containsExactly("untracked.txt");
+		}
+	}
+
+	@Test
+	public void should_list_only_the_modified_poms() throws Exception {
+		File project = this.gitRepo.cloneProject(this.springCloudReleaseProject.toURI());
+		File pom = new File(project, "pom.xml");
+		Files.write(pom.toPath(), "changed".getBytes());
+		Files.write(new File(project, "README.adoc").toPath(), "changed".getBytes());
+		new File(project, "untracked").mkdirs();
+		Files.write(new File(project, "untracked/pom.xml").toPath(), "untracked".getBytes());
+
+		then(this.gitRepo.modifiedPoms(project)).containsExactly(pom);
+	}
+
 	@Test
 	public void should_create_a_tag() throws Exception {
 		File project = this.gitRepo.cloneProject(this.springCloudReleaseProject.toURI());
@@ -137,6 +168,71 @@ public class GitRepoTests {
 		}
 	}
 
+	@Test
+	public void should_return_the_head_commit() throws Exception {
+		File project = this.gitRepo.cloneProject(this.springCloudReleaseProject.toURI());
+		createNewFile(project);
+		this.gitRepo.commit(project, "some message");
+
+		String head = this.gitRepo.headCommit(project);
+
+		try(Git git = openGitProject(project)) {
+			then(head).isEqualTo(git.log().call().iterator().next().getName());
+		}
+	}
+
+	@Test
+	public void should_read_files_at_a_ref_without_checking_it_out() throws Exception {
+		File project = this.gitRepo.cloneProject(this.springCloudReleaseProject.toURI());
+
+		Map<String, String> files = this.gitRepo.filesAtRef(project, "vCamden.SR3",
+				Arrays.asList("spring-cloud-dependencies/pom.xml", "non-existing/pom.xml"));
+
+		then(files.get("spring-cloud-dependencies/pom.xml")).contains("<version>Camden.SR3</version>");
+		then(files).containsKey("non-existing/pom.xml");
+		then(files.get("non-existing/pom.xml")).isNull();
+		then(Files.lines(new File(project, "pom.xml").toPath())
+				.anyMatch(s -> s.contains("<version>Camden.SR3</version>"))).isFalse();
+	}
+
+	@Test
+	public void should_read_files_at_a_remote_branch() throws Exception {
+		File project = this.gitRepo.cloneProject(this.springCloudReleaseProject.toURI());
+
+		String pom = this.gitRepo.fileAtRef(project, "Camden.x", "spring-cloud-dependencies/pom.xml");
+
+		then(pom).contains("<version>Camden.BUILD-SNAPSHOT</version>");
+	}
+
+	@Test
+	public void should_throw_an_exception_when_reading_files_at_a_nonexisting_ref() throws Exception {
+		File project = this.gitRepo.cloneProject(this.springCloudReleaseProject.toURI());
+
+		thenThrownBy(() -> this.gitRepo.fileAtRef(project, "non-existing", "pom.xml"))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Ref [non-existing] is not present");
+	}
+
+	@Test
+	public void should_return_the_revision_of_a_remote_branch_and_tag() throws Exception {
+		File project = this.gitRepo.cloneProject(this.springCloudReleaseProject.toURI());
+
+		String branch = this.gitRepo.remoteRevision(this.springCloudReleaseProject.toURI(), "Camden.x");
+		String tag = this.gitRepo.remoteRevision(this.springCloudReleaseProject.toURI(), "vBrixton.SR7");
+
+		try(Git git = openGitProject(project)) {
+			then(branch).isEqualTo(git.getRepository().resolve("origin/Camden.x").getName());
+			then(tag).isEqualTo(git.getRepository().resolve("vBrixton.SR7^{commit}").getName());
+		}
+	}
+
+	@Test
+	public void should_throw_an_exception_when_the_remote_ref_is_missing() throws Exception {
+		thenThrownBy(() -> this.gitRepo.remoteRevision(this.springCloudReleaseProject.toURI(), "non-existing"))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Ref [non-existing] is not present");
+	}
+
 	private void tagIsPresent(Git git, String tag) throws GitAPIException {
 		List<Ref> refs = git.tagList().call();
 		System.out.println("All tags" + refs);
@@ -0,0 +1,137 @@
+package org.springframework.cloud.release.internal.git;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class GithubClientTests {
+
+	private static final String FIRST_PAGE = "GET /repos/spring-cloud/spring-cloud-sleuth/milestones?state=open&per_page=100";
+	private static final String SECOND_PAGE = "GET /repos/spring-cloud/spring-cloud-sleuth/milestones?state=open&per_page=100&page=2";
+
+	GithubStub github;
+	GithubClient client;
+
+	@Before
+	public void setup() throws IOException {
+		this.github = new GithubStub();
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getGit().setOauthToken("foo");
+		properties.getGit().setGithubApiUrl(this.github.url());
+		this.client = new GithubClient(properties);
+	}
+
+	@After
+	public void cleanup() {
+		this.github.close();
+	}
+
+	@Test
+	public void should_read_milestone_titles_from_all_pages_of_the_list() throws IOException {
+		this.github.respond(FIRST_PAGE, 200, "[{\"number\":1,\"title\":\"1.0.0.M1\"}]", null,
+				"<" + this.github.url() + SECOND_PAGE.substring(4) + ">; rel=\"next\", <"
+						+ this.github.url() + SECOND_PAGE.substring(4) + ">; rel=\"last\"");
+		this.github.respond(SECOND_PAGE, 200, "[{\"number\":2,\"title\":\"1.0.0.RELEASE\"}]");
+
+		List<GithubMilestone> milestones = this.client.openMilestones("spring-cloud", "spring-cloud-sleuth");
+
+		then(milestones).extracting("title").containsExactly("1.0.0.M1", "1.0.0.RELEASE");
+		then(this.github.requests).containsExactly(FIRST_PAGE, SECOND_PAGE);
+	}
+
+	@Test
+	public void should_use_conditional_requests_for_already_retrieved_lists() throws IOException {
+		this.github.respond(FIRST_PAGE, 200, "[{\"number\":1,\"title\":\"1.0.0.M1\"}]", "\"abc\"", null);
+
+		this.client.openMilestones("spring-cloud", "spring-cloud-sleuth");
+		List<GithubMilestone> milestones = this.client.openMilestones("spring-cloud", "spring-cloud-sleuth");
+
+		then(milestones).extracting("title").containsExactly("1.0.0.M1");
+		then(this.github.requests).containsExactly(FIRST_PAGE, FIRST_PAGE + " (304)");
+	}
+
+	@Test
+	public void should_retry_a_request_after_the_time_requested_by_a_secondary_rate_limit() throws IOException {
+		this.github.respond(FIRST_PAGE, 429, "{\"message\":\"slow down\"}", Collections.singletonMap("Retry-After", "1"));
+		this.github.respond(FIRST_PAGE, 200, "[{\"number\":1,\"title\":\"1.0.0.M1\"}]");
+		long start = System.currentTimeMillis();
+
+		List<GithubMilestone> milestones = this.client.openMilestones("spring-cloud", "spring-cloud-sleuth");
+
+		then(milestones).extracting("title").containsExactly("1.0.0.M1");
+		then(this.github.requests).containsExactly(FIRST_PAGE, FIRST_PAGE);
+		then(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(900);
+	}
+
+	@Test
+	public void should_retry_a_request_that_failed_with_a_server_error() throws IOException {
+		this.client.retryBackOffInMillis = 1;
+		this.github.respond(FIRST_PAGE, 502, "{\"message\":\"Server Error\"}");
+		this.github.respond(FIRST_PAGE, 200, "[{\"number\":1,\"title\":\"1.0.0.M1\"}]");
+
+		List<GithubMilestone> milestones = this.client.openMilestones("spring-cloud", "spring-cloud-sleuth");
+
+		then(milestones).extracting("title").containsExactly("1.0.0.M1");
+		then(this.github.requests).containsExactly(FIRST_PAGE, FIRST_PAGE);
+	}
+
+	@Test
+	public void should_retry_a_request_that_failed_to_connect() throws IOException {
+		String url = this.github.url();
+		this.github.close();
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getGit().setGithubApiUrl(url);
+		GithubClient client = new GithubClient(properties);
+		client.retryBackOffInMillis = 1;
+
+		thenThrownBy(() -> client.openMilestones("spring-cloud", "spring-cloud-sleuth"))
+				.isInstanceOf(IOException.class);
+	}
+
+	@Test
+	public void should_fetch_all_pages_of_closed_issues_listed_in_the_last_link() throws IOException {
+		String issues = "GET /repos/spring-cloud/spring-cloud-sleuth/issues?milestone=5&state=closed&per_page=100";
+		this.github.respond(issues, 200, "[{\"number\":1,\"title\":\"Bug\",\"html_url\":\"http://foo/1\"}]", null,
+				"<" + this.github.url() + issues.substring(4) + "&page=2>; rel=\"next\", <"
+						+ this.github.url() + issues.substring(4) + "&page=3>; rel=\"last\"");
+		this.github.respond(issues + "&page=2", 200,
+				"[{\"number\":2,\"title\":\"Feature\",\"html_url\":\"http://foo/2\",\"pull_request\":{}}]");
+		this.github.respond(issues + "&page=3", 200, "[{\"number\":3,\"title\":\"Docs\",\"html_url\":\"http://foo/3\"}]");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try {
+			List<ReleaseNote> notes = this.client.closedIssues("spring-cloud", "spring-cloud-sleuth", 5, executor);
+
+			then(notes).extracting("number").containsExactly(1, 2, 3);
+			then(notes).extracting("pullRequest").containsExactly(false, true, false);
+			then(notes).extracting("url").containsExactly("http://foo/1", "http://foo/2", "http://foo/3");
+			then(this.github.requests).hasSize(3)
+					.contains(issues, issues + "&page=2", issues + "&page=3");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void should_close_a_milestone_with_a_single_request() throws IOException {
+		this.github.respond("PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/5", 200, "{}");
+
+		this.client.closeMilestone("spring-cloud", "spring-cloud-sleuth", 5);
+
+		then(this.github.requests).containsExactly("PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/5");
+	}
+}
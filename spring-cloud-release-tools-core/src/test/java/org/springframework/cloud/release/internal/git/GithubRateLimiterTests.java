@@ -0,0 +1,68 @@
+package org.springframework.cloud.release.internal.git;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class GithubRateLimiterTests {
+
+	@Test
+	public void should_space_requests_according_to_the_rate() throws Exception {
+		GithubRateLimiter limiter = new GithubRateLimiter(20, 1);
+		long start = System.currentTimeMillis();
+
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire();
+		}
+
+		then(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(150);
+	}
+
+	@Test
+	public void should_wait_and_halve_the_rate_when_secondary_rate_limit_was_hit() throws Exception {
+		GithubRateLimiter limiter = new GithubRateLimiter(10, 10);
+		limiter.onResponse(null, null, 1L);
+		long start = System.currentTimeMillis();
+
+		limiter.acquire();
+
+		then(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(900);
+		then(limiter.rate()).isEqualTo(5.0);
+	}
+
+	@Test
+	public void should_wait_for_the_reset_when_rate_limit_got_exhausted() throws Exception {
+		GithubRateLimiter limiter = new GithubRateLimiter(10, 10);
+		long resetInTwoSeconds = System.currentTimeMillis() / 1000 + 2;
+		limiter.onResponse(0L, resetInTwoSeconds, null);
+		long start = System.currentTimeMillis();
+
+		limiter.acquire();
+
+		then(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(900);
+	}
+
+	@Test
+	public void should_spread_the_remaining_requests_until_the_reset() {
+		GithubRateLimiter limiter = new GithubRateLimiter(10, 10);
+
+		limiter.onResponse(10L, System.currentTimeMillis() / 1000 + 100, null);
+
+		then(limiter.rate()).isLessThan(1.0);
+	}
+
+	@Test
+	public void should_recover_the_rate_with_successful_responses() {
+		GithubRateLimiter limiter = new GithubRateLimiter(10, 10);
+		limiter.onResponse(null, null, 0L);
+
+		for (int i = 0; i < 20; i++) {
+			limiter.onResponse(4000L, System.currentTimeMillis() / 1000 + 3600, null);
+		}
+
+		then(limiter.rate()).isEqualTo(10.0);
+	}
+}
@@ -0,0 +1,135 @@
+package org.springframework.cloud.release.internal.git;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the GitHub API. Responds with the registered payloads
+ * and honours {@code If-None-Match} for responses with an {@code ETag}. When many
+ * responses are registered for the same request they're returned in order,
+ * the last one is returned for all subsequent requests.
+ *
+ * @author Marcin Grzejszczak
+ */
+class GithubStub implements Closeable {
+
+	final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+	final Map<String, String> requestBodies = new ConcurrentHashMap<>();
+	private final Map<String, Deque<StubResponse>> responses = new ConcurrentHashMap<>();
+	private final HttpServer server;
+
+	GithubStub() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+	}
+
+	String url() {
+		return "http://localhost:" + this.server.getAddress().getPort();
+	}
+
+	/**
+	 * @param request - method and path with query, e.g. {@code GET /repos/a/b/milestones?state=open}
+	 */
+	GithubStub respond(String request, int status, String body) {
+		return respond(request, status, body, null, null);
+	}
+
+	GithubStub respond(String request, int status, String body, String etag, String link) {
+		Map<String, String> headers = new LinkedHashMap<>();
+		if (etag != null) {
+			headers.put("ETag", etag);
+		}
+		if (link != null) {
+			headers.put("Link", link);
+		}
+		return respond(request, status, body, headers);
+	}
+
+	GithubStub respond(String request, int status, String body, Map<String, String> headers) {
+		this.responses.computeIfAbsent(request, key -> new ConcurrentLinkedDeque<>())
+				.add(new StubResponse(status, body, headers));
+		return this;
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String method = exchange.getRequestMethod();
+		String override = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+		if (override != null) {
+			method = override;
+		}
+		String request = method + " " + exchange.getRequestURI();
+		this.requests.add(request);
+		try (InputStream body = exchange.getRequestBody()) {
+			this.requestBodies.put(request, read(body));
+		}
+		Deque<StubResponse> queue = this.responses.get(request);
+		if (queue == null) {
+			send(exchange, 404, "{\"message\":\"Not Found\"}");
+			return;
+		}
+		StubResponse response = queue.size() > 1 ? queue.poll() : queue.peek();
+		response.headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+		String etag = response.headers.get("ETag");
+		if (etag != null && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			this.requests.set(this.requests.size() - 1, request + " (304)");
+			exchange.sendResponseHeaders(304, -1);
+			exchange.close();
+			return;
+		}
+		send(exchange, response.status, response.body);
+	}
+
+	private void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+		if (bytes.length > 0) {
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+		exchange.close();
+	}
+
+	private String read(InputStream stream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Override public void close() {
+		this.server.stop(0);
+	}
+
+	private static class StubResponse {
+		final int status;
+		final String body;
+		final Map<String, String> headers;
+
+		StubResponse(int status, String body, Map<String, String> headers) {
+			this.status = status;
+			this.body = body;
+			this.headers = headers;
+		}
+	}
+}
@@ -1,19 +1,17 @@
 package org.springframework.cloud.release.internal.git;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
-import javax.json.Json;
+import java.util.Arrays;
+import java.util.HashSet;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.springframework.boot.test.rule.OutputCapture;
 import org.springframework.cloud.release.internal.ReleaserProperties;
 import org.springframework.cloud.release.internal.pom.ProjectVersion;
-
-import com.jcabi.github.Milestone;
-import com.jcabi.github.Repo;
-import com.jcabi.github.mock.MkGithub;
+import org.springframework.cloud.release.internal.pom.Projects;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.assertj.core.api.BDDAssertions.thenThrownBy;
@@ -23,52 +21,46 @@ import static org.assertj.core.api.BDDAssertions.thenThrownBy;
  */
 public class MilestoneCloserTests {
 
-	MkGithub github;
-	Repo repo;
+	private static final String MILESTONES = "GET /repos/spring-cloud/spring-cloud-sleuth/milestones?state=open&per_page=100";
+
+	GithubStub github;
 	@Rule public OutputCapture capture = new OutputCapture();
 
 	@Before
-	public void setup() throws URISyntaxException, IOException  {
-		this.github = new MkGithub();
-		this.repo = createSleuthRepo(this.github);
+	public void setup() throws IOException {
+		this.github = new GithubStub();
 	}
 
-	@Test
-	public void should_close_milestone_if_there_is_one() throws IOException {
-		MilestoneCloser closer = new MilestoneCloser(this.github, withToken()) {
-			@Override String org() {
-				return repo.coordinates().user();
-			}
+	@After
+	public void cleanup() {
+		this.github.close();
+	}
 
-			@Override String milestoneTitle(Milestone.Smart milestone)
-					throws IOException {
-				return "0.2.0.BUILD-SNAPSHOT";
-			}
-		};
-		repo.milestones().create("0.2.0.BUILD-SNAPSHOT");
+	@Test
+	public void should_close_milestone_if_there_is_one() {
+		this.github.respond(MILESTONES, 200, milestones("0.1.0.BUILD-SNAPSHOT", "0.2.0.BUILD-SNAPSHOT"));
+		this.github.respond("PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/2", 200, "{}");
+		MilestoneCloser closer = new MilestoneCloser(withToken());
 
 		closer.closeMilestone(sleuthProject());
 
 		then(this.capture.toString()).doesNotContain("No matching milestone was found");
+		then(this.github.requests).containsExactly(MILESTONES,
+				"PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/2");
+		then(this.github.requestBodies.get("PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/2"))
+				.contains("\"state\":\"closed\"");
 	}
 
 	@Test
-	public void should_close_milestone_when_the_milestone_contains_numeric_version_only() throws IOException {
-		MilestoneCloser closer = new MilestoneCloser(this.github, withToken()) {
-			@Override String org() {
-				return repo.coordinates().user();
-			}
-
-			@Override String milestoneTitle(Milestone.Smart milestone)
-					throws IOException {
-				return "0.2.0";
-			}
-		};
-		repo.milestones().create("0.2.0");
+	public void should_close_milestone_when_the_milestone_contains_numeric_version_only() {
+		this.github.respond(MILESTONES, 200, milestones("0.2.0"));
+		this.github.respond("PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/1", 200, "{}");
+		MilestoneCloser closer = new MilestoneCloser(withToken());
 
 		closer.closeMilestone(sleuthProject());
 
 		then(this.capture.toString()).doesNotContain("No matching milestone was found");
+		then(this.github.requests).contains("PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/1");
 	}
 
 	private ProjectVersion sleuthProject() {
@@ -76,49 +68,59 @@ public class MilestoneCloserTests {
 	}
 
 	@Test
-	public void should_throw_exception_when_there_is_no_matching_milestone() throws IOException {
-		MilestoneCloser closer = new MilestoneCloser(this.github, withToken()) {
-			@Override String org() {
-				return repo.coordinates().user();
-			}
-
-			@Override String milestoneTitle(Milestone.Smart milestone)
-					throws IOException {
-				return "0.1.0.BUILD-SNAPSHOT";
-			}
-		};
-		repo.milestones().create("v0.2.0.BUILD-SNAPSHOT");
+	public void should_throw_exception_when_there_is_no_matching_milestone() {
+		this.github.respond(MILESTONES, 200, milestones("v0.2.0.BUILD-SNAPSHOT"));
+		MilestoneCloser closer = new MilestoneCloser(withToken());
 
 		closer.closeMilestone(sleuthProject());
+
 		then(this.capture.toString()).contains("No matching milestone was found");
 	}
 
 	@Test
-	public void should_throw_exception_when_io_problems_occurred() throws IOException {
-		MilestoneCloser closer = new MilestoneCloser(this.github, withToken()) {
-			@Override String org() {
-				return repo.coordinates().user();
-			}
-
-			@Override String milestoneTitle(Milestone.Smart milestone)
-					throws IOException {
-				throw new IOException("foo");
-			}
-		};
-		repo.milestones().create("v0.2.0.BUILD-SNAPSHOT");
+	public void should_throw_exception_when_io_problems_occurred() {
+		this.github.respond(MILESTONES, 500, "foo");
+		MilestoneCloser closer = new MilestoneCloser(withToken());
 
 		thenThrownBy(() -> closer.closeMilestone(sleuthProject()))
 				.isInstanceOf(IllegalStateException.class)
 				.hasMessageContaining("foo");
 	}
 
-	private Repo createSleuthRepo(MkGithub github) throws IOException {
-		return github.repos().create(
-				Json.createObjectBuilder().add(
-						"name",
-						"spring-cloud-sleuth"
-				).build()
-		);
+	@Test
+	public void should_close_milestones_of_all_released_spring_cloud_projects() {
+		this.github.respond(milestonesOf("spring-cloud-sleuth"), 200, milestones("1.2.0.RELEASE"));
+		this.github.respond("PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/1", 200, "{}");
+		this.github.respond(milestonesOf("spring-cloud-consul"), 200, milestones("1.1.0", "1.2.0"));
+		this.github.respond("PATCH /repos/spring-cloud/spring-cloud-consul/milestones/2", 200, "{}");
+		MilestoneCloser closer = new MilestoneCloser(withToken());
+
+		closer.closeMilestones(new Projects(new HashSet<>(Arrays.asList(
+				new ProjectVersion("spring-cloud-sleuth", "1.2.0.RELEASE"),
+				new ProjectVersion("spring-cloud-consul", "1.2.0.RELEASE"),
+				new ProjectVersion("spring-cloud-contract", "1.1.0.BUILD-SNAPSHOT"),
+				new ProjectVersion("spring-cloud-dependencies-parent", "1.3.0.RELEASE"),
+				new ProjectVersion("spring-boot", "1.5.2.RELEASE")))));
+
+		then(this.github.requests).containsOnly(milestonesOf("spring-cloud-sleuth"),
+				"PATCH /repos/spring-cloud/spring-cloud-sleuth/milestones/1",
+				milestonesOf("spring-cloud-consul"),
+				"PATCH /repos/spring-cloud/spring-cloud-consul/milestones/2");
+	}
+
+	@Test
+	public void should_close_milestones_of_remaining_projects_when_one_of_them_failed() {
+		this.github.respond(milestonesOf("spring-cloud-sleuth"), 500, "boom");
+		this.github.respond(milestonesOf("spring-cloud-consul"), 200, milestones("1.2.0"));
+		this.github.respond("PATCH /repos/spring-cloud/spring-cloud-consul/milestones/1", 200, "{}");
+		MilestoneCloser closer = new MilestoneCloser(withToken());
+
+		thenThrownBy(() -> closer.closeMilestones(new Projects(new HashSet<>(Arrays.asList(
+				new ProjectVersion("spring-cloud-sleuth", "1.2.0.RELEASE"),
+				new ProjectVersion("spring-cloud-consul", "1.2.0.RELEASE"))))))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("[spring-cloud-sleuth]");
+		then(this.github.requests).contains("PATCH /repos/spring-cloud/spring-cloud-consul/milestones/1");
 	}
 
 	@Test
@@ -130,9 +132,25 @@ public class MilestoneCloserTests {
 				.hasMessageContaining("You have to pass Github OAuth token for milestone closing to be operational");
 	}
 
+	private String milestonesOf(String repo) {
+		return "GET /repos/spring-cloud/" + repo + "/milestones?state=open&per_page=100";
+	}
+
+	private String milestones(String... titles) {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < titles.length; i++) {
+			if (i > 0) {
+				json.append(",");
+			}
+			json.append("{\"number\":").append(i + 1).append(",\"title\":\"").append(titles[i]).append("\"}");
+		}
+		return json.append("]").toString();
+	}
+
 	ReleaserProperties withToken() {
 		ReleaserProperties properties = new ReleaserProperties();
 		properties.getGit().setOauthToken("foo");
+		properties.getGit().setGithubApiUrl(this.github.url());
 		return properties;
 	}
-}
\ No newline at end of file
+}
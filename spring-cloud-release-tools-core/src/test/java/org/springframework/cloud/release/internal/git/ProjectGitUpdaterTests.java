@@ -1,6 +1,8 @@
 package org.springframework.cloud.release.internal.git;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Set;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,6 +39,16 @@ public class ProjectGitUpdaterTests {
 		then(this.gitRepo).should(never()).tag(any(File.class), anyString());
 	}
 
+	@Test
+	public void should_only_commit_the_changed_files_when_those_are_passed() {
+		Set<File> changedFiles = Collections.singleton(new File("pom.xml"));
+
+		this.updater.commitAndTagIfApplicable(this.file, projectVersion("1.0.0.BUILD-SNAPSHOT"), changedFiles);
+
+		then(this.gitRepo).should().commit(any(File.class), eq("Bumping versions"), eq(changedFiles));
+		then(this.gitRepo).should(never()).commit(any(File.class), anyString());
+	}
+
 	@Test
 	public void should_commit_tag_and_push_tag_when_version_is_not_snapshot() {
 		this.updater.commitAndTagIfApplicable(this.file, projectVersion("1.0.0.RELEASE"));
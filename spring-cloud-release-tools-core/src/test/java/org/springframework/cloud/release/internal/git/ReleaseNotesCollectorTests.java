@@ -0,0 +1,92 @@
+package org.springframework.cloud.release.internal.git;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ReleaseNotesCollectorTests {
+
+	GithubStub github;
+	ReleaserProperties properties = new ReleaserProperties();
+
+	@Before
+	public void setup() throws IOException {
+		this.github = new GithubStub();
+		this.properties.getGit().setOauthToken("foo");
+		this.properties.getGit().setGithubApiUrl(this.github.url());
+	}
+
+	@After
+	public void cleanup() {
+		this.github.close();
+	}
+
+	@Test
+	public void should_collect_closed_issues_of_matching_milestones_of_all_released_projects() {
+		milestones("spring-cloud-sleuth", "[{\"number\":1,\"title\":\"1.0.0\"},{\"number\":2,\"title\":\"1.1.0\"}]");
+		issues("spring-cloud-sleuth", 1, "[{\"number\":20,\"title\":\"Feature\",\"html_url\":\"http://foo/20\",\"pull_request\":{}},"
+				+ "{\"number\":10,\"title\":\"Bug\",\"html_url\":\"http://foo/10\"}]");
+		milestones("spring-cloud-consul", "[{\"number\":3,\"title\":\"1.0.1.RELEASE\"}]");
+		issues("spring-cloud-consul", 3, "[{\"number\":5,\"title\":\"Docs\",\"html_url\":\"http://bar/5\"}]");
+
+		Map<String, List<ReleaseNote>> notes = new ReleaseNotesCollector(this.properties).releaseNotes(projects());
+
+		then(notes).containsOnlyKeys("spring-cloud-consul", "spring-cloud-sleuth");
+		then(notes.get("spring-cloud-sleuth")).extracting("number").containsExactly(10, 20);
+		then(notes.get("spring-cloud-sleuth")).extracting("pullRequest").containsExactly(false, true);
+		then(notes.get("spring-cloud-consul")).extracting("title").containsExactly("Docs");
+		then(this.github.requests.stream().anyMatch(request -> request.contains("spring-cloud-build"))).isFalse();
+	}
+
+	@Test
+	public void should_return_no_notes_for_a_project_whose_notes_could_not_be_retrieved() {
+		milestones("spring-cloud-sleuth", "[{\"number\":1,\"title\":\"1.0.0\"}]");
+		issues("spring-cloud-sleuth", 1, "[{\"number\":10,\"title\":\"Bug\",\"html_url\":\"http://foo/10\"}]");
+		this.github.respond("GET /repos/spring-cloud/spring-cloud-consul/milestones?state=all&per_page=100", 500, "boom");
+
+		Map<String, List<ReleaseNote>> notes = new ReleaseNotesCollector(this.properties).releaseNotes(projects());
+
+		then(notes.get("spring-cloud-sleuth")).hasSize(1);
+		then(notes.get("spring-cloud-consul")).isEmpty();
+	}
+
+	@Test
+	public void should_not_call_github_when_there_is_no_oauth_token() {
+		this.properties.getGit().setOauthToken("");
+
+		Map<String, List<ReleaseNote>> notes = new ReleaseNotesCollector(this.properties).releaseNotes(projects());
+
+		then(notes).isEmpty();
+		then(this.github.requests).isEmpty();
+	}
+
+	private Projects projects() {
+		return new Projects(new HashSet<>(Arrays.asList(
+				new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE"),
+				new ProjectVersion("spring-cloud-consul", "1.0.1.RELEASE"),
+				new ProjectVersion("spring-cloud-build", "1.0.0.BUILD-SNAPSHOT"))));
+	}
+
+	private void milestones(String repo, String body) {
+		this.github.respond("GET /repos/spring-cloud/" + repo + "/milestones?state=all&per_page=100", 200, body);
+	}
+
+	private void issues(String repo, int milestone, String body) {
+		this.github.respond("GET /repos/spring-cloud/" + repo + "/issues?milestone=" + milestone
+				+ "&state=closed&per_page=100", 200, body);
+	}
+}
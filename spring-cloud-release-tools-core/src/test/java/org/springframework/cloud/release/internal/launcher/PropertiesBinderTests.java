@@ -0,0 +1,97 @@
+package org.springframework.cloud.release.internal.launcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class PropertiesBinderTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	Map<String, String> environment = new HashMap<>();
+	Properties systemProperties = new Properties();
+	Map<String, String> options = new LinkedHashMap<>();
+
+	@Test
+	public void should_bind_nested_properties_of_all_supported_types_from_options() {
+		this.options.put("releaser.pom.branch", "vDalston.RELEASE");
+		this.options.put("releaser.maven.wait-time-in-minutes", "5");
+		this.options.put("releaser.fast-start.lazy-init", "true");
+		this.options.put("releaser.maven.publish-docs-commands", "first,second");
+		this.options.put("releaser.pom.ignored-pom-regex", "^.*samples.*$");
+
+		ReleaserProperties properties = bind(null);
+
+		then(properties.getPom().getBranch()).isEqualTo("vDalston.RELEASE");
+		then(properties.getMaven().getWaitTimeInMinutes()).isEqualTo(5);
+		then(properties.getFastStart().isLazyInit()).isTrue();
+		then(properties.getMaven().getPublishDocsCommands()).containsExactly("first", "second");
+		then(properties.getPom().getIgnoredPomRegex()).containsExactly("^.*samples.*$");
+	}
+
+	@Test
+	public void should_bind_relaxed_names_and_map_entries() {
+		this.environment.put("RELEASER_GIT_OAUTH_TOKEN", "token");
+		this.environment.put("PATH", "/bin");
+		this.systemProperties.put("releaser.git.githubThreads", "8");
+		this.options.put("releaser.fixed-versions.spring-cloud-cli", "1.0.0.RELEASE");
+		this.options.put("releaser.fixed-versions[spring-cloud-sleuth]", "1.1.0.RELEASE");
+
+		ReleaserProperties properties = bind(null);
+
+		then(properties.getGit().getOauthToken()).isEqualTo("token");
+		then(properties.getGit().getGithubThreads()).isEqualTo(8);
+		then(properties.getFixedVersions())
+				.containsEntry("spring-cloud-cli", "1.0.0.RELEASE")
+				.containsEntry("spring-cloud-sleuth", "1.1.0.RELEASE");
+	}
+
+	@Test
+	public void should_prefer_options_over_system_properties_over_environment_over_file() throws IOException {
+		File file = this.tmp.newFile("releaser.properties");
+		Files.write(file.toPath(), ("releaser.pom.branch=file\n"
+				+ "releaser.git.oauth-token=file\n"
+				+ "releaser.maven.build-command=file\n"
+				+ "releaser.maven.deploy-command=file\n").getBytes());
+		this.environment.put("RELEASER_POM_BRANCH", "environment");
+		this.environment.put("RELEASER_GIT_OAUTH_TOKEN", "environment");
+		this.environment.put("RELEASER_MAVEN_BUILD_COMMAND", "environment");
+		this.systemProperties.put("releaser.pom.branch", "system");
+		this.systemProperties.put("releaser.git.oauth-token", "system");
+		this.options.put("releaser.pom.branch", "option");
+
+		ReleaserProperties properties = bind(file);
+
+		then(properties.getPom().getBranch()).isEqualTo("option");
+		then(properties.getGit().getOauthToken()).isEqualTo("system");
+		then(properties.getMaven().getBuildCommand()).isEqualTo("environment");
+		then(properties.getMaven().getDeployCommand()).isEqualTo("file");
+	}
+
+	@Test
+	public void should_ignore_unknown_properties() {
+		this.options.put("releaser.unknown", "foo");
+		this.options.put("config", "releaser.properties");
+
+		ReleaserProperties properties = bind(null);
+
+		then(properties.getPom().getBranch()).isEqualTo("master");
+	}
+
+	private ReleaserProperties bind(File file) {
+		return new PropertiesBinder(this.environment, this.systemProperties).bind(this.options, file);
+	}
+}
@@ -0,0 +1,48 @@
+package org.springframework.cloud.release.internal.launcher;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.boot.test.rule.OutputCapture;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ReleaserLauncherTests {
+
+	@Rule public OutputCapture capture = new OutputCapture();
+
+	@Test
+	public void should_print_usage_when_no_command_was_passed() {
+		int exitCode = new ReleaserLauncher().run("--releaser.pom.branch=vDalston.RELEASE");
+
+		then(exitCode).isEqualTo(ReleaserLauncher.WRONG_USAGE);
+		then(this.capture.toString()).contains("update-poms").contains("close-milestone");
+	}
+
+	@Test
+	public void should_not_run_anything_when_one_of_the_commands_is_unknown() {
+		int exitCode = new ReleaserLauncher().run("build", "foo");
+
+		then(exitCode).isEqualTo(ReleaserLauncher.WRONG_USAGE);
+		then(this.capture.toString()).contains("Unknown command [foo]");
+	}
+
+	@Test
+	public void should_list_all_steps_in_the_usage() {
+		String usage = new ReleaserLauncher().usage();
+
+		then(usage).contains("release").contains("update-poms").contains("build").contains("commit")
+				.contains("deploy").contains("publish-docs").contains("rollback").contains("push")
+				.contains("close-milestone").contains("templates");
+	}
+
+	@Test
+	public void should_list_release_train_steps_separately_in_the_usage() {
+		String usage = new ReleaserLauncher().usage();
+
+		then(usage.substring(usage.indexOf("Release train commands"))).contains("close-milestones");
+		then(usage.substring(0, usage.indexOf("Release train commands"))).doesNotContain("close-milestones");
+	}
+}
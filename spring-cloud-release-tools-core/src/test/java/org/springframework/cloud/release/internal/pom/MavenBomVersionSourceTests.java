@@ -0,0 +1,147 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.git.GitRepoTests;
+import org.springframework.util.FileSystemUtils;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class MavenBomVersionSourceTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File springCloudReleaseProject;
+	File repository;
+	ReleaserProperties properties = new ReleaserProperties();
+
+	@Before
+	public void setup() throws Exception {
+		this.springCloudReleaseProject = new File(GitRepoTests.class.getResource("/projects/spring-cloud-release").toURI());
+		this.repository = this.tmp.newFolder("repository");
+		this.properties.getPom().setBranch("vDalston.SR1");
+		this.properties.getPom().setBomRepositories(new String[] { this.repository.toURI().toString() });
+		this.properties.getPom().setBomCacheDir(this.tmp.newFolder("cache").getAbsolutePath());
+	}
+
+	@Test
+	public void should_resolve_versions_from_the_released_bom() throws IOException {
+		publish("spring-cloud-starter-parent", "Dalston.SR1");
+		publish("spring-cloud-dependencies", "Dalston.SR1");
+
+		Versions versions = new MavenBomVersionSource(this.properties).versions();
+
+		then(versions.bootVersion).isEqualTo("1.5.1.BUILD-SNAPSHOT");
+		then(versions.scBuildVersion).isEqualTo("1.3.1.BUILD-SNAPSHOT");
+		then(versions.projects).contains(new Project("spring-cloud-sleuth", "1.2.0.BUILD-SNAPSHOT"));
+	}
+
+	@Test
+	public void should_resolve_the_versions_from_cache_once_the_bom_got_resolved() throws IOException {
+		publish("spring-cloud-starter-parent", "Dalston.SR1");
+		publish("spring-cloud-dependencies", "Dalston.SR1");
+		new MavenBomVersionSource(this.properties).versions();
+		FileSystemUtils.deleteRecursively(this.repository);
+
+		Versions versions = new MavenBomVersionSource(this.properties).versions();
+
+		then(versions.projects).contains(new Project("spring-cloud-sleuth", "1.2.0.BUILD-SNAPSHOT"));
+	}
+
+	@Test
+	public void should_throw_an_exception_when_the_bom_is_missing() throws IOException {
+		publish("spring-cloud-starter-parent", "Dalston.SR1");
+
+		thenThrownBy(() -> new MavenBomVersionSource(this.properties).versions())
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("spring-cloud-dependencies-Dalston.SR1.pom] is not present");
+	}
+
+	@Test
+	public void should_resolve_the_latest_snapshot_from_the_maven_metadata() throws IOException {
+		this.properties.getPom().setBranch("Dalston.BUILD-SNAPSHOT");
+		publishSnapshot("spring-cloud-starter-parent");
+		publishSnapshot("spring-cloud-dependencies");
+
+		Versions versions = new MavenBomVersionSource(this.properties).versions();
+
+		then(versions.projects).contains(new Project("spring-cloud-sleuth", "1.2.0.BUILD-SNAPSHOT"));
+	}
+
+	@Test
+	public void should_resolve_the_snapshot_from_the_timestamp_when_there_are_no_snapshot_versions() {
+		String metadata = "<metadata><versioning><snapshot><timestamp>20170301.120000</timestamp>"
+				+ "<buildNumber>3</buildNumber></snapshot></versioning></metadata>";
+
+		then(MavenBomVersionSource.snapshotVersion(metadata, "Dalston.BUILD-SNAPSHOT"))
+				.isEqualTo("Dalston.BUILD-20170301.120000-3");
+	}
+
+	@Test
+	public void should_not_resolve_external_entities_of_the_snapshot_metadata() {
+		String metadata = "<?xml version=\"1.0\"?><!DOCTYPE metadata [<!ENTITY timestamp SYSTEM \"file:///etc/hostname\">]>"
+				+ "<metadata><versioning><snapshot><timestamp>&timestamp;</timestamp>"
+				+ "<buildNumber>3</buildNumber></snapshot></versioning></metadata>";
+
+		thenThrownBy(() -> MavenBomVersionSource.snapshotVersion(metadata, "Dalston.BUILD-SNAPSHOT"))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Failed to parse the maven metadata of [Dalston.BUILD-SNAPSHOT]");
+	}
+
+	@Test
+	public void should_throw_an_exception_for_an_unknown_version_source() {
+		this.properties.getPom().setVersionSource("svn");
+
+		thenThrownBy(() -> new ProjectPomUpdater(this.properties))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Unknown version source [svn]");
+	}
+
+	private void publishSnapshot(String artifactId) throws IOException {
+		publish(artifactId, "Dalston.BUILD-SNAPSHOT", "Dalston.BUILD-20170301.120000-3");
+		Files.write(this.repository.toPath().resolve("org/springframework/cloud/" + artifactId
+				+ "/Dalston.BUILD-SNAPSHOT/maven-metadata.xml"), ("<metadata><versioning><snapshot>"
+				+ "<timestamp>20170301.120000</timestamp><buildNumber>3</buildNumber></snapshot><snapshotVersions>"
+				+ "<snapshotVersion><classifier>sources</classifier><extension>jar</extension>"
+				+ "<value>Dalston.BUILD-20170301.120000-3</value></snapshotVersion>"
+				+ "<snapshotVersion><extension>pom</extension><value>Dalston.BUILD-20170301.120000-3</value>"
+				+ "</snapshotVersion></snapshotVersions></versioning></metadata>").getBytes());
+	}
+
+	private void publish(String artifactId, String version) throws IOException {
+		publish(artifactId, version, version);
+	}
+
+	private void publish(String artifactId, String version, String fileVersion) throws IOException {
+		Path pom = this.repository.toPath().resolve("org/springframework/cloud/" + artifactId + "/"
+				+ version + "/" + artifactId + "-" + fileVersion + ".pom");
+		Files.createDirectories(pom.getParent());
+		Files.copy(new File(this.springCloudReleaseProject, artifactId + "/pom.xml").toPath(), pom);
+	}
+}
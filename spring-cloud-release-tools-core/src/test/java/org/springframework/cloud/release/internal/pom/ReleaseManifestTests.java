@@ -0,0 +1,215 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ReleaseManifestTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File directory;
+	Versions versions = new Versions("1.5.3.RELEASE", "1.3.1.RELEASE", new HashSet<>(Arrays.asList(
+			new Project("spring-cloud-sleuth", "1.2.0.RELEASE"),
+			new Project("spring-cloud-consul", "1.2.0.RELEASE"))));
+
+	@Before
+	public void setup() throws IOException {
+		this.directory = this.tmp.newFolder();
+	}
+
+	@Test
+	public void should_load_the_stored_versions_for_the_same_revision() {
+		new ReleaseManifest(this.directory, "git", "Dalston.x").store("abc", this.versions);
+
+		Versions versions = new ReleaseManifest(this.directory, "git", "Dalston.x").load("abc");
+
+		then(versions.bootVersion).isEqualTo("1.5.3.RELEASE");
+		then(versions.scBuildVersion).isEqualTo("1.3.1.RELEASE");
+		then(versions.projects).containsOnly(this.versions.projects.toArray());
+	}
+
+	@Test
+	public void should_not_load_a_stale_manifest() {
+		new ReleaseManifest(this.directory, "git", "Dalston.x").store("abc", this.versions);
+
+		then(new ReleaseManifest(this.directory, "git", "Dalston.x").load("def")).isNull();
+	}
+
+	@Test
+	public void should_not_load_a_manifest_of_another_source() {
+		new ReleaseManifest(this.directory, "git", "Dalston.x").store("abc", this.versions);
+
+		then(new ReleaseManifest(this.directory, "maven", "Dalston.x").load("abc")).isNull();
+	}
+
+	@Test
+	public void should_not_load_a_manifest_whose_contents_do_not_match_the_checksum() throws IOException {
+		ReleaseManifest manifest = new ReleaseManifest(this.directory, "git", "Dalston.x");
+		manifest.store("abc", this.versions);
+		String contents = new String(Files.readAllBytes(manifest.file().toPath()), StandardCharsets.UTF_8);
+		Files.write(manifest.file().toPath(), contents.replace("1.2.0.RELEASE", "1.2.1.RELEASE")
+				.getBytes(StandardCharsets.UTF_8));
+
+		then(manifest.load("abc")).isNull();
+	}
+
+	@Test
+	public void should_not_load_a_corrupted_manifest() throws IOException {
+		ReleaseManifest manifest = new ReleaseManifest(this.directory, "git", "Dalston.x");
+		Files.write(manifest.file().toPath(), "{\"formatVersion\":".getBytes(StandardCharsets.UTF_8));
+
+		then(manifest.load("abc")).isNull();
+	}
+
+	@Test
+	public void should_store_the_manifests_of_branches_with_the_same_sanitized_name_separately() {
+		new ReleaseManifest(this.directory, "git", "Camden/x").store("abc", this.versions);
+
+		then(new ReleaseManifest(this.directory, "git", "Camden_x").file())
+				.isNotEqualTo(new ReleaseManifest(this.directory, "git", "Camden/x").file());
+		then(new ReleaseManifest(this.directory, "git", "Camden_x").load("abc")).isNull();
+		then(new ReleaseManifest(this.directory, "git", "Camden/x").load("abc")).isNotNull();
+	}
+
+	@Test
+	public void should_retrieve_the_versions_only_once_for_the_same_revision() {
+		CountingVersionSource source = new CountingVersionSource("abc");
+
+		ProjectPomUpdater updater = new ProjectPomUpdater(properties(), source);
+		Projects first = updater.retrieveVersionsFromSCRelease();
+		Projects second = new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+
+		then(source.retrievals).isEqualTo(1);
+		then(names(second)).isEqualTo(names(first));
+	}
+
+	@Test
+	public void should_retrieve_the_versions_again_when_the_revision_has_changed() {
+		CountingVersionSource source = new CountingVersionSource("abc");
+		new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+		source.revision = "def";
+
+		new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+
+		then(source.retrievals).isEqualTo(2);
+	}
+
+	@Test
+	public void should_store_the_revision_the_versions_were_read_from_when_the_branch_has_moved() {
+		CountingVersionSource source = new CountingVersionSource("abc");
+		source.checkedOut = "def";
+		new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+
+		then(new ReleaseManifest(this.directory, "counting", "Dalston.x").load("abc")).isNull();
+		source.revision = "def";
+		new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+
+		then(source.retrievals).isEqualTo(1);
+	}
+
+	@Test
+	public void should_retrieve_the_versions_again_when_refresh_was_requested() {
+		CountingVersionSource source = new CountingVersionSource("abc");
+		new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+		ReleaserProperties properties = properties();
+		properties.getManifest().setRefresh(true);
+
+		new ProjectPomUpdater(properties, source).retrieveVersionsFromSCRelease();
+
+		then(source.retrievals).isEqualTo(2);
+	}
+
+	@Test
+	public void should_not_store_a_manifest_when_the_source_has_no_revision() {
+		CountingVersionSource source = new CountingVersionSource(null);
+
+		new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+		new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+
+		then(source.retrievals).isEqualTo(2);
+		then(this.directory.listFiles()).isEmpty();
+	}
+
+	@Test
+	public void should_apply_the_fixed_versions_to_the_versions_from_the_manifest() {
+		CountingVersionSource source = new CountingVersionSource("abc");
+		new ProjectPomUpdater(properties(), source).retrieveVersionsFromSCRelease();
+		ReleaserProperties properties = properties();
+		properties.getFixedVersions().put("spring-cloud-sleuth", "1.2.5.RELEASE");
+
+		Projects projects = new ProjectPomUpdater(properties, source).retrieveVersionsFromSCRelease();
+
+		then(names(projects)).contains("spring-cloud-sleuth=1.2.5.RELEASE");
+		then(source.retrievals).isEqualTo(1);
+	}
+
+	private List<String> names(Projects projects) {
+		return projects.stream().map(project -> project.projectName + "=" + project.version)
+				.sorted().collect(Collectors.toList());
+	}
+
+	private ReleaserProperties properties() {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getPom().setBranch("Dalston.x");
+		properties.getManifest().setDirectory(this.directory.getAbsolutePath());
+		return properties;
+	}
+
+	class CountingVersionSource implements VersionSource {
+		String revision;
+		String checkedOut;
+		int retrievals;
+
+		CountingVersionSource(String revision) {
+			this.revision = revision;
+		}
+
+		@Override public Versions versions() {
+			this.retrievals++;
+			return new Versions("1.5.3.RELEASE", "1.3.1.RELEASE", new HashSet<>(ReleaseManifestTests.this.versions.projects));
+		}
+
+		@Override public String revision() {
+			return this.revision;
+		}
+
+		@Override public String retrievedRevision() {
+			return this.checkedOut != null ? this.checkedOut : this.revision;
+		}
+
+		@Override public String toString() {
+			return "counting";
+		}
+	}
+}
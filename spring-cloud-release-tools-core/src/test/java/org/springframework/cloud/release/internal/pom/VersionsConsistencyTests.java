@@ -0,0 +1,136 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class VersionsConsistencyTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File train;
+	Projects projects = new Projects(new HashSet<>(Arrays.asList(
+			new ProjectVersion("spring-cloud-build", "1.3.1.RELEASE"),
+			new ProjectVersion("spring-cloud-commons", "1.2.1.RELEASE"),
+			new ProjectVersion("spring-cloud-sleuth", "1.2.1.RELEASE"),
+			new ProjectVersion("spring-boot", "1.5.3.RELEASE"))));
+
+	@Before
+	public void setup() throws IOException {
+		this.train = this.tmp.newFolder("train");
+		write("spring-cloud-commons/pom.xml", pom(parent("spring-cloud-build", "1.3.1.RELEASE")
+				+ "<artifactId>spring-cloud-commons-parent</artifactId><version>1.2.1.RELEASE</version>"));
+		write("spring-cloud-sleuth/pom.xml", pom(parent("spring-cloud-build", "1.3.1.RELEASE")
+				+ "<artifactId>spring-cloud-sleuth</artifactId><version>1.2.1.RELEASE</version>"
+				+ "<properties><spring-cloud-commons.version>1.2.1.RELEASE</spring-cloud-commons.version>"
+				+ "<zipkin.version>1.20.0</zipkin.version></properties>"));
+		write("spring-cloud-sleuth/spring-cloud-sleuth-core/pom.xml", pom(parent("spring-cloud-sleuth", "1.2.1.RELEASE")
+				+ "<artifactId>spring-cloud-sleuth-core</artifactId>"));
+	}
+
+	@Test
+	public void should_be_consistent_when_all_references_match_the_release_train() {
+		VersionsConsistency consistency = consistency();
+
+		then(consistency.isConsistent()).isTrue();
+		then(consistency.poms).isEqualTo(3);
+		then(consistency.table()).contains("0 of 7 version references in 3 poms disagree with the release train");
+	}
+
+	@Test
+	public void should_report_stale_properties_and_parents() throws IOException {
+		write("spring-cloud-sleuth/spring-cloud-sleuth-samples/pom.xml", pom(parent("spring-cloud-build", "1.3.0.RELEASE")
+				+ "<artifactId>spring-cloud-sleuth-sample</artifactId><version>1.0.0</version>"
+				+ "<properties><spring-cloud-commons.version>1.2.0.RELEASE</spring-cloud-commons.version>"
+				+ "<spring-boot.version>${boot.version}</spring-boot.version></properties>"));
+
+		VersionsConsistency consistency = consistency();
+
+		then(consistency.isConsistent()).isFalse();
+		then(descriptions(consistency)).containsOnly(
+				"parent spring-cloud-build in [" + file("spring-cloud-sleuth/spring-cloud-sleuth-samples/pom.xml")
+						+ "] is [1.3.0.RELEASE] instead of [1.3.1.RELEASE]",
+				"<spring-cloud-commons.version> in [" + file("spring-cloud-sleuth/spring-cloud-sleuth-samples/pom.xml")
+						+ "] is [1.2.0.RELEASE] instead of [1.2.1.RELEASE]");
+		then(consistency.table()).contains("2 of 11 version references in 4 poms disagree with the release train");
+	}
+
+	@Test
+	public void should_report_a_project_whose_version_was_not_updated() throws IOException {
+		write("spring-cloud-commons/pom.xml", pom(parent("spring-cloud-build", "1.3.1.RELEASE")
+				+ "<artifactId>spring-cloud-commons-parent</artifactId><version>1.2.1.BUILD-SNAPSHOT</version>"));
+
+		VersionsConsistency consistency = consistency();
+
+		then(descriptions(consistency)).containsExactly("version of spring-cloud-commons-parent in ["
+				+ file("spring-cloud-commons/pom.xml") + "] is [1.2.1.BUILD-SNAPSHOT] instead of [1.2.1.RELEASE]");
+		then(consistency.table()).contains("spring-cloud-commons   version of spring-cloud-commons-parent");
+	}
+
+	@Test
+	public void should_not_index_build_outputs() throws IOException {
+		write("spring-cloud-sleuth/target/pom.xml", pom(parent("spring-cloud-build", "1.0.0.RELEASE")
+				+ "<artifactId>foo</artifactId>"));
+
+		then(consistency().isConsistent()).isTrue();
+	}
+
+	private VersionsConsistency consistency() {
+		List<File> roots = Arrays.asList(file("spring-cloud-commons"), file("spring-cloud-sleuth"));
+		return new ProjectPomUpdater(new ReleaserProperties()).checkVersionsConsistency(roots, this.projects);
+	}
+
+	private List<String> descriptions(VersionsConsistency consistency) {
+		return consistency.inconsistencies.stream().map(Object::toString).collect(Collectors.toList());
+	}
+
+	private String parent(String artifactId, String version) {
+		return "<parent><groupId>org.springframework.cloud</groupId><artifactId>" + artifactId
+				+ "</artifactId><version>" + version + "</version><relativePath/></parent>";
+	}
+
+	private String pom(String body) {
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project><modelVersion>4.0.0</modelVersion>"
+				+ body + "</project>";
+	}
+
+	private void write(String path, String content) throws IOException {
+		File file = file(path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private File file(String path) {
+		return new File(this.train, path);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.pom;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.git.GitRepoTests;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.springframework.cloud.release.internal.git.GitTestUtils.clonedProject;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class VersionsDiffTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File springCloudReleaseProject;
+
+	@Before
+	public void setup() throws Exception {
+		TestUtils.prepareLocalRepo();
+		this.springCloudReleaseProject = new File(GitRepoTests.class.getResource("/projects/spring-cloud-release").toURI());
+	}
+
+	@Test
+	public void should_mark_added_removed_and_changed_projects() {
+		Versions from = new Versions("1.5.0.RELEASE", "1.3.0.RELEASE", new HashSet<>(Arrays.asList(
+				new Project("spring-cloud-sleuth", "1.2.0.RELEASE"),
+				new Project("spring-cloud-aws", "1.2.0.RELEASE"))));
+		Versions to = new Versions("1.5.0.RELEASE", "1.3.1.RELEASE", new HashSet<>(Arrays.asList(
+				new Project("spring-cloud-sleuth", "1.2.1.RELEASE"),
+				new Project("spring-cloud-vault", "1.0.0.RELEASE"))));
+
+		VersionsDiff diff = new VersionsDiff("Dalston.SR1", from, "Dalston.SR2", to);
+
+		then(diff.hasChanges()).isTrue();
+		then(diff.changes.stream().map(Object::toString).collect(Collectors.toList())).contains(
+				"~ spring-cloud-sleuth [1.2.0.RELEASE] -> [1.2.1.RELEASE]",
+				"- spring-cloud-aws [1.2.0.RELEASE] -> [null]",
+				"+ spring-cloud-vault [null] -> [1.0.0.RELEASE]",
+				"~ spring-cloud-build [1.3.0.RELEASE] -> [1.3.1.RELEASE]",
+				"  spring-boot [1.5.0.RELEASE] -> [1.5.0.RELEASE]");
+		then(diff.table())
+				.contains("Dalston.SR1")
+				.contains("Dalston.SR2")
+				.contains("5 of 7 projects changed between [Dalston.SR1] and [Dalston.SR2]");
+	}
+
+	@Test
+	public void should_not_have_changes_for_the_same_versions() {
+		Versions versions = new Versions("1.5.0.RELEASE", "1.3.0.RELEASE", new HashSet<>(Arrays.asList(
+				new Project("spring-cloud-sleuth", "1.2.0.RELEASE"))));
+
+		VersionsDiff diff = new VersionsDiff("Dalston.SR1", versions, "Dalston.x", versions);
+
+		then(diff.hasChanges()).isFalse();
+	}
+
+	@Test
+	public void should_diff_versions_of_two_refs_of_an_already_cloned_repo() throws Exception {
+		File clone = clonedProject(this.tmp.newFolder(), this.springCloudReleaseProject);
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getGit().setCloneDestinationDir(clone.getAbsolutePath());
+
+		VersionsDiff diff = new ProjectPomUpdater(properties)
+				.diffVersionsFromSCRelease("vCamden.SR3", "master");
+
+		then(diff.changes.stream().map(Object::toString).collect(Collectors.toList())).contains(
+				"~ spring-boot [1.4.2.RELEASE] -> [1.5.1.BUILD-SNAPSHOT]",
+				"~ spring-cloud-sleuth [1.1.0.RELEASE] -> [1.2.0.BUILD-SNAPSHOT]",
+				"+ spring-cloud-vault [null] -> [1.0.0.BUILD-SNAPSHOT]");
+	}
+}
@@ -0,0 +1,248 @@
+package org.springframework.cloud.release.internal.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+import com.sun.net.httpserver.HttpServer;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ArtifactDeployerTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File project;
+	File localRepo;
+	File remoteRepo;
+
+	@Before
+	public void setup() throws IOException {
+		this.project = this.tmp.newFolder("project");
+		this.localRepo = this.tmp.newFolder("m2");
+		this.remoteRepo = this.tmp.newFolder("remote");
+	}
+
+	@Test
+	public void should_upload_poms_and_jars_from_target_together_with_checksums() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		File jar = write(new File(this.project, "core/target/foo-core-1.0.0.RELEASE.jar"), "jar");
+		write(new File(this.project, "core/target/foo-core-1.0.0.RELEASE-sources.jar"), "sources");
+		write(new File(this.project, "core/target/original-foo-core-1.0.0.RELEASE.jar"), "original");
+
+		new ArtifactDeployer(properties()).deploy(this.project);
+
+		then(remote("com/example/foo-parent/1.0.0.RELEASE/foo-parent-1.0.0.RELEASE.pom")).exists();
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.pom")).exists();
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar")).hasContent("jar");
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE-sources.jar")).hasContent("sources");
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar.sha1"))
+				.hasContent(MavenRepository.checksum(jar, "SHA-1"));
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar.md5"))
+				.hasContent(MavenRepository.checksum(jar, "MD5"));
+		then(remote("com/example/foo-core/1.0.0.RELEASE/original-foo-core-1.0.0.RELEASE.jar")).doesNotExist();
+		then(remote("com/example/foo-samples")).doesNotExist();
+		then(remote("com/example/foo-sample-app")).doesNotExist();
+	}
+
+	@Test
+	public void should_not_upload_stale_files_from_the_local_repository() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		write(new File(this.localRepo, "com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE-tests.jar"), "stale");
+		write(new File(this.project, "core/target/foo-core-1.0.0.RELEASE.jar"), "jar");
+
+		new ArtifactDeployer(properties()).deploy(this.project);
+
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar")).hasContent("jar");
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE-tests.jar")).doesNotExist();
+	}
+
+	@Test
+	public void should_not_upload_files_installed_before_the_build() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		File installed = write(new File(this.localRepo,
+				"com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar"), "old");
+		installed.setLastModified(System.currentTimeMillis() - 60_000);
+		write(new File(this.project, "core/target/foo-core-1.0.0.RELEASE.jar"), "new");
+
+		new ArtifactDeployer(properties()).deploy(this.project);
+
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar")).hasContent("new");
+	}
+
+	@Test
+	public void should_add_the_deployed_version_to_the_maven_metadata() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		write(new File(this.project, "core/target/foo-core-1.0.0.RELEASE.jar"), "jar");
+		write(remote("com/example/foo-core/maven-metadata.xml"), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<metadata><groupId>com.example</groupId><artifactId>foo-core</artifactId><versioning>"
+				+ "<latest>0.9.0.RELEASE</latest><release>0.9.0.RELEASE</release>"
+				+ "<versions><version>0.9.0.RELEASE</version></versions></versioning></metadata>");
+
+		new ArtifactDeployer(properties()).deploy(this.project);
+
+		File metadata = remote("com/example/foo-core/maven-metadata.xml");
+		then(ArtifactDeployer.versions(read(metadata))).containsExactly("0.9.0.RELEASE", "1.0.0.RELEASE");
+		then(read(metadata)).contains("<release>1.0.0.RELEASE</release>");
+		then(remote("com/example/foo-core/maven-metadata.xml.sha1"))
+				.hasContent(MavenRepository.checksum(metadata, "SHA-1"));
+		then(ArtifactDeployer.versions(read(remote("com/example/foo-parent/maven-metadata.xml"))))
+				.containsExactly("1.0.0.RELEASE");
+		then(remote("com/example/foo-samples/maven-metadata.xml")).doesNotExist();
+	}
+
+	@Test
+	public void should_skip_deployment_when_the_deploy_plugin_is_configured_to_skip() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		write(new File(this.project, "core/pom.xml"), pom("<parent><groupId>com.example</groupId>"
+				+ "<artifactId>foo-parent</artifactId><version>1.0.0.RELEASE</version></parent>"
+				+ "<artifactId>foo-core</artifactId><build><plugins><plugin>"
+				+ "<artifactId>maven-deploy-plugin</artifactId><configuration><skip>true</skip></configuration>"
+				+ "</plugin></plugins></build>"));
+
+		new ArtifactDeployer(properties()).deploy(this.project);
+
+		then(remote("com/example/foo-parent/1.0.0.RELEASE/foo-parent-1.0.0.RELEASE.pom")).exists();
+		then(remote("com/example/foo-core")).doesNotExist();
+	}
+
+	@Test
+	public void should_prefer_artifacts_installed_in_the_local_repository() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		write(new File(this.project, "core/target/foo-core-1.0.0.RELEASE.jar"), "target");
+		write(new File(this.localRepo, "com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar"), "installed");
+		write(new File(this.localRepo, "com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.pom"), "pom");
+		write(new File(this.localRepo, "com/example/foo-core/1.0.0.RELEASE/_remote.repositories"), "");
+
+		new ArtifactDeployer(properties()).deploy(this.project);
+
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar")).hasContent("installed");
+		then(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.pom")).hasContent("pom");
+		then(remote("com/example/foo-core/1.0.0.RELEASE/_remote.repositories")).doesNotExist();
+	}
+
+	@Test
+	public void should_upload_artifacts_to_an_http_repository() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		write(new File(this.project, "core/target/foo-core-1.0.0.RELEASE.jar"), "jar");
+		Map<String, String> uploaded = new ConcurrentHashMap<>();
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange -> {
+			try (InputStream body = exchange.getRequestBody()) {
+				uploaded.put(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath(),
+						new String(readFully(body), StandardCharsets.UTF_8));
+			}
+			exchange.sendResponseHeaders(201, -1);
+			exchange.close();
+		});
+		server.start();
+		try {
+			ReleaserProperties properties = properties();
+			properties.getMaven().setDeployRepositoryUrl("http://localhost:" + server.getAddress().getPort() + "/repo");
+
+			new ArtifactDeployer(properties).deploy(this.project);
+		} finally {
+			server.stop(0);
+		}
+
+		then(uploaded).containsEntry("PUT /repo/com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar", "jar");
+		then(uploaded).containsKey("PUT /repo/com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar.sha1");
+		then(uploaded).containsKey("PUT /repo/com/example/foo-parent/1.0.0.RELEASE/foo-parent-1.0.0.RELEASE.pom");
+	}
+
+	@Test
+	public void should_throw_exception_when_a_jar_module_was_not_built() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+
+		thenThrownBy(() -> new ArtifactDeployer(properties()).deploy(this.project))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("No build outputs were found for module [com.example:foo-core:1.0.0.RELEASE]");
+	}
+
+	@Test
+	public void should_not_deploy_snapshots_from_build_outputs() throws Exception {
+		prepareProject("1.0.0.BUILD-SNAPSHOT");
+
+		then(new ArtifactDeployer(properties()).canDeploy(modules())).isFalse();
+	}
+
+	@Test
+	public void should_deploy_non_snapshots_from_build_outputs() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+
+		then(new ArtifactDeployer(properties()).canDeploy(modules())).isTrue();
+	}
+
+	private List<ReactorModule> modules() {
+		return new ReactorModules(properties()).modules(this.project);
+	}
+
+	private ReleaserProperties properties() {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getMaven().setLocalRepository(this.localRepo.getPath());
+		properties.getMaven().setDeployRepositoryUrl(this.remoteRepo.toURI().toString());
+		properties.getMaven().setDeployThreads(2);
+		return properties;
+	}
+
+	private void prepareProject(String version) throws IOException {
+		write(new File(this.project, "pom.xml"), pom("<groupId>com.example</groupId>"
+				+ "<artifactId>foo-parent</artifactId><version>" + version + "</version>"
+				+ "<packaging>pom</packaging>"
+				+ "<modules><module>core</module><module>samples</module><module>missing</module></modules>"));
+		String parent = "<parent><groupId>com.example</groupId><artifactId>foo-parent</artifactId>"
+				+ "<version>" + version + "</version></parent>";
+		write(new File(this.project, "core/pom.xml"), pom(parent + "<artifactId>foo-core</artifactId>"));
+		write(new File(this.project, "samples/pom.xml"), pom(parent + "<artifactId>foo-samples</artifactId>"
+				+ "<packaging>pom</packaging><properties><maven.deploy.skip>true</maven.deploy.skip></properties>"
+				+ "<modules><module>app</module></modules>"));
+		write(new File(this.project, "samples/app/pom.xml"), pom("<parent><groupId>com.example</groupId>"
+				+ "<artifactId>foo-samples</artifactId><version>" + version + "</version></parent>"
+				+ "<artifactId>foo-sample-app</artifactId>"));
+	}
+
+	private String pom(String body) {
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project><modelVersion>4.0.0</modelVersion>"
+				+ body + "</project>";
+	}
+
+	private File write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	private File remote(String path) {
+		return new File(this.remoteRepo, path);
+	}
+
+	private byte[] readFully(InputStream stream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,201 @@
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+import com.sun.net.httpserver.HttpServer;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ArtifactVerifierTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File project;
+	File localRepo;
+	File remoteRepo;
+	HttpServer server;
+	List<String> requests = new CopyOnWriteArrayList<>();
+
+	@Before
+	public void setup() throws IOException {
+		this.project = this.tmp.newFolder("project");
+		this.localRepo = this.tmp.newFolder("m2");
+		this.remoteRepo = this.tmp.newFolder("remote");
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/repo/", exchange -> {
+			String path = exchange.getRequestURI().getPath().substring("/repo/".length());
+			this.requests.add(exchange.getRequestMethod() + " " + path);
+			File file = new File(this.remoteRepo, path);
+			if (!file.isFile()) {
+				exchange.sendResponseHeaders(404, -1);
+				exchange.close();
+				return;
+			}
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			if ("HEAD".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().add("Content-Length", String.valueOf(bytes.length));
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+				return;
+			}
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(bytes);
+			}
+		});
+		this.server.start();
+	}
+
+	@After
+	public void cleanup() {
+		this.server.stop(0);
+	}
+
+	@Test
+	public void should_pass_when_all_files_were_deployed_with_correct_checksums() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		new ArtifactDeployer(fileRepositoryProperties()).deploy(this.project);
+
+		new ArtifactVerifier(properties()).verify(this.project);
+
+		then(this.requests).contains("HEAD com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE-sources.jar",
+				"GET com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar.sha1");
+		then(this.requests.stream().anyMatch(request -> request.contains("foo-samples"))).isFalse();
+	}
+
+	@Test
+	public void should_not_expect_the_modules_whose_parent_skips_the_deployment() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		write(new File(this.project, "samples/pom.xml"), pom("<parent><groupId>com.example</groupId>"
+				+ "<artifactId>foo-parent</artifactId><version>1.0.0.RELEASE</version></parent>"
+				+ "<artifactId>foo-samples</artifactId><packaging>pom</packaging>"
+				+ "<modules><module>app</module></modules>"
+				+ "<properties><maven.deploy.skip>true</maven.deploy.skip></properties>"));
+		write(new File(this.project, "samples/app/pom.xml"), pom("<parent><groupId>com.example</groupId>"
+				+ "<artifactId>foo-samples</artifactId><version>1.0.0.RELEASE</version></parent>"
+				+ "<artifactId>foo-sample-app</artifactId>"));
+		write(new File(this.project, "samples/app/target/foo-sample-app-1.0.0.RELEASE.jar"), "app");
+		new ArtifactDeployer(fileRepositoryProperties()).deploy(this.project);
+
+		then(new ArtifactVerifier(properties()).expectedFiles(this.project).keySet().stream()
+				.anyMatch(path -> path.contains("foo-sample"))).isFalse();
+		new ArtifactVerifier(properties()).verify(this.project);
+		then(this.requests.stream().anyMatch(request -> request.contains("foo-sample"))).isFalse();
+	}
+
+	@Test
+	public void should_list_all_missing_files() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		new ArtifactDeployer(fileRepositoryProperties()).deploy(this.project);
+		remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE-sources.jar").delete();
+		remote("com/example/foo-parent/1.0.0.RELEASE/foo-parent-1.0.0.RELEASE.pom.sha1").delete();
+
+		thenThrownBy(() -> new ArtifactVerifier(properties()).verify(this.project))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("2 of 4 files failed the verification")
+				.hasMessageContaining("[com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE-sources.jar] is missing")
+				.hasMessageContaining("[com/example/foo-parent/1.0.0.RELEASE/foo-parent-1.0.0.RELEASE.pom] has no sha1 checksum");
+	}
+
+	@Test
+	public void should_fail_when_the_deployed_file_differs_from_the_built_one() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		new ArtifactDeployer(fileRepositoryProperties()).deploy(this.project);
+		write(new File(this.project, "core/target/foo-core-1.0.0.RELEASE.jar"), "JAR");
+
+		thenThrownBy(() -> new ArtifactVerifier(properties()).verify(this.project))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("1 of 4 files failed the verification")
+				.hasMessageContaining("[com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar] has sha1");
+	}
+
+	@Test
+	public void should_check_the_published_checksum_against_the_contents_when_the_build_outputs_are_gone() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		new ArtifactDeployer(fileRepositoryProperties()).deploy(this.project);
+		new File(this.project, "core/target/foo-core-1.0.0.RELEASE.jar").delete();
+		write(remote("com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar.sha1"), "0000 foo-core.jar");
+
+		thenThrownBy(() -> new ArtifactVerifier(properties()).verify(this.project))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("but the published checksum is [0000]");
+		then(this.requests).contains("GET com/example/foo-core/1.0.0.RELEASE/foo-core-1.0.0.RELEASE.jar");
+	}
+
+	@Test
+	public void should_not_verify_snapshots() throws Exception {
+		prepareProject("1.0.0.BUILD-SNAPSHOT");
+
+		then(new ArtifactVerifier(properties()).canVerify(this.project)).isFalse();
+	}
+
+	@Test
+	public void should_not_verify_when_no_repository_was_set() throws Exception {
+		prepareProject("1.0.0.RELEASE");
+		ReleaserProperties properties = properties();
+		properties.getMaven().setVerifyRepositoryUrl(null);
+
+		then(new ArtifactVerifier(properties).canVerify(this.project)).isFalse();
+	}
+
+	private ReleaserProperties fileRepositoryProperties() {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getMaven().setLocalRepository(this.localRepo.getPath());
+		properties.getMaven().setDeployRepositoryUrl(this.remoteRepo.toURI().toString());
+		return properties;
+	}
+
+	private ReleaserProperties properties() {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getMaven().setLocalRepository(this.localRepo.getPath());
+		properties.getMaven().setVerifyRepositoryUrl("http://localhost:" + this.server.getAddress().getPort() + "/repo");
+		properties.getMaven().setVerifyThreads(2);
+		return properties;
+	}
+
+	private void prepareProject(String version) throws IOException {
+		write(new File(this.project, "pom.xml"), pom("<groupId>com.example</groupId>"
+				+ "<artifactId>foo-parent</artifactId><version>" + version + "</version>"
+				+ "<packaging>pom</packaging>"
+				+ "<modules><module>core</module><module>samples</module></modules>"));
+		String parent = "<parent><groupId>com.example</groupId><artifactId>foo-parent</artifactId>"
+				+ "<version>" + version + "</version></parent>";
+		write(new File(this.project, "core/pom.xml"), pom(parent + "<artifactId>foo-core</artifactId>"));
+		write(new File(this.project, "samples/pom.xml"), pom(parent + "<artifactId>foo-samples</artifactId>"
+				+ "<packaging>pom</packaging><properties><maven.deploy.skip>true</maven.deploy.skip></properties>"));
+		write(new File(this.project, "core/target/foo-core-" + version + ".jar"), "jar");
+		write(new File(this.project, "core/target/foo-core-" + version + "-sources.jar"), "sources");
+	}
+
+	private String pom(String body) {
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project><modelVersion>4.0.0</modelVersion>"
+				+ body + "</project>";
+	}
+
+	private File write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private File remote(String path) {
+		return new File(this.remoteRepo, path);
+	}
+}
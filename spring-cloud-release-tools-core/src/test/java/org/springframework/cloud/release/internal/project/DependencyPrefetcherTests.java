@@ -0,0 +1,93 @@
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class DependencyPrefetcherTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File project;
+
+	@Before
+	public void setup() throws IOException {
+		Assume.assumeFalse(System.getProperty("os.name").toLowerCase().startsWith("win"));
+		this.project = this.tmp.newFolder("project");
+	}
+
+	@Test
+	public void should_resolve_the_dependencies_via_maven_with_the_options_of_the_build_command() throws Exception {
+		mvnw("echo \"$@\" > " + new File(this.project, "calls.log") + "\necho resolved\n");
+
+		PrefetchResult result = prefetcher().prefetch(this.project,
+				new String[] { "./mvnw", "-s", "settings.xml", "clean", "install", "-Pdocs" }).get();
+
+		then(new File(this.project, "calls.log"))
+				.hasContent("-s settings.xml -Pdocs dependency:go-offline -DexcludeReactor=true");
+		then(result.output).isEqualTo(new File(this.project, DependencyPrefetcher.LOG_FILE));
+		then(result.output).hasContent("resolved");
+	}
+
+	@Test
+	public void should_complete_exceptionally_when_maven_fails() throws Exception {
+		mvnw("exit 1\n");
+
+		CompletableFuture<PrefetchResult> prefetch = prefetcher().prefetch(this.project,
+				new String[] { "./mvnw", "install" });
+
+		thenThrownBy(prefetch::get).isInstanceOf(ExecutionException.class)
+				.hasMessageContaining("exit code [1]");
+	}
+
+	@Test
+	public void should_kill_maven_when_the_prefetch_gets_cancelled() throws Exception {
+		File pid = new File(this.project, "mvnw.pid");
+		mvnw("echo $$ > " + pid + "\nexec sleep 60\n");
+
+		CompletableFuture<PrefetchResult> prefetch = prefetcher().prefetch(this.project,
+				new String[] { "./mvnw", "install" });
+		while (!pid.exists() || pid.length() == 0) {
+			Thread.sleep(50);
+		}
+		prefetch.cancel(true);
+
+		String mvnwPid = new String(Files.readAllBytes(pid.toPath()), StandardCharsets.UTF_8).trim();
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (isAlive(mvnwPid) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		then(isAlive(mvnwPid)).isFalse();
+	}
+
+	private boolean isAlive(String pid) throws Exception {
+		return new ProcessBuilder("kill", "-0", pid).start().waitFor() == 0;
+	}
+
+	private DependencyPrefetcher prefetcher() {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.setWorkingDir(this.project.getPath());
+		return new DependencyPrefetcher(properties, new ProcessExecutor(properties));
+	}
+
+	private void mvnw(String script) throws IOException {
+		File mvnw = new File(this.project, "mvnw");
+		Files.write(mvnw.toPath(), ("#!/bin/sh\n" + script).getBytes(StandardCharsets.UTF_8));
+		mvnw.setExecutable(true);
+	}
+}
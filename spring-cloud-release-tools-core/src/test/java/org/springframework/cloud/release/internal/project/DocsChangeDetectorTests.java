@@ -0,0 +1,99 @@
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.git.ProjectGitUpdater;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class DocsChangeDetectorTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File project;
+	DocsChangeDetector detector = new DocsChangeDetector(new ProjectGitUpdater(new ReleaserProperties()));
+
+	@Before
+	public void setup() throws Exception {
+		this.project = this.tmp.newFolder();
+		write("pom.xml", rootPom("1.0.0.RELEASE", "1.1.0.RELEASE"));
+		write("docs/pom.xml", docsPom("1.0.0.RELEASE"));
+		write("docs/src/main/asciidoc/index.adoc", "= Docs");
+		write(".gitignore", "target/");
+		try (Git git = Git.init().setDirectory(this.project).call()) {
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("Release").call();
+			git.tag().setName("v1.0.0.RELEASE").call();
+			write("README.adoc", "readme");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("Going back to snapshots").call();
+		}
+	}
+
+	@Test
+	public void should_skip_docs_when_only_project_version_has_changed() throws Exception {
+		write("pom.xml", rootPom("1.0.1.RELEASE", "1.1.0.RELEASE"));
+		write("docs/pom.xml", docsPom("1.0.1.RELEASE"));
+		write("docs/target/generated-docs/index.html", "<html/>");
+
+		then(this.detector.unchangedDocsReason(this.project))
+				.contains("have changed since [v1.0.0.RELEASE]");
+	}
+
+	@Test
+	public void should_build_docs_when_docs_sources_have_changed() throws Exception {
+		write("docs/src/main/asciidoc/index.adoc", "= New docs");
+
+		then(this.detector.unchangedDocsReason(this.project)).isNull();
+	}
+
+	@Test
+	public void should_build_docs_when_interpolated_versions_have_changed() throws Exception {
+		write("pom.xml", rootPom("1.0.1.RELEASE", "1.1.1.RELEASE"));
+
+		then(this.detector.unchangedDocsReason(this.project)).isNull();
+	}
+
+	@Test
+	public void should_build_docs_when_there_is_no_previous_release_tag() throws Exception {
+		try (Git git = Git.open(this.project)) {
+			git.tagDelete().setTags("v1.0.0.RELEASE").call();
+		}
+
+		then(this.detector.unchangedDocsReason(this.project)).isNull();
+	}
+
+	@Test
+	public void should_remove_only_the_docs_profile_from_the_command() {
+		then(ProjectBuilder.withoutDocsProfile(new String[] { "./mvnw", "clean", "install", "-Pdocs" }))
+				.containsExactly("./mvnw", "clean", "install");
+		then(ProjectBuilder.withoutDocsProfile(new String[] { "./mvnw", "install", "-Pdocs,fast" }))
+				.containsExactly("./mvnw", "install", "-Pfast");
+	}
+
+	private String rootPom(String version, String commonsVersion) {
+		return "<project><modelVersion>4.0.0</modelVersion><groupId>foo</groupId><artifactId>bar</artifactId>"
+				+ "<version>" + version + "</version><properties><spring-cloud-commons.version>"
+				+ commonsVersion + "</spring-cloud-commons.version></properties></project>";
+	}
+
+	private String docsPom(String version) {
+		return "<project><modelVersion>4.0.0</modelVersion><parent><groupId>foo</groupId><artifactId>bar</artifactId>"
+				+ "<version>" + version + "</version></parent><artifactId>bar-docs</artifactId></project>";
+	}
+
+	private void write(String path, String contents) throws Exception {
+		File file = new File(this.project, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), contents.getBytes());
+	}
+}
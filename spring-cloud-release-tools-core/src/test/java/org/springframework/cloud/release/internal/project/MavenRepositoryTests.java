@@ -0,0 +1,53 @@
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class MavenRepositoryTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void should_keep_the_local_file_when_the_downloaded_one_has_an_invalid_checksum() throws Exception {
+		File remoteRepo = this.tmp.newFolder("remote");
+		write(new File(remoteRepo, "com/example/lib/lib-c/3.0/lib-c-3.0.jar"), "lib-c");
+		write(new File(remoteRepo, "com/example/lib/lib-c/3.0/lib-c-3.0.jar.sha1"), "invalid");
+		File local = write(new File(this.tmp.newFolder("m2"), "com/example/lib/lib-c/3.0/lib-c-3.0.jar"),
+				"local lib-c");
+
+		boolean downloaded = new MavenRepository(remoteRepo.toURI().toString(), null, null)
+				.download("com/example/lib/lib-c/3.0/lib-c-3.0.jar", local.toPath());
+
+		then(downloaded).isFalse();
+		then(local).hasContent("local lib-c");
+		then(local.getParentFile().list()).containsExactly("lib-c-3.0.jar");
+	}
+
+	@Test
+	public void should_not_resolve_external_entities_of_the_metadata() throws Exception {
+		File secret = write(this.tmp.newFile("secret.txt"), "secret");
+		String metadata = "<?xml version=\"1.0\"?><!DOCTYPE metadata [<!ENTITY secret SYSTEM \""
+				+ secret.toURI() + "\">]><metadata><version>&secret;</version></metadata>";
+
+		thenThrownBy(() -> MavenRepository.parseMetadata(metadata))
+				.hasMessageContaining("DOCTYPE");
+	}
+
+	private File write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
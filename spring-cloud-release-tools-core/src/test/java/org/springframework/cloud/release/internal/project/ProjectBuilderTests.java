@@ -6,6 +6,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assume;
 import org.junit.Before;
@@ -13,6 +15,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.springframework.cloud.release.internal.PomUpdateAcceptanceTests;
+import org.springframework.cloud.release.internal.ReleaseReport;
 import org.springframework.cloud.release.internal.ReleaserProperties;
 import org.springframework.cloud.release.internal.pom.TestPomReader;
 import org.springframework.cloud.release.internal.pom.TestUtils;
@@ -61,6 +64,28 @@ public class ProjectBuilderTests {
 		thenThrownBy(builder::build).hasMessageContaining("contains a tag that wasn't resolved properly");
 	}
 
+	@Test
+	public void should_drop_the_docs_profile_and_skip_html_verification_when_docs_are_unchanged() throws Exception {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getMaven().setBuildCommand("echo -Pdocs,fast");
+		properties.getMaven().setSkipUnchangedDocs(true);
+		properties.setWorkingDir(tmpFile("/builder/unresolved").getPath());
+		ProjectBuilder builder = new ProjectBuilder(properties, executor(properties),
+				new DocsChangeDetector(null) {
+					@Override String unchangedDocsReason(File project) {
+						return "nothing has changed";
+					}
+				});
+		ReleaseReport report = new ReleaseReport();
+
+		builder.build(report);
+
+		then(asString(tmpFile("/builder/resolved/resolved.log")))
+				.contains("-Pfast").doesNotContain("docs");
+		then(report.notes()).hasSize(1);
+		then(report.notes().get(0)).contains("nothing has changed");
+	}
+
 	@Test
 	public void should_throw_exception_when_command_took_too_long_to_execute() throws Exception {
 		ReleaserProperties properties = new ReleaserProperties();
@@ -72,6 +97,79 @@ public class ProjectBuilderTests {
 		thenThrownBy(builder::build).hasMessageContaining("Process waiting time of [0] minutes exceeded");
 	}
 
+	@Test
+	public void should_kill_the_process_when_it_has_not_produced_any_output_for_the_idle_time() throws Exception {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getMaven().setBuildCommand("sleep 30");
+		properties.getMaven().setIdleTimeInSeconds(1);
+		properties.setWorkingDir(tmpFile("/builder/unresolved").getPath());
+		ProjectBuilder builder = new ProjectBuilder(properties, executor(properties));
+
+		thenThrownBy(builder::build).hasMessageContaining("The process hasn't produced any output for [1] seconds");
+	}
+
+	@Test
+	public void should_not_kill_the_process_when_it_keeps_producing_output() throws Exception {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getMaven().setIdleTimeInSeconds(1);
+		properties.setWorkingDir(tmpFile("/builder/resolved").getPath());
+		TestProcessExecutor executor = executor(properties);
+
+		executor.runCommand(new String[] { "sh", "-c", "for i in 1 2 3 4; do echo \"line $i\"; sleep 0.6; done" }, 1);
+
+		then(asString(tmpFile("/builder/resolved/resolved.log")))
+				.contains("line 4");
+	}
+
+	@Test
+	public void should_not_kill_a_quiet_process_when_its_cpu_time_cannot_be_read() throws Exception {
+		ProcessWatchdog watchdog = new ProcessWatchdog(1) {
+			@Override long cpuTime(Process process) {
+				return -1;
+			}
+		};
+		Process process = watchdog.watch(new ProcessBuilder("sleep", "2").inheritIO()).start();
+
+		then(watchdog.waitFor(process, 10, TimeUnit.SECONDS)).isTrue();
+		then(process.exitValue()).isZero();
+	}
+
+	@Test
+	public void should_count_the_cpu_time_of_the_whole_process_tree() throws Exception {
+		Assume.assumeTrue(new File("/proc/self/stat").exists());
+		ProcessWatchdog watchdog = new ProcessWatchdog(1);
+		Process process = new ProcessBuilder("sh", "-c", "sleep 30 & wait").start();
+		try {
+			long pid = watchdog.pid(process);
+			long start = System.currentTimeMillis();
+			while (watchdog.descendants(pid).isEmpty() && System.currentTimeMillis() - start < 5000) {
+				Thread.sleep(50);
+			}
+
+			then(watchdog.descendants(pid)).hasSize(1);
+			then(watchdog.cpuTime(process)).isGreaterThanOrEqualTo(0);
+		} finally {
+			process.destroyForcibly();
+		}
+	}
+
+	@Test
+	public void should_kill_the_process_tree_when_the_deadline_passes() throws Exception {
+		Assume.assumeTrue(new File("/proc/self/stat").exists());
+		ProcessWatchdog watchdog = new ProcessWatchdog(60);
+		Process process = watchdog.watch(new ProcessBuilder("sh", "-c", "sleep 30 & wait").inheritIO()).start();
+		long pid = watchdog.pid(process);
+		long start = System.currentTimeMillis();
+		while (watchdog.descendants(pid).isEmpty() && System.currentTimeMillis() - start < 5000) {
+			Thread.sleep(50);
+		}
+		long sleep = watchdog.descendants(pid).get(0);
+
+		then(watchdog.waitFor(process, 1, TimeUnit.SECONDS)).isFalse();
+		then(process.isAlive()).isFalse();
+		then(new File("/proc/" + sleep)).doesNotExist();
+	}
+
 	@Test
 	public void should_successfully_execute_a_deploy_command() throws Exception {
 		ReleaserProperties properties = new ReleaserProperties();
@@ -96,6 +194,40 @@ public class ProjectBuilderTests {
 		thenThrownBy(builder::deploy).hasMessageContaining("Process waiting time of [0] minutes exceeded");
 	}
 
+	@Test
+	public void should_run_maven_commands_via_the_daemon_when_daemon_is_switched_on() throws Exception {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getMaven().setBuildCommand("./mvnw clean install");
+		properties.getMaven().setDeployCommand("./mvnw deploy");
+		properties.getMaven().setUseDaemon(true);
+		properties.getMaven().setDaemonCommand("echo");
+		properties.setWorkingDir(tmpFile("/builder/resolved").getPath());
+		ProjectBuilder builder = new ProjectBuilder(properties, executor(properties));
+
+		builder.build();
+		then(asString(tmpFile("/builder/resolved/resolved.log")))
+				.contains("clean install");
+
+		builder.deploy();
+		then(asString(tmpFile("/builder/resolved/resolved.log")))
+				.contains("deploy");
+	}
+
+	@Test
+	public void should_not_replace_non_maven_commands_when_daemon_is_switched_on() throws Exception {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.getMaven().setPublishDocsCommands(new String[] { "echo '{{version}}'" });
+		properties.getMaven().setUseDaemon(true);
+		properties.getMaven().setDaemonCommand("false");
+		properties.setWorkingDir(tmpFile("/builder/resolved").getPath());
+		ProjectBuilder builder = new ProjectBuilder(properties, executor(properties));
+
+		builder.publishDocs("1.1.0.RELEASE");
+
+		then(asString(tmpFile("/builder/resolved/resolved.log")))
+				.contains("1.1.0.RELEASE");
+	}
+
 	@Test
 	public void should_successfully_execute_a_publish_docs_command() throws Exception {
 		ReleaserProperties properties = new ReleaserProperties();
@@ -156,11 +288,12 @@ public class ProjectBuilderTests {
 		properties.setWorkingDir(tmpFile("/spring-cloud-contract").getPath());
 		ProjectBuilder builder = new ProjectBuilder(properties, executor(properties));
 
-		builder.bumpVersions("2.3.4.BUILD-SNAPSHOT");
+		Set<File> changedPoms = builder.bumpVersions("2.3.4.BUILD-SNAPSHOT");
 
 		File rootPom = tmpFile("/spring-cloud-contract/pom.xml");
 		File tools = tmpFile("/spring-cloud-contract/spring-cloud-contract-tools/pom.xml");
 		File converters = tmpFile("/spring-cloud-contract/spring-cloud-contract-tools/spring-cloud-contract-converters/pom.xml");
+		then(changedPoms).contains(rootPom, tools, converters);
 		then(this.reader.readPom(rootPom).getVersion()).isEqualTo("2.3.4.BUILD-SNAPSHOT");
 		then(this.reader.readPom(tools).getParent().getVersion()).isEqualTo("2.3.4.BUILD-SNAPSHOT");
 		then(this.reader.readPom(converters).getParent().getVersion()).isEqualTo("2.3.4.BUILD-SNAPSHOT");
@@ -0,0 +1,205 @@
+package org.springframework.cloud.release.internal.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaseReport;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ShardedBuildTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File project;
+
+	@Before
+	public void setup() throws IOException {
+		Assume.assumeFalse(System.getProperty("os.name").toLowerCase().startsWith("win"));
+		this.project = this.tmp.newFolder("project");
+		pom(this.project, "<artifactId>root</artifactId><version>1.0.0.RELEASE</version><packaging>pom</packaging>"
+				+ "<modules><module>bom</module><module>core</module><module>starter</module>"
+				+ "<module>samples</module></modules>");
+		pom(new File(this.project, "bom"), parent("root") + "<artifactId>bom</artifactId><packaging>pom</packaging>");
+		pom(new File(this.project, "core"), parent("root") + "<artifactId>core</artifactId>");
+		pom(new File(this.project, "starter"), parent("root") + "<artifactId>starter</artifactId>" + dependency("core"));
+		pom(new File(this.project, "samples"), parent("root") + "<artifactId>samples</artifactId>"
+				+ "<packaging>pom</packaging><modules><module>a</module><module>b</module></modules>");
+		pom(new File(this.project, "samples/a"), parent("samples") + "<artifactId>a</artifactId>");
+		pom(new File(this.project, "samples/b"), parent("samples") + "<artifactId>b</artifactId>" + dependency("starter"));
+	}
+
+	@Test
+	public void should_build_pom_modules_first_and_group_modules_that_depend_on_each_other() {
+		ShardPlan plan = new ReactorShards(new ReactorModules(properties())).plan(this.project, 4);
+
+		then(artifactIds(plan.base)).containsExactly("root", "bom", "samples");
+		then(plan.shards).hasSize(2);
+		then(artifactIds(plan.shards.get(0))).containsExactly("core", "starter", "b");
+		then(artifactIds(plan.shards.get(1))).containsExactly("a");
+	}
+
+	@Test
+	public void should_shard_the_reactor_whose_root_imports_a_bom_managing_all_modules() throws IOException {
+		pom(this.project, "<artifactId>root</artifactId><version>1.0.0.RELEASE</version><packaging>pom</packaging>"
+				+ "<modules><module>bom</module><module>core</module><module>starter</module>"
+				+ "<module>samples</module></modules>"
+				+ "<dependencyManagement><dependencies>" + managed("bom", "<type>pom</type><scope>import</scope>")
+				+ "</dependencies></dependencyManagement>");
+		pom(new File(this.project, "bom"), parent("root") + "<artifactId>bom</artifactId><packaging>pom</packaging>"
+				+ "<dependencyManagement><dependencies>" + managed("core", "") + managed("starter", "")
+				+ managed("a", "") + managed("b", "") + "</dependencies></dependencyManagement>");
+
+		ShardPlan plan = new ReactorShards(new ReactorModules(properties())).plan(this.project, 4);
+
+		then(plan.isSharded()).isTrue();
+		then(artifactIds(plan.base)).containsExactly("root", "bom", "samples");
+		then(artifactIds(plan.shards.get(0))).containsExactly("core", "starter", "b");
+		then(artifactIds(plan.shards.get(1))).containsExactly("a");
+	}
+
+	@Test
+	public void should_not_shard_the_reactor_when_all_modules_depend_on_each_other() throws IOException {
+		pom(new File(this.project, "samples/a"), parent("samples") + "<artifactId>a</artifactId>" + dependency("core"));
+
+		ShardPlan plan = new ReactorShards(new ReactorModules(properties())).plan(this.project, 4);
+
+		then(plan.isSharded()).isFalse();
+	}
+
+	@Test
+	public void should_create_a_copy_of_the_project_without_build_outputs() throws IOException {
+		File source = write(new File(this.project, "core/src/main/java/Foo.java"), "class Foo {}");
+		write(new File(this.project, "core/src/main/java/target/Bar.java"), "class Bar {}");
+		write(new File(this.project, "core/target/foo.jar"), "jar");
+		new File(this.project, ".git").mkdirs();
+		File copy = new File(this.tmp.getRoot(), "copy");
+
+		ShardedBuild.linkedCopy(this.project.toPath(), copy.toPath());
+
+		then(new File(copy, "core/src/main/java/Foo.java")).hasContent("class Foo {}");
+		then(Files.isSameFile(source.toPath(), new File(copy, "core/src/main/java/Foo.java").toPath())).isTrue();
+		then(new File(copy, "core/src/main/java/target/Bar.java")).exists();
+		then(new File(copy, "core/target")).doesNotExist();
+		then(new File(copy, ".git")).isFile()
+				.hasContent("gitdir: " + new File(this.project, ".git").toPath().toAbsolutePath());
+	}
+
+	@Test
+	public void should_build_shards_in_parallel_and_move_their_outputs_back_to_the_project() throws IOException {
+		File mvnw = write(new File(this.project, "mvnw"), "#!/bin/sh\n"
+				+ "echo \"$@\" >> " + new File(this.project, "calls.log") + "\n"
+				+ "case \"$3\" in *:a) mkdir -p samples/a/target && echo jar > samples/a/target/a.jar;; esac\n");
+		mvnw.setExecutable(true);
+		ReleaseReport report = new ReleaseReport();
+
+		boolean sharded = new ShardedBuild(properties(), new ProcessExecutor(properties()))
+				.build(new String[] { "./mvnw", "install" }, report);
+
+		then(sharded).isTrue();
+		List<String> calls = Files.readAllLines(new File(this.project, "calls.log").toPath());
+		then(calls.subList(0, 2)).containsExactly(
+				"install -pl com.example:root,com.example:bom,com.example:samples",
+				"dependency:go-offline -DexcludeReactor=true");
+		then(calls.subList(2, 4)).containsOnly(
+				"install -pl com.example:core,com.example:starter,com.example:b -o",
+				"install -pl com.example:a -o");
+		then(new File(this.project, "samples/a/target/a.jar")).hasContent("jar");
+		then(new File(this.project, "target/shards/shard-1")).doesNotExist();
+		then(new File(this.project, "target/shards/shard-2.log")).exists();
+		then(report.notes()).hasSize(1);
+	}
+
+	@Test
+	public void should_list_failed_shards_once_all_of_them_are_done() throws IOException {
+		File mvnw = write(new File(this.project, "mvnw"), "#!/bin/sh\n"
+				+ "case \"$3\" in *:core*) mkdir -p core/target && echo failure > core/target/report.txt; exit 1;; esac\n");
+		mvnw.setExecutable(true);
+
+		thenThrownBy(() -> new ShardedBuild(properties(), new ProcessExecutor(properties()))
+				.build(new String[] { "./mvnw", "install" }, new ReleaseReport()))
+				.hasMessageContaining("The build has failed for shard [1] with modules [com.example:core")
+				.hasMessageNotContaining("shard [2]");
+		then(new File(this.project, "core/target/report.txt")).hasContent("failure");
+	}
+
+	@Test
+	public void should_build_the_project_the_regular_way_when_a_shard_misses_an_artifact_offline() throws IOException {
+		File mvnw = write(new File(this.project, "mvnw"), "#!/bin/sh\n"
+				+ "case \"$3\" in *:a) echo \"[ERROR] Cannot access central (https://repo.maven.apache.org/maven2)"
+				+ " in offline mode and the artifact org.apache.maven.surefire:surefire-junit4:jar:2.19.1 has not been"
+				+ " downloaded from it before.\"; exit 1;; esac\n");
+		mvnw.setExecutable(true);
+		ReleaseReport report = new ReleaseReport();
+
+		boolean sharded = new ShardedBuild(properties(), new ProcessExecutor(properties()))
+				.build(new String[] { "./mvnw", "install" }, report);
+
+		then(sharded).isFalse();
+		then(report.notes()).hasSize(1);
+		then(report.notes().get(0)).contains("couldn't resolve all artifacts offline");
+	}
+
+	@Test
+	public void should_resolve_dependencies_with_the_options_of_the_build_command() {
+		then(ShardedBuild.resolveCommand(new String[] { "./mvnw", "clean", "install", "-B", "-Pdocs,fast" }))
+				.containsExactly("./mvnw", "-B", "-Pdocs,fast", "dependency:go-offline", "-DexcludeReactor=true");
+	}
+
+	@Test
+	public void should_keep_the_values_of_the_options_when_resolving_dependencies() {
+		then(ShardedBuild.resolveCommand(new String[] { "./mvnw", "-s", "settings.xml", "-P", "docs", "clean",
+				"install", "--threads", "4" }))
+				.containsExactly("./mvnw", "-s", "settings.xml", "-P", "docs", "--threads", "4",
+						"dependency:go-offline", "-DexcludeReactor=true");
+	}
+
+	private ReleaserProperties properties() {
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.setWorkingDir(this.project.getPath());
+		return properties;
+	}
+
+	private List<String> artifactIds(List<ReactorModule> modules) {
+		return modules.stream().map(module -> module.artifactId).collect(Collectors.toList());
+	}
+
+	private String parent(String artifactId) {
+		return "<parent><groupId>com.example</groupId><artifactId>" + artifactId
+				+ "</artifactId><version>1.0.0.RELEASE</version></parent>";
+	}
+
+	private String dependency(String artifactId) {
+		return "<dependencies><dependency><groupId>${project.groupId}</groupId><artifactId>" + artifactId
+				+ "</artifactId></dependency></dependencies>";
+	}
+
+	private String managed(String artifactId, String rest) {
+		return "<dependency><groupId>com.example</groupId><artifactId>" + artifactId
+				+ "</artifactId><version>1.0.0.RELEASE</version>" + rest + "</dependency>";
+	}
+
+	private void pom(File dir, String body) throws IOException {
+		write(new File(dir, "pom.xml"), "<project><modelVersion>4.0.0</modelVersion>"
+				+ (body.contains("<parent>") ? "" : "<groupId>com.example</groupId>") + body + "</project>");
+	}
+
+	private File write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
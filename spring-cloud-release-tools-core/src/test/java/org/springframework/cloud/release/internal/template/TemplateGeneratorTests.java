@@ -3,10 +3,16 @@ package org.springframework.cloud.release.internal.template;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.git.ReleaseNote;
+import org.springframework.cloud.release.internal.git.ReleaseNotesCollector;
 import org.springframework.cloud.release.internal.pom.ProjectVersion;
 import org.springframework.cloud.release.internal.pom.Projects;
 
@@ -37,6 +43,33 @@ public class TemplateGeneratorTests {
 		then(generatedMail).hasContent(expectedEmail());
 	}
 
+	@Test
+	public void should_generate_tweet_from_template() throws IOException {
+		ReleaserProperties props = new ReleaserProperties();
+		props.getPom().setBranch("vDalston.RELEASE");
+
+		File generatedTweet = new TemplateGenerator(props).tweet();
+
+		then(content(generatedTweet)).isEqualTo("The Spring Cloud Dalston RELEASE Train has been released! link to blog post\n");
+	}
+
+	@Test
+	public void should_generate_all_templates_at_once() throws IOException {
+		ReleaserProperties props = new ReleaserProperties();
+		props.getPom().setBranch("vDalston.RELEASE");
+		Projects projects = new Projects(
+				new HashSet<ProjectVersion>() {{
+						add(new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE"));
+				}}
+		);
+
+		List<File> generated = new TemplateGenerator(props).all(projects);
+
+		then(generated).extracting("name").containsExactly("email.txt", "blog.md", "tweet.txt");
+		then(generated.get(0)).hasContent(expectedEmail());
+		then(content(generated.get(1))).contains("### Spring Cloud Sleuth");
+	}
+
 	@Test
 	public void should_generate_blog_from_template_for_tag_with_v_prefix_release()
 			throws IOException {
@@ -229,6 +262,34 @@ public class TemplateGeneratorTests {
 				.contains("mavenBom 'org.springframework.cloud:spring-cloud-dependencies:Dalston.RC1'");
 	}
 
+	@Test
+	public void should_generate_blog_with_release_notes_of_each_project()
+			throws IOException {
+		ReleaserProperties props = new ReleaserProperties();
+		props.getPom().setBranch("vDalston.RELEASE");
+		Projects projects = new Projects(
+				new HashSet<ProjectVersion>() {{
+						add(new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE"));
+						add(new ProjectVersion("spring-cloud-consul", "1.0.1.RELEASE"));
+				}}
+		);
+		ReleaseNotesCollector collector = new ReleaseNotesCollector(props) {
+			@Override public Map<String, List<ReleaseNote>> releaseNotes(Projects projects) {
+				return Collections.singletonMap("spring-cloud-sleuth", Arrays.asList(
+						new ReleaseNote(10, "Fixed a <bug>", "https://github.com/spring-cloud/spring-cloud-sleuth/issues/10", false),
+						new ReleaseNote(11, "Added a feature", "https://github.com/spring-cloud/spring-cloud-sleuth/pull/11", true)));
+			}
+		};
+
+		File generatedBlog = new TemplateGenerator(props, collector).blog(projects);
+
+		then(content(generatedBlog))
+				.contains("### Spring Cloud Sleuth\n\n"
+						+ "- Issue [#10](https://github.com/spring-cloud/spring-cloud-sleuth/issues/10) Fixed a <bug>\n"
+						+ "- Pull request [#11](https://github.com/spring-cloud/spring-cloud-sleuth/pull/11) Added a feature\n")
+				.contains("### Spring Cloud Consul\n\nSine text related to project\n");
+	}
+
 	private String content(File file) throws IOException {
 		return new String(Files.readAllBytes(file.toPath()));
 	}
@@ -0,0 +1,104 @@
+package org.springframework.cloud.release.internal.tracing;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class TaskRecordingTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Before
+	public void setup() {
+		Tracer.enable(false);
+	}
+
+	@Test
+	public void should_build_file_name_from_task_header() {
+		then(TaskRecording.fileName("REVERTING CHANGES & BUMPING VERSION (RELEASE ONLY)"))
+				.isEqualTo("reverting-changes-bumping-version-release-only");
+	}
+
+	@Test
+	public void should_dump_recording_with_custom_events_of_the_task() throws Exception {
+		Assume.assumeTrue("The JVM has no Flight Recorder", FlightRecorderApi.get() != null);
+		File directory = new File(this.tmp.newFolder(), "releaser-jfr");
+		TaskRecording recording = TaskRecording.start("COMMITTING", directory, "default");
+
+		try (Span span = Tracer.span("pom.rewrite").tag("file", "pom.xml")) {
+			span.tag("changes", 2).tag("dirty", true);
+		}
+		try (Span span = Tracer.span("git.tag").tag("project", "spring-cloud-consul").tag("tag", "v1.2.0.RC1")) {
+		}
+		try (Span span = Tracer.span("process.run").tag("command", "./mvnw deploy")) {
+			span.tag("exitCode", 1);
+		}
+		recording.close();
+
+		then(recording.destination().toFile()).exists();
+		then(recording.destination().getFileName().toString()).startsWith("committing-");
+		List<Object> events = releaserEvents(recording.destination());
+		then(events.stream().map(this::eventName).collect(Collectors.toList())).containsExactly(
+				"org.springframework.cloud.release.PomRewrite",
+				"org.springframework.cloud.release.GitOperation",
+				"org.springframework.cloud.release.ChildProcess");
+		then(call(events.get(0), "getInt", "changes")).isEqualTo(2);
+		then(call(events.get(1), "getString", "ref")).isEqualTo("v1.2.0.RC1");
+		then(call(events.get(2), "getInt", "exitCode")).isEqualTo(1);
+	}
+
+	@Test
+	public void should_stop_creating_events_once_the_recording_is_closed() throws Exception {
+		Assume.assumeTrue("The JVM has no Flight Recorder", FlightRecorderApi.get() != null);
+		TaskRecording recording = TaskRecording.start("COMMITTING", this.tmp.newFolder(), "default");
+		try (Span span = Tracer.span("pom.rewrite")) {
+			then(span).isNotSameAs(Span.NOOP);
+		}
+
+		recording.close();
+
+		try (Span span = Tracer.span("pom.rewrite")) {
+			then(span).isSameAs(Span.NOOP);
+		}
+	}
+
+	// jdk.jfr.consumer can't be referenced since the tests have to compile on Java 8
+	@SuppressWarnings("unchecked")
+	private List<Object> releaserEvents(Path file) throws Exception {
+		Method readAllEvents = Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class);
+		return ((List<Object>) readAllEvents.invoke(null, file)).stream()
+				.filter(event -> eventName(event).startsWith("org.springframework.cloud.release"))
+				.collect(Collectors.toList());
+	}
+
+	private String eventName(Object event) {
+		return (String) call(call(event, "getEventType"), "getName");
+	}
+
+	private Object call(Object target, String method, Object... args) {
+		try {
+			for (Method candidate : target.getClass().getMethods()) {
+				if (candidate.getName().equals(method) && candidate.getParameterCount() == args.length) {
+					return candidate.invoke(target, args);
+				}
+			}
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+		throw new IllegalStateException("No method [" + method + "] on " + target.getClass());
+	}
+}
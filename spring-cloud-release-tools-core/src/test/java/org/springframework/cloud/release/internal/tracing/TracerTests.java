@@ -0,0 +1,89 @@
+package org.springframework.cloud.release.internal.tracing;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class TracerTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Before
+	public void setup() {
+		Tracer.reset();
+		Tracer.enable(true);
+	}
+
+	@After
+	public void cleanup() {
+		Tracer.enable(false);
+		Tracer.reset();
+	}
+
+	@Test
+	public void should_nest_spans_started_on_the_same_thread() {
+		try (Span parent = Tracer.span("releaser.update-poms")) {
+			try (Span child = Tracer.span("pom.read").tag("file", "pom.xml").tag("bytes", 100L)) {
+				then(child.getParent()).isSameAs(parent);
+			}
+		}
+
+		List<Span> spans = Tracer.finishedSpans();
+		then(spans).extracting("name").containsExactly("pom.read", "releaser.update-poms");
+		then(spans.get(0).getCategory()).isEqualTo("pom");
+		then(spans.get(0).getAttributes()).containsEntry("file", "pom.xml").containsEntry("bytes", 100L);
+		then(spans.get(0).getDurationNanos()).isGreaterThanOrEqualTo(0);
+		then(spans.get(1).getParent()).isNull();
+	}
+
+	@Test
+	public void should_not_nest_spans_of_other_threads() throws Exception {
+		try (Span parent = Tracer.span("releaser.close-milestones")) {
+			Thread thread = new Thread(() -> {
+				try (Span child = Tracer.span("git.close-milestone")) {
+					then(child.getParent()).isNull();
+				}
+			});
+			thread.start();
+			thread.join();
+		}
+
+		then(Tracer.finishedSpans()).hasSize(2);
+	}
+
+	@Test
+	public void should_not_record_anything_when_disabled() {
+		Tracer.enable(false);
+
+		try (Span span = Tracer.span("git.commit").tag("project", "foo")) {
+			then(span.getAttributes()).isEmpty();
+		}
+
+		then(Tracer.finishedSpans()).isEmpty();
+	}
+
+	@Test
+	public void should_export_spans_in_chrome_trace_format() throws Exception {
+		try (Span span = Tracer.span("process.run").tag("command", "./mvnw clean install")) {
+			span.tag("exitCode", 0);
+		}
+		File file = new File(this.tmp.newFolder(), "target/trace.json");
+
+		Tracer.export(file);
+
+		String trace = new String(Files.readAllBytes(file.toPath()));
+		then(trace).contains("\"traceEvents\"").contains("\"process.run\"")
+				.contains("\"ph\":\"X\"").contains("\"exitCode\":0").contains("thread_name");
+	}
+}
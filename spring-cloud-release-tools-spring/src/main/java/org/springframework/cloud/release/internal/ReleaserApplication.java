@@ -19,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.release.internal.spring.ReleaserDaemon;
 import org.springframework.cloud.release.internal.spring.SpringReleaser;
 
 @SpringBootApplication
@@ -29,9 +30,15 @@ public class ReleaserApplication implements CommandLineRunner {
 	}
 
 	@Autowired SpringReleaser releaser;
+	@Autowired ReleaserDaemon daemon;
+	@Autowired ReleaserProperties properties;
 
 	@Override public void run(String... strings) throws Exception {
-		this.releaser.release();
-		System.exit(0);
+		if (this.properties.getDaemon().isEnabled()) {
+			this.daemon.start();
+			this.daemon.awaitShutdown();
+			System.exit(0);
+		}
+		System.exit(this.releaser.release().exitCode());
 	}
 }
@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.spring;
+
+import java.lang.invoke.MethodHandles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+/**
+ * Marks all application beans as lazy when {@code releaser.fast-start.lazy-init}
+ * is set. The property is read straight from the {@link Environment} since the
+ * configuration properties aren't bound yet at this point.
+ *
+ * @author Marcin Grzejszczak
+ */
+class LazyInitBeanFactoryPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	static final String LAZY_INIT_PROPERTY = "releaser.fast-start.lazy-init";
+
+	private Environment environment;
+
+	@Override public void setEnvironment(Environment environment) {
+		this.environment = environment;
+	}
+
+	@Override public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+		if (!this.environment.getProperty(LAZY_INIT_PROPERTY, Boolean.class, false)) {
+			return;
+		}
+		int lazyBeans = 0;
+		for (String name : beanFactory.getBeanDefinitionNames()) {
+			BeanDefinition definition = beanFactory.getBeanDefinition(name);
+			// infrastructure beans have to be there before anything else gets created
+			if (definition.getRole() == BeanDefinition.ROLE_APPLICATION && !definition.isLazyInit()) {
+				definition.setLazyInit(true);
+				lazyBeans++;
+			}
+		}
+		log.debug("Marked [{}] beans as lazy", lazyBeans);
+	}
+}
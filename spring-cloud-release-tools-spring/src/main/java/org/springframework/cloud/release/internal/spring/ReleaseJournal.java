@@ -0,0 +1,285 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.spring;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+import javax.json.stream.JsonGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+
+/**
+ * Journal of a release stored in {@code .releaser/releaser-journal.json} of the released
+ * project. The journal is kept outside of {@code target} so that it survives a
+ * {@code clean} of the build that failed. The {@code .releaser} folder ignores itself
+ * so that the journal never gets committed together with the project. Every
+ * completed task gets recorded together with the original version of the project,
+ * the released version and tag (once known) and the state the project was left in
+ * (the {@code HEAD} commit and the version from the pom).
+ *
+ * A journal gets resumed only if the project is still in the state recorded by the
+ * last completed task. Otherwise the release starts over. The journal gets loaded
+ * without the versions from Spring Cloud Release, so that the tasks that don't need
+ * the versions don't have to wait for them. Whether the journal was stored for the
+ * same release is checked once the versions are there.
+ *
+ * @author Marcin Grzejszczak
+ */
+class ReleaseJournal {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+	static final String DIRECTORY = ".releaser";
+	static final String FILE_NAME = "releaser-journal.json";
+	private static final String GIT_IGNORE = ".gitignore";
+
+	private final File file;
+	private final ProjectVersion originalVersion;
+	private final ProjectVersion currentVersion;
+	private final List<Entry> entries;
+	private ProjectVersion releaseVersion;
+
+	private ReleaseJournal(File file, ProjectVersion originalVersion, ProjectVersion currentVersion,
+			ProjectVersion releaseVersion, List<Entry> entries) {
+		this.file = file;
+		this.originalVersion = originalVersion;
+		this.currentVersion = currentVersion;
+		this.releaseVersion = releaseVersion;
+		this.entries = new ArrayList<>(entries);
+	}
+
+	/**
+	 * Journal that neither remembers nor persists anything
+	 */
+	static ReleaseJournal disabled(ProjectVersion originalVersion) {
+		return new ReleaseJournal(null, originalVersion, originalVersion, null, Collections.emptyList());
+	}
+
+	/**
+	 * Reads the journal of the project. If the journal was stored for a different
+	 * project or the project is no longer at the recorded commit and version a new
+	 * journal is returned.
+	 *
+	 * @param project - released project
+	 * @param currentVersion - version currently present in the pom
+	 * @param head - SHA of the current {@code HEAD} commit
+	 */
+	static ReleaseJournal load(File project, ProjectVersion currentVersion, String head) {
+		File file = new File(new File(project, DIRECTORY), FILE_NAME);
+		ReleaseJournal fresh = new ReleaseJournal(file, currentVersion, currentVersion, null,
+				Collections.emptyList());
+		if (!file.exists()) {
+			return fresh;
+		}
+		ReleaseJournal stored;
+		try {
+			stored = read(file, currentVersion);
+		}
+		catch (IOException | JsonException | ClassCastException | NullPointerException e) {
+			log.warn("Failed to read the release journal [{}]. Will start the release from the beginning", file, e);
+			return fresh;
+		}
+		String mismatch = stored.mismatch(currentVersion, head);
+		if (mismatch != null) {
+			log.warn("The release journal [{}] can't be resumed since {}. Will start the release from the beginning",
+					file, mismatch);
+			return fresh;
+		}
+		log.info("Resuming the release of [{}] from the journal [{}]. The completed tasks {} will be skipped",
+				stored.originalVersion.projectName, file, stored.completedTasks());
+		return stored;
+	}
+
+	private String mismatch(ProjectVersion currentVersion, String head) {
+		if (!this.originalVersion.projectName.equals(currentVersion.projectName)) {
+			return "it was stored for the project [" + this.originalVersion.projectName + "]";
+		}
+		if (this.entries.isEmpty()) {
+			return "no task has been completed";
+		}
+		Entry last = this.entries.get(this.entries.size() - 1);
+		if (!Objects.equals(last.head, head)) {
+			return "the HEAD commit is [" + head + "] whereas [" + last.head + "] was recorded";
+		}
+		if (!last.version.equals(currentVersion.version)) {
+			return "the project version is [" + currentVersion.version + "] whereas ["
+					+ last.version + "] was recorded";
+		}
+		return null;
+	}
+
+	/**
+	 * Binds the journal to the version released from Spring Cloud Release. A journal
+	 * stored for a different release can't be resumed, in which case a new journal
+	 * is returned.
+	 *
+	 * @param releaseVersion - version of the project from Spring Cloud Release
+	 * @return journal of the release of the given version
+	 */
+	ReleaseJournal forRelease(ProjectVersion releaseVersion) {
+		if (this.releaseVersion == null || !isEnabled()) {
+			this.releaseVersion = releaseVersion;
+			return this;
+		}
+		if (this.releaseVersion.version.equals(releaseVersion.version)) {
+			return this;
+		}
+		log.warn("The release journal [{}] can't be resumed since it was stored for the release of [{}] "
+				+ "whereas [{}] is being released. Will start the release from the beginning", this.file,
+				this.releaseVersion.version, releaseVersion.version);
+		return new ReleaseJournal(this.file, this.currentVersion, this.currentVersion, releaseVersion,
+				Collections.emptyList());
+	}
+
+	boolean isEnabled() {
+		return this.file != null;
+	}
+
+	/**
+	 * Version of the project from before the release. When resuming it can't be read
+	 * from the pom since the pom has already been updated.
+	 */
+	ProjectVersion originalVersion() {
+		return this.originalVersion;
+	}
+
+	boolean isCompleted(String task) {
+		return this.entries.stream().anyMatch(entry -> entry.task.equals(task));
+	}
+
+	List<String> completedTasks() {
+		return this.entries.stream().map(entry -> entry.task).collect(Collectors.toList());
+	}
+
+	/**
+	 * Records a completed task and stores the journal
+	 *
+	 * @param task - header of the completed task
+	 * @param head - SHA of the {@code HEAD} commit after the task was completed
+	 * @param version - version from the pom after the task was completed
+	 */
+	void completed(String task, String head, String version) {
+		if (!isEnabled()) {
+			return;
+		}
+		this.entries.add(new Entry(task, head, version, System.currentTimeMillis()));
+		try {
+			write();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to store the release journal [" + this.file + "]", e);
+		}
+	}
+
+	private void write() throws IOException {
+		JsonArrayBuilder tasks = Json.createArrayBuilder();
+		for (Entry entry : this.entries) {
+			JsonObjectBuilder task = Json.createObjectBuilder()
+					.add("task", entry.task)
+					.add("version", entry.version)
+					.add("completedAt", entry.completedAt);
+			if (entry.head != null) {
+				task.add("head", entry.head);
+			}
+			tasks.add(task);
+		}
+		JsonObjectBuilder journal = Json.createObjectBuilder()
+				.add("project", this.originalVersion.projectName)
+				.add("originalVersion", this.originalVersion.version);
+		if (this.releaseVersion != null) {
+			journal.add("releaseVersion", this.releaseVersion.version);
+			if (!this.releaseVersion.isSnapshot()) {
+				journal.add("tag", "v" + this.releaseVersion.version);
+			}
+		}
+		journal.add("tasks", tasks);
+		Path target = this.file.toPath();
+		createIgnoredDirectory(target.getParent());
+		Path tmp = target.resolveSibling(FILE_NAME + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+				JsonWriter json = Json.createWriterFactory(
+						Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, true)).createWriter(writer)) {
+			json.writeObject(journal.build());
+		}
+		Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Creates the {@value #DIRECTORY} folder of a project together with a {@code .gitignore}
+	 * that makes git ignore everything in it
+	 */
+	static void createIgnoredDirectory(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		Path gitIgnore = directory.resolve(GIT_IGNORE);
+		if (!Files.exists(gitIgnore)) {
+			Files.write(gitIgnore, "*\n".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static ReleaseJournal read(File file, ProjectVersion currentVersion) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+				JsonReader json = Json.createReader(reader)) {
+			JsonObject journal = json.readObject();
+			String project = journal.getString("project");
+			List<Entry> entries = new ArrayList<>();
+			for (JsonValue value : journal.getJsonArray("tasks")) {
+				JsonObject task = (JsonObject) value;
+				entries.add(new Entry(task.getString("task"), task.getString("head", null),
+						task.getString("version"), task.getJsonNumber("completedAt").longValue()));
+			}
+			String releaseVersion = journal.getString("releaseVersion", null);
+			return new ReleaseJournal(file, new ProjectVersion(project, journal.getString("originalVersion")),
+					currentVersion, releaseVersion != null ? new ProjectVersion(project, releaseVersion) : null,
+					entries);
+		}
+	}
+
+	private static class Entry {
+		final String task;
+		final String head;
+		final String version;
+		final long completedAt;
+
+		Entry(String task, String head, String version, long completedAt) {
+			this.task = task;
+			this.head = head;
+			this.version = version;
+			this.completedAt = completedAt;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.spring;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.cloud.release.internal.ReleaserProperties;
+
+/**
+ * Thin client of a running releaser daemon. Doesn't start any Spring context so it
+ * returns as soon as the daemon has answered.
+ *
+ * <pre>
+ * java -cp releaser.jar -Dloader.main=org.springframework.cloud.release.internal.spring.ReleaserClient \
+ *     org.springframework.boot.loader.PropertiesLauncher "BUILD PROJECT" 4
+ * </pre>
+ *
+ * Pass {@code status}, {@code refresh} or {@code shutdown} to control the daemon or
+ * task references (numbers from the menu or headers) to run them. The port can be
+ * changed via {@code --port=<port>} and the directory with the token of the daemon via
+ * {@code --token-directory=<directory>}. The exit code is the one of the tasks.
+ *
+ * @author Marcin Grzejszczak
+ */
+public class ReleaserClient {
+
+	static final int SUCCESS = 0;
+	static final int FAILURE = 1;
+	static final int WRONG_USAGE = 2;
+	static final int NO_DAEMON = 3;
+
+	public static void main(String[] args) {
+		System.exit(new ReleaserClient().run(args));
+	}
+
+	int run(String... args) {
+		ReleaserProperties.Daemon defaults = new ReleaserProperties.Daemon();
+		int port = defaults.getPort();
+		String tokenDirectory = defaults.getTokenDirectory();
+		List<String> commands = new ArrayList<>();
+		for (String arg : args) {
+			if (arg.startsWith("--port=")) {
+				port = Integer.parseInt(arg.substring("--port=".length()));
+			} else if (arg.startsWith("--token-directory=")) {
+				tokenDirectory = arg.substring("--token-directory=".length());
+			} else {
+				commands.add(arg);
+			}
+		}
+		if (commands.isEmpty()) {
+			System.err.println("Usage: <client> [--port=<port>] [--token-directory=<directory>] "
+					+ "status | refresh | shutdown | <task>...");
+			return WRONG_USAGE;
+		}
+		String command = commands.get(0);
+		File tokenFile = ReleaserDaemon.tokenFile(new File(tokenDirectory), port);
+		if (!tokenFile.isFile()) {
+			System.err.println("There's no token of a releaser daemon listening on port [" + port + "] under ["
+					+ tokenFile + "]. Start it with --releaser.daemon.enabled=true");
+			return NO_DAEMON;
+		}
+		try {
+			String token = new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+			if (commands.size() == 1 && "status".equals(command)) {
+				return send(port, token, "GET", "/status", null);
+			} else if (commands.size() == 1 && ("refresh".equals(command) || "shutdown".equals(command))) {
+				return send(port, token, "POST", "/" + command, "");
+			}
+			return send(port, token, "POST", "/tasks", String.join("\n", commands));
+		}
+		catch (ConnectException e) {
+			System.err.println("There's no releaser daemon listening on port [" + port + "]. "
+					+ "Start it with --releaser.daemon.enabled=true");
+			return NO_DAEMON;
+		}
+		catch (IOException e) {
+			System.err.println("Failed to talk to the releaser daemon: " + e);
+			return FAILURE;
+		}
+	}
+
+	private int send(int port, String token, String method, String path, String body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+		connection.setRequestMethod(method);
+		connection.setRequestProperty(ReleaserDaemon.TOKEN_HEADER, token);
+		if (body != null) {
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			connection.setDoOutput(true);
+			connection.setFixedLengthStreamingMode(bytes.length);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(bytes);
+			}
+		}
+		int status = connection.getResponseCode();
+		boolean success = status >= 200 && status < 300;
+		String response = read(success ? connection.getInputStream() : connection.getErrorStream());
+		(success ? System.out : System.err).print(response);
+		if (!success) {
+			return status == 400 ? WRONG_USAGE : FAILURE;
+		}
+		String exitCode = connection.getHeaderField(ReleaserDaemon.EXIT_CODE_HEADER);
+		return exitCode != null ? Integer.parseInt(exitCode) : SUCCESS;
+	}
+
+	private String read(InputStream stream) throws IOException {
+		if (stream == null) {
+			return "";
+		}
+		try (InputStream input = stream) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
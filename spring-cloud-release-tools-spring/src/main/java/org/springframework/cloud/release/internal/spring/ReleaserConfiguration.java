@@ -34,4 +34,12 @@ class ReleaserConfiguration {
 		return new SpringReleaser(new Releaser(pomUpdater, new ProjectBuilder(properties, pomUpdater),
 				new ProjectGitUpdater(properties), new TemplateGenerator(properties)), properties);
 	}
+
+	@Bean ReleaserDaemon releaserDaemon(SpringReleaser releaser, ReleaserProperties properties) {
+		return new ReleaserDaemon(releaser, properties);
+	}
+
+	@Bean static LazyInitBeanFactoryPostProcessor lazyInitBeanFactoryPostProcessor() {
+		return new LazyInitBeanFactoryPostProcessor();
+	}
 }
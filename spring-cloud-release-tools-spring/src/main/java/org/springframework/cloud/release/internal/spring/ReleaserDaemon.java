@@ -0,0 +1,362 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.spring;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaseReport;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.tracing.Tracer;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Keeps the releaser running and accepts commands over HTTP on the loopback interface.
+ * The application context, the versions from Spring Cloud Release and the state of
+ * the project (see {@link WarmState}) survive between the commands, so single tasks
+ * don't pay for the start up over and over again.
+ *
+ * <ul>
+ *     <li>{@code GET /status} - what's currently known about the project</li>
+ *     <li>{@code POST /tasks} - runs the tasks passed in the body, one reference per line</li>
+ *     <li>{@code POST /refresh} - retrieves the versions from Spring Cloud Release again</li>
+ *     <li>{@code POST /shutdown} - stops the daemon</li>
+ * </ul>
+ *
+ * Only one command runs at a time. The exit code of the tasks is returned in the
+ * {@value #EXIT_CODE_HEADER} header.
+ *
+ * Every request has to carry the random token the daemon has written on start to a
+ * file readable only by the owner (see {@link #tokenFile(File, int)}) in the
+ * {@value #TOKEN_HEADER} header. Since any web page can send requests to the
+ * loopback interface, requests with an {@code Origin} header or with a {@code Host}
+ * other than the loopback one (DNS rebinding) are rejected as well.
+ *
+ * @author Marcin Grzejszczak
+ */
+public class ReleaserDaemon {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	static final String EXIT_CODE_HEADER = "X-Releaser-Exit-Code";
+	static final String TOKEN_HEADER = "X-Releaser-Token";
+
+	private final SpringReleaser releaser;
+	private final ReleaserProperties properties;
+	private final ReentrantLock commandLock = new ReentrantLock();
+	private final CountDownLatch stopped = new CountDownLatch(1);
+	private HttpServer server;
+	private ExecutorService executor;
+	private WarmState state;
+	private File tokenFile;
+	private String token;
+
+	public ReleaserDaemon(SpringReleaser releaser, ReleaserProperties properties) {
+		this.releaser = releaser;
+		this.properties = properties;
+	}
+
+	/**
+	 * @return port on which the daemon listens
+	 */
+	public int start() throws IOException {
+		Tracer.enable(this.properties.getTracing().isEnabled());
+		this.state = this.releaser.warmState();
+		this.state.watch();
+		this.state.versionsRetrieval();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+				this.properties.getDaemon().getPort()), 0);
+		int port = this.server.getAddress().getPort();
+		this.token = newToken();
+		this.tokenFile = tokenFile(new File(this.properties.getDaemon().getTokenDirectory()), port);
+		try {
+			writeToken(this.tokenFile, this.token);
+		}
+		catch (IOException e) {
+			this.server.stop(0);
+			this.state.close();
+			throw e;
+		}
+		this.server.createContext("/status", handler("GET", this::status));
+		this.server.createContext("/tasks", handler("POST", this::tasks));
+		this.server.createContext("/refresh", handler("POST", this::refresh));
+		this.server.createContext("/shutdown", handler("POST", this::shutdown));
+		this.executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "releaser-daemon");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server.setExecutor(this.executor);
+		this.server.start();
+		log.info("Releaser daemon for [{}] is listening on [{}]", this.state.project, port);
+		return port;
+	}
+
+	/**
+	 * @return file with the token of the daemon listening on the given port
+	 */
+	static File tokenFile(File directory, int port) {
+		return new File(directory, "daemon-" + port + ".token");
+	}
+
+	private static String newToken() {
+		byte[] bytes = new byte[32];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder token = new StringBuilder();
+		for (byte b : bytes) {
+			token.append(String.format("%02x", b));
+		}
+		return token.toString();
+	}
+
+	/**
+	 * The token gets written to a temporary file that is readable only by the owner
+	 * from the start and then moved in place, so it's never readable by others
+	 */
+	private static void writeToken(File file, String token) throws IOException {
+		Path directory = Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+		boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+		FileAttribute<?>[] ownerOnly = posix ? new FileAttribute<?>[] {
+				PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")) } :
+				new FileAttribute<?>[0];
+		Path temp = Files.createTempFile(directory, file.getName(), ".part", ownerOnly);
+		try {
+			Files.write(temp, token.getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	public void awaitShutdown() throws InterruptedException {
+		this.stopped.await();
+	}
+
+	public synchronized void stop() {
+		if (this.stopped.getCount() == 0) {
+			return;
+		}
+		this.server.stop(0);
+		this.executor.shutdownNow();
+		if (!this.tokenFile.delete()) {
+			log.warn("Failed to delete the token file [{}]", this.tokenFile);
+		}
+		try {
+			this.state.close();
+		}
+		catch (IOException e) {
+			log.warn("Failed to stop watching the project", e);
+		}
+		log.info("Releaser daemon has stopped");
+		this.stopped.countDown();
+	}
+
+	private Response status(String body) {
+		VersionsRetrieval retrieval = this.state.versionsRetrieval();
+		String versions = !retrieval.isDone() ? "retrieving" : retrieval.hasFailed() ? "failed" : "retrieved";
+		return Response.ok("project=" + this.state.project + "\n"
+				+ "version=" + this.state.projectVersion() + "\n"
+				+ "head=" + this.state.headCommit() + "\n"
+				+ "branch=" + this.properties.getPom().getBranch() + "\n"
+				+ "versions=" + versions + "\n");
+	}
+
+	private Response tasks(String body) {
+		List<String> references = new ArrayList<>();
+		for (String line : body.split("[\\n,]")) {
+			if (!line.trim().isEmpty()) {
+				references.add(line.trim());
+			}
+		}
+		if (references.isEmpty()) {
+			return new Response(400, "Pass at least one task, either a number from the menu or a header\n");
+		}
+		try {
+			this.releaser.tasks(references);
+		}
+		catch (IllegalStateException e) {
+			return new Response(400, e.getMessage() + "\n");
+		}
+		if (!this.commandLock.tryLock()) {
+			return new Response(409, "Another command is running. Try again once it's done\n");
+		}
+		try {
+			log.info("Running tasks {}", references);
+			ReleaseReport report = this.releaser.runTasks(references, this.state);
+			return Response.ok(report.summary()).exitCode(report.exitCode());
+		}
+		finally {
+			this.commandLock.unlock();
+		}
+	}
+
+	private Response refresh(String body) {
+		if (!this.commandLock.tryLock()) {
+			return new Response(409, "Another command is running. Try again once it's done\n");
+		}
+		try {
+			this.state.refresh();
+			return Response.ok("Retrieving the versions for [" + this.properties.getPom().getBranch() + "] again\n");
+		}
+		finally {
+			this.commandLock.unlock();
+		}
+	}
+
+	/**
+	 * The daemon stops only once the response has been sent, otherwise stopping the
+	 * server could cut the response off
+	 */
+	private Response shutdown(String body) {
+		return Response.ok("Stopping the releaser daemon\n")
+				.afterResponse(() -> new Thread(this::stop, "releaser-daemon-shutdown").start());
+	}
+
+	private HttpHandler handler(String method, CommandHandler handler) {
+		return exchange -> {
+			Response response;
+			try {
+				Response rejection = rejection(exchange.getRequestHeaders());
+				if (rejection != null) {
+					log.warn("Rejected [{} {}] from [{}]: {}", exchange.getRequestMethod(), exchange.getRequestURI(),
+							exchange.getRemoteAddress(), rejection.body.trim());
+					response = rejection;
+				} else if (!method.equals(exchange.getRequestMethod())) {
+					response = new Response(405, "Use " + method + "\n");
+				} else {
+					response = handler.handle(body(exchange));
+				}
+			}
+			catch (RuntimeException e) {
+				log.error("Failed to handle [{} {}]", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+				response = new Response(500, e + "\n");
+			}
+			respond(exchange, response);
+			if (response.afterResponse != null) {
+				response.afterResponse.run();
+			}
+		};
+	}
+
+	private Response rejection(Headers headers) {
+		if (headers.containsKey("Origin")) {
+			return new Response(403, "Requests sent by browsers are not accepted\n");
+		}
+		if (!isLoopbackHost(headers.getFirst("Host"))) {
+			return new Response(403, "Send the commands to localhost\n");
+		}
+		String token = headers.getFirst(TOKEN_HEADER);
+		if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+				this.token.getBytes(StandardCharsets.UTF_8))) {
+			return new Response(401, "Pass the token from [" + this.tokenFile + "] in the ["
+					+ TOKEN_HEADER + "] header\n");
+		}
+		return null;
+	}
+
+	/**
+	 * @param host - value of the {@code Host} header, with or without the port
+	 */
+	static boolean isLoopbackHost(String host) {
+		if (host == null) {
+			return false;
+		}
+		String name = host.startsWith("[") ? host.substring(0, host.indexOf(']') + 1) :
+				host.contains(":") ? host.substring(0, host.indexOf(':')) : host;
+		return "localhost".equalsIgnoreCase(name) || "127.0.0.1".equals(name) || "[::1]".equals(name);
+	}
+
+	private String body(HttpExchange exchange) throws IOException {
+		try (InputStream stream = exchange.getRequestBody()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private void respond(HttpExchange exchange, Response response) throws IOException {
+		byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+		if (response.exitCode != null) {
+			exchange.getResponseHeaders().add(EXIT_CODE_HEADER, String.valueOf(response.exitCode));
+		}
+		exchange.sendResponseHeaders(response.status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private interface CommandHandler {
+		Response handle(String body);
+	}
+
+	private static class Response {
+		final int status;
+		final String body;
+		Integer exitCode;
+		Runnable afterResponse;
+
+		Response(int status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		static Response ok(String body) {
+			return new Response(200, body);
+		}
+
+		Response exitCode(int exitCode) {
+			this.exitCode = exitCode;
+			return this;
+		}
+
+		Response afterResponse(Runnable afterResponse) {
+			this.afterResponse = afterResponse;
+			return this;
+		}
+	}
+}
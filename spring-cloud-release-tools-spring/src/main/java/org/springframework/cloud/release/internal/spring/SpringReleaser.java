@@ -1,18 +1,30 @@
 package org.springframework.cloud.release.internal.spring;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.ReleaseReport;
 import org.springframework.cloud.release.internal.Releaser;
 import org.springframework.cloud.release.internal.ReleaserProperties;
 import org.springframework.cloud.release.internal.pom.ProjectVersion;
 import org.springframework.cloud.release.internal.pom.Projects;
+import org.springframework.cloud.release.internal.pom.VersionsConsistency;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.TaskRecording;
+import org.springframework.cloud.release.internal.tracing.Tracer;
 
 import static org.springframework.cloud.release.internal.spring.Task.task;
 
@@ -26,6 +38,7 @@ public class SpringReleaser {
 
 	private final Releaser releaser;
 	private final ReleaserProperties properties;
+	private VersionsRetrieval versionsRetrieval;
 
 	public SpringReleaser(Releaser releaser, ReleaserProperties properties) {
 		this.releaser = releaser;
@@ -35,34 +48,31 @@ public class SpringReleaser {
 	private final List<Task> TASKS = Stream.of(
 			task("UPDATING POMS",
 					"Update poms with versions from Spring Cloud Release",
-					args -> args.releaser.updateProjectFromScRelease(args.project, args.projects)),
+					args -> args.releaser.updateProjectFromScRelease(args.project, args.projects())),
 			task("BUILD PROJECT",
 					"Build the project",
 					args -> args.releaser.buildProject()),
 			task("COMMITTING (ALL) AND PUSHING TAGS (NON-SNAPSHOTS)",
 					"Commit, tag and push the tag",
-					args -> args.releaser.commitAndPushTags(args.project, args.versionFromScRelease)),
+					args -> args.releaser.commitAndPushTags(args.project, args.versionFromScRelease())),
 			task("ARTIFACT DEPLOYMENT",
 					"Deploy the artifacts to Artifactory",
 					args -> args.releaser.deploy()),
 			task("PUBLISHING DOCS",
 					"Publish the docs",
-					args -> args.releaser.publishDocs(args.versionFromScRelease)),
+					args -> args.releaser.publishDocs(args.versionFromScRelease())),
 			task("REVERTING CHANGES & BUMPING VERSION (RELEASE ONLY)",
 					"Go back to snapshots and bump originalVersion by patch",
-					args -> args.releaser.rollbackReleaseVersion(args.project, args.originalVersion, args.versionFromScRelease)),
+					args -> args.releaser.rollbackReleaseVersion(args.project, args.originalVersion(), args.versionFromScRelease())),
 			task("PUSHING CHANGES",
 					"Push the commits",
 					args -> args.releaser.pushCurrentBranch(args.project)),
 			task("CLOSING MILESTONE",
 					"Close the milestone at Github",
-					args -> args.releaser.closeMilestone(args.versionFromScRelease)),
+					args -> args.releaser.closeMilestone(args.versionFromScRelease())),
 			task("CREATING TEMPLATES",
 					"Create email / tweet etc. templates",
-					args -> {
-						args.releaser.createEmail(args.versionFromScRelease);
-						args.releaser.createBlog(args.versionFromScRelease, args.projects);
-					})
+					args -> args.releaser.createTemplates(args.versionFromScRelease(), args.projects()))
 	).collect(Collectors.toList());
 
 	private final List<Task> COMPOSITE_TASKS = Stream.of(
@@ -79,21 +89,237 @@ public class SpringReleaser {
 			TASKS
 	).flatMap(List::stream).collect(Collectors.toList());
 
-	public void release() {
+	/**
+	 * @return report of the executed tasks
+	 */
+	public ReleaseReport release() {
+		Tracer.enable(this.properties.getTracing().isEnabled());
+		Tracer.reset();
+		try (Span span = Tracer.span("releaser.release")) {
+			try {
+				return doRelease();
+			}
+			catch (RuntimeException e) {
+				span.error(e);
+				throw e;
+			}
+		}
+		finally {
+			exportTrace();
+		}
+	}
+
+	private ReleaseReport doRelease() {
+		ReleaseReport report = this.releaser.report();
+		if (this.properties.getDiff().isEnabled()) {
+			this.releaser.diffVersionsFromScRelease(this.properties.getDiff().getFrom(),
+					this.properties.getDiff().getTo());
+			return report;
+		}
+		if (this.properties.getConsistency().isEnabled()) {
+			return checkVersionsConsistency(report);
+		}
+		if (this.properties.getGit().isCloseTrainMilestones()) {
+			return closeTrainMilestones(report);
+		}
+		if (this.properties.getFastStart().isMenuOnly()) {
+			log.info(buildOptionsText().toString());
+			logTimeToMenu();
+			return report;
+		}
 		printVersionRetreival();
 		String workingDir = this.properties.getWorkingDir();
 		File project = new File(workingDir);
 		ProjectVersion originalVersion = new ProjectVersion(project);
-		Projects projects = this.releaser.retrieveVersionsFromSCRelease();
-		ProjectVersion versionFromScRelease = projects.forFile(project);
+		this.versionsRetrieval = VersionsRetrieval.start(this.releaser::retrieveVersionsFromSCRelease);
+		Supplier<ReleaseJournal> journal = () ->
+				journal(project, originalVersion, () -> this.releaser.headCommit(project));
+		if (this.properties.getBatch().isEnabled()) {
+			Args args = new Args(this.releaser, project, this.versionsRetrieval, this.properties, false, journal);
+			return releaseInBatchMode(args, tasks(this.properties.getBatch().getTasks()),
+					new HashSet<>(tasks(this.properties.getBatch().getSkip())));
+		}
 		log.info(buildOptionsText().toString());
+		logTimeToMenu();
 		int chosenOption = chosenOption();
 		log.info("\n\n\nYou chose [{}]: [{}]\n\n\n", chosenOption, ALL_TASKS.get(chosenOption).description);
 		boolean verbose = chosenOption == 1;
 		Task task = taskFromOption(chosenOption);
-		Args args = new Args(this.releaser, project, projects, originalVersion, versionFromScRelease,
-				this.properties, verbose);
-		task.consumer.accept(args);
+		boolean composite = COMPOSITE_TASKS.contains(task);
+		Args args = new Args(this.releaser, project, this.versionsRetrieval, this.properties, verbose,
+				composite ? journal : () -> ReleaseJournal.disabled(originalVersion));
+		try {
+			if (composite) {
+				task.consumer.accept(args);
+			} else {
+				task.execute(args);
+			}
+		}
+		catch (RuntimeException e) {
+			log.error("Task [{}] has failed", task.header, e);
+		}
+		log.info(report.summary());
+		return report;
+	}
+
+	private void exportTrace() {
+		if (!Tracer.isEnabled()) {
+			return;
+		}
+		File file = new File(this.properties.getTracing().getFile());
+		Tracer.export(file.isAbsolute() ? file : new File(this.properties.getWorkingDir(), file.getPath()));
+	}
+
+	/**
+	 * The journal lets a failed full or batch release continue from where it has
+	 * stopped. Tasks picked one by one from the menu don't consult it. A disabled
+	 * journal reads neither the journal file nor the {@code HEAD} commit.
+	 */
+	private ReleaseJournal journal(File project, ProjectVersion originalVersion, Supplier<String> headCommit) {
+		if (!this.properties.getJournal().isEnabled()) {
+			return ReleaseJournal.disabled(originalVersion);
+		}
+		return ReleaseJournal.load(project, originalVersion, headCommit.get());
+	}
+
+	/**
+	 * @return state of the working directory to be kept between the commands of a daemon
+	 */
+	WarmState warmState() {
+		return new WarmState(new File(this.properties.getWorkingDir()),
+				this.releaser::retrieveVersionsFromSCRelease, this.releaser::headCommit);
+	}
+
+	/**
+	 * Runs the tasks like in the batch mode, but takes the versions, the original version
+	 * and the {@code HEAD} commit from the warm state instead of resolving them again.
+	 * Each command gets its own report and its own trace. Since the tasks may have
+	 * changed the pom or moved {@code HEAD}, both get dropped from the warm state once
+	 * the command is done, without waiting for the watcher to notice.
+	 *
+	 * @param references - indices from the menu or headers of tasks
+	 */
+	ReleaseReport runTasks(List<String> references, WarmState state) {
+		List<Task> tasks = tasks(references);
+		this.releaser.newReport();
+		Tracer.reset();
+		try (Span span = Tracer.span("releaser.daemon-command").tag("tasks", references.toString())) {
+			try {
+				ProjectVersion originalVersion = state.projectVersion();
+				Supplier<ReleaseJournal> journal = () -> journal(state.project, originalVersion, state::headCommit);
+				Args args = new Args(this.releaser, state.project, state.versionsRetrieval(), this.properties,
+						false, journal);
+				return releaseInBatchMode(args, tasks, new HashSet<>());
+			}
+			catch (RuntimeException e) {
+				span.error(e);
+				throw e;
+			}
+		}
+		finally {
+			state.invalidateProject();
+			exportTrace();
+		}
+	}
+
+	/**
+	 * Inconsistent versions are reported as a failure so that the exit code can break a CI build
+	 */
+	private ReleaseReport checkVersionsConsistency(ReleaseReport report) {
+		String task = "CHECKING VERSIONS CONSISTENCY";
+		long start = System.currentTimeMillis();
+		VersionsConsistency consistency = this.releaser.checkVersionsConsistency(
+				new File(this.properties.getConsistency().getDirectory()),
+				this.releaser.retrieveVersionsFromSCRelease());
+		long duration = System.currentTimeMillis() - start;
+		if (consistency.isConsistent()) {
+			report.succeeded(task, duration);
+		} else {
+			report.failed(task, duration, new IllegalStateException(
+					"Versions in the poms disagree with Spring Cloud Release"));
+		}
+		log.info(report.summary());
+		return report;
+	}
+
+	/**
+	 * Closes the milestones of all released projects of the train at once instead of
+	 * closing the milestone of the current project only
+	 */
+	private ReleaseReport closeTrainMilestones(ReleaseReport report) {
+		String task = "CLOSING MILESTONES OF THE RELEASE TRAIN";
+		long start = System.currentTimeMillis();
+		try {
+			this.releaser.closeMilestones(this.releaser.retrieveVersionsFromSCRelease());
+			report.succeeded(task, System.currentTimeMillis() - start);
+		}
+		catch (RuntimeException e) {
+			log.error("Task [{}] has failed", task, e);
+			report.failed(task, System.currentTimeMillis() - start, e);
+		}
+		log.info(report.summary());
+		return report;
+	}
+
+	/**
+	 * Runs the configured tasks one after another without reading anything from the
+	 * console. Stops at the first failed task.
+	 */
+	private ReleaseReport releaseInBatchMode(Args args, List<Task> tasks, Set<Task> skipped) {
+		ReleaseReport report = this.releaser.report();
+		log.info("\n\n\nRunning in batch mode. Will execute {}\n\n\n",
+				tasks.stream().map(task -> task.header).collect(Collectors.toList()));
+		boolean failed = false;
+		for (Task task : tasks) {
+			if (failed) {
+				report.skipped(task.header, "a previous task has failed");
+			} else if (skipped.contains(task)) {
+				log.info("\n\n\n=== {} ===\n\nSkipped\n\n", task.header);
+				report.skipped(task.header, "skipped by configuration");
+			} else {
+				try {
+					task.execute(args);
+				}
+				catch (RuntimeException e) {
+					log.error("Task [{}] has failed", task.header, e);
+					failed = true;
+				}
+			}
+		}
+		log.info(report.summary());
+		return report;
+	}
+
+	/**
+	 * @param references - indices from the menu or headers of tasks
+	 * @return single tasks, composite tasks get replaced by the tasks they consist of
+	 */
+	List<Task> tasks(List<String> references) {
+		List<Task> tasks = new ArrayList<>();
+		for (String reference : references) {
+			Task task = taskFromReference(reference.trim());
+			if (COMPOSITE_TASKS.contains(task)) {
+				tasks.addAll(TASKS);
+			} else {
+				tasks.add(task);
+			}
+		}
+		return tasks;
+	}
+
+	private Task taskFromReference(String reference) {
+		if (reference.matches("[0-9]+")) {
+			int index = Integer.parseInt(reference);
+			if (index < ALL_TASKS.size()) {
+				return ALL_TASKS.get(index);
+			}
+		}
+		return ALL_TASKS.stream()
+				.filter(task -> task.header.equalsIgnoreCase(reference))
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("There's no task [" + reference + "]. "
+						+ "Pass either a number from the menu or one of " + ALL_TASKS.stream()
+						.map(task -> task.header).collect(Collectors.toList())));
 	}
 
 	private StringBuilder buildOptionsText() {
@@ -106,9 +332,15 @@ public class SpringReleaser {
 		return msg;
 	}
 
+	private void logTimeToMenu() {
+		long startTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+		log.info("Menu shown [{}] ms after the JVM start", System.currentTimeMillis() - startTime);
+	}
+
 	private void printVersionRetreival() {
-		log.info("\n\n\n=== RETRIEVING VERSIONS ===\n\nWill clone Spring Cloud Release"
-				+ " to retrieve all versions for the branch [{}]", this.properties.getPom().getBranch());
+		log.info("\n\n\n=== RETRIEVING VERSIONS ===\n\nWill retrieve all versions for the branch [{}]"
+				+ " from [{}] in the background", this.properties.getPom().getBranch(),
+				this.properties.getPom().getVersionSource());
 	}
 
 	private Task taskFromOption(int option) {
@@ -119,6 +351,9 @@ public class SpringReleaser {
 		String input = System.console().readLine();
 		switch (input.toLowerCase()) {
 		case "q":
+			if (this.versionsRetrieval != null) {
+				this.versionsRetrieval.cancel();
+			}
 			System.exit(0);
 		default:
 			return Integer.parseInt(input);
@@ -142,15 +377,64 @@ class Task {
 	}
 
 	void execute(Args args) {
+		if (args.completedInPreviousRun(this.header)) {
+			log.info("\n\n\n=== {} ===\n\nAlready completed in a previous run\n\n", this.header);
+			args.releaser.report().skipped(this.header, "completed in a previous run");
+			return;
+		}
 		boolean verbose = args.verbose;
 		printLog(verbose);
-		if (verbose) {
-			boolean skipStep = skipStep();
-			if (!skipStep) {
+		if (verbose && skipStep()) {
+			args.releaser.report().skipped(this.header, "skipped by the user");
+			return;
+		}
+		long start = System.currentTimeMillis();
+		try (Span span = Tracer.span("task." + this.header);
+				TaskRecording recording = flightRecording(args)) {
+			try {
 				consumer.accept(args);
 			}
-		} else {
-			consumer.accept(args);
+			catch (RuntimeException e) {
+				span.error(e);
+				throw e;
+			}
+			args.releaser.report().succeeded(this.header, System.currentTimeMillis() - start);
+			if (args.journal().isEnabled()) {
+				args.journal().completed(this.header, args.releaser.headCommit(args.project),
+						new ProjectVersion(args.project).version);
+			}
+		}
+		catch (RuntimeException e) {
+			args.releaser.report().failed(this.header, System.currentTimeMillis() - start, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * A recording that can't be started doesn't fail the task, the task just runs
+	 * without it
+	 *
+	 * @return recording dumped once the task is done or {@code null} if recording is off
+	 */
+	private TaskRecording flightRecording(Args args) {
+		ReleaserProperties.Jfr jfr = args.properties.getJfr();
+		if (!jfr.isEnabled()) {
+			return null;
+		}
+		File directory = new File(jfr.getDirectory());
+		if (!directory.isAbsolute()) {
+			directory = new File(args.properties.getWorkingDir(), jfr.getDirectory());
+		}
+		try {
+			Path releaserDirectory = new File(args.properties.getWorkingDir(), ReleaseJournal.DIRECTORY).toPath();
+			if (directory.toPath().startsWith(releaserDirectory)) {
+				ReleaseJournal.createIgnoredDirectory(releaserDirectory);
+			}
+			return TaskRecording.start(this.header, directory, jfr.getSettings());
+		}
+		catch (IOException | RuntimeException e) {
+			log.warn("Failed to start a flight recording. Task [{}] will run without it", this.header, e);
+			return null;
 		}
 	}
 
@@ -176,24 +460,65 @@ class Task {
 	}
 }
 
+/**
+ * Everything that depends on the versions from Spring Cloud Release is resolved
+ * on first access, so that the tasks that don't need the versions don't have to
+ * wait for them. That includes the journal, which gets loaded without the versions
+ * and is bound to the released version once the versions are there.
+ */
 class Args {
 	final Releaser releaser;
 	final File project;
-	final Projects projects;
-	final ProjectVersion originalVersion;
-	final ProjectVersion versionFromScRelease;
 	final ReleaserProperties properties;
 	final boolean verbose;
+	private final VersionsRetrieval versionsRetrieval;
+	private final Supplier<ReleaseJournal> journalLoader;
+	private ReleaseJournal journal;
 
-	Args(Releaser releaser, File project, Projects projects, ProjectVersion originalVersion,
-			ProjectVersion versionFromScRelease, ReleaserProperties properties,
-			boolean verbose) {
+	Args(Releaser releaser, File project, VersionsRetrieval versionsRetrieval, ReleaserProperties properties,
+			boolean verbose, Supplier<ReleaseJournal> journalLoader) {
 		this.releaser = releaser;
 		this.project = project;
-		this.projects = projects;
-		this.originalVersion = originalVersion;
-		this.versionFromScRelease = versionFromScRelease;
+		this.versionsRetrieval = versionsRetrieval;
 		this.properties = properties;
 		this.verbose = verbose;
+		this.journalLoader = journalLoader;
+	}
+
+	Projects projects() {
+		return this.versionsRetrieval.await();
+	}
+
+	ProjectVersion versionFromScRelease() {
+		ProjectVersion version = projects().forFile(this.project);
+		bindJournal(version);
+		return version;
+	}
+
+	ProjectVersion originalVersion() {
+		return journal().originalVersion();
 	}
-}
\ No newline at end of file
+
+	synchronized ReleaseJournal journal() {
+		if (this.journal == null) {
+			this.journal = this.journalLoader.get();
+		}
+		return this.journal;
+	}
+
+	/**
+	 * Only a task that the journal has recorded requires the versions, since the
+	 * journal has to be checked against the release that is being performed
+	 */
+	boolean completedInPreviousRun(String task) {
+		if (!journal().isCompleted(task)) {
+			return false;
+		}
+		versionFromScRelease();
+		return journal().isCompleted(task);
+	}
+
+	private synchronized void bindJournal(ProjectVersion versionFromScRelease) {
+		this.journal = journal().forRelease(versionFromScRelease);
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.spring;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.pom.Projects;
+
+/**
+ * Retrieves the versions from Spring Cloud Release in the background. Cloning and
+ * parsing the release train takes a while and most of that time the user would
+ * otherwise spend looking at the menu anyway.
+ *
+ * @author Marcin Grzejszczak
+ */
+class VersionsRetrieval {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final long PROGRESS_INTERVAL_IN_SECONDS = 5;
+
+	private final CompletableFuture<Projects> projects = new CompletableFuture<>();
+	private final long start = System.currentTimeMillis();
+	private final Thread thread;
+
+	private VersionsRetrieval(Supplier<Projects> retrieval) {
+		this.thread = new Thread(() -> {
+			try {
+				Projects projects = retrieval.get();
+				log.info("Versions from Spring Cloud Release were retrieved in [{}] ms",
+						System.currentTimeMillis() - this.start);
+				this.projects.complete(projects);
+			}
+			catch (Throwable e) {
+				this.projects.completeExceptionally(e);
+			}
+		}, "versions-retrieval");
+		this.thread.setDaemon(true);
+	}
+
+	static VersionsRetrieval start(Supplier<Projects> retrieval) {
+		VersionsRetrieval versionsRetrieval = new VersionsRetrieval(retrieval);
+		versionsRetrieval.thread.start();
+		return versionsRetrieval;
+	}
+
+	/**
+	 * Blocks until the versions are retrieved, logging the progress every few seconds
+	 */
+	Projects await() {
+		boolean logged = false;
+		while (true) {
+			try {
+				return this.projects.get(PROGRESS_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+			}
+			catch (TimeoutException e) {
+				long elapsed = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - this.start);
+				log.info("{} for the versions from Spring Cloud Release. [{}] seconds have passed since "
+						+ "the retrieval has started", logged ? "Still waiting" : "Waiting", elapsed);
+				logged = true;
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the versions", e);
+			}
+			catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException("Failed to retrieve the versions", e.getCause());
+			}
+			catch (CancellationException e) {
+				throw new IllegalStateException("The retrieval of versions was cancelled", e);
+			}
+		}
+	}
+
+	boolean isDone() {
+		return this.projects.isDone();
+	}
+
+	boolean hasFailed() {
+		return this.projects.isCompletedExceptionally();
+	}
+
+	/**
+	 * Stops the retrieval, e.g. when the user quits before it's done
+	 */
+	void cancel() {
+		if (this.projects.cancel(true)) {
+			log.info("Cancelling the retrieval of versions from Spring Cloud Release");
+			this.thread.interrupt();
+		}
+	}
+}
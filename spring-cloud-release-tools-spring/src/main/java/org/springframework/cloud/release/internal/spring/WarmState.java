@@ -0,0 +1,221 @@
+/*
+ *  Copyright 2013-2017 the original author or authors.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.release.internal.spring;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
+
+/**
+ * State of a project that a long running releaser keeps between commands: the versions
+ * from Spring Cloud Release, the parsed root pom and the {@code HEAD} commit. The project
+ * is watched for changes so that only the affected part gets invalidated. Changing the
+ * root pom drops the parsed pom, moving {@code HEAD} or any ref drops the Git state. The
+ * versions from Spring Cloud Release are dropped only on demand.
+ *
+ * The watcher is meant for the changes done outside of the releaser. It can notice
+ * a change seconds later (e.g. the macOS {@link WatchService} polls), so the commands
+ * that change the project themselves call {@link #invalidateProject()} once they're done.
+ *
+ * @author Marcin Grzejszczak
+ */
+class WarmState implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+	private static final String POM_XML = "pom.xml";
+	private static final String GIT_DIR = ".git";
+
+	final File project;
+	private final Supplier<Projects> versionsRetriever;
+	private final Function<File, String> headCommitReader;
+	private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+	private volatile VersionsRetrieval versionsRetrieval;
+	private volatile ProjectVersion projectVersion;
+	private volatile String headCommit;
+	private WatchService watchService;
+
+	WarmState(File project, Supplier<Projects> versionsRetriever, Function<File, String> headCommitReader) {
+		this.project = project;
+		this.versionsRetriever = versionsRetriever;
+		this.headCommitReader = headCommitReader;
+	}
+
+	/**
+	 * Starts the retrieval of versions in the background if there's no retrieval yet
+	 * or the previous one has failed
+	 */
+	synchronized VersionsRetrieval versionsRetrieval() {
+		if (this.versionsRetrieval == null || this.versionsRetrieval.hasFailed()) {
+			this.versionsRetrieval = VersionsRetrieval.start(this.versionsRetriever);
+		}
+		return this.versionsRetrieval;
+	}
+
+	ProjectVersion projectVersion() {
+		ProjectVersion version = this.projectVersion;
+		if (version == null) {
+			version = new ProjectVersion(this.project);
+			this.projectVersion = version;
+		}
+		return version;
+	}
+
+	String headCommit() {
+		String commit = this.headCommit;
+		if (commit == null) {
+			commit = this.headCommitReader.apply(this.project);
+			this.headCommit = commit;
+		}
+		return commit;
+	}
+
+	boolean isProjectVersionCached() {
+		return this.projectVersion != null;
+	}
+
+	boolean isHeadCommitCached() {
+		return this.headCommit != null;
+	}
+
+	/**
+	 * Drops the parsed pom and the {@code HEAD} commit, so that they're read again on
+	 * next access
+	 */
+	void invalidateProject() {
+		this.projectVersion = null;
+		this.headCommit = null;
+	}
+
+	/**
+	 * Drops everything and starts retrieving the versions from Spring Cloud Release again
+	 */
+	synchronized void refresh() {
+		if (this.versionsRetrieval != null) {
+			this.versionsRetrieval.cancel();
+		}
+		this.versionsRetrieval = null;
+		invalidateProject();
+		versionsRetrieval();
+	}
+
+	/**
+	 * Registers the project root and the Git metadata in a {@link WatchService}. The
+	 * events get processed by a daemon thread
+	 */
+	void watch() throws IOException {
+		this.watchService = FileSystems.getDefault().newWatchService();
+		register(this.project.toPath());
+		Path git = this.project.toPath().resolve(GIT_DIR);
+		if (Files.isDirectory(git)) {
+			register(git);
+			registerAll(git.resolve("refs"));
+		}
+		Thread watcher = new Thread(this::processEvents, "releaser-watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+		log.info("Watching [{}] directories of [{}] for changes", this.watchedDirectories.size(), this.project);
+	}
+
+	private void registerAll(Path root) throws IOException {
+		if (!Files.isDirectory(root)) {
+			return;
+		}
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				register(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void register(Path directory) throws IOException {
+		WatchKey key = directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		this.watchedDirectories.put(key, directory);
+	}
+
+	private void processEvents() {
+		try {
+			while (true) {
+				WatchKey key = this.watchService.take();
+				Path directory = this.watchedDirectories.get(key);
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (directory != null && event.context() instanceof Path) {
+						changed(directory, directory.resolve((Path) event.context()), event.kind());
+					} else {
+						// events got lost, nothing can be trusted
+						invalidateProject();
+					}
+				}
+				if (!key.reset()) {
+					this.watchedDirectories.remove(key);
+				}
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e) {
+			log.debug("Stopped watching [{}]", this.project);
+		}
+	}
+
+	private void changed(Path directory, Path path, WatchEvent.Kind<?> kind) {
+		Path git = this.project.toPath().resolve(GIT_DIR);
+		if (path.startsWith(git)) {
+			this.headCommit = null;
+			if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)
+					&& path.startsWith(git.resolve("refs"))) {
+				try {
+					registerAll(path);
+				}
+				catch (IOException e) {
+					log.warn("Failed to watch [{}]", path, e);
+				}
+			}
+		} else if (directory.equals(this.project.toPath()) && POM_XML.equals(path.getFileName().toString())) {
+			this.projectVersion = null;
+		}
+	}
+
+	@Override public void close() throws IOException {
+		if (this.watchService != null) {
+			this.watchService.close();
+		}
+		if (this.versionsRetrieval != null) {
+			this.versionsRetrieval.cancel();
+		}
+	}
+}
@@ -4,6 +4,8 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 
 import org.apache.maven.model.Model;
@@ -13,6 +15,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaseReport;
 import org.springframework.cloud.release.internal.Releaser;
 import org.springframework.cloud.release.internal.ReleaserProperties;
 import org.springframework.cloud.release.internal.git.GitTestUtils;
@@ -125,6 +128,65 @@ public class AcceptanceTests {
 				.contains("I am pleased to announce that the Release Candidate 1 (RC1)");
 	}
 
+	@Test
+	public void should_generate_templates_in_batch_mode_without_reading_the_console() throws Exception {
+		File origin = GitTestUtils.clonedProject(this.tmp.newFolder(), this.springCloudConsulProject);
+		File project = GitTestUtils.clonedProject(this.tmp.newFolder(), tmpFile("spring-cloud-consul"));
+		GitTestUtils.setOriginOnProjectToTmp(origin, project);
+		ReleaserProperties properties = releaserProperties(project, "Dalston.RC1");
+		properties.getBatch().setTasks(Collections.singletonList("creating templates"));
+		SpringReleaser releaser = new SpringReleaser(defaultReleaser("1.2.0.RC1", properties), properties);
+
+		ReleaseReport report = releaser.release();
+
+		then(report.exitCode()).isEqualTo(0);
+		then(report.results()).extracting("task").containsExactly("CREATING TEMPLATES");
+		then(this.gitUpdater.executed).isFalse();
+		then(emailTemplateContents()).contains("Spring Cloud Dalston.RC1 available");
+	}
+
+	@Test
+	public void should_skip_configured_tasks_and_stop_at_the_first_failure_in_batch_mode() throws Exception {
+		File origin = GitTestUtils.clonedProject(this.tmp.newFolder(), this.springCloudConsulProject);
+		File project = GitTestUtils.clonedProject(this.tmp.newFolder(), tmpFile("spring-cloud-consul"));
+		GitTestUtils.setOriginOnProjectToTmp(origin, project);
+		ReleaserProperties properties = releaserProperties(project, "Dalston.RC1");
+		properties.getMaven().setDeployCommand("false");
+		properties.getBatch().setTasks(Arrays.asList("BUILD PROJECT", "5", "CREATING TEMPLATES"));
+		properties.getBatch().setSkip(Collections.singletonList("3"));
+		SpringReleaser releaser = new SpringReleaser(defaultReleaser("1.2.0.RC1", properties), properties);
+
+		ReleaseReport report = releaser.release();
+
+		then(report.exitCode()).isEqualTo(1);
+		then(report.results()).extracting("task")
+				.containsExactly("BUILD PROJECT", "ARTIFACT DEPLOYMENT", "CREATING TEMPLATES");
+		then(report.results()).extracting("status")
+				.containsExactly(ReleaseReport.Status.SKIPPED, ReleaseReport.Status.FAILED, ReleaseReport.Status.SKIPPED);
+	}
+
+	@Test
+	public void should_resume_a_failed_release_from_the_first_incomplete_task() throws Exception {
+		File origin = GitTestUtils.clonedProject(this.tmp.newFolder(), this.springCloudConsulProject);
+		File project = GitTestUtils.clonedProject(this.tmp.newFolder(), tmpFile("spring-cloud-consul"));
+		GitTestUtils.setOriginOnProjectToTmp(origin, project);
+		ReleaserProperties properties = releaserProperties(project, "Dalston.RC1");
+		properties.getMaven().setDeployCommand("false");
+		properties.getBatch().setTasks(Arrays.asList("UPDATING POMS", "BUILD PROJECT", "ARTIFACT DEPLOYMENT"));
+		then(new SpringReleaser(defaultReleaser("1.2.0.RC1", properties), properties).release().exitCode())
+				.isEqualTo(1);
+		properties.getMaven().setDeployCommand("touch deploy");
+
+		ReleaseReport report = new SpringReleaser(defaultReleaser("1.2.0.RC1", properties), properties).release();
+
+		then(report.exitCode()).isEqualTo(0);
+		then(report.results()).extracting("status")
+				.containsExactly(ReleaseReport.Status.SKIPPED, ReleaseReport.Status.SKIPPED, ReleaseReport.Status.SUCCEEDED);
+		then(report.results()).extracting("message")
+				.contains("completed in a previous run");
+		then(new File(new File(project, ReleaseJournal.DIRECTORY), ReleaseJournal.FILE_NAME)).exists();
+	}
+
 	private Iterable<RevCommit> listOfCommits(File project) throws GitAPIException {
 		return GitTestUtils.openGitProject(project).log().call();
 	}
@@ -212,6 +274,7 @@ public class AcceptanceTests {
 		ReleaserProperties releaserProperties = new ReleaserProperties();
 		releaserProperties.getGit().setSpringCloudReleaseGitUrl(file("/projects/spring-cloud-release/").toURI().getPath());
 		releaserProperties.getPom().setBranch(branch);
+		releaserProperties.getManifest().setDirectory(new File(this.temporaryFolder, "manifests").getPath());
 		releaserProperties.setWorkingDir(project.getPath());
 		releaserProperties.getMaven().setBuildCommand("touch build");
 		releaserProperties.getMaven().setDeployCommand("touch deploy");
@@ -0,0 +1,47 @@
+package org.springframework.cloud.release.internal.spring;
+
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class LazyInitBeanFactoryPostProcessorTests {
+
+	DefaultListableBeanFactory beanFactory = beanFactory();
+
+	@Test
+	public void should_mark_application_beans_as_lazy_when_lazy_init_is_on() {
+		postProcess(new MockEnvironment().withProperty(LazyInitBeanFactoryPostProcessor.LAZY_INIT_PROPERTY, "true"));
+
+		then(this.beanFactory.getBeanDefinition("application").isLazyInit()).isTrue();
+		then(this.beanFactory.getBeanDefinition("infrastructure").isLazyInit()).isFalse();
+	}
+
+	@Test
+	public void should_not_change_anything_by_default() {
+		postProcess(new MockEnvironment());
+
+		then(this.beanFactory.getBeanDefinition("application").isLazyInit()).isFalse();
+	}
+
+	private void postProcess(MockEnvironment environment) {
+		LazyInitBeanFactoryPostProcessor postProcessor = new LazyInitBeanFactoryPostProcessor();
+		postProcessor.setEnvironment(environment);
+		postProcessor.postProcessBeanFactory(this.beanFactory);
+	}
+
+	private DefaultListableBeanFactory beanFactory() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerBeanDefinition("application", new RootBeanDefinition(Object.class));
+		RootBeanDefinition infrastructure = new RootBeanDefinition(Object.class);
+		infrastructure.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+		beanFactory.registerBeanDefinition("infrastructure", infrastructure);
+		return beanFactory;
+	}
+}
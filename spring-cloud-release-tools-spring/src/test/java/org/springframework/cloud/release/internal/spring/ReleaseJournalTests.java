@@ -0,0 +1,158 @@
+package org.springframework.cloud.release.internal.spring;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.util.FileSystemUtils;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ReleaseJournalTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File project;
+	ProjectVersion snapshot = new ProjectVersion("spring-cloud-consul", "1.2.0.BUILD-SNAPSHOT");
+	ProjectVersion release = new ProjectVersion("spring-cloud-consul", "1.2.0.RC1");
+
+	@Before
+	public void setup() throws Exception {
+		this.project = this.tmp.newFolder();
+	}
+
+	@Test
+	public void should_resume_when_the_project_is_at_the_recorded_commit_and_version() throws Exception {
+		ReleaseJournal journal = ReleaseJournal.load(this.project, this.snapshot, "abc").forRelease(this.release);
+		journal.completed("UPDATING POMS", "abc", "1.2.0.RC1");
+		journal.completed("COMMITTING", "def", "1.2.0.RC1");
+
+		ReleaseJournal resumed = ReleaseJournal.load(this.project,
+				new ProjectVersion("spring-cloud-consul", "1.2.0.RC1"), "def");
+
+		then(resumed.completedTasks()).containsExactly("UPDATING POMS", "COMMITTING");
+		then(resumed.isCompleted("COMMITTING")).isTrue();
+		then(resumed.isCompleted("ARTIFACT DEPLOYMENT")).isFalse();
+		then(resumed.originalVersion().version).isEqualTo("1.2.0.BUILD-SNAPSHOT");
+		then(resumed.forRelease(this.release)).isSameAs(resumed);
+		then(journalContents()).contains("\"tag\"").contains("v1.2.0.RC1").contains("def");
+	}
+
+	@Test
+	public void should_resume_after_a_clean_build_has_failed() throws Exception {
+		File target = new File(this.project, "target");
+		ReleaseJournal.load(this.project, this.snapshot, "abc").forRelease(this.release)
+				.completed("UPDATING POMS", "abc", "1.2.0.RC1");
+		// mvn clean install - clean removes target and then the build fails
+		then(target.mkdirs()).isTrue();
+		Files.write(new File(target, "foo.jar").toPath(), "foo".getBytes());
+		FileSystemUtils.deleteRecursively(target);
+
+		ReleaseJournal resumed = ReleaseJournal.load(this.project,
+				new ProjectVersion("spring-cloud-consul", "1.2.0.RC1"), "abc");
+
+		then(resumed.completedTasks()).containsExactly("UPDATING POMS");
+		then(resumed.isCompleted("BUILD PROJECT")).isFalse();
+	}
+
+	@Test
+	public void should_ignore_the_journal_in_git() throws Exception {
+		ReleaseJournal.load(this.project, this.snapshot, "abc").forRelease(this.release)
+				.completed("UPDATING POMS", "abc", "1.2.0.RC1");
+
+		then(new String(Files.readAllBytes(new File(new File(this.project, ReleaseJournal.DIRECTORY),
+				".gitignore").toPath())).trim()).isEqualTo("*");
+	}
+
+	@Test
+	public void should_start_over_when_head_has_changed() throws Exception {
+		ReleaseJournal.load(this.project, this.snapshot, "abc").forRelease(this.release)
+				.completed("UPDATING POMS", "abc", "1.2.0.RC1");
+
+		ReleaseJournal journal = ReleaseJournal.load(this.project,
+				new ProjectVersion("spring-cloud-consul", "1.2.0.RC1"), "other");
+
+		then(journal.completedTasks()).isEmpty();
+		then(journal.originalVersion().version).isEqualTo("1.2.0.RC1");
+	}
+
+	@Test
+	public void should_start_over_when_pom_version_has_changed() throws Exception {
+		ReleaseJournal.load(this.project, this.snapshot, "abc").forRelease(this.release)
+				.completed("UPDATING POMS", "abc", "1.2.0.RC1");
+
+		ReleaseJournal journal = ReleaseJournal.load(this.project, this.snapshot, "abc");
+
+		then(journal.completedTasks()).isEmpty();
+	}
+
+	@Test
+	public void should_start_over_when_journal_was_stored_for_another_release() throws Exception {
+		ReleaseJournal.load(this.project, this.snapshot, "abc").forRelease(this.release)
+				.completed("UPDATING POMS", "abc", "1.2.0.RC1");
+
+		ReleaseJournal journal = ReleaseJournal.load(this.project,
+				new ProjectVersion("spring-cloud-consul", "1.2.0.RC1"), "abc");
+		then(journal.completedTasks()).containsExactly("UPDATING POMS");
+
+		ReleaseJournal anotherRelease = journal.forRelease(new ProjectVersion("spring-cloud-consul", "1.2.0.RC2"));
+
+		then(anotherRelease.completedTasks()).isEmpty();
+		then(anotherRelease.originalVersion().version).isEqualTo("1.2.0.RC1");
+	}
+
+	@Test
+	public void should_start_over_when_journal_was_stored_for_another_project() throws Exception {
+		ReleaseJournal.load(this.project, this.snapshot, "abc").forRelease(this.release)
+				.completed("UPDATING POMS", "abc", "1.2.0.RC1");
+
+		ReleaseJournal journal = ReleaseJournal.load(this.project,
+				new ProjectVersion("spring-cloud-sleuth", "1.2.0.RC1"), "abc");
+
+		then(journal.completedTasks()).isEmpty();
+	}
+
+	@Test
+	public void should_store_the_journal_before_the_release_version_is_known() throws Exception {
+		ReleaseJournal.load(this.project, this.snapshot, "abc")
+				.completed("BUILD PROJECT", "abc", "1.2.0.BUILD-SNAPSHOT");
+
+		ReleaseJournal resumed = ReleaseJournal.load(this.project, this.snapshot, "abc");
+
+		then(resumed.completedTasks()).containsExactly("BUILD PROJECT");
+		then(resumed.forRelease(this.release)).isSameAs(resumed);
+		then(journalContents()).doesNotContain("releaseVersion");
+	}
+
+	@Test
+	public void should_start_over_when_journal_is_corrupted() throws Exception {
+		File journalFile = new File(new File(this.project, ReleaseJournal.DIRECTORY), ReleaseJournal.FILE_NAME);
+		journalFile.getParentFile().mkdirs();
+		Files.write(journalFile.toPath(), "not a json".getBytes());
+
+		ReleaseJournal journal = ReleaseJournal.load(this.project, this.snapshot, "abc");
+
+		then(journal.completedTasks()).isEmpty();
+	}
+
+	@Test
+	public void should_not_store_anything_when_disabled() throws Exception {
+		ReleaseJournal journal = ReleaseJournal.disabled(this.snapshot);
+
+		journal.completed("UPDATING POMS", "abc", "1.2.0.RC1");
+
+		then(journal.isCompleted("UPDATING POMS")).isFalse();
+		then(new File(this.project, ReleaseJournal.DIRECTORY)).doesNotExist();
+	}
+
+	private String journalContents() throws Exception {
+		return new String(Files.readAllBytes(
+				new File(new File(this.project, ReleaseJournal.DIRECTORY), ReleaseJournal.FILE_NAME).toPath()));
+	}
+}
@@ -0,0 +1,205 @@
+package org.springframework.cloud.release.internal.spring;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaseReport;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ReleaserDaemonTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	List<List<String>> commands = new CopyOnWriteArrayList<>();
+	ReleaserDaemon daemon;
+	File tokenDirectory;
+	int port;
+
+	@Before
+	public void setup() throws IOException {
+		File project = this.tmp.newFolder("project");
+		Files.write(new File(project, "pom.xml").toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project>"
+				+ "<modelVersion>4.0.0</modelVersion><artifactId>spring-cloud-sleuth</artifactId>"
+				+ "<version>1.0.0.BUILD-SNAPSHOT</version></project>").getBytes(StandardCharsets.UTF_8));
+		ReleaserProperties properties = new ReleaserProperties();
+		properties.setWorkingDir(project.getPath());
+		properties.getDaemon().setPort(0);
+		this.tokenDirectory = this.tmp.newFolder("tokens");
+		properties.getDaemon().setTokenDirectory(this.tokenDirectory.getPath());
+		SpringReleaser releaser = new SpringReleaser(null, properties) {
+			@Override WarmState warmState() {
+				return new WarmState(project, () -> new Projects(Collections.singleton(
+						new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE"))), file -> "1234");
+			}
+
+			@Override ReleaseReport runTasks(List<String> references, WarmState state) {
+				ReleaserDaemonTests.this.commands.add(references);
+				ReleaseReport report = new ReleaseReport();
+				if (references.contains("BUILD PROJECT")) {
+					report.failed("BUILD PROJECT", 1, new IllegalStateException("Build failed"));
+				} else {
+					report.succeeded(references.get(0), 1);
+				}
+				return report;
+			}
+		};
+		this.daemon = new ReleaserDaemon(releaser, properties);
+		this.port = this.daemon.start();
+	}
+
+	@After
+	public void cleanup() {
+		this.daemon.stop();
+	}
+
+	@Test
+	public void should_run_the_tasks_sent_by_the_client() {
+		int exitCode = client("UPDATING POMS", "4");
+
+		then(exitCode).isEqualTo(0);
+		then(this.commands).containsExactly(Arrays.asList("UPDATING POMS", "4"));
+	}
+
+	@Test
+	public void should_return_the_exit_code_of_the_tasks() {
+		then(client("BUILD PROJECT")).isEqualTo(1);
+	}
+
+	@Test
+	public void should_reject_unknown_tasks_without_running_anything() {
+		then(client("NOT A TASK")).isEqualTo(ReleaserClient.WRONG_USAGE);
+		then(this.commands).isEmpty();
+	}
+
+	@Test
+	public void should_report_the_status_of_the_project() {
+		then(client("status")).isEqualTo(0);
+	}
+
+	@Test
+	public void should_stop_on_shutdown() throws InterruptedException {
+		then(client("shutdown")).isEqualTo(0);
+
+		this.daemon.awaitShutdown();
+		then(tokenFile()).doesNotExist();
+		then(client("status")).isEqualTo(ReleaserClient.NO_DAEMON);
+	}
+
+	@Test
+	public void should_store_the_token_in_a_file_readable_only_by_the_owner() throws IOException {
+		Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+		then(PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile().toPath())))
+				.isEqualTo("rw-------");
+	}
+
+	@Test
+	public void should_reject_commands_without_the_token() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + this.port + "/tasks")
+				.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write("4".getBytes(StandardCharsets.UTF_8));
+		}
+
+		then(connection.getResponseCode()).isEqualTo(401);
+		then(this.commands).isEmpty();
+	}
+
+	@Test
+	public void should_reject_commands_with_a_wrong_token() throws IOException {
+		Files.write(tokenFile().toPath(), "wrong".getBytes(StandardCharsets.UTF_8));
+
+		then(client("4")).isEqualTo(ReleaserClient.FAILURE);
+		then(this.commands).isEmpty();
+	}
+
+	@Test
+	public void should_reject_commands_sent_by_a_browser() throws IOException {
+		then(rawRequest("localhost:" + this.port, "Origin: http://example.com")).contains("403");
+		then(this.commands).isEmpty();
+	}
+
+	@Test
+	public void should_reject_commands_sent_to_another_host() throws IOException {
+		then(rawRequest("example.com:" + this.port)).contains("403");
+		then(this.commands).isEmpty();
+	}
+
+	@Test
+	public void should_accept_commands_sent_to_the_loopback_address() throws IOException {
+		then(rawRequest("127.0.0.1:" + this.port)).contains("200");
+		then(this.commands).hasSize(1);
+	}
+
+	@Test
+	public void should_recognize_loopback_hosts() {
+		then(ReleaserDaemon.isLoopbackHost("localhost")).isTrue();
+		then(ReleaserDaemon.isLoopbackHost("LOCALHOST:8765")).isTrue();
+		then(ReleaserDaemon.isLoopbackHost("127.0.0.1:8765")).isTrue();
+		then(ReleaserDaemon.isLoopbackHost("[::1]:8765")).isTrue();
+		then(ReleaserDaemon.isLoopbackHost("localhost.example.com")).isFalse();
+		then(ReleaserDaemon.isLoopbackHost("127.0.0.1.example.com")).isFalse();
+		then(ReleaserDaemon.isLoopbackHost("[::1")).isFalse();
+		then(ReleaserDaemon.isLoopbackHost(null)).isFalse();
+	}
+
+	private File tokenFile() {
+		return ReleaserDaemon.tokenFile(this.tokenDirectory, this.port);
+	}
+
+	/**
+	 * {@link HttpURLConnection} doesn't allow setting the {@code Host} and {@code Origin} headers
+	 */
+	private String rawRequest(String host, String... headers) throws IOException {
+		String token = new String(Files.readAllBytes(tokenFile().toPath()), StandardCharsets.UTF_8);
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port)) {
+			StringBuilder request = new StringBuilder("POST /tasks HTTP/1.1\r\nHost: ").append(host).append("\r\n")
+					.append(ReleaserDaemon.TOKEN_HEADER).append(": ").append(token).append("\r\n");
+			for (String header : headers) {
+				request.append(header).append("\r\n");
+			}
+			request.append("Content-Length: 1\r\nConnection: close\r\n\r\n4");
+			socket.getOutputStream().write(request.toString().getBytes(StandardCharsets.UTF_8));
+			socket.getOutputStream().flush();
+			return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))
+					.readLine();
+		}
+	}
+
+	private int client(String... args) {
+		String[] withPort = new String[args.length + 2];
+		withPort[0] = "--port=" + this.port;
+		withPort[1] = "--token-directory=" + this.tokenDirectory.getPath();
+		System.arraycopy(args, 0, withPort, 2, args.length);
+		return new ReleaserClient().run(withPort);
+	}
+}
@@ -0,0 +1,231 @@
+package org.springframework.cloud.release.internal.spring;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.ReleaseReport;
+import org.springframework.cloud.release.internal.Releaser;
+import org.springframework.cloud.release.internal.ReleaserProperties;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
+import org.springframework.cloud.release.internal.tracing.Span;
+import org.springframework.cloud.release.internal.tracing.Tracer;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SpringReleaserTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	CountDownLatch retrievalBlocked = new CountDownLatch(1);
+	AtomicInteger builds = new AtomicInteger();
+	AtomicInteger headReads = new AtomicInteger();
+	boolean failBuild;
+	volatile String head = "abc";
+	String versionAfterBuild;
+	File project;
+	ReleaserProperties properties = new ReleaserProperties();
+	Releaser releaser = new Releaser(null, null, null, null) {
+		@Override public Projects retrieveVersionsFromSCRelease() {
+			try {
+				SpringReleaserTests.this.retrievalBlocked.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return new Projects(Collections.singleton(new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE")));
+		}
+
+		@Override public void buildProject() {
+			SpringReleaserTests.this.builds.incrementAndGet();
+			if (SpringReleaserTests.this.failBuild) {
+				throw new IllegalStateException("Build failed");
+			}
+			if (SpringReleaserTests.this.versionAfterBuild != null) {
+				try {
+					writePom(SpringReleaserTests.this.versionAfterBuild);
+				}
+				catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+				SpringReleaserTests.this.head = "def";
+			}
+		}
+
+		@Override public String headCommit(File project) {
+			SpringReleaserTests.this.headReads.incrementAndGet();
+			return SpringReleaserTests.this.head;
+		}
+	};
+
+	@Before
+	public void setup() throws IOException {
+		this.project = this.tmp.newFolder("project");
+		writePom("1.0.0.BUILD-SNAPSHOT");
+		this.properties.setWorkingDir(this.project.getPath());
+		this.properties.getBatch().setTasks(Collections.singletonList("BUILD PROJECT"));
+	}
+
+	@After
+	public void cleanup() {
+		this.retrievalBlocked.countDown();
+		Tracer.enable(false);
+		Tracer.reset();
+	}
+
+	@Test(timeout = 10000)
+	public void should_build_the_project_while_the_versions_are_still_being_retrieved() {
+		ReleaseReport report = new SpringReleaser(this.releaser, this.properties).release();
+
+		then(report.exitCode()).isEqualTo(0);
+		then(this.builds.get()).isEqualTo(1);
+		then(new File(new File(this.project, ReleaseJournal.DIRECTORY), ReleaseJournal.FILE_NAME)).exists();
+	}
+
+	@Test(timeout = 10000)
+	public void should_not_touch_the_journal_when_it_is_disabled() {
+		this.properties.getJournal().setEnabled(false);
+
+		ReleaseReport report = new SpringReleaser(this.releaser, this.properties).release();
+
+		then(report.exitCode()).isEqualTo(0);
+		then(this.builds.get()).isEqualTo(1);
+		then(this.headReads.get()).isZero();
+		then(new File(this.project, ReleaseJournal.DIRECTORY)).doesNotExist();
+	}
+
+	@Test(timeout = 10000)
+	public void should_skip_the_tasks_completed_in_a_previous_run_of_the_same_release() {
+		this.retrievalBlocked.countDown();
+		journalOfRelease("1.0.0.RELEASE").completed("BUILD PROJECT", "abc", "1.0.0.BUILD-SNAPSHOT");
+
+		ReleaseReport report = new SpringReleaser(this.releaser, this.properties).release();
+
+		then(report.exitCode()).isEqualTo(0);
+		then(this.builds.get()).isZero();
+		then(report.results()).extracting("message").containsExactly("completed in a previous run");
+	}
+
+	@Test(timeout = 10000)
+	public void should_start_over_when_the_journal_was_stored_for_another_release() {
+		this.retrievalBlocked.countDown();
+		journalOfRelease("1.0.0.RC1").completed("BUILD PROJECT", "abc", "1.0.0.BUILD-SNAPSHOT");
+
+		ReleaseReport report = new SpringReleaser(this.releaser, this.properties).release();
+
+		then(report.exitCode()).isEqualTo(0);
+		then(this.builds.get()).isEqualTo(1);
+	}
+
+	@Test(timeout = 10000)
+	public void should_trace_only_the_current_release() {
+		this.retrievalBlocked.countDown();
+		this.properties.getJournal().setEnabled(false);
+		this.properties.getTracing().setEnabled(true);
+		this.properties.getTracing().setFile(new File(this.tmp.getRoot(), "trace.json").getPath());
+		new SpringReleaser(this.releaser, this.properties).release();
+
+		new SpringReleaser(this.releaser, this.properties).release();
+
+		then(Tracer.finishedSpans().stream().filter(span -> "releaser.release".equals(span.getName())).count())
+				.isEqualTo(1L);
+	}
+
+	@Test(timeout = 10000)
+	public void should_mark_the_span_of_a_failed_task() {
+		this.retrievalBlocked.countDown();
+		this.failBuild = true;
+		this.properties.getTracing().setEnabled(true);
+		this.properties.getTracing().setFile(new File(this.tmp.getRoot(), "trace.json").getPath());
+
+		new SpringReleaser(this.releaser, this.properties).release();
+
+		Span task = Tracer.finishedSpans().stream().filter(span -> "task.BUILD PROJECT".equals(span.getName()))
+				.findFirst().get();
+		then(task.getAttributes()).containsEntry("error", "java.lang.IllegalStateException: Build failed");
+	}
+
+	@Test(timeout = 10000)
+	public void should_report_a_task_picked_from_the_menu() {
+		this.properties.getBatch().setTasks(Collections.emptyList());
+
+		ReleaseReport report = menuReleaser(3).release();
+
+		then(report.exitCode()).isEqualTo(0);
+		then(this.builds.get()).isEqualTo(1);
+		then(report.results()).extracting("task").containsExactly("BUILD PROJECT");
+		then(new File(this.project, ReleaseJournal.DIRECTORY)).doesNotExist();
+	}
+
+	@Test(timeout = 10000)
+	public void should_report_a_failure_of_a_task_picked_from_the_menu() {
+		this.properties.getBatch().setTasks(Collections.emptyList());
+		this.failBuild = true;
+
+		ReleaseReport report = menuReleaser(3).release();
+
+		then(report.exitCode()).isEqualTo(1);
+		then(report.results()).extracting("task").containsExactly("BUILD PROJECT");
+	}
+
+	@Test(timeout = 10000)
+	public void should_read_the_project_again_after_a_daemon_command() {
+		this.retrievalBlocked.countDown();
+		this.versionAfterBuild = "1.0.1.BUILD-SNAPSHOT";
+		SpringReleaser springReleaser = new SpringReleaser(this.releaser, this.properties);
+		WarmState state = springReleaser.warmState();
+		then(state.projectVersion().version).isEqualTo("1.0.0.BUILD-SNAPSHOT");
+
+		springReleaser.runTasks(Collections.singletonList("BUILD PROJECT"), state);
+		ReleaseReport report = springReleaser.runTasks(Collections.singletonList("BUILD PROJECT"), state);
+
+		then(state.projectVersion().version).isEqualTo("1.0.1.BUILD-SNAPSHOT");
+		then(state.headCommit()).isEqualTo("def");
+		then(this.builds.get()).isEqualTo(1);
+		then(report.results()).extracting("message").containsExactly("completed in a previous run");
+	}
+
+	@Test(timeout = 10000)
+	public void should_run_the_task_when_the_flight_recording_fails_to_start() {
+		this.properties.getJournal().setEnabled(false);
+		this.properties.getJfr().setEnabled(true);
+		this.properties.getJfr().setSettings(new File(this.tmp.getRoot(), "missing.jfc").getPath());
+
+		ReleaseReport report = new SpringReleaser(this.releaser, this.properties).release();
+
+		then(report.exitCode()).isEqualTo(0);
+		then(this.builds.get()).isEqualTo(1);
+		then(new File(new File(this.project, ReleaseJournal.DIRECTORY), ".gitignore")).hasContent("*");
+	}
+
+	private SpringReleaser menuReleaser(int option) {
+		return new SpringReleaser(this.releaser, this.properties) {
+			@Override int chosenOption() {
+				return option;
+			}
+		};
+	}
+
+	private void writePom(String version) throws IOException {
+		Files.write(new File(this.project, "pom.xml").toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<project><modelVersion>4.0.0</modelVersion><artifactId>spring-cloud-sleuth</artifactId>"
+				+ "<version>" + version + "</version></project>").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private ReleaseJournal journalOfRelease(String version) {
+		return ReleaseJournal.load(this.project, new ProjectVersion(this.project), "abc")
+				.forRelease(new ProjectVersion("spring-cloud-sleuth", version));
+	}
+}
@@ -0,0 +1,71 @@
+package org.springframework.cloud.release.internal.spring;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class VersionsRetrievalTests {
+
+	@Test
+	public void should_return_versions_retrieved_in_the_background() {
+		Projects projects = new Projects(Collections.singleton(new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE")));
+		CountDownLatch latch = new CountDownLatch(1);
+
+		VersionsRetrieval retrieval = VersionsRetrieval.start(() -> {
+			await(latch);
+			return projects;
+		});
+		latch.countDown();
+
+		then(retrieval.await()).isSameAs(projects);
+		then(retrieval.await()).isSameAs(projects);
+	}
+
+	@Test
+	public void should_rethrow_the_exception_of_a_failed_retrieval() {
+		VersionsRetrieval retrieval = VersionsRetrieval.start(() -> {
+			throw new IllegalStateException("Failed to clone");
+		});
+
+		thenThrownBy(retrieval::await).isInstanceOf(IllegalStateException.class)
+				.hasMessage("Failed to clone");
+	}
+
+	@Test
+	public void should_interrupt_a_cancelled_retrieval() throws InterruptedException {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		VersionsRetrieval retrieval = VersionsRetrieval.start(() -> {
+			try {
+				Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+			}
+			catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return null;
+		});
+
+		retrieval.cancel();
+
+		then(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		thenThrownBy(retrieval::await).hasMessageContaining("cancelled");
+	}
+
+	private void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package org.springframework.cloud.release.internal.spring;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.release.internal.pom.ProjectVersion;
+import org.springframework.cloud.release.internal.pom.Projects;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class WarmStateTests {
+
+	@Rule public TemporaryFolder tmp = new TemporaryFolder();
+	File project;
+	AtomicInteger retrievals = new AtomicInteger();
+	AtomicInteger headReads = new AtomicInteger();
+	WarmState state;
+
+	@Before
+	public void setup() throws IOException {
+		this.project = this.tmp.newFolder("project");
+		new File(this.project, ".git/refs/heads").mkdirs();
+		write(new File(this.project, ".git/HEAD"), "ref: refs/heads/master");
+		writePom("1.0.0.BUILD-SNAPSHOT");
+		this.state = new WarmState(this.project, () -> {
+			this.retrievals.incrementAndGet();
+			return new Projects(Collections.singleton(new ProjectVersion("spring-cloud-sleuth", "1.0.0.RELEASE")));
+		}, project -> "commit-" + this.headReads.incrementAndGet());
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		this.state.close();
+	}
+
+	@Test
+	public void should_retrieve_versions_only_once() {
+		then(this.state.versionsRetrieval().await()).hasSize(1);
+		then(this.state.versionsRetrieval().await()).hasSize(1);
+
+		then(this.retrievals.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void should_retrieve_versions_again_on_refresh() {
+		this.state.versionsRetrieval().await();
+
+		this.state.refresh();
+
+		this.state.versionsRetrieval().await();
+		then(this.retrievals.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void should_retrieve_versions_again_when_the_previous_retrieval_has_failed() {
+		AtomicInteger attempts = new AtomicInteger();
+		WarmState state = new WarmState(this.project, () -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw new IllegalStateException("Failed to clone");
+			}
+			return new Projects(Collections.emptySet());
+		}, project -> "commit");
+		VersionsRetrieval failed = state.versionsRetrieval();
+		awaitUntil(failed::hasFailed);
+
+		then(state.versionsRetrieval().await()).isEmpty();
+		then(attempts.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void should_invalidate_the_parsed_pom_once_it_changes() throws IOException {
+		this.state.watch();
+		then(this.state.projectVersion().version).isEqualTo("1.0.0.BUILD-SNAPSHOT");
+		then(this.state.headCommit()).isEqualTo("commit-1");
+
+		writePom("1.0.0.RELEASE");
+
+		awaitUntil(() -> !this.state.isProjectVersionCached());
+		then(this.state.projectVersion().version).isEqualTo("1.0.0.RELEASE");
+		then(this.state.isHeadCommitCached()).isTrue();
+		then(this.state.headCommit()).isEqualTo("commit-1");
+	}
+
+	@Test
+	public void should_invalidate_the_git_state_once_a_ref_moves() throws IOException {
+		this.state.watch();
+		then(this.state.headCommit()).isEqualTo("commit-1");
+		this.state.projectVersion();
+
+		write(new File(this.project, ".git/refs/heads/master"), "1234");
+
+		awaitUntil(() -> !this.state.isHeadCommitCached());
+		then(this.state.headCommit()).isEqualTo("commit-2");
+		then(this.state.isProjectVersionCached()).isTrue();
+	}
+
+	private void writePom(String version) throws IOException {
+		write(new File(this.project, "pom.xml"), "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<project>"
+				+ "<modelVersion>4.0.0</modelVersion><groupId>org.springframework.cloud</groupId>"
+				+ "<artifactId>spring-cloud-sleuth</artifactId><version>" + version + "</version></project>");
+	}
+
+	private void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void awaitUntil(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(15);
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("The condition wasn't met in time");
+			}
+			try {
+				Thread.sleep(20);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError(e);
+			}
+		}
+	}
+}